@@ -2,8 +2,10 @@ package com.rodrigopettenon.orderflow;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OrderFlowApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(OrderFlowApplication.class, args);
@@ -1,11 +1,19 @@
 package com.rodrigopettenon.orderflow.controllers;
 
 import com.rodrigopettenon.orderflow.dtos.StandardObjectReturn;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
 
 @Component
 public class BaseController {
@@ -13,4 +21,34 @@ public class BaseController {
     protected ResponseEntity<StandardObjectReturn> createObjectReturn(Object object) {
         return ResponseEntity.ok().body(new StandardObjectReturn(Instant.now(), HttpStatus.CREATED.value() , null, object));
     }
+
+    // Sem ETag (pedido ainda no journal, por exemplo) a resposta sai como a de createObjectReturn(object)
+    protected ResponseEntity<StandardObjectReturn> createObjectReturn(Object object, String eTag) {
+        if (isNull(eTag)) {
+            return createObjectReturn(object);
+        }
+        return ResponseEntity.ok().eTag(eTag).body(new StandardObjectReturn(Instant.now(), HttpStatus.CREATED.value(), null, object));
+    }
+
+    // true quando o If-None-Match ainda vale: o Spring já respondeu 304 e o controller retorna null.
+    // A versão atual só é buscada quando o cliente manda o header
+    protected boolean isNotModified(WebRequest request, Supplier<String> currentETag) {
+        if (isNull(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return false;
+        }
+        String eTag = currentETag.get();
+        return !isNull(eTag) && request.checkNotModified(eTag);
+    }
+
+    protected ResponseEntity<StandardObjectReturn> createAcceptedReturn(Object object) {
+        return ResponseEntity.accepted().body(new StandardObjectReturn(Instant.now(), HttpStatus.ACCEPTED.value(), null, object));
+    }
+
+    protected ResponseEntity<StreamingResponseBody> createExportReturn(String fileName, ExportFormat format,
+                                                                       StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "." + format.getExtension() + "\"")
+                .body(body);
+    }
 }
@@ -2,12 +2,21 @@ package com.rodrigopettenon.orderflow.controllers;
 
 
 import com.rodrigopettenon.orderflow.dtos.ClientDto;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
+import com.rodrigopettenon.orderflow.services.ClientImportService;
 import com.rodrigopettenon.orderflow.services.ClientService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.util.UUID;
+
+import static com.rodrigopettenon.orderflow.utils.ETagUtil.rowETag;
 
 @RestController
 @RequestMapping("/clients")
@@ -16,6 +25,9 @@ public class ClientController extends BaseController{
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private ClientImportService clientImportService;
+
 
     @PostMapping("/save")
     public ResponseEntity<?> save(@RequestBody ClientDto clientDto){
@@ -23,6 +35,16 @@ public class ClientController extends BaseController{
         return createObjectReturn(clientDto);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importClients(@RequestParam("file") MultipartFile file) {
+        return createObjectReturn(clientImportService.startImport(file));
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<?> findImportJob(@PathVariable(name = "jobId") UUID jobId) {
+        return createObjectReturn(clientImportService.findImportJob(jobId));
+    }
+
     @GetMapping("/email/{email}")
     public ResponseEntity<?> findByEmail(@PathVariable(name = "email") String email) {
         return createObjectReturn(clientService.findByEmail(email));
@@ -33,9 +55,17 @@ public class ClientController extends BaseController{
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(value = "linesPerPage", defaultValue = "5") Integer linesPerPage,
             @RequestParam(value = "direction", defaultValue = "asc") String direction,
-            @RequestParam(value = "orderBy", defaultValue = "name") String orderBy) {
+            @RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+            @RequestParam(required = false) String cursor) {
+
+        return createObjectReturn(clientService.findAllClients(page, linesPerPage, direction, orderBy, cursor));
+    }
 
-        return createObjectReturn(clientService.findAllClients(page, linesPerPage, direction, orderBy));
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportClients(
+            @RequestParam(name = "format", defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.fromValueOrDefault(format);
+        return createExportReturn("clients", exportFormat, clientService.exportClients(exportFormat));
     }
 
     @GetMapping("/filter")
@@ -48,14 +78,20 @@ public class ClientController extends BaseController{
             @RequestParam(defaultValue = "0")Integer page,
             @RequestParam(value = "linesPerPage", defaultValue = "10") Integer linesPerPage,
             @RequestParam(value = "direction", defaultValue = "asc") String direction,
-            @RequestParam(value = "orderBy", defaultValue = "name") String orderBy) {
+            @RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(name = "total", defaultValue = "exact") String total) {
 
-        return createObjectReturn(clientService.findFilteredClients(name, email, cpf, birthStart, birthEnd, page, linesPerPage, direction, orderBy));
+        return createObjectReturn(clientService.findFilteredClients(name, email, cpf, birthStart, birthEnd, page, linesPerPage, direction, orderBy, cursor, total));
     }
 
     @GetMapping("/cpf/{cpf}")
-    public ResponseEntity<?> findByCPF(@PathVariable(name = "cpf") String cpf) {
-        return createObjectReturn(clientService.findByCpf(cpf));
+    public ResponseEntity<?> findByCPF(@PathVariable(name = "cpf") String cpf, WebRequest request) {
+        if (isNotModified(request, () -> clientService.findETagByCpf(cpf))) {
+            return null;
+        }
+        ClientDto clientDto = clientService.findByCpf(cpf);
+        return createObjectReturn(clientDto, rowETag(clientDto.getId(), clientDto.getRowVersion()));
     }
 
     @PutMapping("/update/{cpf}")
@@ -1,11 +1,13 @@
 package com.rodrigopettenon.orderflow.controllers;
 
 import com.rodrigopettenon.orderflow.dtos.ItemOrderDto;
+import com.rodrigopettenon.orderflow.services.IdempotencyService;
 import com.rodrigopettenon.orderflow.services.ItemOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -15,9 +17,19 @@ public class ItemOrderController extends BaseController{
     @Autowired
     private ItemOrderService itemOrderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping("/save")
-    public ResponseEntity<?> saveItemOrder(@RequestBody ItemOrderDto itemOrderDto) {
-        return createObjectReturn(itemOrderService.saveItemOrder(itemOrderDto));
+    public ResponseEntity<?> saveItemOrder(@RequestBody ItemOrderDto itemOrderDto,
+                                           @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "item-orders/save", itemOrderDto,
+                () -> createObjectReturn(itemOrderService.saveItemOrder(itemOrderDto)));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> saveItemOrdersBatch(@RequestBody List<ItemOrderDto> itemOrderDtos) {
+        return createObjectReturn(itemOrderService.saveItemOrdersBatch(itemOrderDtos));
     }
 
     @GetMapping("/filter")
@@ -29,9 +41,10 @@ public class ItemOrderController extends BaseController{
                                                     @RequestParam(defaultValue = "0") Integer page,
                                                     @RequestParam(name = "linesPerPage", defaultValue = "10") Integer linesPerPage,
                                                     @RequestParam(name = "direction", defaultValue = "asc") String direction,
-                                                    @RequestParam(name = "orderBy", defaultValue = "order_id") String orderBy) {
+                                                    @RequestParam(name = "orderBy", defaultValue = "order_id") String orderBy,
+                                                    @RequestParam(name = "total", defaultValue = "exact") String total) {
 
-        return createObjectReturn(itemOrderService.findFilteredItemOrders(id, orderId, productId, minQuantity, maxQuantity, page, linesPerPage, direction, orderBy));
+        return createObjectReturn(itemOrderService.findFilteredItemOrders(id, orderId, productId, minQuantity, maxQuantity, page, linesPerPage, direction, orderBy, total));
     }
 
     @GetMapping("/full-details")
@@ -42,8 +55,9 @@ public class ItemOrderController extends BaseController{
                                                        @RequestParam(defaultValue = "0") Integer page,
                                                        @RequestParam(name = "linesPerPage", defaultValue = "10") Integer linesPerPage,
                                                        @RequestParam(name = "direction", defaultValue = "asc") String direction,
-                                                       @RequestParam(name = "orderBy", defaultValue = "quantity") String orderBy) {
-        return createObjectReturn(itemOrderService.findFullDetailsItemOrders(itemOrderId, productId, orderId, clientId, page, linesPerPage, direction, orderBy));
+                                                       @RequestParam(name = "orderBy", defaultValue = "quantity") String orderBy,
+                                                       @RequestParam(name = "total", defaultValue = "exact") String total) {
+        return createObjectReturn(itemOrderService.findFullDetailsItemOrders(itemOrderId, productId, orderId, clientId, page, linesPerPage, direction, orderBy, total));
     }
 
 
@@ -1,14 +1,23 @@
 package com.rodrigopettenon.orderflow.controllers;
 
+import com.rodrigopettenon.orderflow.dtos.FullOrderDto;
 import com.rodrigopettenon.orderflow.dtos.OrderDto;
+import com.rodrigopettenon.orderflow.dtos.OrderStatusBulkDto;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
+import com.rodrigopettenon.orderflow.services.IdempotencyService;
 import com.rodrigopettenon.orderflow.services.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
+import static com.rodrigopettenon.orderflow.utils.ETagUtil.rowETag;
+
 @RestController
 @RequestMapping("/order")
 public class OrderController extends BaseController{
@@ -16,9 +25,33 @@ public class OrderController extends BaseController{
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping("/save")
-    public ResponseEntity<?> saveOrder(@RequestBody OrderDto orderDto) {
-        return createObjectReturn(orderService.saveOrder(orderDto));
+    public ResponseEntity<?> saveOrder(@RequestBody OrderDto orderDto,
+                                       @RequestParam(name = "async", defaultValue = "false") Boolean async,
+                                       @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "order/save", orderDto, () -> {
+            if (!async) {
+                return createObjectReturn(orderService.saveOrder(orderDto));
+            }
+            OrderDto acceptedOrder = orderService.acceptOrder(orderDto);
+            if (Boolean.FALSE.equals(acceptedOrder.getPersisted())) {
+                return createAcceptedReturn(acceptedOrder);
+            }
+            return createObjectReturn(acceptedOrder);
+        });
+    }
+
+    @PostMapping("/full")
+    public ResponseEntity<?> saveFullOrder(@RequestBody FullOrderDto fullOrderDto) {
+        return createObjectReturn(orderService.saveFullOrder(fullOrderDto));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> saveOrdersBatch(@RequestBody List<OrderDto> orderDtos) {
+        return createObjectReturn(orderService.saveOrdersBatch(orderDtos));
     }
 
     @GetMapping("/filter")
@@ -31,9 +64,11 @@ public class OrderController extends BaseController{
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(name = "linesPerPage", defaultValue = "10") Integer linesPerPage,
             @RequestParam(name = "direction", defaultValue = "asc")String direction,
-            @RequestParam(name = "orderBy", defaultValue = "order_date") String orderBy) {
+            @RequestParam(name = "orderBy", defaultValue = "order_date") String orderBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(name = "total", defaultValue = "exact") String total) {
         return createObjectReturn(orderService.findFilteredOrders(id, clientId, dateTimeStart, dateTimeEnd,
-                status, page, linesPerPage, direction, orderBy));
+                status, page, linesPerPage, direction, orderBy, cursor, total));
     }
 
     @GetMapping("/details")
@@ -47,9 +82,27 @@ public class OrderController extends BaseController{
                                                        @RequestParam(defaultValue = "0") Integer page,
                                                        @RequestParam(name = "linesPerPage", defaultValue = "10") Integer linesPerPage,
                                                        @RequestParam(name = "direction", defaultValue = "asc") String direction,
-                                                       @RequestParam(name = "orderBy", defaultValue = "order_date") String orderBy) {
+                                                       @RequestParam(name = "orderBy", defaultValue = "order_date") String orderBy,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(name = "total", defaultValue = "exact") String total) {
         return createObjectReturn(orderService.findFilteredOrdersDetails(orderId, clientId, dateTimeStart, dateTimeEnd, minQuantity, maxQuantity,
-                status, page, linesPerPage, direction, orderBy));
+                status, page, linesPerPage, direction, orderBy, cursor, total));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrdersDetails(@RequestParam(required = false) UUID orderId,
+                                                                     @RequestParam(required = false) Long clientId,
+                                                                     @RequestParam(required = false) LocalDateTime dateTimeStart,
+                                                                     @RequestParam(required = false) LocalDateTime dateTimeEnd,
+                                                                     @RequestParam(required = false) Integer minQuantity,
+                                                                     @RequestParam(required = false) Integer maxQuantity,
+                                                                     @RequestParam(required = false) String status,
+                                                                     @RequestParam(name = "direction", defaultValue = "asc") String direction,
+                                                                     @RequestParam(name = "orderBy", defaultValue = "order_date") String orderBy,
+                                                                     @RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromValueOrDefault(format);
+        return createExportReturn("orders", exportFormat, orderService.exportOrdersDetails(orderId, clientId,
+                dateTimeStart, dateTimeEnd, minQuantity, maxQuantity, status, direction, orderBy, exportFormat));
     }
 
     @GetMapping("relevant-data")
@@ -60,8 +113,9 @@ public class OrderController extends BaseController{
                                                            @RequestParam(defaultValue = "0") Integer page,
                                                            @RequestParam(name = "linesPerPage", defaultValue = "10") Integer linesPerPage,
                                                            @RequestParam(name = "direction", defaultValue = "asc") String direction,
-                                                           @RequestParam(name = "orderBy", defaultValue = "client_name") String orderBy) {
-        return createObjectReturn(orderService.findFilteredRelevantOrderData(clientId, dateTimeStart, dateTimeEnd, status, page, linesPerPage, direction, orderBy));
+                                                           @RequestParam(name = "orderBy", defaultValue = "client_name") String orderBy,
+                                                           @RequestParam(name = "total", defaultValue = "exact") String total) {
+        return createObjectReturn(orderService.findFilteredRelevantOrderData(clientId, dateTimeStart, dateTimeEnd, status, page, linesPerPage, direction, orderBy, total));
     }
 
     @GetMapping("client-sales-report")
@@ -73,14 +127,24 @@ public class OrderController extends BaseController{
                                                            @RequestParam(defaultValue = "0") Integer page,
                                                            @RequestParam(name = "linesPerPage", defaultValue = "10") Integer linesPerPage,
                                                            @RequestParam(name = "direction", defaultValue = "asc") String direction,
-                                                           @RequestParam(name = "orderBy", defaultValue = "total_order") String orderBy) {
+                                                           @RequestParam(name = "orderBy", defaultValue = "total_order") String orderBy,
+                                                           @RequestParam(name = "total", defaultValue = "exact") String total) {
         return createObjectReturn(orderService.findFilteredClientSalesReport(dateTimeStart, dateTimeEnd, minOrder,
-                maxOrder, status, page, linesPerPage, direction, orderBy));
+                maxOrder, status, page, linesPerPage, direction, orderBy, total));
     }
 
     @GetMapping("/id")
-    public ResponseEntity<?> findById(@RequestParam UUID id) {
-        return createObjectReturn(orderService.findById(id));
+    public ResponseEntity<?> findById(@RequestParam UUID id, WebRequest request) {
+        if (isNotModified(request, () -> orderService.findETagById(id))) {
+            return null;
+        }
+        OrderDto orderDto = orderService.findById(id);
+        return createObjectReturn(orderDto, rowETag(orderDto.getId(), orderDto.getRowVersion()));
+    }
+
+    @PutMapping("/status/bulk")
+    public ResponseEntity<?> updateOrdersStatusBulk(@RequestBody OrderStatusBulkDto orderStatusBulkDto) {
+        return createObjectReturn(orderService.updateOrdersStatusBulk(orderStatusBulkDto));
     }
 
     @PutMapping("/update")
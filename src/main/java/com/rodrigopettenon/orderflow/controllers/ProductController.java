@@ -1,10 +1,17 @@
 package com.rodrigopettenon.orderflow.controllers;
 
 import com.rodrigopettenon.orderflow.dtos.ProductDto;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
 import com.rodrigopettenon.orderflow.services.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+import static com.rodrigopettenon.orderflow.utils.ETagUtil.rowETag;
 
 @RestController
 @RequestMapping("/products")
@@ -24,8 +31,16 @@ public class ProductController extends BaseController{
             @RequestParam(defaultValue = "0")Integer page,
             @RequestParam(value = "linesPerPage", defaultValue = "10") Integer linesPerPage,
             @RequestParam(value = "direction", defaultValue = "asc") String direction,
-            @RequestParam(value = "orderBy", defaultValue = "name") String orderBy) {
-        return createObjectReturn(productService.findAllProducts(page, linesPerPage, direction, orderBy));
+            @RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+            @RequestParam(required = false) String cursor) {
+        return createObjectReturn(productService.findAllProducts(page, linesPerPage, direction, orderBy, cursor));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(name = "format", defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.fromValueOrDefault(format);
+        return createExportReturn("products", exportFormat, productService.exportProducts(exportFormat));
     }
 
     @GetMapping("/filter")
@@ -37,13 +52,19 @@ public class ProductController extends BaseController{
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(value = "linesPerPage", defaultValue = "10") Integer linesPerPage,
             @RequestParam(value = "direction", defaultValue = "asc")String direction,
-            @RequestParam(value = "orderBy", defaultValue = "name")String orderBy) {
-        return createObjectReturn(productService.findFilteredProducts(name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy));
+            @RequestParam(value = "orderBy", defaultValue = "name")String orderBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(name = "total", defaultValue = "exact") String total) {
+        return createObjectReturn(productService.findFilteredProducts(name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy, cursor, total));
     }
 
     @GetMapping("/sku")
-    public ResponseEntity<?> findBySku(@RequestParam String sku) {
-        return createObjectReturn(productService.findBySku(sku));
+    public ResponseEntity<?> findBySku(@RequestParam String sku, WebRequest request) {
+        if (isNotModified(request, () -> productService.findETagBySku(sku))) {
+            return null;
+        }
+        ProductDto productDto = productService.findBySku(sku);
+        return createObjectReturn(productDto, rowETag(productDto.getId(), productDto.getRowVersion()));
     }
 
     @PutMapping("/update")
@@ -51,6 +72,11 @@ public class ProductController extends BaseController{
         return createObjectReturn(productService.updateBySku(sku, productDto));
     }
 
+    @PutMapping("/bulk")
+    public ResponseEntity<?> upsertProductsBySku(@RequestBody List<ProductDto> productDtos) {
+        return createObjectReturn(productService.upsertProductsBySku(productDtos));
+    }
+
     @DeleteMapping("/delete")
     public ResponseEntity<?> deleteBySku(@RequestParam String sku) {
         productService.deleteBySku(sku);
@@ -0,0 +1,49 @@
+package com.rodrigopettenon.orderflow.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+
+// Resultado de uma linha de um lote: o item gravado ou o motivo da falha, na posição em que foi enviado
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResultDto<T> implements Serializable {
+
+    private static final long serialVersionUID = 3902471857366529140L;
+
+    private Integer index;
+    private T item;
+    private String error;
+
+    public BatchItemResultDto() {
+    }
+
+    public BatchItemResultDto(Integer index, T item, String error) {
+        this.index = index;
+        this.item = item;
+        this.error = error;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public void setItem(T item) {
+        this.item = item;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,48 @@
+package com.rodrigopettenon.orderflow.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+public class BatchResultDto<T> implements Serializable {
+
+    private static final long serialVersionUID = -4108735262190341835L;
+
+    private Integer succeeded;
+    private Integer failed;
+    private List<BatchItemResultDto<T>> items;
+
+    public BatchResultDto() {
+    }
+
+    public BatchResultDto(List<BatchItemResultDto<T>> items) {
+        this.items = items;
+        this.failed = (int) items.stream().filter(item -> nonNull(item.getError())).count();
+        this.succeeded = items.size() - failed;
+    }
+
+    public Integer getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(Integer succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public Integer getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Integer failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchItemResultDto<T>> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchItemResultDto<T>> items) {
+        this.items = items;
+    }
+}
@@ -1,6 +1,7 @@
 package com.rodrigopettenon.orderflow.dtos;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.format.annotation.DateTimeFormat;
 
@@ -20,6 +21,10 @@ public class ClientDto implements Serializable {
     @JsonFormat(pattern = "dd/MM/yyyy")
     private LocalDate birth;
 
+    // Só para o ETag: não sai no JSON nem é lida da requisição
+    @JsonIgnore
+    private Long rowVersion;
+
     public ClientDto() {
     }
 
@@ -62,4 +67,12 @@ public class ClientDto implements Serializable {
     public void setBirth(LocalDate birth) {
         this.birth = birth;
     }
+
+    public Long getRowVersion() {
+        return rowVersion;
+    }
+
+    public void setRowVersion(Long rowVersion) {
+        this.rowVersion = rowVersion;
+    }
 }
@@ -0,0 +1,78 @@
+package com.rodrigopettenon.orderflow.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+// Andamento de uma importação de clientes; rejections traz a linha do arquivo (index) e o motivo
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClientImportJobDto implements Serializable {
+
+    private static final long serialVersionUID = 7310562948817264035L;
+
+    private UUID jobId;
+    private String status;
+    private Long processedRows;
+    private Long importedRows;
+    private Long rejectedRows;
+    private List<BatchItemResultDto<ClientDto>> rejections;
+    private String error;
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(UUID jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getProcessedRows() {
+        return processedRows;
+    }
+
+    public void setProcessedRows(Long processedRows) {
+        this.processedRows = processedRows;
+    }
+
+    public Long getImportedRows() {
+        return importedRows;
+    }
+
+    public void setImportedRows(Long importedRows) {
+        this.importedRows = importedRows;
+    }
+
+    public Long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public void setRejectedRows(Long rejectedRows) {
+        this.rejectedRows = rejectedRows;
+    }
+
+    public List<BatchItemResultDto<ClientDto>> getRejections() {
+        return rejections;
+    }
+
+    public void setRejections(List<BatchItemResultDto<ClientDto>> rejections) {
+        this.rejections = rejections;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
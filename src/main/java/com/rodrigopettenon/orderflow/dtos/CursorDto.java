@@ -0,0 +1,55 @@
+package com.rodrigopettenon.orderflow.dtos;
+
+import java.io.Serializable;
+
+public class CursorDto implements Serializable {
+
+    private static final long serialVersionUID = 3871265409115327742L;
+
+    private String orderBy;
+    private String direction;
+    private String sortValue;
+    private String lastKey;
+
+    public CursorDto() {
+    }
+
+    public CursorDto(String orderBy, String direction, String sortValue, String lastKey) {
+        this.orderBy = orderBy;
+        this.direction = direction;
+        this.sortValue = sortValue;
+        this.lastKey = lastKey;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    public void setOrderBy(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    public void setSortValue(String sortValue) {
+        this.sortValue = sortValue;
+    }
+
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public void setLastKey(String lastKey) {
+        this.lastKey = lastKey;
+    }
+}
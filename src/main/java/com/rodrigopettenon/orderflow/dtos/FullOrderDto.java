@@ -0,0 +1,62 @@
+package com.rodrigopettenon.orderflow.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.util.List;
+
+// Pedido completo: na requisição, cliente, status e itens; na resposta, o pedido, o cliente e os itens gravados
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FullOrderDto implements Serializable {
+
+    private static final long serialVersionUID = 5283916047722318405L;
+
+    private Long clientId;
+    private String status;
+    private OrderDto order;
+    private ClientDto client;
+    private List<ItemOrderDto> items;
+
+    public FullOrderDto() {
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public OrderDto getOrder() {
+        return order;
+    }
+
+    public void setOrder(OrderDto order) {
+        this.order = order;
+    }
+
+    public ClientDto getClient() {
+        return client;
+    }
+
+    public void setClient(ClientDto client) {
+        this.client = client;
+    }
+
+    public List<ItemOrderDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemOrderDto> items) {
+        this.items = items;
+    }
+}
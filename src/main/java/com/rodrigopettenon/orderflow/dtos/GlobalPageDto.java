@@ -1,5 +1,7 @@
 package com.rodrigopettenon.orderflow.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.io.Serializable;
 import java.util.List;
 
@@ -7,9 +9,16 @@ public class GlobalPageDto<T> implements Serializable {
 
     private static final long serialVersionUID = 1541392814940774157L;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Long total;
     private List<T> items;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasNext;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
     public Long getTotal() {
         return total;
     }
@@ -25,4 +34,20 @@ public class GlobalPageDto<T> implements Serializable {
     public void setItems(List<T> items) {
         this.items = items;
     }
+
+    public Boolean getHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(Boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,47 @@
+package com.rodrigopettenon.orderflow.dtos;
+
+import java.io.Serializable;
+
+// Resposta guardada para uma Idempotency-Key: hash do corpo da requisição, status HTTP e o corpo original
+// do retorno, em JSON
+public class IdempotentResponseDto implements Serializable {
+
+    private static final long serialVersionUID = -6059127383174516207L;
+
+    private String requestHash;
+    private Integer status;
+    private String body;
+
+    public IdempotentResponseDto() {
+    }
+
+    public IdempotentResponseDto(String requestHash, Integer status, String body) {
+        this.requestHash = requestHash;
+        this.status = status;
+        this.body = body;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+}
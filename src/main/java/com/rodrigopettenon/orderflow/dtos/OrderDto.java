@@ -1,6 +1,7 @@
 package com.rodrigopettenon.orderflow.dtos;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.io.Serializable;
@@ -19,6 +20,13 @@ public class OrderDto implements Serializable {
     private LocalDateTime orderDate;
     private String status;
 
+    // false enquanto o pedido aceito no modo assíncrono só está no journal, ainda não em tb_orders
+    private Boolean persisted;
+
+    // Só para o ETag: não sai no JSON nem é lida da requisição
+    @JsonIgnore
+    private Long rowVersion;
+
     public OrderDto() {
     }
 
@@ -53,4 +61,20 @@ public class OrderDto implements Serializable {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public Boolean getPersisted() {
+        return persisted;
+    }
+
+    public void setPersisted(Boolean persisted) {
+        this.persisted = persisted;
+    }
+
+    public Long getRowVersion() {
+        return rowVersion;
+    }
+
+    public void setRowVersion(Long rowVersion) {
+        this.rowVersion = rowVersion;
+    }
 }
@@ -0,0 +1,83 @@
+package com.rodrigopettenon.orderflow.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Transição de status em massa: na requisição, o novo status e os ids ou o filtro (cliente/período);
+// na resposta, quantos pedidos mudaram e, na busca por ids, quais foram ignorados (inexistentes ou fora de PENDING)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderStatusBulkDto implements Serializable {
+
+    private static final long serialVersionUID = -6048213975520317846L;
+
+    private String status;
+    private List<UUID> ids;
+    private Long clientId;
+    private LocalDateTime dateTimeStart;
+    private LocalDateTime dateTimeEnd;
+    private Integer updated;
+    private List<UUID> skippedIds;
+
+    public OrderStatusBulkDto() {
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<UUID> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<UUID> ids) {
+        this.ids = ids;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public LocalDateTime getDateTimeStart() {
+        return dateTimeStart;
+    }
+
+    public void setDateTimeStart(LocalDateTime dateTimeStart) {
+        this.dateTimeStart = dateTimeStart;
+    }
+
+    public LocalDateTime getDateTimeEnd() {
+        return dateTimeEnd;
+    }
+
+    public void setDateTimeEnd(LocalDateTime dateTimeEnd) {
+        this.dateTimeEnd = dateTimeEnd;
+    }
+
+    public Integer getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(Integer updated) {
+        this.updated = updated;
+    }
+
+    public List<UUID> getSkippedIds() {
+        return skippedIds;
+    }
+
+    public void setSkippedIds(List<UUID> skippedIds) {
+        this.skippedIds = skippedIds;
+    }
+}
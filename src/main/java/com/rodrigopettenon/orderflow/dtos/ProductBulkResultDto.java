@@ -0,0 +1,37 @@
+package com.rodrigopettenon.orderflow.dtos;
+
+import java.io.Serializable;
+
+// Resultado do upsert em massa por SKU: unchanged são os produtos que já estavam com os mesmos dados
+public class ProductBulkResultDto implements Serializable {
+
+    private static final long serialVersionUID = -2687415093321875490L;
+
+    private Integer inserted = 0;
+    private Integer updated = 0;
+    private Integer unchanged = 0;
+
+    public Integer getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(Integer inserted) {
+        this.inserted = inserted;
+    }
+
+    public Integer getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(Integer updated) {
+        this.updated = updated;
+    }
+
+    public Integer getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(Integer unchanged) {
+        this.unchanged = unchanged;
+    }
+}
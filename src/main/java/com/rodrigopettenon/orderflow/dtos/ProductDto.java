@@ -1,6 +1,7 @@
 package com.rodrigopettenon.orderflow.dtos;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.format.annotation.DateTimeFormat;
 
@@ -22,6 +23,10 @@ public class ProductDto implements Serializable {
     @JsonFormat(pattern = "dd/MM/yyyy")
     private LocalDate expiration;
 
+    // Só para o ETag: não sai no JSON nem é lida da requisição
+    @JsonIgnore
+    private Long rowVersion;
+
     public ProductDto() {
     }
 
@@ -64,4 +69,12 @@ public class ProductDto implements Serializable {
     public void setExpiration(LocalDate expiration) {
         this.expiration = expiration;
     }
+
+    public Long getRowVersion() {
+        return rowVersion;
+    }
+
+    public void setRowVersion(Long rowVersion) {
+        this.rowVersion = rowVersion;
+    }
 }
@@ -32,6 +32,9 @@ public class ClientModel implements Serializable {
     @JsonFormat(pattern = "dd/MM/yyyy")
     private LocalDate birth;
 
+    @Column(name = "row_version", columnDefinition = "BIGINT NOT NULL DEFAULT 0", nullable = false)
+    private Long rowVersion = 0L;
+
     public ClientModel() {
         super();
     }
@@ -75,4 +78,12 @@ public class ClientModel implements Serializable {
     public void setBirth(LocalDate birth) {
         this.birth = birth;
     }
+
+    public Long getRowVersion() {
+        return rowVersion;
+    }
+
+    public void setRowVersion(Long rowVersion) {
+        this.rowVersion = rowVersion;
+    }
 }
@@ -0,0 +1,37 @@
+package com.rodrigopettenon.orderflow.models;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+// Formato das exportações em streaming: um JSON por linha (NDJSON) ou CSV com cabeçalho
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat fromValueOrDefault(String value) {
+        if (isBlank(value)) {
+            return NDJSON;
+        }
+        for (ExportFormat exportFormat : values()) {
+            if (exportFormat.name().equalsIgnoreCase(value.trim())) {
+                return exportFormat;
+            }
+        }
+        return NDJSON;
+    }
+}
@@ -0,0 +1,76 @@
+package com.rodrigopettenon.orderflow.models;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Resposta já enviada para uma Idempotency-Key; response_status nulo = requisição ainda em andamento
+@Entity
+@Table(name = "tb_idempotency_keys")
+public class IdempotencyKeyModel implements Serializable {
+
+    private static final long serialVersionUID = 3310742236610942881L;
+
+    // Endpoint + ":" + chave enviada pelo cliente
+    @Id
+    @Column(name = "idempotency_key", length = 150, nullable = false)
+    private String idempotencyKey;
+
+    // SHA-256 do corpo da requisição original: a mesma chave com outro corpo é recusada, não respondida
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyKeyModel() {
+        super();
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
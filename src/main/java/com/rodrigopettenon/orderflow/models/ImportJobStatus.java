@@ -0,0 +1,7 @@
+package com.rodrigopettenon.orderflow.models;
+
+public enum ImportJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
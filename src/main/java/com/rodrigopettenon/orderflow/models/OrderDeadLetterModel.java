@@ -0,0 +1,87 @@
+package com.rodrigopettenon.orderflow.models;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Pedidos aceitos pelo journal que o banco recusou (cliente removido, dado inválido): ficam aqui para
+// análise em vez de travar o OrderJournalDrainer ou se perderem
+@Entity
+@Table(name = "tb_orders_dead_letter")
+public class OrderDeadLetterModel implements Serializable {
+
+    private static final long serialVersionUID = 3817465203948571620L;
+
+    @Id
+    @Column(name = "id", columnDefinition = "CHAR(36)", length = 36, nullable = false, unique = true)
+    private UUID id;
+
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(name = "order_date")
+    private LocalDateTime orderDate;
+
+    @Column(name = "status", length = 20)
+    private String status;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    public OrderDeadLetterModel() {
+        super();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDateTime orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getFailedAt() {
+        return failedAt;
+    }
+
+    public void setFailedAt(LocalDateTime failedAt) {
+        this.failedAt = failedAt;
+    }
+}
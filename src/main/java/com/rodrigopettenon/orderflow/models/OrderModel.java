@@ -30,6 +30,9 @@ public class OrderModel implements Serializable {
     @Column(name = "status", length = 20, nullable = false)
     private OrderStatus status;
 
+    @Column(name = "row_version", columnDefinition = "BIGINT NOT NULL DEFAULT 0", nullable = false)
+    private Long rowVersion = 0L;
+
     public OrderModel() {
         super();
     }
@@ -65,4 +68,12 @@ public class OrderModel implements Serializable {
     public void setStatus(OrderStatus status) {
         this.status = status;
     }
+
+    public Long getRowVersion() {
+        return rowVersion;
+    }
+
+    public void setRowVersion(Long rowVersion) {
+        this.rowVersion = rowVersion;
+    }
 }
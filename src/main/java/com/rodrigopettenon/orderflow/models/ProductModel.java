@@ -32,6 +32,9 @@ public class ProductModel implements Serializable {
     @JsonFormat(pattern = "dd/MM/yyyy")
     private LocalDate expiration;
 
+    @Column(name = "row_version", columnDefinition = "BIGINT NOT NULL DEFAULT 0", nullable = false)
+    private Long rowVersion = 0L;
+
     public ProductModel() {
         super();
     }
@@ -75,4 +78,12 @@ public class ProductModel implements Serializable {
     public void setExpiration(LocalDate expiration) {
         this.expiration = expiration;
     }
+
+    public Long getRowVersion() {
+        return rowVersion;
+    }
+
+    public void setRowVersion(Long rowVersion) {
+        this.rowVersion = rowVersion;
+    }
 }
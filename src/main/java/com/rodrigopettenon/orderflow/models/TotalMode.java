@@ -0,0 +1,24 @@
+package com.rodrigopettenon.orderflow.models;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+// Como o total de uma busca paginada é calculado: contagem exata, estimativa do otimizador,
+// COUNT(*) OVER() na própria consulta da página ou nenhum (apenas hasNext)
+public enum TotalMode {
+    EXACT,
+    ESTIMATE,
+    WINDOW,
+    NONE;
+
+    public static TotalMode fromValueOrDefault(String value) {
+        if (isBlank(value)) {
+            return EXACT;
+        }
+        for (TotalMode totalMode : values()) {
+            if (totalMode.name().equalsIgnoreCase(value.trim())) {
+                return totalMode;
+            }
+        }
+        return EXACT;
+    }
+}
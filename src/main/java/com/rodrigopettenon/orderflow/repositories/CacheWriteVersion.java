@@ -0,0 +1,36 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.rodrigopettenon.orderflow.utils.TransactionUtil.runAfterCommit;
+
+// Contador de escritas de um cache carregado sob demanda: a carga lê a versão antes de ir ao banco e o que ela
+// leu não fica no cache se uma escrita foi aplicada no meio
+public class CacheWriteVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public boolean changedSince(long readVersion) {
+        return version.get() != readVersion;
+    }
+
+    // Não sobrescreve uma entrada presente; a entrada colocada sai de novo se a versão mudou desde a leitura
+    public <K, V> void load(ConcurrentMap<K, V> entries, K key, V value, long readVersion) {
+        entries.putIfAbsent(key, value);
+        if (changedSince(readVersion)) {
+            entries.remove(key, value);
+        }
+    }
+
+    public void applyAfterCommit(Runnable write) {
+        runAfterCommit(() -> {
+            version.incrementAndGet();
+            write.run();
+        });
+    }
+}
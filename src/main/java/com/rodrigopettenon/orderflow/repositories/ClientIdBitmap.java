@@ -0,0 +1,127 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.rodrigopettenon.orderflow.utils.TransactionUtil.runAfterCommit;
+import static java.util.Objects.isNull;
+
+// Bitmap dos ids de tb_clients para o existsClientById: um bit por id, em contêineres de 2^16 ids (8 KB) como
+// no Roaring, criados só onde há ids. Um bit ligado responde "existe" sem ir ao banco e sem trava; um bit
+// desligado não prova nada (cliente novo ainda não visto) e o repositório confere no banco
+@Component
+public class ClientIdBitmap {
+
+    private static final int CONTAINER_SHIFT = 16;
+    private static final int WORDS_PER_CONTAINER = 1 << (CONTAINER_SHIFT - 6);
+    private static final int BIT_MASK = (1 << CONTAINER_SHIFT) - 1;
+
+    private volatile Bitmap bitmap = new Bitmap();
+
+    // Incrementada a cada remoção: um id lido do banco antes de uma remoção não volta para o bitmap
+    private final AtomicLong removals = new AtomicLong();
+
+    public boolean contains(long id) {
+        return bitmap.contains(id);
+    }
+
+    public long currentRemovals() {
+        return removals.get();
+    }
+
+    // Chamado com um id confirmado no banco e o contador lido antes da consulta
+    public void add(long id, long readRemovals) {
+        Bitmap current = bitmap;
+        current.add(id);
+        if (removals.get() != readRemovals) {
+            current.remove(id);
+        }
+    }
+
+    // Depois do commit: antes dele o cliente ainda existe para as outras transações
+    public void removeAfterCommit(long id) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                removals.incrementAndGet();
+                bitmap.remove(id);
+            }
+        });
+    }
+
+    // Troca pelo bitmap recarregado da tabela; descartado se houve remoção durante a carga
+    public synchronized boolean replace(Bitmap reloaded, long readRemovals) {
+        if (removals.get() != readRemovals) {
+            return false;
+        }
+        bitmap = reloaded;
+        return true;
+    }
+
+    public static final class Bitmap {
+
+        private volatile AtomicReferenceArray<AtomicLongArray> containers = new AtomicReferenceArray<>(0);
+
+        public boolean contains(long id) {
+            AtomicLongArray container = findContainer(id);
+            if (isNull(container)) {
+                return false;
+            }
+            int bit = (int) (id & BIT_MASK);
+            return (container.get(bit >>> 6) & (1L << bit)) != 0;
+        }
+
+        public void add(long id) {
+            if (id <= 0) {
+                return;
+            }
+            AtomicLongArray container = findContainer(id);
+            if (isNull(container)) {
+                container = createContainer(id);
+            }
+            int bit = (int) (id & BIT_MASK);
+            container.getAndAccumulate(bit >>> 6, 1L << bit, (word, mask) -> word | mask);
+        }
+
+        void remove(long id) {
+            AtomicLongArray container = findContainer(id);
+            if (isNull(container)) {
+                return;
+            }
+            int bit = (int) (id & BIT_MASK);
+            container.getAndAccumulate(bit >>> 6, ~(1L << bit), (word, mask) -> word & mask);
+        }
+
+        private AtomicLongArray findContainer(long id) {
+            if (id <= 0) {
+                return null;
+            }
+            long index = id >>> CONTAINER_SHIFT;
+            AtomicReferenceArray<AtomicLongArray> current = containers;
+            return index < current.length() ? current.get((int) index) : null;
+        }
+
+        // Só a criação de contêiner trava; ids densos criam um a cada 65.536 clientes
+        private synchronized AtomicLongArray createContainer(long id) {
+            int index = Math.toIntExact(id >>> CONTAINER_SHIFT);
+            AtomicReferenceArray<AtomicLongArray> current = containers;
+            if (index >= current.length()) {
+                AtomicReferenceArray<AtomicLongArray> grown =
+                        new AtomicReferenceArray<>(Math.max(index + 1, current.length() * 2));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                containers = grown;
+                current = grown;
+            }
+            AtomicLongArray container = current.get(index);
+            if (isNull(container)) {
+                container = new AtomicLongArray(WORDS_PER_CONTAINER);
+                current.set(index, container);
+            }
+            return container;
+        }
+    }
+}
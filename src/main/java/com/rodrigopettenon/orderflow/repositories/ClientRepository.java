@@ -1,33 +1,76 @@
 package com.rodrigopettenon.orderflow.repositories;
 
 import com.rodrigopettenon.orderflow.dtos.ClientDto;
+import com.rodrigopettenon.orderflow.dtos.CursorDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ClientModel;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.io.UncheckedIOException;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.rodrigopettenon.orderflow.repositories.ExistenceMemo.*;
+import static com.rodrigopettenon.orderflow.repositories.FilterCountCache.*;
+import static com.rodrigopettenon.orderflow.utils.DatabaseErrorUtil.isDuplicateKey;
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.EXPORT_FETCH_SIZE;
+import static com.rodrigopettenon.orderflow.utils.ETagUtil.rowETag;
 import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.*;
 import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 @Repository
 public class ClientRepository {
 
+    private static final Map<String, Class<?>> CURSOR_TYPES = Map.of(
+            "name", String.class,
+            "email", String.class,
+            "cpf", String.class,
+            "birth_date", LocalDate.class);
+
+    private static final List<String> FILTER_COUNT_TABLES = List.of(TB_CLIENTS);
+
+    private static final int INSERT_BATCH_SIZE = 500;
+
     @PersistenceContext
     private EntityManager em;
 
+    @Autowired
+    private ExistenceMemo existenceMemo;
+
+    @Autowired
+    private RowCountEstimator rowCountEstimator;
+
+    @Autowired
+    private FilterCountCache filterCountCache;
 
-    public void saveClient(ClientDto clientDto) {
+    @Autowired
+    private SqlTemplateCache sqlTemplateCache;
+
+    @Autowired
+    private ClientIdBitmap clientIdBitmap;
+
+
+    // As colunas únicas decidem a duplicidade: false quando o email ou o CPF já estão cadastrados
+    public Boolean saveClient(ClientDto clientDto) {
         try{
             StringBuilder sql = new StringBuilder();
             sql.append(" INSERT INTO tb_clients (name, email, cpf, birth_date) ");
@@ -40,28 +83,192 @@ public class ClientRepository {
                     .setParameter("birth", clientDto.getBirth());
 
             query.executeUpdate();
+            filterCountCache.invalidate(TB_CLIENTS);
+            return true;
         }catch (Exception e) {
+            if (isDuplicateKey(e)) {
+                return false;
+            }
             logUnexpectedErrorOnSaveClientWithCpf(clientDto.getCpf(), e);
             throw new ClientErrorException("Erro ao cadastrar cliente.");
         }
     }
 
+    // INSERT multi-linha: uma ida ao banco a cada INSERT_BATCH_SIZE clientes. Um CPF ou email já gravado (cadastro
+    // concorrente) faz o banco ignorar só aquela linha, não o bloco; quem chama confere com findEmailsByCpfs
+    public void saveClientsBatch(List<ClientDto> clients) {
+        try {
+            for (int start = 0; start < clients.size(); start += INSERT_BATCH_SIZE) {
+                List<ClientDto> chunk = clients.subList(start, Math.min(start + INSERT_BATCH_SIZE, clients.size()));
+
+                StringBuilder sql = new StringBuilder();
+                sql.append(" INSERT INTO tb_clients (name, email, cpf, birth_date) VALUES ");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i > 0 ? ", " : " ");
+                    sql.append("(:name").append(i).append(", :email").append(i)
+                            .append(", :cpf").append(i).append(", :birth").append(i).append(")");
+                }
+                // Só a chave única repetida é ignorada; ao contrário do INSERT IGNORE, NOT NULL e tamanho continuam erro
+                sql.append(" ON DUPLICATE KEY UPDATE id = id ");
+
+                Query query = em.createNativeQuery(sql.toString());
+                for (int i = 0; i < chunk.size(); i++) {
+                    ClientDto clientDto = chunk.get(i);
+                    query.setParameter("name" + i, clientDto.getName())
+                            .setParameter("email" + i, clientDto.getEmail())
+                            .setParameter("cpf" + i, clientDto.getCpf())
+                            .setParameter("birth" + i, clientDto.getBirth());
+                }
+
+                query.executeUpdate();
+            }
+            filterCountCache.invalidate(TB_CLIENTS);
+        } catch (Exception e) {
+            logUnexpectedErrorOnSaveClientsBatch(e);
+            throw new ClientErrorException("Erro ao cadastrar lote de clientes.");
+        }
+    }
+
+    // Ids já vistos respondem pelo ClientIdBitmap, sem consulta; o banco só é consultado para ids fora dele
     public Boolean existsClientById(Long id) {
+        if (clientIdBitmap.contains(id)) {
+            return true;
+        }
+        return existenceMemo.exists(CLIENT_ID, id, () -> queryExistsClientById(id));
+    }
+
+    private Boolean queryExistsClientById(Long id) {
         try{
+            long readRemovals = clientIdBitmap.currentRemovals();
             String sql = ( "SELECT 1 FROM tb_clients WHERE id = :id LIMIT 1 ");
 
             Query query = em.createNativeQuery(sql)
                     .setParameter("id", id);
 
             List<?> result = query.getResultList();
-            return !result.isEmpty(); // Se a lista estiver vazia retornará false.
+            if (result.isEmpty()) {
+                return false;
+            }
+            clientIdBitmap.add(id, readRemovals);
+            return true;
 
         }catch (Exception e) {
             throw new ClientErrorException("Erro ao verificar existência do ID.");
         }
     }
 
+    // Responde numa só consulta se o cliente existe, se tem pedidos e se tem itens de pedido,
+    // deixando as três respostas no ExistenceMemo para as validações que vêm em seguida
+    public void prefetchClientExistence(Long clientId) {
+        if (!existenceMemo.isActive() || (existenceMemo.knows(CLIENT_ID, clientId)
+                && existenceMemo.knows(ORDER_CLIENT_ID, clientId)
+                && existenceMemo.knows(ITEM_ORDER_CLIENT_ID, clientId))) {
+            return;
+        }
+        try {
+            StringBuilder sql = new StringBuilder();
+            sql.append(" SELECT EXISTS(SELECT 1 FROM tb_clients WHERE id = :clientId), ");
+            sql.append(" EXISTS(SELECT 1 FROM tb_orders WHERE client_id = :clientId), ");
+            sql.append(" EXISTS(SELECT 1 FROM tb_item_orders i JOIN tb_orders o ON i.order_id = o.id ");
+            sql.append(" WHERE o.client_id = :clientId) ");
+
+            Query query = em.createNativeQuery(sql.toString())
+                    .setParameter("clientId", clientId);
+
+            Object[] result = (Object[]) query.getSingleResult();
+
+            existenceMemo.remember(CLIENT_ID, clientId, toBoolean(result[0]));
+            existenceMemo.remember(ORDER_CLIENT_ID, clientId, toBoolean(result[1]));
+            existenceMemo.remember(ITEM_ORDER_CLIENT_ID, clientId, toBoolean(result[2]));
+        } catch (Exception e) {
+            logUnexpectedErrorOnPrefetchClientExistence(clientId, e);
+            throw new ClientErrorException("Erro ao verificar existência do cliente.");
+        }
+    }
+
+    // Uma única consulta com IN para validar os clientes de um lote inteiro
+    public Set<Long> findExistingClientIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        try {
+            String sql = (" SELECT id FROM tb_clients WHERE id IN (:ids) ");
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("ids", ids);
+
+            List<?> resultList = query.getResultList();
+            Set<Long> existingIds = new HashSet<>();
+            for (Object result : resultList) {
+                existingIds.add(((Number) result).longValue());
+            }
+            return existingIds;
+        } catch (Exception e) {
+            logUnexpectedErrorFindingExistingClientIds(e);
+            throw new ClientErrorException("Erro ao verificar existência dos clientes.");
+        }
+    }
+
+    // Uma consulta com IN por bloco da importação, no lugar de existsClientByCpf linha a linha
+    public Set<String> findExistingCpfs(Collection<String> cpfs) {
+        return findExistingValues("cpf", cpfs);
+    }
+
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return findExistingValues("email", emails);
+    }
+
+    // Email gravado para cada CPF: depois de saveClientsBatch, diz quais linhas do bloco entraram
+    public Map<String, String> findEmailsByCpfs(Collection<String> cpfs) {
+        if (cpfs.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            String sql = (" SELECT cpf, email FROM tb_clients WHERE cpf IN (:cpfs) ");
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("cpfs", cpfs);
+
+            List<Object[]> resultList = query.getResultList();
+            Map<String, String> emailsByCpf = new HashMap<>();
+            for (Object[] result : resultList) {
+                emailsByCpf.put(result[0].toString(), result[1].toString());
+            }
+            return emailsByCpf;
+        } catch (Exception e) {
+            logUnexpectedErrorFindingExistingClientCpfsAndEmails(e);
+            throw new ClientErrorException("Erro ao verificar CPFs e emails já cadastrados.");
+        }
+    }
+
+    // column vem só dos métodos acima, nunca da requisição
+    private Set<String> findExistingValues(String column, Collection<String> values) {
+        if (values.isEmpty()) {
+            return new HashSet<>();
+        }
+        try {
+            String sql = (" SELECT " + column + " FROM tb_clients WHERE " + column + " IN (:values) ");
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("values", values);
+
+            List<?> resultList = query.getResultList();
+            Set<String> existingValues = new HashSet<>();
+            for (Object result : resultList) {
+                existingValues.add(result.toString());
+            }
+            return existingValues;
+        } catch (Exception e) {
+            logUnexpectedErrorFindingExistingClientCpfsAndEmails(e);
+            throw new ClientErrorException("Erro ao verificar CPFs e emails já cadastrados.");
+        }
+    }
+
     public Boolean existsClientByCpf(String cpf) {
+        return existenceMemo.exists(CLIENT_CPF, cpf, () -> queryExistsClientByCpf(cpf));
+    }
+
+    private Boolean queryExistsClientByCpf(String cpf) {
         try{
             String sql = (" SELECT 1 FROM tb_clients WHERE cpf = :cpf LIMIT 1");
 
@@ -78,6 +285,10 @@ public class ClientRepository {
     }
 
     public Boolean existsClientByEmail(String email) {
+        return existenceMemo.exists(CLIENT_EMAIL, email, () -> queryExistsClientByEmail(email));
+    }
+
+    private Boolean queryExistsClientByEmail(String email) {
         try {
             String sql = (" SELECT 1 FROM tb_clients WHERE email = :email LIMIT 1 ");
 
@@ -93,18 +304,20 @@ public class ClientRepository {
         }
     }
 
-    public List<ClientDto> findAllClients(Integer page, Integer linesPerPage, String direction, String orderBy) {
+    public List<ClientDto> findAllClients(Integer page, Integer linesPerPage, String direction, String orderBy,
+                                          CursorDto cursor) {
         try {
             logGettingAllClientListStart();
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT name, email, cpf, birth_date FROM tb_clients ");
-            sql.append(" ORDER BY " + orderBy + " " + direction + " ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
+            Map<String, Object> parameters = new HashMap<>();
+            putClientCursorParameters(parameters, orderBy, cursor);
 
+            String sql = sqlTemplateCache.get("clients.all", parameters.keySet(), orderBy, direction, false,
+                    this::buildFindAllClientsSql);
 
-            Query query = em.createNativeQuery(sql.toString())
+            Query query = em.createNativeQuery(sql)
                     .setParameter("limit", linesPerPage)
-                    .setParameter("offset", page * linesPerPage);
+                    .setParameter("offset", nonNull(cursor) ? 0 : page * linesPerPage);
+            setQueryParameters(query, parameters);
 
             List<Object[]> results = query.getResultList();
             List<ClientDto> clientList = new ArrayList<>();
@@ -121,12 +334,86 @@ public class ClientRepository {
 
             logFindAllClientsStart();
             return clientList;
+        } catch (ClientErrorException e) {
+            throw e; // para o erro genérico não engolir a exceção de cursor inválido
         } catch (Exception e) {
             logUnexpectedErrorOnFindAllClientsOrderBy(orderBy, e);
             throw new ClientErrorException("Erro ao buscar clientes.");
         }
     }
 
+    // Recarrega o ClientIdBitmap com todos os ids da tabela (na subida e na reconciliação periódica), corrigindo
+    // ids apagados fora da aplicação. Falha só é logada: sem o bitmap o existsClientById consulta o banco
+    public void reloadClientIdBitmap() {
+        try {
+            long readRemovals = clientIdBitmap.currentRemovals();
+            ClientIdBitmap.Bitmap reloaded = new ClientIdBitmap.Bitmap();
+            String sql = (" SELECT id FROM tb_clients ");
+
+            Query query = em.createNativeQuery(sql)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE);
+
+            long loadedIds = 0;
+            try (Stream<Object> ids = query.getResultStream()) {
+                Iterator<Object> iterator = ids.iterator();
+                while (iterator.hasNext()) {
+                    reloaded.add(((Number) iterator.next()).longValue());
+                    loadedIds++;
+                }
+            }
+
+            if (clientIdBitmap.replace(reloaded, readRemovals)) {
+                logClientIdBitmapReloaded(loadedIds);
+            }
+        } catch (Exception e) {
+            logUnexpectedErrorOnReloadClientIdBitmap(e);
+        }
+    }
+
+    // Id do cliente pelo CPF; null quando não está cadastrado
+    public Long findClientIdByCpf(String cpf) {
+        try {
+            String sql = " SELECT id FROM tb_clients WHERE cpf = :cpf LIMIT 1 ";
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("cpf", cpf);
+
+            List<?> resultList = query.getResultList();
+            return resultList.isEmpty() ? null : ((Number) resultList.get(0)).longValue();
+        } catch (Exception e) {
+            logUnexpectedErrorCheckingClientExistenceByCpf(cpf, e);
+            throw new ClientErrorException("Erro ao verificar existência do cliente pelo CPF.");
+        }
+    }
+
+    // Cópia completa da tabela em ordem de id: linhas lidas do cursor do driver e entregues uma a uma
+    public void streamAllClients(Consumer<ClientDto> consumer) {
+        try {
+            String sql = (" SELECT id, name, email, cpf, birth_date FROM tb_clients ORDER BY id ");
+
+            Query query = em.createNativeQuery(sql)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE);
+
+            try (Stream<Object[]> rows = query.getResultStream()) {
+                rows.forEach(result -> {
+                    ClientDto clientDto = new ClientDto();
+                    clientDto.setId(((Number) result[0]).longValue());
+                    clientDto.setName((String) result[1]);
+                    clientDto.setEmail((String) result[2]);
+                    clientDto.setCpf((String) result[3]);
+                    clientDto.setBirth(((Date) result[4]).toLocalDate());
+
+                    consumer.accept(clientDto);
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e; // falha ao escrever na resposta (cliente desconectou), não é erro da consulta
+        } catch (Exception e) {
+            logUnexpectedErrorOnExportClients(e);
+            throw new ClientErrorException("Erro ao exportar clientes.");
+        }
+    }
+
     public ClientDto findClientById(Long id) {
         try{
             String sql = (" SELECT id, name, email, cpf, birth_date FROM tb_clients WHERE id = :id LIMIT 1 ");
@@ -225,7 +512,7 @@ public class ClientRepository {
 
     public ClientDto findClientByCpf(String cpf) {
         try{
-            String sql = " SELECT id, name, email, cpf, birth_date FROM tb_clients WHERE cpf = :cpf LIMIT 1 ";
+            String sql = " SELECT id, name, email, cpf, birth_date, row_version FROM tb_clients WHERE cpf = :cpf LIMIT 1 ";
 
             Query query = em.createNativeQuery(sql)
                     .setParameter("cpf", cpf);
@@ -242,6 +529,7 @@ public class ClientRepository {
             clientFound.setEmail((String) result[2]);
             clientFound.setCpf((String) result[3]);
             clientFound.setBirth(((Date) result[4]).toLocalDate());
+            clientFound.setRowVersion(((Number) result[5]).longValue());
 
             logFoundClientByCpfSuccessfully(cpf);
             return clientFound;
@@ -254,11 +542,31 @@ public class ClientRepository {
         }
     }
 
+    // Só id e versão, para responder um If-None-Match sem ler nem serializar o cliente; null quando não existe
+    public String findClientETagByCpf(String cpf) {
+        try {
+            String sql = " SELECT id, row_version FROM tb_clients WHERE cpf = :cpf LIMIT 1 ";
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("cpf", cpf);
+
+            List<Object[]> resultList = query.getResultList();
+            if (resultList.isEmpty()) {
+                return null;
+            }
+            Object[] result = resultList.get(0);
+            return rowETag(((Number) result[0]).longValue(), ((Number) result[1]).longValue());
+        } catch (Exception e) {
+            logUnexpectedErrorOnFindClientETagByCpf(cpf, e);
+            throw new ClientErrorException("Erro ao buscar a versão do cliente pelo CPF.");
+        }
+    }
+
     public ClientDto updateClientByCpf(String cpf, ClientDto clientDto) {
         try{
             StringBuilder sql = new StringBuilder();
-            sql.append(" UPDATE tb_clients SET name = :name, email = :email, birth_date = :birth ");
-            sql.append(" WHERE cpf = :cpf LIMIT 1 ");
+            sql.append(" UPDATE tb_clients SET name = :name, email = :email, birth_date = :birth, ");
+            sql.append(" row_version = row_version + 1 WHERE cpf = :cpf LIMIT 1 ");
 
             Query query = em.createNativeQuery(sql.toString())
                     .setParameter("name", clientDto.getName())
@@ -267,6 +575,7 @@ public class ClientRepository {
                     .setParameter("cpf", cpf);
 
             query.executeUpdate();
+            filterCountCache.invalidate(TB_CLIENTS);
 
             ClientDto updatedClientDto = new ClientDto();
             updatedClientDto.setName(clientDto.getName());
@@ -282,7 +591,8 @@ public class ClientRepository {
 
     }
 
-    public void deleteClientByCpf(String cpf) {
+    // O id vem da validação do serviço e sai do ClientIdBitmap após o commit
+    public void deleteClientByCpf(String cpf, Long clientId) {
         try{
             String sql = " DELETE FROM tb_clients WHERE cpf = :cpf ";
 
@@ -290,6 +600,9 @@ public class ClientRepository {
                     .setParameter("cpf", cpf);
 
             query.executeUpdate();
+            filterCountCache.invalidate(TB_CLIENTS);
+            clientIdBitmap.removeAfterCommit(clientId);
+            existenceMemo.forgetAll();
 
         } catch (Exception e) {
             logUnexpectedErrorOnDeleteClientByCpf(cpf, e);
@@ -318,58 +631,38 @@ public class ClientRepository {
     public GlobalPageDto<ClientDto> findFilteredClients(String name, String email,
                                              String cpf, LocalDate birthStart, LocalDate birthEnd,
                                              Integer page, Integer linesPerPage,
-                                             String direction, String orderBy) {
+                                             String direction, String orderBy, CursorDto cursor,
+                                             TotalMode totalMode) {
 
-            Long total = queryCountFilteredClients(name, email, cpf, birthStart, birthEnd);
-            List<ClientDto> clients = queryFindFilteredClients(name, email, cpf, birthStart,
-                    birthEnd, page, linesPerPage, direction, orderBy);
+            GlobalPageDto<ClientDto> clientPageDto = queryFindFilteredClients(name, email, cpf, birthStart,
+                    birthEnd, page, linesPerPage, direction, orderBy, cursor, totalMode);
 
-            GlobalPageDto<ClientDto> clientPageDto = new GlobalPageDto<>();
-            clientPageDto.setItems(clients);
-            clientPageDto.setTotal(total);
+            if (needsCountQuery(clientPageDto, totalMode)) {
+                clientPageDto.setTotal(queryCountFilteredClients(name, email, cpf, birthStart, birthEnd, totalMode));
+            }
+            applyHasNext(clientPageDto, linesPerPage, totalMode);
 
             logFindFilteredClientsSuccessfully(name, email, cpf, birthStart, birthEnd);
             return clientPageDto;
     }
 
-    protected List<ClientDto> queryFindFilteredClients(String name, String email, String cpf,
+    protected GlobalPageDto<ClientDto> queryFindFilteredClients(String name, String email, String cpf,
                                                      LocalDate birthStart, LocalDate birthEnd, Integer page,
-                                                     Integer linesPerPage, String direction, String orderBy) {
+                                                     Integer linesPerPage, String direction, String orderBy,
+                                                     CursorDto cursor, TotalMode totalMode) {
         try {
             logInfoStartingClientsSearchQueryFiltered(name, email, cpf, birthStart, birthEnd);
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT name, email, cpf, birth_date FROM tb_clients WHERE 1=1 ");
-
-            if (isNotBlank(name)) {
-                sql.append(" AND name LIKE :name ");
-                parameters.put("name", "%" + name + "%");
-            }
-
-            if (isNotBlank(email)) {
-                sql.append(" AND email LIKE :email ");
-                parameters.put("email", "%" + email + "%");
-            }
+            boolean windowTotal = isWindowTotal(totalMode, cursor);
+            putClientFilterParameters(parameters, name, email, cpf, birthStart, birthEnd);
+            putClientCursorParameters(parameters, orderBy, cursor);
 
-            if (isNotBlank(cpf)) {
-                sql.append(" AND cpf = :cpf ");
-                parameters.put("cpf", cpf);
-            }
-            if (nonNull(birthStart)) {
-                sql.append(" AND birth_date >= :birthStart ");
-                parameters.put("birthStart", birthStart);
-            }
-            if (nonNull(birthEnd)) {
-                sql.append(" AND birth_date <= :birthEnd ");
-                parameters.put("birthEnd", birthEnd);
-            }
+            String sql = sqlTemplateCache.get("clients.filter", parameters.keySet(), orderBy, direction, windowTotal,
+                    this::buildFindFilteredClientsSql);
 
-            sql.append(" ORDER BY " + orderBy + " " + direction + " ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
-
-            Query query = em.createNativeQuery(sql.toString())
-                    .setParameter("limit", linesPerPage)
-                    .setParameter("offset", page * linesPerPage);
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("limit", resolveFetchLimit(linesPerPage, totalMode))
+                    .setParameter("offset", nonNull(cursor) ? 0 : page * linesPerPage);
             setQueryParameters(query, parameters);
 
             List<Object[]> clientResults = query.getResultList();
@@ -385,7 +678,15 @@ public class ClientRepository {
                 clients.add(clientDto);
             }
 
-            return clients;
+            GlobalPageDto<ClientDto> clientPageDto = new GlobalPageDto<>();
+            clientPageDto.setItems(clients);
+            if (windowTotal) {
+                clientPageDto.setTotal(extractWindowTotal(clientResults, page));
+            }
+
+            return clientPageDto;
+        } catch (ClientErrorException e) {
+            throw e; // para o erro genérico não engolir a exceção de cursor inválido
         } catch (Exception e) {
             logUnexpectedErrorOnFindFilteredClients(e);
             throw new ClientErrorException("Erro ao buscar clientes filtrados.");
@@ -394,41 +695,32 @@ public class ClientRepository {
 
     protected Long queryCountFilteredClients(String name,
                                                     String email, String cpf, LocalDate birthStart,
-                                                    LocalDate birthEnd) {
+                                                    LocalDate birthEnd, TotalMode totalMode) {
         try {
             logInfoStartingFilteredClientCountQuery(name, email, cpf, birthStart, birthEnd);
 
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT COUNT(*) FROM tb_clients WHERE 1=1 ");
+            putClientFilterParameters(parameters, name, email, cpf, birthStart, birthEnd);
 
-            if (isNotBlank(name)) {
-                sql.append(" AND name LIKE :name ");
-                parameters.put("name", "%" + name + "%");
-            }
-
-            if (isNotBlank(email)) {
-                sql.append(" AND email LIKE :email ");
-                parameters.put("email", "%" + email + "%");
-            }
+            String sql = sqlTemplateCache.get("clients.filter.count", parameters.keySet(),
+                    this::buildCountFilteredClientsSql);
 
-            if (isNotBlank(cpf)) {
-                sql.append(" AND cpf = :cpf ");
-                parameters.put("cpf", cpf);
-            }
-            if (nonNull(birthStart) || nonNull(birthEnd)) {
-                sql.append(" AND birth_date BETWEEN :birthStart AND :birthEnd ");
-                parameters.put("birthStart", birthStart);
-                parameters.put("birthEnd", birthEnd);
+            if (TotalMode.ESTIMATE.equals(totalMode)) {
+                Long estimatedTotal = rowCountEstimator.estimateRowCount(sql, parameters);
+                if (nonNull(estimatedTotal)) {
+                    return estimatedTotal;
+                }
             }
 
-            Query query = em.createNativeQuery(sql.toString());
-            setQueryParameters(query, parameters);
+            return filterCountCache.getOrCount(FILTER_COUNT_TABLES, sql, parameters, () -> {
+                Query query = em.createNativeQuery(sql);
+                setQueryParameters(query, parameters);
 
-            Object totalResult = query.getSingleResult();
-            Number total = (Number) totalResult;
+                Object totalResult = query.getSingleResult();
+                Number total = (Number) totalResult;
 
-            return total.longValue();
+                return total.longValue();
+            });
         } catch (Exception e) {
             logUnexpectedErrorOnCountFilteredClients(e);
             throw new ClientErrorException("Erro ao contar clientes filtrados.");
@@ -436,6 +728,89 @@ public class ClientRepository {
 
     }
 
+    private String buildFindAllClientsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT name, email, cpf, birth_date FROM tb_clients WHERE 1=1 ");
+        appendClientCursorCondition(sql, key);
+        sql.append(" ORDER BY " + key.orderBy() + " " + key.direction() + ", cpf " + key.direction() + " ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        return sql.toString();
+    }
+
+    private String buildFindFilteredClientsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT name, email, cpf, birth_date ");
+        if (key.windowTotal()) {
+            sql.append(WINDOW_TOTAL_COLUMN);
+        }
+        appendClientFilters(sql, key);
+        appendClientCursorCondition(sql, key);
+
+        sql.append(" ORDER BY " + key.orderBy() + " " + key.direction() + ", cpf " + key.direction() + " ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        return sql.toString();
+    }
+
+    private String buildCountFilteredClientsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT COUNT(*) ");
+        appendClientFilters(sql, key);
+        return sql.toString();
+    }
+
+    private void appendClientFilters(StringBuilder sql, SqlTemplateCache.Key key) {
+        sql.append(" FROM tb_clients WHERE 1=1 ");
+
+        if (key.has("name")) {
+            sql.append(" AND name LIKE :name ");
+        }
+        if (key.has("email")) {
+            sql.append(" AND email LIKE :email ");
+        }
+        if (key.has("cpf")) {
+            sql.append(" AND cpf = :cpf ");
+        }
+        if (key.has("birthStart")) {
+            sql.append(" AND birth_date >= :birthStart ");
+        }
+        if (key.has("birthEnd")) {
+            sql.append(" AND birth_date <= :birthEnd ");
+        }
+    }
+
+    private void putClientFilterParameters(Map<String, Object> parameters, String name, String email, String cpf,
+                                           LocalDate birthStart, LocalDate birthEnd) {
+        if (isNotBlank(name)) {
+            parameters.put("name", "%" + name + "%");
+        }
+        if (isNotBlank(email)) {
+            parameters.put("email", "%" + email + "%");
+        }
+        if (isNotBlank(cpf)) {
+            parameters.put("cpf", cpf);
+        }
+        if (nonNull(birthStart)) {
+            parameters.put("birthStart", birthStart);
+        }
+        if (nonNull(birthEnd)) {
+            parameters.put("birthEnd", birthEnd);
+        }
+    }
+
+    // O CPF é único, então serve de desempate para nomes/emails/datas repetidos
+    private void appendClientCursorCondition(StringBuilder sql, SqlTemplateCache.Key key) {
+        if (key.has(CURSOR_LAST_KEY)) {
+            appendKeysetCondition(sql, key.orderBy(), "cpf", key.direction());
+        }
+    }
+
+    private void putClientCursorParameters(Map<String, Object> parameters, String orderBy, CursorDto cursor) {
+        if (nonNull(cursor)) {
+            putKeysetParameters(parameters, parseCursorValue(cursor.getSortValue(), CURSOR_TYPES.get(orderBy)),
+                    cursor.getLastKey());
+        }
+    }
+
     private void setQueryParameters(Query query, Map<String, Object> parameters) {
         for (Map.Entry<String, Object> param : parameters.entrySet()) {
             query.setParameter(param.getKey(), param.getValue());
@@ -0,0 +1,94 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+
+// Respostas das verificações de existência da requisição HTTP atual: cada (pergunta, chave) vai ao banco no
+// máximo uma vez por requisição. Fora de uma requisição (jobs, threads de fundo) não guarda nada
+@Component
+public class ExistenceMemo {
+
+    public static final String CLIENT_ID = "tb_clients.id";
+    public static final String CLIENT_CPF = "tb_clients.cpf";
+    public static final String CLIENT_EMAIL = "tb_clients.email";
+    public static final String ORDER_ID = "tb_orders.id";
+    public static final String ORDER_CLIENT_ID = "tb_orders.client_id";
+    public static final String PRODUCT_ID = "tb_products.id";
+    public static final String PRODUCT_SKU = "tb_products.sku";
+    public static final String ITEM_ORDER_ID = "tb_item_orders.id";
+    public static final String ITEM_ORDER_ORDER_ID = "tb_item_orders.order_id";
+    public static final String ITEM_ORDER_PRODUCT_ID = "tb_item_orders.product_id";
+    public static final String ITEM_ORDER_CLIENT_ID = "tb_item_orders.client_id";
+
+    private static final String ANSWERS_ATTRIBUTE = ExistenceMemo.class.getName() + ".answers";
+
+    public Boolean exists(String question, Object key, Supplier<Boolean> query) {
+        Map<String, Boolean> answers = currentAnswers();
+        if (isNull(answers)) {
+            return query.get();
+        }
+        String answerKey = question + ":" + key;
+        Boolean answer = answers.get(answerKey);
+        if (isNull(answer)) {
+            answer = query.get();
+            answers.put(answerKey, answer);
+        }
+        return answer;
+    }
+
+    // Para as consultas que respondem várias perguntas de uma vez, ou que trazem a linha inteira
+    public void remember(String question, Object key, Boolean answer) {
+        Map<String, Boolean> answers = currentAnswers();
+        if (!isNull(answers)) {
+            answers.put(question + ":" + key, answer);
+        }
+    }
+
+    // false também fora de uma requisição: quem pergunta antes de buscar em lote não tem onde guardar a resposta
+    public boolean knows(String question, Object key) {
+        Map<String, Boolean> answers = currentAnswers();
+        return !isNull(answers) && answers.containsKey(question + ":" + key);
+    }
+
+    // EXISTS volta como número ou booleano conforme o driver
+    public static Boolean toBoolean(Object value) {
+        if (value instanceof Boolean answer) {
+            return answer;
+        }
+        return ((Number) value).intValue() != 0;
+    }
+
+    public boolean isActive() {
+        return !isNull(RequestContextHolder.getRequestAttributes());
+    }
+
+    // Depois de uma deleção na requisição, um "existe" lembrado pode ter deixado de valer
+    public void forgetAll() {
+        Map<String, Boolean> answers = currentAnswers();
+        if (!isNull(answers)) {
+            answers.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Boolean> currentAnswers() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (isNull(attributes)) {
+            return null;
+        }
+        Map<String, Boolean> answers = (Map<String, Boolean>) attributes.getAttribute(ANSWERS_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (isNull(answers)) {
+            answers = new HashMap<>();
+            attributes.setAttribute(ANSWERS_ATTRIBUTE, answers, RequestAttributes.SCOPE_REQUEST);
+        }
+        return answers;
+    }
+}
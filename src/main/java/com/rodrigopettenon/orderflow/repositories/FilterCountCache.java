@@ -0,0 +1,131 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.rodrigopettenon.orderflow.utils.TransactionUtil.runAfterCommit;
+import static java.util.Objects.isNull;
+
+@Component
+public class FilterCountCache implements MeterBinder, TransactionExecutionListener {
+
+    public static final String TB_CLIENTS = "tb_clients";
+    public static final String TB_ORDERS = "tb_orders";
+    public static final String TB_ITEM_ORDERS = "tb_item_orders";
+    public static final String TB_PRODUCTS = "tb_products";
+
+    private static final long MAXIMUM_SIZE = 10_000;
+
+    // Limite de segurança para escritas feitas fora da aplicação, que não passam pela invalidação
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private final Cache<String, Long> counts = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .recordStats()
+            .build();
+
+    // Versão de cada tabela: a chave carrega a versão das tabelas lidas, então uma escrita invalida
+    // exatamente as contagens que dependem daquela tabela (as entradas antigas somem por tamanho/tempo)
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+    public Long getOrCount(List<String> tables, String countSql, Map<String, Object> parameters, Supplier<Long> counter) {
+        return counts.get(buildKey(tables, countSql, parameters), key -> counter.get());
+    }
+
+    // No REPEATABLE READ a contagem enxerga o snapshot da transação, que pode ser anterior a uma escrita já
+    // refletida nas versões. As versões são fixadas no início da transação (antes de qualquer consulta) e a
+    // contagem entra no cache com elas: o resultado de um snapshot antigo fica numa chave já vencida
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (isNull(beginFailure) && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<String, Long> versions = Map.copyOf(currentVersions());
+            TransactionSynchronizationManager.bindResource(this, versions);
+            TransactionSynchronizationManager.registerSynchronization(new PinnedVersions(versions));
+        }
+    }
+
+    // Dentro de transação só invalida após o commit, senão uma leitura concorrente recolocaria o valor antigo
+    public void invalidate(String... tables) {
+        runAfterCommit(() -> bumpVersions(tables));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, counts, "filterCount");
+    }
+
+    private void bumpVersions(String... tables) {
+        for (String table : tables) {
+            tableVersions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    // Filtro normalizado: o SQL já sai igual para a mesma combinação de filtros e os parâmetros vão ordenados
+    private String buildKey(List<String> tables, String countSql, Map<String, Object> parameters) {
+        StringBuilder key = new StringBuilder();
+        for (String table : tables) {
+            key.append(table).append('@').append(tableVersion(table)).append(';');
+        }
+        key.append(countSql.trim()).append('|').append(new TreeMap<>(parameters));
+        return key.toString();
+    }
+
+    private long tableVersion(String table) {
+        @SuppressWarnings("unchecked")
+        Map<String, Long> pinned = (Map<String, Long>) TransactionSynchronizationManager.getResource(this);
+        if (!isNull(pinned)) {
+            return pinned.getOrDefault(table, 0L);
+        }
+        return tableVersions.computeIfAbsent(table, t -> new AtomicLong()).get();
+    }
+
+    private Map<String, Long> currentVersions() {
+        Map<String, Long> versions = new HashMap<>();
+        tableVersions.forEach((table, version) -> versions.put(table, version.get()));
+        return versions;
+    }
+
+    // Liga as versões à transação; sai do contexto quando ela é suspensa (REQUIRES_NEW, NOT_SUPPORTED) e volta
+    // quando é retomada
+    private final class PinnedVersions implements TransactionSynchronization {
+
+        private final Map<String, Long> versions;
+
+        private PinnedVersions(Map<String, Long> versions) {
+            this.versions = versions;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(FilterCountCache.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(FilterCountCache.this, versions);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(FilterCountCache.this);
+        }
+    }
+}
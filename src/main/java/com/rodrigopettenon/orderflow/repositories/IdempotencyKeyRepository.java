@@ -0,0 +1,111 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.rodrigopettenon.orderflow.dtos.IdempotentResponseDto;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+
+@Repository
+public class IdempotencyKeyRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // Reserva a chave antes de executar a requisição; false quando ela já existe (em andamento ou concluída).
+    // INSERT IGNORE: a chave repetida não lança exceção, que marcaria a transação como rollback-only
+    public Boolean reserveKey(String idempotencyKey, String requestHash, LocalDateTime createdAt) {
+        try {
+            StringBuilder sql = new StringBuilder();
+            sql.append(" INSERT IGNORE INTO tb_idempotency_keys (idempotency_key, request_hash, created_at) ");
+            sql.append(" VALUES (:idempotencyKey, :requestHash, :createdAt) ");
+
+            Query query = em.createNativeQuery(sql.toString())
+                    .setParameter("idempotencyKey", idempotencyKey)
+                    .setParameter("requestHash", requestHash)
+                    .setParameter("createdAt", createdAt);
+
+            return query.executeUpdate() > 0;
+        } catch (Exception e) {
+            logUnexpectedErrorOnReserveIdempotencyKey(idempotencyKey, e);
+            throw new ClientErrorException("Erro ao registrar a Idempotency-Key.");
+        }
+    }
+
+    // null quando a chave não existe; status nulo quando a requisição original ainda não terminou
+    public IdempotentResponseDto findIdempotentResponse(String idempotencyKey) {
+        try {
+            String sql = " SELECT request_hash, response_status, response_body FROM tb_idempotency_keys WHERE idempotency_key = :idempotencyKey ";
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("idempotencyKey", idempotencyKey);
+
+            List<Object[]> resultList = query.getResultList();
+            if (resultList.isEmpty()) {
+                return null;
+            }
+
+            Object[] result = resultList.get(0);
+            Integer status = result[1] == null ? null : ((Number) result[1]).intValue();
+            return new IdempotentResponseDto((String) result[0], status, (String) result[2]);
+        } catch (Exception e) {
+            logUnexpectedErrorOnFindIdempotentResponse(idempotencyKey, e);
+            throw new ClientErrorException("Erro ao buscar a resposta da Idempotency-Key.");
+        }
+    }
+
+    public void completeKey(String idempotencyKey, IdempotentResponseDto response) {
+        try {
+            StringBuilder sql = new StringBuilder();
+            sql.append(" UPDATE tb_idempotency_keys SET response_status = :responseStatus, response_body = :responseBody ");
+            sql.append(" WHERE idempotency_key = :idempotencyKey ");
+
+            Query query = em.createNativeQuery(sql.toString())
+                    .setParameter("responseStatus", response.getStatus())
+                    .setParameter("responseBody", response.getBody())
+                    .setParameter("idempotencyKey", idempotencyKey);
+
+            query.executeUpdate();
+        } catch (Exception e) {
+            logUnexpectedErrorOnCompleteIdempotencyKey(idempotencyKey, e);
+            throw new ClientErrorException("Erro ao gravar a resposta da Idempotency-Key.");
+        }
+    }
+
+    // Libera a chave de uma requisição que falhou, para o cliente poder tentar de novo
+    public void deleteKey(String idempotencyKey) {
+        try {
+            String sql = " DELETE FROM tb_idempotency_keys WHERE idempotency_key = :idempotencyKey ";
+
+            em.createNativeQuery(sql)
+                    .setParameter("idempotencyKey", idempotencyKey)
+                    .executeUpdate();
+        } catch (Exception e) {
+            logUnexpectedErrorOnDeleteIdempotencyKey(idempotencyKey, e);
+            throw new ClientErrorException("Erro ao liberar a Idempotency-Key.");
+        }
+    }
+
+    // Apaga as chaves vencidas e as reservas que ficaram em andamento (aplicação caiu no meio da requisição)
+    public Integer deleteExpiredKeys(LocalDateTime createdBefore, LocalDateTime inProgressCreatedBefore) {
+        try {
+            StringBuilder sql = new StringBuilder();
+            sql.append(" DELETE FROM tb_idempotency_keys WHERE created_at < :createdBefore ");
+            sql.append(" OR (response_status IS NULL AND created_at < :inProgressCreatedBefore) ");
+
+            return em.createNativeQuery(sql.toString())
+                    .setParameter("createdBefore", createdBefore)
+                    .setParameter("inProgressCreatedBefore", inProgressCreatedBefore)
+                    .executeUpdate();
+        } catch (Exception e) {
+            logUnexpectedErrorOnDeleteExpiredIdempotencyKeys(e);
+            throw new ClientErrorException("Erro ao apagar as Idempotency-Keys expiradas.");
+        }
+    }
+}
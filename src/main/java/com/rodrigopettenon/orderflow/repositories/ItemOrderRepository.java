@@ -3,24 +3,188 @@ package com.rodrigopettenon.orderflow.repositories;
 import com.rodrigopettenon.orderflow.dtos.*;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ItemOrderModel;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.Timestamp;
 import java.util.*;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.rodrigopettenon.orderflow.repositories.ExistenceMemo.*;
+import static com.rodrigopettenon.orderflow.repositories.FilterCountCache.*;
 import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.*;
 import static java.util.Objects.nonNull;
 
 @Repository
 public class ItemOrderRepository {
     
+    // 5 parâmetros por linha: bem abaixo do limite de 65.535 placeholders por statement do MySQL
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final List<String> FILTER_COUNT_TABLES = List.of(TB_ITEM_ORDERS);
+    private static final List<String> FULL_DETAILS_COUNT_TABLES = List.of(TB_ITEM_ORDERS, TB_PRODUCTS, TB_ORDERS, TB_CLIENTS);
+
     @PersistenceContext
     private EntityManager em;
 
+    @Autowired
+    private ExistenceMemo existenceMemo;
+
+    @Autowired
+    private RowCountEstimator rowCountEstimator;
+
+    @Autowired
+    private FilterCountCache filterCountCache;
+
+    @Autowired
+    private SqlTemplateCache sqlTemplateCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${orderflow.item-order-group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    @Value("${orderflow.item-order-group-commit.window-ms:2}")
+    private long groupCommitWindowMs;
+
+    @Value("${orderflow.item-order-group-commit.max-rows:256}")
+    private int groupCommitMaxRows;
+
+    // Grupo aberto do group commit: quem chega entra nele, o primeiro a entrar grava por todos
+    private final ReentrantLock groupLock = new ReentrantLock();
+    private final Condition groupReady = groupLock.newCondition();
+    private List<PendingItemOrder> openGroup = new ArrayList<>();
+
+    // Grupos já fechados e ainda sendo gravados; protegido por groupLock
+    private int flushingGroups;
+
+    // Dentro de uma transação a linha entra nela, como antes. Fora dela, com o group commit ligado, inserções
+    // concorrentes são agrupadas num INSERT multi-linha e num único commit, e cada chamador só retorna com a sua
+    // linha gravada; desligado, o INSERT ganha uma transação só para ele
     public ItemOrderDto saveItemOrder(ItemOrderModel itemOrderModel) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return insertItemOrder(itemOrderModel);
+        }
+        if (groupCommitEnabled) {
+            return saveItemOrderInGroup(itemOrderModel);
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> insertItemOrder(itemOrderModel));
+    }
+
+    private ItemOrderDto saveItemOrderInGroup(ItemOrderModel itemOrderModel) {
+        PendingItemOrder pending = new PendingItemOrder(itemOrderModel, new CompletableFuture<>());
+        List<PendingItemOrder> group = joinOpenGroup(pending);
+        if (nonNull(group)) {
+            try {
+                flushItemOrderGroup(group);
+            } finally {
+                finishGroupFlush();
+            }
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Devolve o grupo a gravar quando o chamador é o líder (primeiro do grupo); para os demais devolve null e
+    // eles só esperam o resultado. Sem outro grupo gravando, o líder grava na hora: só há espera sob concorrência,
+    // e ela acaba quando o grupo anterior termina, quando o grupo enche ou quando a janela vence
+    private List<PendingItemOrder> joinOpenGroup(PendingItemOrder pending) {
+        groupLock.lock();
+        try {
+            List<PendingItemOrder> group = openGroup;
+            group.add(pending);
+            if (group.size() >= groupCommitMaxRows) {
+                openGroup = new ArrayList<>();
+                groupReady.signalAll();
+            }
+            if (group.size() > 1) {
+                return null;
+            }
+
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(groupCommitWindowMs);
+            while (flushingGroups > 0 && group.size() < groupCommitMaxRows && remainingNanos > 0) {
+                try {
+                    remainingNanos = groupReady.awaitNanos(remainingNanos);
+                } catch (InterruptedException e) {
+                    // O grupo é gravado mesmo assim: os outros chamadores dependem do líder
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (openGroup == group) {
+                openGroup = new ArrayList<>();
+            }
+            flushingGroups++;
+            return group;
+        } finally {
+            groupLock.unlock();
+        }
+    }
+
+    private void finishGroupFlush() {
+        groupLock.lock();
+        try {
+            flushingGroups--;
+            groupReady.signalAll();
+        } finally {
+            groupLock.unlock();
+        }
+    }
+
+    private void flushItemOrderGroup(List<PendingItemOrder> group) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            if (group.size() > 1) {
+                try {
+                    List<ItemOrderModel> itemOrderModels = group.stream().map(PendingItemOrder::itemOrderModel).toList();
+                    List<ItemOrderDto> savedItemOrders = transaction.execute(status -> saveItemOrdersBatch(itemOrderModels));
+                    for (int i = 0; i < group.size(); i++) {
+                        group.get(i).result().complete(savedItemOrders.get(i));
+                    }
+                    return;
+                } catch (RuntimeException e) {
+                    logUnexpectedErrorOnSaveItemOrderGroup(group.size(), e);
+                }
+            }
+            // Uma linha inválida derruba o INSERT do grupo inteiro: cada uma é regravada sozinha para o erro
+            // chegar só a quem o causou
+            for (PendingItemOrder pending : group) {
+                try {
+                    pending.result().complete(transaction.execute(status -> insertItemOrder(pending.itemOrderModel())));
+                } catch (RuntimeException e) {
+                    pending.result().completeExceptionally(e);
+                }
+            }
+        } finally {
+            for (PendingItemOrder pending : group) {
+                pending.result().completeExceptionally(
+                        new ClientErrorException("Erro ao salvar o item do pedido no banco de dados."));
+            }
+        }
+    }
+
+    private ItemOrderDto insertItemOrder(ItemOrderModel itemOrderModel) {
         try {
             UUID id = UUID.randomUUID();
 
@@ -37,6 +201,7 @@ public class ItemOrderRepository {
                     .setParameter("price", itemOrderModel.getPrice());
 
             query.executeUpdate();
+            filterCountCache.invalidate(TB_ITEM_ORDERS);
 
             ItemOrderDto itemOrderDto = new ItemOrderDto();
 
@@ -55,7 +220,59 @@ public class ItemOrderRepository {
         }
     }
 
+    // INSERT multi-linha: uma ida ao banco a cada INSERT_BATCH_SIZE itens, ids na mesma ordem da entrada
+    public List<ItemOrderDto> saveItemOrdersBatch(List<ItemOrderModel> itemOrderModels) {
+        try {
+            List<ItemOrderDto> savedItemOrders = new ArrayList<>();
+            for (int start = 0; start < itemOrderModels.size(); start += INSERT_BATCH_SIZE) {
+                List<ItemOrderModel> chunk = itemOrderModels.subList(start,
+                        Math.min(start + INSERT_BATCH_SIZE, itemOrderModels.size()));
+
+                StringBuilder sql = new StringBuilder();
+                sql.append(" INSERT INTO tb_item_orders (id, order_id, product_id, quantity, price) VALUES ");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i > 0 ? ", " : " ");
+                    sql.append("(:id").append(i).append(", :order_id").append(i).append(", :product_id").append(i)
+                            .append(", :quantity").append(i).append(", :price").append(i).append(")");
+                }
+
+                Query query = em.createNativeQuery(sql.toString());
+                for (int i = 0; i < chunk.size(); i++) {
+                    ItemOrderModel itemOrderModel = chunk.get(i);
+                    UUID id = UUID.randomUUID();
+
+                    query.setParameter("id" + i, id.toString())
+                            .setParameter("order_id" + i, itemOrderModel.getOrder().getId().toString())
+                            .setParameter("product_id" + i, itemOrderModel.getProduct().getId().toString())
+                            .setParameter("quantity" + i, itemOrderModel.getQuantity())
+                            .setParameter("price" + i, itemOrderModel.getPrice());
+
+                    ItemOrderDto itemOrderDto = new ItemOrderDto();
+                    itemOrderDto.setId(id);
+                    itemOrderDto.setOrderId(itemOrderModel.getOrder().getId());
+                    itemOrderDto.setProductId(itemOrderModel.getProduct().getId());
+                    itemOrderDto.setQuantity(itemOrderModel.getQuantity());
+                    itemOrderDto.setPrice(itemOrderModel.getPrice());
+                    savedItemOrders.add(itemOrderDto);
+                }
+
+                query.executeUpdate();
+            }
+            filterCountCache.invalidate(TB_ITEM_ORDERS);
+
+            logSaveItemOrdersBatchSuccessfully(savedItemOrders.size());
+            return savedItemOrders;
+        } catch (Exception e) {
+            logUnexpectedErrorOnSaveItemOrdersBatch(e);
+            throw new ClientErrorException("Erro ao salvar o lote de itens de pedido no banco de dados.");
+        }
+    }
+
     public Boolean existsItemOrderById(UUID id) {
+        return existenceMemo.exists(ITEM_ORDER_ID, id, () -> queryExistsItemOrderById(id));
+    }
+
+    private Boolean queryExistsItemOrderById(UUID id) {
         try {
             String sql = " SELECT 1 FROM tb_item_orders WHERE id = :id LIMIT 1 ";
 
@@ -72,6 +289,10 @@ public class ItemOrderRepository {
     }
 
     public Boolean existsItemOrderByOrderId(UUID orderId) {
+        return existenceMemo.exists(ITEM_ORDER_ORDER_ID, orderId, () -> queryExistsItemOrderByOrderId(orderId));
+    }
+
+    private Boolean queryExistsItemOrderByOrderId(UUID orderId) {
         try {
              String sql = (" SELECT 1 FROM tb_item_orders WHERE order_id = :orderId LIMIT 1 ");
 
@@ -89,6 +310,10 @@ public class ItemOrderRepository {
     }
 
     public Boolean existsItemOrderByProductId(UUID productId) {
+        return existenceMemo.exists(ITEM_ORDER_PRODUCT_ID, productId, () -> queryExistsItemOrderByProductId(productId));
+    }
+
+    private Boolean queryExistsItemOrderByProductId(UUID productId) {
         try{
             String sql = (" SELECT 1 FROM tb_item_orders WHERE product_id = :productId LIMIT 1 ");
 
@@ -106,6 +331,10 @@ public class ItemOrderRepository {
     }
 
     public Boolean existsItemOrderByClientId(Long clientId) {
+        return existenceMemo.exists(ITEM_ORDER_CLIENT_ID, clientId, () -> queryExistsItemOrderByClientId(clientId));
+    }
+
+    private Boolean queryExistsItemOrderByClientId(Long clientId) {
         try{
             StringBuilder sql = new StringBuilder();
             sql.append(" SELECT 1 FROM tb_item_orders i JOIN tb_orders o JOIN tb_clients c ");
@@ -128,54 +357,32 @@ public class ItemOrderRepository {
 
     public GlobalPageDto<ItemOrderDto> findFilteredItemOrders(UUID id, UUID orderId, UUID productId, Integer minQuantity,
                                                               Integer maxQuantity, Integer page, Integer linesPerPage,
-                                                              String direction, String orderBy) {
-        Long total = queryCountFilteredItemOrders(id, orderId, productId, minQuantity, maxQuantity);
-        List<ItemOrderDto> items = queryFindFilteredItemOrders(id, orderId, productId, minQuantity,
-                maxQuantity, page, linesPerPage, direction, orderBy);
+                                                              String direction, String orderBy, TotalMode totalMode) {
+        GlobalPageDto<ItemOrderDto> itemOrdersPage = queryFindFilteredItemOrders(id, orderId, productId, minQuantity,
+                maxQuantity, page, linesPerPage, direction, orderBy, totalMode);
 
-        GlobalPageDto<ItemOrderDto> itemOrdersPage = new GlobalPageDto<>();
-        itemOrdersPage.setTotal(total);
-        itemOrdersPage.setItems(items);
+        if (needsCountQuery(itemOrdersPage, totalMode)) {
+            itemOrdersPage.setTotal(queryCountFilteredItemOrders(id, orderId, productId, minQuantity, maxQuantity, totalMode));
+        }
+        applyHasNext(itemOrdersPage, linesPerPage, totalMode);
 
         return itemOrdersPage;
 
     }
 
-    private List<ItemOrderDto> queryFindFilteredItemOrders(UUID id, UUID orderId, UUID productId, Integer minQuantity,
+    private GlobalPageDto<ItemOrderDto> queryFindFilteredItemOrders(UUID id, UUID orderId, UUID productId, Integer minQuantity,
                                                            Integer maxQuantity, Integer page, Integer linesPerPage,
-                                                           String direction, String orderBy) {
+                                                           String direction, String orderBy, TotalMode totalMode) {
         try {
             Map<String, Object> parameters = new HashMap<>();
+            boolean windowTotal = isWindowTotal(totalMode, null);
+            putItemOrderFilterParameters(parameters, id, orderId, productId, minQuantity, maxQuantity);
 
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT id, order_id, product_id, quantity, price FROM tb_item_orders WHERE 1=1 ");
-
-            if (nonNull(id)) {
-                sql.append(" AND id = :id ");
-                parameters.put("id", id.toString());
-            }
-            if (nonNull(orderId)) {
-                sql.append(" AND order_id = :order_id ");
-                parameters.put("order_id", orderId.toString());
-            }
-            if (nonNull(productId)) {
-                sql.append(" AND product_id = :product_id ");
-                parameters.put("product_id", productId.toString());
-            }
-            if (nonNull(minQuantity)) {
-                sql.append(" AND quantity >= :minQuantity ");
-                parameters.put("minQuantity", minQuantity);
-            }
-            if (nonNull((maxQuantity))) {
-                sql.append(" AND quantity <= :maxQuantity ");
-                parameters.put("maxQuantity", maxQuantity);
-            }
+            String sql = sqlTemplateCache.get("itemOrders.filter", parameters.keySet(), orderBy, direction, windowTotal,
+                    this::buildFindFilteredItemOrdersSql);
 
-            sql.append(" ORDER BY ").append(orderBy).append(" ").append(direction).append(" ");
-            sql.append(" LIMIT :limit OFFSET :offset");
-
-            Query query = em.createNativeQuery(sql.toString())
-                    .setParameter("limit", linesPerPage)
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("limit", resolveFetchLimit(linesPerPage, totalMode))
                     .setParameter("offset", page * linesPerPage);
 
             setQueryParameters(query, parameters);
@@ -194,8 +401,14 @@ public class ItemOrderRepository {
                 itemOrdersList.add(itemOrderDto);
             }
 
+            GlobalPageDto<ItemOrderDto> itemOrdersPage = new GlobalPageDto<>();
+            itemOrdersPage.setItems(itemOrdersList);
+            if (windowTotal) {
+                itemOrdersPage.setTotal(extractWindowTotal(resultList, page));
+            }
+
             logFindFilteredItemOrdersSuccessfully();
-            return itemOrdersList;
+            return itemOrdersPage;
         } catch (Exception e) {
             logUnexpectedErrorOnFindFilteredItemOrders(e);
             throw new ClientErrorException("Erro ao buscar itens de produtos filtrados.");
@@ -203,48 +416,96 @@ public class ItemOrderRepository {
     }
 
     private Long queryCountFilteredItemOrders(UUID id, UUID orderId, UUID productId, Integer minQuantity,
-                                              Integer maxQuantity) {
+                                              Integer maxQuantity, TotalMode totalMode) {
         try {
             Map<String, Object> parameters = new HashMap<>();
+            putItemOrderFilterParameters(parameters, id, orderId, productId, minQuantity, maxQuantity);
 
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT COUNT(*) FROM tb_item_orders WHERE 1=1 ");
+            String sql = sqlTemplateCache.get("itemOrders.filter.count", parameters.keySet(),
+                    this::buildCountFilteredItemOrdersSql);
 
-            if (nonNull(id)) {
-                sql.append(" AND id = :id ");
-                parameters.put("id", id.toString());
-            }
-            if (nonNull(orderId)) {
-                sql.append(" AND order_id = :order_id ");
-                parameters.put("order_id", orderId.toString());
-            }
-            if (nonNull(productId)) {
-                sql.append(" AND product_id = :product_id ");
-                parameters.put("product_id", productId.toString());
-            }
-            if (nonNull(minQuantity)) {
-                sql.append(" AND quantity >= :minQuantity ");
-                parameters.put("minQuantity", minQuantity);
-            }
-            if (!nonNull((maxQuantity))) {
-                sql.append(" AND quantity <= :maxQuantity ");
-                parameters.put("maxQuantity", maxQuantity);
+            if (TotalMode.ESTIMATE.equals(totalMode)) {
+                Long estimatedTotal = rowCountEstimator.estimateRowCount(sql, parameters);
+                if (nonNull(estimatedTotal)) {
+                    return estimatedTotal;
+                }
             }
 
-            Query query = em.createNativeQuery(sql.toString());
+            return filterCountCache.getOrCount(FILTER_COUNT_TABLES, sql, parameters, () -> {
+                Query query = em.createNativeQuery(sql);
 
-            setQueryParameters(query, parameters);
+                setQueryParameters(query, parameters);
 
-            Object result = query.getSingleResult();
-            Number total = (Number) result;
+                Object result = query.getSingleResult();
+                Number total = (Number) result;
 
-            return total.longValue();
+                return total.longValue();
+            });
         } catch (Exception e) {
             throw new ClientErrorException("Erro ao contar itens dos pedidos filtrados.");
         }
 
     }
 
+    private String buildFindFilteredItemOrdersSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT id, order_id, product_id, quantity, price ");
+        if (key.windowTotal()) {
+            sql.append(WINDOW_TOTAL_COLUMN);
+        }
+        appendItemOrderFilters(sql, key);
+
+        sql.append(" ORDER BY ").append(key.orderBy()).append(" ").append(key.direction()).append(" ");
+        sql.append(" LIMIT :limit OFFSET :offset");
+        return sql.toString();
+    }
+
+    private String buildCountFilteredItemOrdersSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT COUNT(*) ");
+        appendItemOrderFilters(sql, key);
+        return sql.toString();
+    }
+
+    private void appendItemOrderFilters(StringBuilder sql, SqlTemplateCache.Key key) {
+        sql.append(" FROM tb_item_orders WHERE 1=1 ");
+
+        if (key.has("id")) {
+            sql.append(" AND id = :id ");
+        }
+        if (key.has("order_id")) {
+            sql.append(" AND order_id = :order_id ");
+        }
+        if (key.has("product_id")) {
+            sql.append(" AND product_id = :product_id ");
+        }
+        if (key.has("minQuantity")) {
+            sql.append(" AND quantity >= :minQuantity ");
+        }
+        if (key.has("maxQuantity")) {
+            sql.append(" AND quantity <= :maxQuantity ");
+        }
+    }
+
+    private void putItemOrderFilterParameters(Map<String, Object> parameters, UUID id, UUID orderId, UUID productId,
+                                              Integer minQuantity, Integer maxQuantity) {
+        if (nonNull(id)) {
+            parameters.put("id", id.toString());
+        }
+        if (nonNull(orderId)) {
+            parameters.put("order_id", orderId.toString());
+        }
+        if (nonNull(productId)) {
+            parameters.put("product_id", productId.toString());
+        }
+        if (nonNull(minQuantity)) {
+            parameters.put("minQuantity", minQuantity);
+        }
+        if (nonNull(maxQuantity)) {
+            parameters.put("maxQuantity", maxQuantity);
+        }
+    }
+
     private void setQueryParameters(Query query, Map<String, Object> parameters) {
         for (Map.Entry<String, Object> param : parameters.entrySet()) {
             query.setParameter(param.getKey(), param.getValue());
@@ -253,58 +514,33 @@ public class ItemOrderRepository {
 
     public GlobalPageDto<GlobalFullDetailsDto> findFullDetailsItemOrders(UUID itemOrderId, UUID productId, UUID orderId,
                                                                          Long clientId, Integer page, Integer linePerPage,
-                                                                         String direction, String orderBy) {
-
-        Long total = queryCountFullFilteredItemOrderDetails(itemOrderId, productId, orderId, clientId);
+                                                                         String direction, String orderBy, TotalMode totalMode) {
 
-        List<GlobalFullDetailsDto> itemOrderFullDetailsList = queryFindFullDetailsItemOrders(itemOrderId, productId, orderId,
-                clientId, page, linePerPage, direction, orderBy);
+        GlobalPageDto<GlobalFullDetailsDto> itemOrderFullDetailsPage = queryFindFullDetailsItemOrders(itemOrderId, productId,
+                orderId, clientId, page, linePerPage, direction, orderBy, totalMode);
 
-        GlobalPageDto<GlobalFullDetailsDto> itemOrderFullDetailsPage = new GlobalPageDto<>();
-        itemOrderFullDetailsPage.setTotal(total);
-        itemOrderFullDetailsPage.setItems(itemOrderFullDetailsList);
+        if (needsCountQuery(itemOrderFullDetailsPage, totalMode)) {
+            itemOrderFullDetailsPage.setTotal(queryCountFullFilteredItemOrderDetails(itemOrderId, productId, orderId,
+                    clientId, totalMode));
+        }
+        applyHasNext(itemOrderFullDetailsPage, linePerPage, totalMode);
 
         return itemOrderFullDetailsPage;
     }
 
-    private List<GlobalFullDetailsDto> queryFindFullDetailsItemOrders(UUID itemOrderId, UUID productId, UUID orderId,
+    private GlobalPageDto<GlobalFullDetailsDto> queryFindFullDetailsItemOrders(UUID itemOrderId, UUID productId, UUID orderId,
                                                                       Long clientId, Integer page, Integer linePerPage,
-                                                                      String direction, String orderBy) {
+                                                                      String direction, String orderBy, TotalMode totalMode) {
         try{
             Map<String, Object> parameters = new HashMap<>();
+            boolean windowTotal = isWindowTotal(totalMode, null);
+            putFullDetailsItemOrderFilterParameters(parameters, itemOrderId, productId, orderId, clientId);
 
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT i.id, i.quantity, i.price, ");
-            sql.append(" p.id, p.name, p.price, ");
-            sql.append(" o.id, o.order_date, o.status, ");
-            sql.append(" c.id, c.name, c.email ");
-            sql.append(" FROM tb_item_orders i ");
-            sql.append(" JOIN tb_products p ON i.product_id = p.id ");
-            sql.append(" JOIN tb_orders o ON i.order_id = o.id ");
-            sql.append(" JOIN tb_clients c ON o.client_id = c.id ");
-            sql.append(" WHERE 1=1 ");
+            String sql = sqlTemplateCache.get("itemOrders.fullDetails", parameters.keySet(), orderBy, direction,
+                    windowTotal, this::buildFindFullDetailsItemOrdersSql);
 
-            if (nonNull(itemOrderId)) {
-                sql.append(" AND i.id = :itemOrderId ");
-                parameters.put("itemOrderId", itemOrderId.toString());
-            }
-            if (nonNull(productId)) {
-                sql.append(" AND p.id = :productId ");
-                parameters.put("productId", productId.toString());
-            }
-            if (nonNull(orderId)) {
-                sql.append(" AND o.id = :orderId ");
-                parameters.put("orderId", orderId.toString());
-            }
-            if (nonNull(clientId)) {
-                sql.append(" AND c.id = :clientId ");
-                parameters.put("clientId", clientId);
-            }
-            sql.append(" ORDER BY ").append(orderBy).append(" ").append(direction).append(" ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
-
-            Query query = em.createNativeQuery(sql.toString())
-                    .setParameter("limit", linePerPage)
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("limit", resolveFetchLimit(linePerPage, totalMode))
                     .setParameter("offset", page * linePerPage);
 
             setQueryParameters(query, parameters);
@@ -346,8 +582,14 @@ public class ItemOrderRepository {
                 fullDetailsList.add(itemOrderFullDetailsDto);
             }
 
+            GlobalPageDto<GlobalFullDetailsDto> itemOrderFullDetailsPage = new GlobalPageDto<>();
+            itemOrderFullDetailsPage.setItems(fullDetailsList);
+            if (windowTotal) {
+                itemOrderFullDetailsPage.setTotal(extractWindowTotal(results, page));
+            }
+
             logFindFullDetailsItemOrdersSuccessfully();
-            return fullDetailsList;
+            return itemOrderFullDetailsPage;
 
         } catch (Exception e) {
             logUnexpectedErrorOnFindFullDetailsItemOrders(e);
@@ -356,45 +598,128 @@ public class ItemOrderRepository {
     }
 
     private Long queryCountFullFilteredItemOrderDetails(UUID itemOrderId, UUID productId, UUID orderId,
-                                                        Long clientId) {
+                                                        Long clientId, TotalMode totalMode) {
         try{
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
+            putFullDetailsItemOrderFilterParameters(parameters, itemOrderId, productId, orderId, clientId);
 
-            sql.append(" SELECT COUNT(*) FROM tb_item_orders i ");
-            sql.append(" JOIN tb_products p ON i.product_id = p.id ");
-            sql.append(" JOIN tb_orders o ON i.order_id = o.id ");
-            sql.append(" JOIN tb_clients c ON o.client_id = c.id ");
-            sql.append(" WHERE 1=1 ");
+            String sql = sqlTemplateCache.get("itemOrders.fullDetails.count", parameters.keySet(),
+                    this::buildCountFullDetailsItemOrdersSql);
 
-            if (nonNull(itemOrderId)) {
-                sql.append(" AND i.id = :itemOrderId ");
-                parameters.put("itemOrderId", itemOrderId.toString());
-            }
-            if (nonNull(productId)) {
-                sql.append(" AND p.id = :productId ");
-                parameters.put("productId", productId.toString());
-            }
-            if (nonNull(orderId)) {
-                sql.append(" AND o.id = :orderId ");
-                parameters.put("orderId", orderId.toString());
-            }
-            if (nonNull(clientId)) {
-                sql.append(" AND c.id = :clientId ");
-                parameters.put("clientId", clientId);
+            if (TotalMode.ESTIMATE.equals(totalMode)) {
+                Long estimatedTotal = rowCountEstimator.estimateRowCount(sql, parameters);
+                if (nonNull(estimatedTotal)) {
+                    return estimatedTotal;
+                }
             }
 
-            Query query = em.createNativeQuery(sql.toString());
+            return filterCountCache.getOrCount(FULL_DETAILS_COUNT_TABLES, sql, parameters, () -> {
+                Query query = em.createNativeQuery(sql);
 
-            setQueryParameters(query, parameters);
+                setQueryParameters(query, parameters);
 
-            Object result = query.getSingleResult();
-            Number total = (Number) result;
+                Object result = query.getSingleResult();
+                Number total = (Number) result;
 
-            return total.longValue();
+                return total.longValue();
+            });
 
         } catch (Exception e) {
             throw new ClientErrorException("Erro ao contar todos items dos pedidos filtrados com todos detalhes.");
         }
     }
- }
+
+    // Deferred join: a subconsulta ordena e pagina só (i.id, coluna de ordenação) e as colunas de
+    // produto, pedido e cliente são buscadas apenas para os ids da página; i.id desempata a ordenação
+    private String buildFindFullDetailsItemOrdersSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT i.id, i.quantity, i.price, ");
+        sql.append(" p.id, p.name, p.price, ");
+        sql.append(" o.id, o.order_date, o.status, ");
+        sql.append(" c.id, c.name, c.email ");
+        if (key.windowTotal()) {
+            sql.append(", page.window_total ");
+        }
+        sql.append(" FROM ( ");
+        sql.append(" SELECT i.id AS item_id, ").append(key.orderBy()).append(" AS sort_value ");
+        if (key.windowTotal()) {
+            sql.append(WINDOW_TOTAL_COLUMN);
+        }
+        appendFullDetailsItemOrderFilters(sql, key);
+        sql.append(" ORDER BY ").append(key.orderBy()).append(" ").append(key.direction())
+                .append(", i.id ").append(key.direction()).append(" ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        sql.append(" ) page ");
+        sql.append(" JOIN tb_item_orders i ON i.id = page.item_id ");
+        sql.append(" JOIN tb_products p ON p.id = i.product_id ");
+        sql.append(" JOIN tb_orders o ON o.id = i.order_id ");
+        sql.append(" JOIN tb_clients c ON c.id = o.client_id ");
+
+        sql.append(" ORDER BY page.sort_value ").append(key.direction())
+                .append(", page.item_id ").append(key.direction()).append(" ");
+        return sql.toString();
+    }
+
+    private String buildCountFullDetailsItemOrdersSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT COUNT(*) ");
+        appendFullDetailsItemOrderFilters(sql, key);
+        return sql.toString();
+    }
+
+    // Junta só as tabelas que os filtros vinculados e a ordenação usam: as FKs NOT NULL garantem que as junções
+    // omitidas não mudam as linhas, e as colunas de produto, pedido e cliente vêm da consulta externa
+    private void appendFullDetailsItemOrderFilters(StringBuilder sql, SqlTemplateCache.Key key) {
+        boolean joinsClients = sortsBy(key, "c.");
+        boolean joinsOrders = joinsClients || sortsBy(key, "o.") || key.has("clientId");
+
+        sql.append(" FROM tb_item_orders i ");
+        if (sortsBy(key, "p.")) {
+            sql.append(" JOIN tb_products p ON i.product_id = p.id ");
+        }
+        if (joinsOrders) {
+            sql.append(" JOIN tb_orders o ON i.order_id = o.id ");
+        }
+        if (joinsClients) {
+            sql.append(" JOIN tb_clients c ON o.client_id = c.id ");
+        }
+        sql.append(" WHERE 1=1 ");
+
+        if (key.has("itemOrderId")) {
+            sql.append(" AND i.id = :itemOrderId ");
+        }
+        if (key.has("productId")) {
+            sql.append(" AND i.product_id = :productId ");
+        }
+        if (key.has("orderId")) {
+            sql.append(" AND i.order_id = :orderId ");
+        }
+        if (key.has("clientId")) {
+            sql.append(" AND o.client_id = :clientId ");
+        }
+    }
+
+    // A contagem não tem ordenação (orderBy nulo na chave)
+    private boolean sortsBy(SqlTemplateCache.Key key, String tableAlias) {
+        return nonNull(key.orderBy()) && key.orderBy().startsWith(tableAlias);
+    }
+
+    private void putFullDetailsItemOrderFilterParameters(Map<String, Object> parameters, UUID itemOrderId,
+                                                         UUID productId, UUID orderId, Long clientId) {
+        if (nonNull(itemOrderId)) {
+            parameters.put("itemOrderId", itemOrderId.toString());
+        }
+        if (nonNull(productId)) {
+            parameters.put("productId", productId.toString());
+        }
+        if (nonNull(orderId)) {
+            parameters.put("orderId", orderId.toString());
+        }
+        if (nonNull(clientId)) {
+            parameters.put("clientId", clientId);
+        }
+    }
+
+    private record PendingItemOrder(ItemOrderModel itemOrderModel, CompletableFuture<ItemOrderDto> result) {
+    }
+}
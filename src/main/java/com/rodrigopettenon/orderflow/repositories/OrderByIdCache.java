@@ -0,0 +1,86 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rodrigopettenon.orderflow.dtos.OrderDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+
+import static java.util.Objects.isNull;
+
+// Pedidos lidos por id (GET /order/id, consultado em polling depois do checkout). O Caffeine admite pela
+// frequência (W-TinyLFU): uma varredura de ids lidos uma vez não tira da memória os pedidos mais consultados
+@Component
+public class OrderByIdCache implements MeterBinder {
+
+    private static final long MAXIMUM_SIZE = 100_000;
+
+    // Limite de segurança para escritas feitas fora da aplicação, que não passam pelo write-through
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private final Cache<UUID, OrderDto> orders = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .recordStats()
+            .build();
+
+    private final CacheWriteVersion version = new CacheWriteVersion();
+
+    // Sempre uma cópia: quem recebe o pedido pode alterá-lo sem mexer na entrada do cache
+    public OrderDto find(UUID id) {
+        OrderDto order = orders.getIfPresent(id);
+        return isNull(order) ? null : copyOf(order, order.getStatus(), order.getRowVersion());
+    }
+
+    public long currentVersion() {
+        return version.current();
+    }
+
+    // Chamado com o pedido lido do banco e a versão anterior à leitura
+    public void load(OrderDto order, long readVersion) {
+        version.load(orders.asMap(), order.getId(), copyOf(order, order.getStatus(), order.getRowVersion()), readVersion);
+    }
+
+    public void putAfterCommit(OrderDto order) {
+        OrderDto cached = copyOf(order, order.getStatus(), order.getRowVersion());
+        version.applyAfterCommit(() -> orders.put(cached.getId(), cached));
+    }
+
+    // O UPDATE incrementa row_version; a entrada acompanha para o ETag continuar igual ao do banco
+    public void updateStatusAfterCommit(UUID id, String status) {
+        version.applyAfterCommit(() -> {
+            orders.asMap().computeIfPresent(id, (key, order) -> copyOf(order, status,
+                    isNull(order.getRowVersion()) ? null : order.getRowVersion() + 1));
+        });
+    }
+
+    public void invalidateAfterCommit(Collection<UUID> ids) {
+        version.applyAfterCommit(() -> orders.invalidateAll(ids));
+    }
+
+    // Para as escritas por filtro, em que os ids alterados não são conhecidos
+    public void invalidateAllAfterCommit() {
+        version.applyAfterCommit(() -> orders.invalidateAll());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, orders, "orderById");
+    }
+
+    private OrderDto copyOf(OrderDto order, String status, Long rowVersion) {
+        OrderDto copy = new OrderDto();
+        copy.setId(order.getId());
+        copy.setClientId(order.getClientId());
+        copy.setOrderDate(order.getOrderDate());
+        copy.setStatus(status);
+        copy.setRowVersion(rowVersion);
+        return copy;
+    }
+}
@@ -0,0 +1,233 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.rodrigopettenon.orderflow.dtos.OrderDto;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static com.rodrigopettenon.orderflow.utils.LogUtil.logOrderJournalReplayed;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+// Journal local dos pedidos aceitos no modo assíncrono: arquivo mapeado em memória, entradas com CRC32,
+// gravadas em tb_orders depois pelo OrderJournalDrainer e reaplicadas na subida da aplicação
+@Component
+public class OrderJournal {
+
+    private static final int MAGIC = 0x4F464A31;
+
+    // Cabeçalho: magic, geração atual e posição até onde as entradas já estão em tb_orders
+    private static final int GENERATION_OFFSET = 4;
+    private static final int DRAINED_OFFSET = 8;
+    private static final int HEADER_SIZE = 12;
+
+    // Entrada: tamanho do payload, geração, CRC32 (geração + payload) e o payload
+    private static final int ENTRY_HEADER_SIZE = 12;
+
+    @Value("${orderflow.order-journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orderflow.order-journal.path:data/orders.journal}")
+    private String path;
+
+    @Value("${orderflow.order-journal.size-mb:64}")
+    private int sizeMb;
+
+    private MappedByteBuffer buffer;
+    private int generation;
+    private int writePosition;
+    private int drainedPosition;
+
+    // Pedidos aceitos e ainda não gravados, para as consultas por id enxergarem o pedido
+    private final Map<UUID, OrderDto> pendingOrders = new ConcurrentHashMap<>();
+    private final BlockingQueue<JournalEntry> undrainedEntries = new LinkedBlockingQueue<>();
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path file = Path.of(path);
+        if (nonNull(file.getParent())) {
+            Files.createDirectories(file.getParent());
+        }
+        // O mapeamento continua válido depois de o canal ser fechado
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) sizeMb * 1024 * 1024);
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            generation = 1;
+            drainedPosition = HEADER_SIZE;
+            writePosition = HEADER_SIZE;
+            buffer.putInt(GENERATION_OFFSET, generation);
+            buffer.putInt(DRAINED_OFFSET, drainedPosition);
+            buffer.putInt(0, MAGIC);
+            buffer.force();
+            return;
+        }
+
+        generation = buffer.getInt(GENERATION_OFFSET);
+        drainedPosition = buffer.getInt(DRAINED_OFFSET);
+        writePosition = replay(drainedPosition);
+        logOrderJournalReplayed(pendingOrders.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Durável ao retornar: a entrada é forçada para o disco antes de o pedido entrar na fila de gravação.
+    // false quando o journal está desligado ou cheio, e o chamador grava de forma síncrona
+    public synchronized boolean append(OrderDto order) {
+        if (!enabled) {
+            return false;
+        }
+        byte[] payload = encode(order);
+        int entrySize = ENTRY_HEADER_SIZE + payload.length;
+        if (writePosition + entrySize > buffer.capacity()) {
+            // Só dá para voltar ao início do arquivo com tudo já gravado em tb_orders
+            if (drainedPosition != writePosition) {
+                return false;
+            }
+            rewind();
+        }
+
+        int position = writePosition;
+        buffer.putInt(position + 4, generation);
+        buffer.put(position + ENTRY_HEADER_SIZE, payload);
+        buffer.putInt(position + 8, crc(position, payload.length));
+        // Tamanho por último: uma entrada cortada no meio não passa no CRC e encerra o replay
+        buffer.putInt(position, payload.length);
+        buffer.force(position, entrySize);
+
+        writePosition += entrySize;
+        pendingOrders.put(order.getId(), order);
+        undrainedEntries.add(new JournalEntry(order, writePosition));
+        return true;
+    }
+
+    // Espera a primeira entrada até o timeout e leva junto o que já estiver na fila (group commit)
+    public List<JournalEntry> takeBatch(int maxEntries, Duration timeout) throws InterruptedException {
+        List<JournalEntry> batch = new ArrayList<>();
+        JournalEntry first = undrainedEntries.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (isNull(first)) {
+            return batch;
+        }
+        batch.add(first);
+        undrainedEntries.drainTo(batch, maxEntries - 1);
+        return batch;
+    }
+
+    public boolean hasUndrainedEntries() {
+        return !undrainedEntries.isEmpty();
+    }
+
+    // Chamado depois do commit, sempre em ordem: se cair antes disso, o replay regrava o bloco (o id repetido é
+    // ignorado pelo ON DUPLICATE KEY)
+    public synchronized void markDrained(List<JournalEntry> entries) {
+        drainedPosition = entries.get(entries.size() - 1).endPosition();
+        buffer.putInt(DRAINED_OFFSET, drainedPosition);
+        buffer.force(0, HEADER_SIZE);
+
+        for (JournalEntry entry : entries) {
+            pendingOrders.remove(entry.order().getId());
+        }
+        if (drainedPosition == writePosition) {
+            rewind();
+        }
+    }
+
+    public OrderDto findPendingOrder(UUID id) {
+        return pendingOrders.get(id);
+    }
+
+    // Nova geração: as entradas antigas que sobram no arquivo deixam de valer para o replay
+    private void rewind() {
+        generation++;
+        writePosition = HEADER_SIZE;
+        drainedPosition = HEADER_SIZE;
+        buffer.putInt(GENERATION_OFFSET, generation);
+        buffer.putInt(DRAINED_OFFSET, drainedPosition);
+        buffer.force(0, HEADER_SIZE);
+    }
+
+    private int replay(int position) {
+        while (position + ENTRY_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + ENTRY_HEADER_SIZE + length > buffer.capacity()
+                    || buffer.getInt(position + 4) != generation
+                    || buffer.getInt(position + 8) != crc(position, length)) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(position + ENTRY_HEADER_SIZE, payload);
+            OrderDto order = decode(payload);
+
+            position += ENTRY_HEADER_SIZE + length;
+            pendingOrders.put(order.getId(), order);
+            undrainedEntries.add(new JournalEntry(order, position));
+        }
+        return position;
+    }
+
+    private int crc(int position, int payloadLength) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + 4, 4));
+        crc.update(buffer.slice(position + ENTRY_HEADER_SIZE, payloadLength));
+        return (int) crc.getValue();
+    }
+
+    private byte[] encode(OrderDto order) {
+        byte[] status = order.getStatus().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(8 + 8 + 8 + 8 + 4 + 2 + status.length);
+        payload.putLong(order.getId().getMostSignificantBits());
+        payload.putLong(order.getId().getLeastSignificantBits());
+        payload.putLong(order.getClientId());
+        payload.putLong(order.getOrderDate().toEpochSecond(ZoneOffset.UTC));
+        payload.putInt(order.getOrderDate().getNano());
+        payload.putShort((short) status.length);
+        payload.put(status);
+        return payload.array();
+    }
+
+    private OrderDto decode(byte[] bytes) {
+        ByteBuffer payload = ByteBuffer.wrap(bytes);
+        OrderDto order = new OrderDto();
+        order.setId(new UUID(payload.getLong(), payload.getLong()));
+        order.setClientId(payload.getLong());
+        long epochSecond = payload.getLong();
+        order.setOrderDate(LocalDateTime.ofEpochSecond(epochSecond, payload.getInt(), ZoneOffset.UTC));
+        byte[] status = new byte[payload.getShort()];
+        payload.get(status);
+        order.setStatus(new String(status, StandardCharsets.UTF_8));
+        order.setPersisted(false);
+        return order;
+    }
+
+    // endPosition: onde a próxima entrada começa, gravado no cabeçalho quando esta chega em tb_orders
+    public record JournalEntry(OrderDto order, int endPosition) {
+    }
+}
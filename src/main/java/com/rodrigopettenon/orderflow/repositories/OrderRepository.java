@@ -5,28 +5,76 @@ import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ClientModel;
 import com.rodrigopettenon.orderflow.models.OrderModel;
 import com.rodrigopettenon.orderflow.models.OrderStatus;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static com.rodrigopettenon.orderflow.repositories.ExistenceMemo.*;
+import static com.rodrigopettenon.orderflow.repositories.FilterCountCache.*;
+import static com.rodrigopettenon.orderflow.utils.ETagUtil.rowETag;
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.EXPORT_FETCH_SIZE;
 import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.*;
 import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.truncate;
 
 @Repository
 public class OrderRepository {
 
+    private static final Map<String, Class<?>> CURSOR_TYPES_FILTER = Map.of(
+            "id", String.class,
+            "client_id", Long.class,
+            "order_date", LocalDateTime.class,
+            "status", String.class);
+    private static final Map<String, Class<?>> CURSOR_TYPES_DETAILS = Map.of(
+            "o.order_date", LocalDateTime.class,
+            "o.status", String.class,
+            "c.id", Long.class,
+            "i.quantity", Integer.class,
+            "i.price", Double.class,
+            "c.name", String.class);
+
+    // 4 parâmetros por linha: bem abaixo do limite de 65.535 placeholders por statement do MySQL
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int DEAD_LETTER_ERROR_MAX_LENGTH = 1000;
+    private static final int STATUS_UPDATE_BATCH_SIZE = 1000;
+
+    private static final List<String> FILTER_COUNT_TABLES = List.of(TB_ORDERS);
+    private static final List<String> JOINED_COUNT_TABLES = List.of(TB_ORDERS, TB_ITEM_ORDERS, TB_CLIENTS);
+
     @PersistenceContext
     private EntityManager em;
 
+    @Autowired
+    private ExistenceMemo existenceMemo;
+
+    @Autowired
+    private RowCountEstimator rowCountEstimator;
+
+    @Autowired
+    private FilterCountCache filterCountCache;
+
+    @Autowired
+    private SqlTemplateCache sqlTemplateCache;
+
+    @Autowired
+    private OrderByIdCache orderByIdCache;
+
     public OrderDto saveOrder(OrderModel orderModel) {
         try {
             UUID id = UUID.randomUUID();
@@ -42,12 +90,15 @@ public class OrderRepository {
                     .setParameter("status", orderModel.getStatus().toString());
 
             query.executeUpdate();
+            filterCountCache.invalidate(TB_ORDERS);
 
             OrderDto newOrder = new OrderDto();
             newOrder.setId(id);
             newOrder.setClientId(orderModel.getClient().getId());
             newOrder.setOrderDate(orderModel.getOrderDate());
             newOrder.setStatus(orderModel.getStatus().toString());
+            newOrder.setRowVersion(0L);
+            orderByIdCache.putAfterCommit(newOrder);
 
             logSaveOrderSuccessfully(id, newOrder.getClientId(), newOrder.getOrderDate(), newOrder.getStatus());
             return newOrder;
@@ -57,24 +108,228 @@ public class OrderRepository {
         }
     }
 
-    public void updateStatusById(UUID id, OrderStatus newStatus) {
+    // INSERT multi-linha (o que o rewriteBatchedStatements do driver faria): uma ida ao banco a cada
+    // INSERT_BATCH_SIZE pedidos; os ids são gerados aqui, então voltam na mesma ordem da entrada
+    public List<OrderDto> saveOrdersBatch(List<OrderModel> orderModels) {
+        try {
+            List<OrderDto> savedOrders = new ArrayList<>();
+            for (int start = 0; start < orderModels.size(); start += INSERT_BATCH_SIZE) {
+                List<OrderModel> chunk = orderModels.subList(start, Math.min(start + INSERT_BATCH_SIZE, orderModels.size()));
+
+                StringBuilder sql = new StringBuilder();
+                sql.append(" INSERT INTO tb_orders (id, client_id, order_date, status) VALUES ");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i > 0 ? ", " : " ");
+                    sql.append("(:id").append(i).append(", :client_id").append(i)
+                            .append(", :order_date").append(i).append(", :status").append(i).append(")");
+                }
+
+                Query query = em.createNativeQuery(sql.toString());
+                for (int i = 0; i < chunk.size(); i++) {
+                    OrderModel orderModel = chunk.get(i);
+                    UUID id = UUID.randomUUID();
+
+                    query.setParameter("id" + i, id.toString())
+                            .setParameter("client_id" + i, orderModel.getClient().getId())
+                            .setParameter("order_date" + i, orderModel.getOrderDate())
+                            .setParameter("status" + i, orderModel.getStatus().toString());
+
+                    OrderDto newOrder = new OrderDto();
+                    newOrder.setId(id);
+                    newOrder.setClientId(orderModel.getClient().getId());
+                    newOrder.setOrderDate(orderModel.getOrderDate());
+                    newOrder.setStatus(orderModel.getStatus().toString());
+                    savedOrders.add(newOrder);
+                }
+
+                query.executeUpdate();
+            }
+            filterCountCache.invalidate(TB_ORDERS);
+
+            logSaveOrdersBatchSuccessfully(savedOrders.size());
+            return savedOrders;
+        } catch (Exception e) {
+            logUnexpectedErrorOnSaveOrdersBatch(e);
+            throw new ClientErrorException("Erro ao cadastrar lote de pedidos.");
+        }
+    }
+
+    // Pedidos que vêm do OrderJournal já com id: o ON DUPLICATE KEY UPDATE id = id torna inofensivo o replay de um
+    // bloco já gravado, sem o IGNORE, que também engoliria erros de FK e de dados inválidos
+    public void saveJournaledOrders(List<OrderDto> orders) {
+        try {
+            for (int start = 0; start < orders.size(); start += INSERT_BATCH_SIZE) {
+                List<OrderDto> chunk = orders.subList(start, Math.min(start + INSERT_BATCH_SIZE, orders.size()));
+
+                StringBuilder sql = new StringBuilder();
+                sql.append(" INSERT INTO tb_orders (id, client_id, order_date, status) VALUES ");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i > 0 ? ", " : " ");
+                    sql.append("(:id").append(i).append(", :client_id").append(i)
+                            .append(", :order_date").append(i).append(", :status").append(i).append(")");
+                }
+                // Só o id repetido (bloco regravado no replay) é ignorado; FK, NOT NULL e tamanho continuam
+                // sendo erro, ao contrário do INSERT IGNORE, que os rebaixaria a warning e perderia o pedido
+                sql.append(" ON DUPLICATE KEY UPDATE id = id ");
+
+                Query query = em.createNativeQuery(sql.toString());
+                for (int i = 0; i < chunk.size(); i++) {
+                    OrderDto order = chunk.get(i);
+                    query.setParameter("id" + i, order.getId().toString())
+                            .setParameter("client_id" + i, order.getClientId())
+                            .setParameter("order_date" + i, order.getOrderDate())
+                            .setParameter("status" + i, order.getStatus());
+                }
+
+                query.executeUpdate();
+            }
+            filterCountCache.invalidate(TB_ORDERS);
+            // Invalida em vez de gravar no cache: no replay a linha pode já existir com outro status (o ON DUPLICATE
+            // KEY não a altera), e a cópia do journal não tem row_version para o ETag. A próxima leitura carrega do banco
+            orderByIdCache.invalidateAfterCommit(orders.stream().map(OrderDto::getId).toList());
+        } catch (Exception e) {
+            logUnexpectedErrorOnSaveJournaledOrders(e);
+            throw new ClientErrorException("Erro ao gravar os pedidos do journal.", e);
+        }
+    }
+
+    // Pedido do journal recusado pelo banco; regravado no replay, só atualiza o erro
+    public void saveDeadLetterOrder(OrderDto order, String errorMessage) {
         try {
-            String sql = (" UPDATE tb_orders SET status = :newStatus WHERE id = :id ");
+            StringBuilder sql = new StringBuilder();
+            sql.append(" INSERT INTO tb_orders_dead_letter (id, client_id, order_date, status, error_message, failed_at) ");
+            sql.append(" VALUES (:id, :clientId, :orderDate, :status, :errorMessage, :failedAt) ");
+            sql.append(" ON DUPLICATE KEY UPDATE error_message = VALUES(error_message), failed_at = VALUES(failed_at) ");
+
+            Query query = em.createNativeQuery(sql.toString())
+                    .setParameter("id", order.getId().toString())
+                    .setParameter("clientId", order.getClientId())
+                    .setParameter("orderDate", order.getOrderDate())
+                    .setParameter("status", order.getStatus())
+                    .setParameter("errorMessage", truncate(errorMessage, DEAD_LETTER_ERROR_MAX_LENGTH))
+                    .setParameter("failedAt", LocalDateTime.now());
+
+            query.executeUpdate();
+            logOrderDeadLettered(order.getId(), errorMessage);
+        } catch (Exception e) {
+            logUnexpectedErrorOnSaveDeadLetterOrder(order.getId(), e);
+            throw new ClientErrorException("Erro ao gravar o pedido recusado do journal.", e);
+        }
+    }
+
+    // A regra "só sai de PENDING" fica na própria condição do UPDATE: sem leitura antes e sem corrida entre
+    // duas requisições; false quando o pedido não existe ou já não está PENDING
+    public Boolean updateStatusById(UUID id, OrderStatus newStatus) {
+        try {
+            String sql = (" UPDATE tb_orders SET status = :newStatus, row_version = row_version + 1 WHERE id = :id AND status = 'PENDING' ");
 
             Query query = em.createNativeQuery(sql)
                     .setParameter("newStatus", newStatus)
                     .setParameter("id", id.toString());
 
-            query.executeUpdate();
+            int updated = query.executeUpdate();
+            if (updated == 0) {
+                return false;
+            }
+            filterCountCache.invalidate(TB_ORDERS);
+            orderByIdCache.updateStatusAfterCommit(id, newStatus.toString());
+            return true;
         } catch (Exception e) {
             logUnexpectedErrorOnUpdateOrderStatusById(id, e);
             throw new ClientErrorException("Erro ao atualizar o status do pedido pelo id.");
         }
     }
 
+    // Por bloco de ids: trava só os pedidos PENDING (para saber quais serão ignorados) e faz um único
+    // UPDATE condicional; a condição de status repete a regra de updateOrderStatusById no próprio banco
+    public Set<UUID> updatePendingStatusByIds(Collection<UUID> ids, OrderStatus newStatus) {
+        try {
+            List<String> idValues = new ArrayList<>();
+            for (UUID id : ids) {
+                idValues.add(id.toString());
+            }
+
+            Set<UUID> updatedIds = new HashSet<>();
+            for (int start = 0; start < idValues.size(); start += STATUS_UPDATE_BATCH_SIZE) {
+                List<String> chunk = idValues.subList(start, Math.min(start + STATUS_UPDATE_BATCH_SIZE, idValues.size()));
+
+                String selectSql = (" SELECT id FROM tb_orders WHERE status = 'PENDING' AND id IN (:ids) FOR UPDATE ");
+                List<?> pendingIds = em.createNativeQuery(selectSql)
+                        .setParameter("ids", chunk)
+                        .getResultList();
+                if (pendingIds.isEmpty()) {
+                    continue;
+                }
+
+                String updateSql = (" UPDATE tb_orders SET status = :newStatus, row_version = row_version + 1 WHERE status = 'PENDING' AND id IN (:ids) ");
+                em.createNativeQuery(updateSql)
+                        .setParameter("newStatus", newStatus.toString())
+                        .setParameter("ids", pendingIds)
+                        .executeUpdate();
+
+                for (Object pendingId : pendingIds) {
+                    updatedIds.add(UUID.fromString((String) pendingId));
+                }
+            }
+            if (!updatedIds.isEmpty()) {
+                filterCountCache.invalidate(TB_ORDERS);
+                orderByIdCache.invalidateAfterCommit(updatedIds);
+            }
+            return updatedIds;
+        } catch (Exception e) {
+            logUnexpectedErrorOnUpdateOrdersStatusBulk(e);
+            throw new ClientErrorException("Erro ao atualizar o status dos pedidos em massa.");
+        }
+    }
+
+    // Pelo filtro a transição inteira é um único UPDATE condicional
+    public Integer updatePendingStatusByFilter(Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
+                                               OrderStatus newStatus) {
+        try {
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put("newStatus", newStatus.toString());
+
+            StringBuilder sql = new StringBuilder();
+            sql.append(" UPDATE tb_orders SET status = :newStatus, row_version = row_version + 1 WHERE status = 'PENDING' ");
+            if (nonNull(clientId)) {
+                sql.append(" AND client_id = :clientId ");
+                parameters.put("clientId", clientId);
+            }
+            if (nonNull(dateTimeStart)) {
+                sql.append(" AND order_date >= :dateTimeStart ");
+                parameters.put("dateTimeStart", dateTimeStart);
+            }
+            if (nonNull(dateTimeEnd)) {
+                sql.append(" AND order_date <= :dateTimeEnd ");
+                parameters.put("dateTimeEnd", dateTimeEnd);
+            }
+
+            Query query = em.createNativeQuery(sql.toString());
+            parameters.forEach(query::setParameter);
+
+            int updated = query.executeUpdate();
+            if (updated > 0) {
+                filterCountCache.invalidate(TB_ORDERS);
+                orderByIdCache.invalidateAllAfterCommit();
+            }
+            return updated;
+        } catch (Exception e) {
+            logUnexpectedErrorOnUpdateOrdersStatusBulk(e);
+            throw new ClientErrorException("Erro ao atualizar o status dos pedidos em massa.");
+        }
+    }
+
+    // null quando o pedido não existe: o serviço não precisa de uma consulta de existência antes desta.
+    // Pedidos consultados repetidamente saem do OrderByIdCache, sem ir ao banco
     public OrderDto findOrderById(UUID id) {
+        OrderDto cachedOrder = orderByIdCache.find(id);
+        if (nonNull(cachedOrder)) {
+            existenceMemo.remember(ORDER_ID, id, true);
+            return cachedOrder;
+        }
         try {
-            String sql = (" SELECT id, client_id, order_date, status FROM tb_orders WHERE id = :id LIMIT 1 ");
+            long readVersion = orderByIdCache.currentVersion();
+            String sql = (" SELECT id, client_id, order_date, status, row_version FROM tb_orders WHERE id = :id LIMIT 1 ");
 
             Query query = em.createNativeQuery(sql)
                     .setParameter("id", id.toString());
@@ -83,7 +338,8 @@ public class OrderRepository {
 
             if (resultList.isEmpty()) {
                 logOrderNotFoundById(id);
-                throw new ClientErrorException("Pedido não encontrado com o id informado.");
+                existenceMemo.remember(ORDER_ID, id, false);
+                return null;
             }
 
             Object[] result = resultList.get(0);
@@ -93,18 +349,42 @@ public class OrderRepository {
             orderDto.setClientId(((Number) result[1]).longValue());
             orderDto.setOrderDate(((Timestamp) result[2]).toLocalDateTime());
             orderDto.setStatus((String) result[3]);
+            orderDto.setRowVersion(((Number) result[4]).longValue());
 
+            orderByIdCache.load(orderDto, readVersion);
+            existenceMemo.remember(ORDER_ID, id, true);
             logFindOrderByIdSuccessfully(id);
             return orderDto;
-        }catch (ClientErrorException e) {
-            throw e; // para o erro genérico não engolir a exceção de lista vazia
-        }
-        catch (Exception e) {
+        } catch (Exception e) {
             logUnexpectedErrorOnFindOrderById(id, e);
             throw new ClientErrorException("Erro ao buscar pedido pelo id");
         }
     }
 
+    // Só id e versão, para responder um If-None-Match sem ler nem serializar o pedido; null quando não existe.
+    // Um pedido no OrderByIdCache responde sem consulta
+    public String findOrderETagById(UUID id) {
+        OrderDto cachedOrder = orderByIdCache.find(id);
+        if (nonNull(cachedOrder) && nonNull(cachedOrder.getRowVersion())) {
+            return rowETag(id, cachedOrder.getRowVersion());
+        }
+        try {
+            String sql = (" SELECT row_version FROM tb_orders WHERE id = :id LIMIT 1 ");
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("id", id.toString());
+
+            List<?> resultList = query.getResultList();
+            if (resultList.isEmpty()) {
+                return null;
+            }
+            return rowETag(id, ((Number) resultList.get(0)).longValue());
+        } catch (Exception e) {
+            logUnexpectedErrorOnFindOrderETagById(id, e);
+            throw new ClientErrorException("Erro ao buscar a versão do pedido pelo id.");
+        }
+    }
+
     public OrderModel findOrderModelById(UUID id) {
         try {
             String sql = (" SELECT id, client_id, order_date, status FROM tb_orders WHERE id = :id LIMIT 1 ");
@@ -166,7 +446,27 @@ public class OrderRepository {
         }
     }
 
+    // Só o status, para explicar uma atualização recusada; null quando o pedido não existe
+    public String findOrderStatusById(UUID id) {
+        try {
+            String sql = (" SELECT status FROM tb_orders WHERE id = :id LIMIT 1 ");
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("id", id.toString());
+
+            List<?> resultList = query.getResultList();
+            return resultList.isEmpty() ? null : (String) resultList.get(0);
+        } catch (Exception e) {
+            logUnexpectedErrorOnFindOrderById(id, e);
+            throw new ClientErrorException("Erro ao buscar o status do pedido pelo id.");
+        }
+    }
+
     public Boolean existsOrderById(UUID id) {
+        return existenceMemo.exists(ORDER_ID, id, () -> queryExistsOrderById(id));
+    }
+
+    private Boolean queryExistsOrderById(UUID id) {
         try {
             logCheckExistenceOfOrderByIdStart(id);
             String sql = (" SELECT 1 FROM tb_orders WHERE id = :id LIMIT 1 ");
@@ -184,7 +484,63 @@ public class OrderRepository {
         }
     }
 
+    // Responde numa só consulta se o pedido existe e se tem itens, deixando as duas respostas no ExistenceMemo
+    public void prefetchOrderExistence(UUID orderId) {
+        if (!existenceMemo.isActive() || (existenceMemo.knows(ORDER_ID, orderId)
+                && existenceMemo.knows(ITEM_ORDER_ORDER_ID, orderId))) {
+            return;
+        }
+        try {
+            StringBuilder sql = new StringBuilder();
+            sql.append(" SELECT EXISTS(SELECT 1 FROM tb_orders WHERE id = :orderId), ");
+            sql.append(" EXISTS(SELECT 1 FROM tb_item_orders WHERE order_id = :orderId) ");
+
+            Query query = em.createNativeQuery(sql.toString())
+                    .setParameter("orderId", orderId.toString());
+
+            Object[] result = (Object[]) query.getSingleResult();
+
+            existenceMemo.remember(ORDER_ID, orderId, toBoolean(result[0]));
+            existenceMemo.remember(ITEM_ORDER_ORDER_ID, orderId, toBoolean(result[1]));
+        } catch (Exception e) {
+            logUnexpectedErrorOnPrefetchOrderExistence(orderId, e);
+            throw new ClientErrorException("Erro ao verificar existência do pedido.");
+        }
+    }
+
+    // Uma única consulta com IN para validar os pedidos de um lote inteiro
+    public Set<UUID> findExistingOrderIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        try {
+            String sql = (" SELECT id FROM tb_orders WHERE id IN (:ids) ");
+
+            List<String> idValues = new ArrayList<>();
+            for (UUID id : ids) {
+                idValues.add(id.toString());
+            }
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("ids", idValues);
+
+            List<?> resultList = query.getResultList();
+            Set<UUID> existingIds = new HashSet<>();
+            for (Object result : resultList) {
+                existingIds.add(UUID.fromString((String) result));
+            }
+            return existingIds;
+        } catch (Exception e) {
+            logUnexpectedErrorFindingExistingOrderIds(e);
+            throw new ClientErrorException("Erro ao verificar existência dos pedidos.");
+        }
+    }
+
     public Boolean existsOrderByClientId(Long clientId) {
+        return existenceMemo.exists(ORDER_CLIENT_ID, clientId, () -> queryExistsOrderByClientId(clientId));
+    }
+
+    private Boolean queryExistsOrderByClientId(Long clientId) {
         try {
             logCheckExistenceOfOrderByClientIdStart(clientId);
             String sql = (" SELECT 1 FROM tb_orders WHERE client_id = :clientId LIMIT 1 ");
@@ -203,55 +559,40 @@ public class OrderRepository {
 
     public GlobalPageDto<OrderDto> findFilteredOrders(UUID id, Long clientId, LocalDateTime dateTimeStart,
                                             LocalDateTime dateTimeEnd, String status, Integer page,
-                                            Integer linesPerPage, String direction, String orderBy) {
-
-            Long total = queryCountFilteredOrders(id, clientId, dateTimeStart, dateTimeEnd, status);
+                                            Integer linesPerPage, String direction, String orderBy, CursorDto cursor,
+                                            TotalMode totalMode) {
 
-            List<OrderDto> results = queryFindFilteredOrders(id, clientId, dateTimeStart,
-                    dateTimeEnd, status, page, linesPerPage, direction, orderBy);
+            GlobalPageDto<OrderDto> orderPageDto = queryFindFilteredOrders(id, clientId, dateTimeStart,
+                    dateTimeEnd, status, page, linesPerPage, direction, orderBy, cursor, totalMode);
 
-            GlobalPageDto<OrderDto> orderPageDto = new GlobalPageDto<>();
-            orderPageDto.setTotal(total);
-            orderPageDto.setItems(results);
+            if (needsCountQuery(orderPageDto, totalMode)) {
+                orderPageDto.setTotal(queryCountFilteredOrders(id, clientId, dateTimeStart, dateTimeEnd, status, totalMode));
+            }
+            applyHasNext(orderPageDto, linesPerPage, totalMode);
 
             return orderPageDto;
     }
 
-    private List<OrderDto> queryFindFilteredOrders(UUID id, Long clientId, LocalDateTime dateTimeStart,
+    private GlobalPageDto<OrderDto> queryFindFilteredOrders(UUID id, Long clientId, LocalDateTime dateTimeStart,
                                                    LocalDateTime dateTimeEnd, String status, Integer page,
-                                                   Integer linesPerPage, String direction, String orderBy) {
+                                                   Integer linesPerPage, String direction, String orderBy, CursorDto cursor, TotalMode totalMode) {
         try{
             logQueryFindFilteredOrdersStart();
 
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT id, client_id, order_date, status FROM tb_orders WHERE 1=1");
-            if (nonNull(id)) {
-                sql.append(" AND id = :id ");
-                parameters.put("id", id.toString());
-            }
-            if (nonNull(clientId)) {
-                sql.append(" AND client_id = :client_id ");
-                parameters.put("client_id", clientId);
+            boolean windowTotal = isWindowTotal(totalMode, cursor);
+            putOrderFilterParameters(parameters, id, clientId, dateTimeStart, dateTimeEnd, status);
+            if (nonNull(cursor)) {
+                putKeysetParameters(parameters, parseCursorValue(cursor.getSortValue(), CURSOR_TYPES_FILTER.get(orderBy)),
+                        cursor.getLastKey());
             }
-            if (nonNull(dateTimeStart)) {
-                sql.append(" AND order_date >= :dateTimeStart ");
-                parameters.put("dateTimeStart", dateTimeStart);
-            }
-            if (nonNull(dateTimeEnd)) {
-                sql.append(" AND order_date <= :dateTimeEnd ");
-                parameters.put("dateTimeEnd", dateTimeEnd);
-            }
-            if (isNotBlank(status)) {
-                sql.append(" AND status = :status ");
-                parameters.put("status", status);
-            }
-            sql.append(" ORDER BY " + orderBy + " " + direction + " ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
 
-            Query query = em.createNativeQuery(sql.toString())
-                    .setParameter("limit", linesPerPage)
-                    .setParameter("offset", page * linesPerPage);
+            String sql = sqlTemplateCache.get("orders.filter", parameters.keySet(), orderBy, direction, windowTotal,
+                    this::buildFindFilteredOrdersSql);
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("limit", resolveFetchLimit(linesPerPage, totalMode))
+                    .setParameter("offset", nonNull(cursor) ? 0 : page * linesPerPage);
 
             setQueryParameters(parameters, query);
 
@@ -268,8 +609,21 @@ public class OrderRepository {
                 results.add(orderDto);
             }
 
+            GlobalPageDto<OrderDto> orderPageDto = new GlobalPageDto<>();
+            orderPageDto.setItems(results);
+            if (windowTotal) {
+                orderPageDto.setTotal(extractWindowTotal(resultList, page));
+            }
+
+            if (results.size() >= linesPerPage) {
+                Object[] lastResult = resultList.get(linesPerPage - 1);
+                orderPageDto.setNextCursor(encodeCursor(orderBy, direction, lastResult[4], lastResult[0]));
+            }
+
             logFindFilteredOrdersSuccessfully();
-            return results;
+            return orderPageDto;
+        } catch (ClientErrorException e) {
+            throw e; // para o erro genérico não engolir a exceção de cursor inválido
         } catch (Exception e) {
             logUnexpectedErrorOnFindFilteredOrders(e);
             throw new ClientErrorException("Erro ao buscar pedidos filtrados.");
@@ -278,113 +632,146 @@ public class OrderRepository {
     }
 
     private Long queryCountFilteredOrders(UUID id, Long clientId, LocalDateTime dateTimeStart,
-                                          LocalDateTime dateTimeEnd, String status) {
+                                          LocalDateTime dateTimeEnd, String status, TotalMode totalMode) {
         try {
             logQueryCountFilteredOrdersStart();
 
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT COUNT(*) FROM tb_orders WHERE 1=1 ");
+            putOrderFilterParameters(parameters, id, clientId, dateTimeStart, dateTimeEnd, status);
 
-            if (nonNull(id)) {
-                sql.append(" AND id = :id ");
-                parameters.put("id", id.toString());
-            }
-            if (nonNull(clientId)) {
-                sql.append(" AND client_id = :client_id ");
-                parameters.put("client_id", clientId);
-            }
-            if (nonNull(dateTimeStart) && nonNull(dateTimeEnd)) {
-                sql.append(" AND order_date >= :dateTimeStart AND order_date < :dateTimeEnd ");
-                parameters.put("dateTimeStart", dateTimeStart);
-                parameters.put("dateTimeEnd", dateTimeEnd);
-            }
-            if (isNotBlank(status)) {
-                sql.append(" AND status = :status ");
-                parameters.put("status", status);
+            String sql = sqlTemplateCache.get("orders.filter.count", parameters.keySet(),
+                    this::buildCountFilteredOrdersSql);
+
+            if (TotalMode.ESTIMATE.equals(totalMode)) {
+                Long estimatedTotal = rowCountEstimator.estimateRowCount(sql, parameters);
+                if (nonNull(estimatedTotal)) {
+                    return estimatedTotal;
+                }
             }
 
-            Query query = em.createNativeQuery(sql.toString());
-            setQueryParameters(parameters, query);
+            return filterCountCache.getOrCount(FILTER_COUNT_TABLES, sql, parameters, () -> {
+                Query query = em.createNativeQuery(sql);
+                setQueryParameters(parameters, query);
 
-            Object result = query.getSingleResult();
-            Number total = (Number) result;
+                Object result = query.getSingleResult();
+                Number total = (Number) result;
 
-            logCountFilteredOrdersSuccessfully();
-            return total.longValue();
+                logCountFilteredOrdersSuccessfully();
+                return total.longValue();
+            });
         } catch (Exception e) {
             logUnexpectedErrorOnCountFilteredOrders(e);
             throw new ClientErrorException("Erro ao contar total de pedidos filtrados.");
         }
     }
 
+    private String buildFindFilteredOrdersSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT id, client_id, order_date, status, ").append(key.orderBy()).append(" ");
+        if (key.windowTotal()) {
+            sql.append(WINDOW_TOTAL_COLUMN);
+        }
+        appendOrderFilters(sql, key);
+        if (key.has(CURSOR_LAST_KEY)) {
+            appendKeysetCondition(sql, key.orderBy(), "id", key.direction());
+        }
+        sql.append(" ORDER BY " + key.orderBy() + " " + key.direction() + ", id " + key.direction() + " ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        return sql.toString();
+    }
+
+    private String buildCountFilteredOrdersSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT COUNT(*) ");
+        appendOrderFilters(sql, key);
+        return sql.toString();
+    }
+
+    private void appendOrderFilters(StringBuilder sql, SqlTemplateCache.Key key) {
+        sql.append(" FROM tb_orders WHERE 1=1 ");
+
+        if (key.has("id")) {
+            sql.append(" AND id = :id ");
+        }
+        if (key.has("client_id")) {
+            sql.append(" AND client_id = :client_id ");
+        }
+        if (key.has("dateTimeStart")) {
+            sql.append(" AND order_date >= :dateTimeStart ");
+        }
+        if (key.has("dateTimeEnd")) {
+            sql.append(" AND order_date <= :dateTimeEnd ");
+        }
+        if (key.has("status")) {
+            sql.append(" AND status = :status ");
+        }
+    }
+
+    private void putOrderFilterParameters(Map<String, Object> parameters, UUID id, Long clientId,
+                                          LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd, String status) {
+        if (nonNull(id)) {
+            parameters.put("id", id.toString());
+        }
+        if (nonNull(clientId)) {
+            parameters.put("client_id", clientId);
+        }
+        if (nonNull(dateTimeStart)) {
+            parameters.put("dateTimeStart", dateTimeStart);
+        }
+        if (nonNull(dateTimeEnd)) {
+            parameters.put("dateTimeEnd", dateTimeEnd);
+        }
+        if (isNotBlank(status)) {
+            parameters.put("status", status);
+        }
+    }
+
     public GlobalPageDto<GlobalFullDetailsDto> findFilteredOrdersDetails(UUID orderId, Long clientId, LocalDateTime dateTimeStart,
                                                                          LocalDateTime dateTimeEnd, Integer minQuantity, Integer maxQuantity,
-                                                                         String status, Integer page, Integer linesPerPage, String direction, String orderBy) {
-
-        Long total = queryCountFilteredOrdersDetails(orderId, clientId, dateTimeStart, dateTimeEnd, minQuantity,
-                maxQuantity, status);
+                                                                         String status, Integer page, Integer linesPerPage, String direction, String orderBy,
+                                                                         CursorDto cursor, TotalMode totalMode) {
 
-        List<GlobalFullDetailsDto> ordersDetailsList = queryFindFilteredOrdersDetails(orderId, clientId, dateTimeStart, dateTimeEnd, minQuantity,
-                maxQuantity, status, page, linesPerPage, direction, orderBy);
+        GlobalPageDto<GlobalFullDetailsDto> ordersDetailsPage = queryFindFilteredOrdersDetails(orderId, clientId, dateTimeStart, dateTimeEnd, minQuantity,
+                maxQuantity, status, page, linesPerPage, direction, orderBy, cursor, totalMode);
 
-        GlobalPageDto<GlobalFullDetailsDto> ordersDetailsPage = new GlobalPageDto<>();
-        ordersDetailsPage.setTotal(total);
-        ordersDetailsPage.setItems(ordersDetailsList);
+        if (needsCountQuery(ordersDetailsPage, totalMode)) {
+            ordersDetailsPage.setTotal(queryCountFilteredOrdersDetails(orderId, clientId, dateTimeStart, dateTimeEnd,
+                    minQuantity, maxQuantity, status, totalMode));
+        }
+        applyHasNext(ordersDetailsPage, linesPerPage, totalMode);
 
         return ordersDetailsPage;
     }
 
     private Long queryCountFilteredOrdersDetails(UUID orderId, Long clientId, LocalDateTime dateTimeStart,
-                                                 LocalDateTime dateTimeEnd, Integer minQuantity, Integer maxQuantity, String status) {
+                                                 LocalDateTime dateTimeEnd, Integer minQuantity, Integer maxQuantity, String status, TotalMode totalMode) {
         try{
             logQueryCountFilteredOrdersDetailsStart();
 
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
+            putOrdersDetailsFilterParameters(parameters, orderId, clientId, dateTimeStart, dateTimeEnd,
+                    minQuantity, maxQuantity, status);
 
-            sql.append(" SELECT COUNT(*) ");
-            sql.append(" FROM tb_orders o JOIN tb_item_orders i JOIN tb_clients c ");
-            sql.append(" ON i.order_id = o.id AND o.client_id = c.id ");
-            sql.append(" WHERE 1=1 ");
+            String sql = sqlTemplateCache.get("orders.details.count", parameters.keySet(),
+                    this::buildCountFilteredOrdersDetailsSql);
 
-            if (nonNull(orderId)) {
-                sql.append(" AND o.id = :orderId ");
-                parameters.put("orderId", orderId.toString());
-            }
-            if (nonNull(clientId)) {
-                sql.append(" AND c.id = :clientId ");
-                parameters.put("clientId", clientId);
-            }
-            if (isNotBlank(status)) {
-                sql.append(" AND o.status = :status ");
-                parameters.put("status", status);
-            }
-            if (nonNull(dateTimeStart)) {
-                sql.append(" AND o.order_date >= :dateTimeStart ");
-                parameters.put("dateTimeStart", dateTimeStart);
-            }
-            if (nonNull(dateTimeEnd)) {
-                sql.append(" AND o.order_date <= :dateTimeEnd ");
-                parameters.put("dateTimeEnd", dateTimeEnd);
-            }
-            if (nonNull(minQuantity)) {
-                sql.append(" AND i.quantity >= :minQuantity ");
-                parameters.put("minQuantity", minQuantity);
-            }
-            if (nonNull(maxQuantity)) {
-                sql.append(" AND i.quantity <= :maxQuantity ");
-                parameters.put("maxQuantity", maxQuantity);
+            if (TotalMode.ESTIMATE.equals(totalMode)) {
+                Long estimatedTotal = rowCountEstimator.estimateRowCount(sql, parameters);
+                if (nonNull(estimatedTotal)) {
+                    return estimatedTotal;
+                }
             }
 
-            Query query = em.createNativeQuery(sql.toString());
+            return filterCountCache.getOrCount(JOINED_COUNT_TABLES, sql, parameters, () -> {
+                Query query = em.createNativeQuery(sql);
 
-            setQueryParameters(parameters, query);
+                setQueryParameters(parameters, query);
 
-            Object result = query.getSingleResult();
-            Number total = (Number) result;
+                Object result = query.getSingleResult();
+                Number total = (Number) result;
 
-            return total.longValue();
+                return total.longValue();
+            });
 
         } catch (Exception e) {
             logUnexpectedErrorOnCountFilteredOrdersDetails(e);
@@ -392,57 +779,28 @@ public class OrderRepository {
         }
     }
 
-    private List<GlobalFullDetailsDto> queryFindFilteredOrdersDetails(UUID orderId, Long clientId, LocalDateTime dateTimeStart,
+    private GlobalPageDto<GlobalFullDetailsDto> queryFindFilteredOrdersDetails(UUID orderId, Long clientId, LocalDateTime dateTimeStart,
                                                                       LocalDateTime dateTimeEnd, Integer minQuantity, Integer maxQuantity,
-                                                                      String status, Integer page, Integer linesPerPage, String direction, String orderBy) {
+                                                                      String status, Integer page, Integer linesPerPage, String direction,
+                                                                      String orderBy, CursorDto cursor, TotalMode totalMode) {
         try {
             logQueryFindFilteredOrdersDetailsStart();
 
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
-
-            sql.append(" SELECT o.id, o.order_date, o.status, ");
-            sql.append(" c.id, c.name, c.email, ");
-            sql.append(" i.quantity, ROUND(i.price * i.quantity, 2) total_price ");
-            sql.append(" FROM tb_orders o JOIN tb_item_orders i JOIN tb_clients c ");
-            sql.append(" ON i.order_id = o.id AND o.client_id = c.id ");
-            sql.append(" WHERE 1=1 ");
-
-            if (nonNull(orderId)) {
-                sql.append(" AND o.id = :orderId ");
-                parameters.put("orderId", orderId.toString());
-            }
-            if (nonNull(clientId)) {
-                sql.append(" AND c.id = :clientId ");
-                parameters.put("clientId", clientId);
-            }
-            if (isNotBlank(status)) {
-                sql.append(" AND o.status = :status ");
-                parameters.put("status", status);
-            }
-            if (nonNull(dateTimeStart)) {
-                sql.append(" AND o.order_date >= :dateTimeStart ");
-                parameters.put("dateTimeStart", dateTimeStart);
-            }
-            if (nonNull(dateTimeEnd)) {
-                sql.append(" AND o.order_date <= :dateTimeEnd ");
-                parameters.put("dateTimeEnd", dateTimeEnd);
-            }
-            if (nonNull(minQuantity)) {
-                sql.append(" AND i.quantity >= :minQuantity ");
-                parameters.put("minQuantity", minQuantity);
-            }
-            if (nonNull(maxQuantity)) {
-                sql.append(" AND i.quantity <= :maxQuantity ");
-                parameters.put("maxQuantity", maxQuantity);
+            boolean windowTotal = isWindowTotal(totalMode, cursor);
+            putOrdersDetailsFilterParameters(parameters, orderId, clientId, dateTimeStart, dateTimeEnd,
+                    minQuantity, maxQuantity, status);
+            if (nonNull(cursor)) {
+                putKeysetParameters(parameters, parseCursorValue(cursor.getSortValue(), CURSOR_TYPES_DETAILS.get(orderBy)),
+                        cursor.getLastKey());
             }
 
-            sql.append(" ORDER BY ").append(orderBy).append(" ").append(direction).append(" ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
+            String sql = sqlTemplateCache.get("orders.details", parameters.keySet(), orderBy, direction, windowTotal,
+                    this::buildFindFilteredOrdersDetailsSql);
 
-            Query query = em.createNativeQuery(sql.toString())
-                    .setParameter("limit", linesPerPage)
-                    .setParameter("offset", page * linesPerPage);
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("limit", resolveFetchLimit(linesPerPage, totalMode))
+                    .setParameter("offset", nonNull(cursor) ? 0 : page * linesPerPage);
 
             setQueryParameters(parameters, query);
 
@@ -450,128 +808,249 @@ public class OrderRepository {
             List<GlobalFullDetailsDto> orderDetailsList = new ArrayList<>();
 
             for (Object[] result : resultList) {
-                GlobalFullDetailsDto orderDetails = new GlobalFullDetailsDto();
+                orderDetailsList.add(toOrderDetailsDto(result));
+            }
 
-                OrderDto orderDto = new OrderDto();
-                orderDto.setId(UUID.fromString((String) result[0]));
-                orderDto.setOrderDate(((Timestamp) result[1]).toLocalDateTime());
-                orderDto.setStatus((String) result[2]);
+            GlobalPageDto<GlobalFullDetailsDto> ordersDetailsPage = new GlobalPageDto<>();
+            ordersDetailsPage.setItems(orderDetailsList);
+            if (windowTotal) {
+                ordersDetailsPage.setTotal(extractWindowTotal(resultList, page));
+            }
 
-                orderDetails.setOrder(orderDto);
+            if (orderDetailsList.size() >= linesPerPage) {
+                Object[] lastResult = resultList.get(linesPerPage - 1);
+                ordersDetailsPage.setNextCursor(encodeCursor(orderBy, direction, lastResult[9], lastResult[8]));
+            }
 
-                ClientDto clientDto = new ClientDto();
-                clientDto.setId(((Number) result[3]).longValue());
-                clientDto.setName((String) result[4]);
-                clientDto.setEmail((String) result[5]);
+            return ordersDetailsPage;
+        } catch (ClientErrorException e) {
+            throw e; // para o erro genérico não engolir a exceção de cursor inválido
+        } catch (Exception e) {
+            logUnexpectedErrorOnFindFilteredOrdersDetails(e);
+            throw new ClientErrorException("Erro ao buscar detalhes dos pedidos filtrados.");
+        }
+    }
 
-                orderDetails.setClient(clientDto);
+    // Exportação sem LIMIT nem contagem: as linhas vêm do cursor do driver em lotes de EXPORT_FETCH_SIZE
+    // e são entregues uma a uma ao consumidor, então o heap não cresce com o tamanho da exportação
+    public void streamFilteredOrdersDetails(UUID orderId, Long clientId, LocalDateTime dateTimeStart,
+                                            LocalDateTime dateTimeEnd, Integer minQuantity, Integer maxQuantity,
+                                            String status, String direction, String orderBy,
+                                            Consumer<GlobalFullDetailsDto> consumer) {
+        try {
+            Map<String, Object> parameters = new HashMap<>();
+            putOrdersDetailsFilterParameters(parameters, orderId, clientId, dateTimeStart, dateTimeEnd,
+                    minQuantity, maxQuantity, status);
+
+            String sql = sqlTemplateCache.get("orders.details.export", parameters.keySet(), orderBy, direction,
+                    false, this::buildExportOrdersDetailsSql);
 
-                ItemOrderDto itemOrderDto = new ItemOrderDto();
-                itemOrderDto.setQuantity(((Number) result[6]).intValue());
-                itemOrderDto.setTotalPrice(((Number) result[7]).doubleValue());
+            Query query = em.createNativeQuery(sql)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE);
 
-                orderDetails.setItemOrder(itemOrderDto);
+            setQueryParameters(parameters, query);
 
-                orderDetailsList.add(orderDetails);
+            try (Stream<Object[]> rows = query.getResultStream()) {
+                rows.forEach(row -> consumer.accept(toOrderDetailsDto(row)));
             }
-
-            return orderDetailsList;
+        } catch (UncheckedIOException e) {
+            throw e; // falha ao escrever na resposta (cliente desconectou), não é erro da consulta
         } catch (Exception e) {
-            logUnexpectedErrorOnFindFilteredOrdersDetails(e);
-            throw new ClientErrorException("Erro ao buscar detalhes dos pedidos filtrados.");
+            logUnexpectedErrorOnExportOrdersDetails(e);
+            throw new ClientErrorException("Erro ao exportar detalhes dos pedidos filtrados.");
         }
     }
 
-    public GlobalPageDto<RelevantOrderDataDto> findFilteredRelevantOrderData(Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
-                                                                             String status, Integer page, Integer linesPerPage, String direction, String orderBy) {
+    private String buildExportOrdersDetailsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT o.id, o.order_date, o.status, ");
+        sql.append(" c.id, c.name, c.email, ");
+        sql.append(" i.quantity, ROUND(i.price * i.quantity, 2) total_price ");
+        appendOrdersDetailsFilters(sql, key);
+        sql.append(" ORDER BY ").append(key.orderBy()).append(" ").append(key.direction())
+                .append(", i.id ").append(key.direction()).append(" ");
+        return sql.toString();
+    }
+
+    private GlobalFullDetailsDto toOrderDetailsDto(Object[] result) {
+        GlobalFullDetailsDto orderDetails = new GlobalFullDetailsDto();
 
-        Long total = queryCountFilteredRelevantOrderData(clientId, dateTimeStart, dateTimeEnd, status);
+        OrderDto orderDto = new OrderDto();
+        orderDto.setId(UUID.fromString((String) result[0]));
+        orderDto.setOrderDate(((Timestamp) result[1]).toLocalDateTime());
+        orderDto.setStatus((String) result[2]);
 
-        List<RelevantOrderDataDto> results = queryFindFilteredRelevantOrderData(clientId, dateTimeStart, dateTimeEnd, status, page, linesPerPage, direction, orderBy);
+        orderDetails.setOrder(orderDto);
 
-        GlobalPageDto<RelevantOrderDataDto> relevantOrderDataPage = new GlobalPageDto<>();
-        relevantOrderDataPage.setTotal(total);
-        relevantOrderDataPage.setItems(results);
+        ClientDto clientDto = new ClientDto();
+        clientDto.setId(((Number) result[3]).longValue());
+        clientDto.setName((String) result[4]);
+        clientDto.setEmail((String) result[5]);
+
+        orderDetails.setClient(clientDto);
+
+        ItemOrderDto itemOrderDto = new ItemOrderDto();
+        itemOrderDto.setQuantity(((Number) result[6]).intValue());
+        itemOrderDto.setTotalPrice(((Number) result[7]).doubleValue());
+
+        orderDetails.setItemOrder(itemOrderDto);
+
+        return orderDetails;
+    }
+
+    // Deferred join: a subconsulta ordena e pagina só (i.id, coluna de ordenação) e as colunas largas
+    // de pedido/cliente e o total_price são buscados apenas para os ids da página
+    private String buildFindFilteredOrdersDetailsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT o.id, o.order_date, o.status, ");
+        sql.append(" c.id, c.name, c.email, ");
+        sql.append(" i.quantity, ROUND(i.price * i.quantity, 2) total_price, ");
+        sql.append(" i.id, page.sort_value ");
+        if (key.windowTotal()) {
+            sql.append(", page.window_total ");
+        }
+        sql.append(" FROM ( ");
+        sql.append(" SELECT i.id AS item_id, ").append(key.orderBy()).append(" AS sort_value ");
+        if (key.windowTotal()) {
+            sql.append(WINDOW_TOTAL_COLUMN);
+        }
+        appendOrdersDetailsFilters(sql, key);
+        if (key.has(CURSOR_LAST_KEY)) {
+            appendKeysetCondition(sql, key.orderBy(), "i.id", key.direction());
+        }
+        sql.append(" ORDER BY ").append(key.orderBy()).append(" ").append(key.direction())
+                .append(", i.id ").append(key.direction()).append(" ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        sql.append(" ) page ");
+        sql.append(" JOIN tb_item_orders i ON i.id = page.item_id ");
+        sql.append(" JOIN tb_orders o ON o.id = i.order_id ");
+        sql.append(" JOIN tb_clients c ON c.id = o.client_id ");
+
+        sql.append(" ORDER BY page.sort_value ").append(key.direction())
+                .append(", page.item_id ").append(key.direction()).append(" ");
+        return sql.toString();
+    }
+
+    private String buildCountFilteredOrdersDetailsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT COUNT(*) ");
+        appendOrdersDetailsFilters(sql, key);
+        return sql.toString();
+    }
+
+    private void appendOrdersDetailsFilters(StringBuilder sql, SqlTemplateCache.Key key) {
+        sql.append(" FROM tb_orders o JOIN tb_item_orders i JOIN tb_clients c ");
+        sql.append(" ON i.order_id = o.id AND o.client_id = c.id ");
+        sql.append(" WHERE 1=1 ");
+
+        if (key.has("orderId")) {
+            sql.append(" AND o.id = :orderId ");
+        }
+        if (key.has("clientId")) {
+            sql.append(" AND c.id = :clientId ");
+        }
+        if (key.has("status")) {
+            sql.append(" AND o.status = :status ");
+        }
+        if (key.has("dateTimeStart")) {
+            sql.append(" AND o.order_date >= :dateTimeStart ");
+        }
+        if (key.has("dateTimeEnd")) {
+            sql.append(" AND o.order_date <= :dateTimeEnd ");
+        }
+        if (key.has("minQuantity")) {
+            sql.append(" AND i.quantity >= :minQuantity ");
+        }
+        if (key.has("maxQuantity")) {
+            sql.append(" AND i.quantity <= :maxQuantity ");
+        }
+    }
+
+    private void putOrdersDetailsFilterParameters(Map<String, Object> parameters, UUID orderId, Long clientId,
+                                                  LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
+                                                  Integer minQuantity, Integer maxQuantity, String status) {
+        if (nonNull(orderId)) {
+            parameters.put("orderId", orderId.toString());
+        }
+        if (nonNull(clientId)) {
+            parameters.put("clientId", clientId);
+        }
+        if (isNotBlank(status)) {
+            parameters.put("status", status);
+        }
+        if (nonNull(dateTimeStart)) {
+            parameters.put("dateTimeStart", dateTimeStart);
+        }
+        if (nonNull(dateTimeEnd)) {
+            parameters.put("dateTimeEnd", dateTimeEnd);
+        }
+        if (nonNull(minQuantity)) {
+            parameters.put("minQuantity", minQuantity);
+        }
+        if (nonNull(maxQuantity)) {
+            parameters.put("maxQuantity", maxQuantity);
+        }
+    }
+
+    public GlobalPageDto<RelevantOrderDataDto> findFilteredRelevantOrderData(Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
+                                                                             String status, Integer page, Integer linesPerPage, String direction, String orderBy,
+                                                                             TotalMode totalMode) {
+
+        GlobalPageDto<RelevantOrderDataDto> relevantOrderDataPage = queryFindFilteredRelevantOrderData(clientId, dateTimeStart,
+                dateTimeEnd, status, page, linesPerPage, direction, orderBy, totalMode);
+
+        if (needsCountQuery(relevantOrderDataPage, totalMode)) {
+            relevantOrderDataPage.setTotal(queryCountFilteredRelevantOrderData(clientId, dateTimeStart, dateTimeEnd,
+                    status, totalMode));
+        }
+        applyHasNext(relevantOrderDataPage, linesPerPage, totalMode);
 
         return relevantOrderDataPage;
 
     }
 
-    private Long queryCountFilteredRelevantOrderData(Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd, String status) {
+    private Long queryCountFilteredRelevantOrderData(Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd, String status, TotalMode totalMode) {
         try {
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
+            putRelevantOrderDataFilterParameters(parameters, clientId, dateTimeStart, dateTimeEnd, status);
 
-            sql.append(" SELECT COUNT(*) ");
-            sql.append(" FROM tb_orders o ");
-            sql.append(" JOIN tb_clients c ON o.client_id = c.id ");
-            sql.append(" JOIN tb_item_orders i ON i.order_id = o.id ");
-            sql.append(" WHERE 1=1 ");
+            String sql = sqlTemplateCache.get("orders.relevantData.count", parameters.keySet(),
+                    this::buildCountFilteredRelevantOrderDataSql);
 
-            if (nonNull(clientId)) {
-                sql.append(" AND c.id = :clientId ");
-                parameters.put("clientId", clientId);
-            }
-            if (nonNull(dateTimeStart)) {
-                sql.append(" AND o.order_date >= :dateTimeStart ");
-                parameters.put("dateTimeStart", dateTimeStart);
-            }
-            if (nonNull(dateTimeEnd)) {
-                sql.append(" AND o.order_date <= :dateTimeEnd ");
-                parameters.put("dateTimeEnd", dateTimeEnd);
-            }
-            if (nonNull(status)) {
-                sql.append(" AND o.status = :status ");
-                parameters.put("status", status);
+            if (TotalMode.ESTIMATE.equals(totalMode)) {
+                Long estimatedTotal = rowCountEstimator.estimateRowCount(sql, parameters);
+                if (nonNull(estimatedTotal)) {
+                    return estimatedTotal;
+                }
             }
 
-            Query query = em.createNativeQuery(sql.toString());
+            return filterCountCache.getOrCount(JOINED_COUNT_TABLES, sql, parameters, () -> {
+                Query query = em.createNativeQuery(sql);
 
-            setQueryParameters(parameters, query);
+                setQueryParameters(parameters, query);
 
-            Object result = query.getSingleResult();
-            Number total = (Number) result;
+                Object result = query.getSingleResult();
+                Number total = (Number) result;
 
-            return total.longValue();
+                return total.longValue();
+            });
         }catch (Exception e) {
             throw new ClientErrorException("Erro ao contar pedidos com dados relevantes filtrados.");
         }
      }
 
-    private List<RelevantOrderDataDto> queryFindFilteredRelevantOrderData(Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
-                                                                          String status, Integer page, Integer linesPerPage, String direction, String orderBy) {
+    private GlobalPageDto<RelevantOrderDataDto> queryFindFilteredRelevantOrderData(Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
+                                                                          String status, Integer page, Integer linesPerPage, String direction, String orderBy, TotalMode totalMode) {
         try {
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
-
-            sql.append(" SELECT o.id, c.name, o.order_date, o.status, i.product_id, i.quantity, i.price ");
-            sql.append(" FROM tb_orders o ");
-            sql.append(" JOIN tb_clients c ON o.client_id = c.id ");
-            sql.append(" JOIN tb_item_orders i ON i.order_id = o.id ");
-            sql.append(" WHERE 1=1 ");
-
-            if (nonNull(clientId)) {
-                sql.append(" AND c.id = :clientId ");
-                parameters.put("clientId", clientId);
-            }
-            if (nonNull(dateTimeStart)) {
-                sql.append(" AND o.order_date >= :dateTimeStart ");
-                parameters.put("dateTimeStart", dateTimeStart);
-            }
-            if (nonNull(dateTimeEnd)) {
-                sql.append(" AND o.order_date <= :dateTimeEnd ");
-                parameters.put("dateTimeEnd", dateTimeEnd);
-            }
-            if (nonNull(status)) {
-                sql.append(" AND o.status = :status ");
-                parameters.put("status", status);
-            }
+            boolean windowTotal = isWindowTotal(totalMode, null);
+            putRelevantOrderDataFilterParameters(parameters, clientId, dateTimeStart, dateTimeEnd, status);
 
-            sql.append(" ORDER BY ").append(orderBy).append(" ").append(direction).append(" ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
+            String sql = sqlTemplateCache.get("orders.relevantData", parameters.keySet(), orderBy, direction,
+                    windowTotal, this::buildFindFilteredRelevantOrderDataSql);
 
-            Query query = em.createNativeQuery(sql.toString())
-                    .setParameter("limit", linesPerPage)
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("limit", resolveFetchLimit(linesPerPage, totalMode))
                     .setParameter("offset", page * linesPerPage);
 
             setQueryParameters(parameters, query);
@@ -599,71 +1078,103 @@ public class OrderRepository {
                 orderDataDtoList.add(relevantOrderDataDto);
             }
 
-            return orderDataDtoList;
+            GlobalPageDto<RelevantOrderDataDto> relevantOrderDataPage = new GlobalPageDto<>();
+            relevantOrderDataPage.setItems(orderDataDtoList);
+            if (windowTotal) {
+                relevantOrderDataPage.setTotal(extractWindowTotal(resultList, page));
+            }
+
+            return relevantOrderDataPage;
         }catch (Exception e) {
             throw new ClientErrorException("Erro ao buscar pedidos com dados relevantes filtrados.");
         }
     }
 
-    public GlobalPageDto<ClientSalesReportDto> findFilteredClientSalesReport(LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd, Integer minOrder,
-                                                                             Integer maxOrder, String status, Integer page,
-                                                                             Integer linesPerPage, String direction, String orderBy) {
-        Long total = queryCountFilteredClientSalesReport(dateTimeStart, dateTimeEnd, minOrder,
-                maxOrder, status);
+    private String buildFindFilteredRelevantOrderDataSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT o.id, c.name, o.order_date, o.status, i.product_id, i.quantity, i.price ");
+        if (key.windowTotal()) {
+            sql.append(WINDOW_TOTAL_COLUMN);
+        }
+        appendRelevantOrderDataFilters(sql, key);
 
-        List<ClientSalesReportDto> results = queryFindFilteredClientSalesReport(dateTimeStart, dateTimeEnd, minOrder,
-                maxOrder, status, page, linesPerPage, direction, orderBy);
+        sql.append(" ORDER BY ").append(key.orderBy()).append(" ").append(key.direction()).append(" ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        return sql.toString();
+    }
+
+    private String buildCountFilteredRelevantOrderDataSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT COUNT(*) ");
+        appendRelevantOrderDataFilters(sql, key);
+        return sql.toString();
+    }
 
-        GlobalPageDto<ClientSalesReportDto> clientSalesReportPage = new GlobalPageDto<>();
-        clientSalesReportPage.setTotal(total);
-        clientSalesReportPage.setItems(results);
+    private void appendRelevantOrderDataFilters(StringBuilder sql, SqlTemplateCache.Key key) {
+        sql.append(" FROM tb_orders o ");
+        sql.append(" JOIN tb_clients c ON o.client_id = c.id ");
+        sql.append(" JOIN tb_item_orders i ON i.order_id = o.id ");
+        sql.append(" WHERE 1=1 ");
+
+        if (key.has("clientId")) {
+            sql.append(" AND c.id = :clientId ");
+        }
+        if (key.has("dateTimeStart")) {
+            sql.append(" AND o.order_date >= :dateTimeStart ");
+        }
+        if (key.has("dateTimeEnd")) {
+            sql.append(" AND o.order_date <= :dateTimeEnd ");
+        }
+        if (key.has("status")) {
+            sql.append(" AND o.status = :status ");
+        }
+    }
+
+    private void putRelevantOrderDataFilterParameters(Map<String, Object> parameters, Long clientId,
+                                                      LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd, String status) {
+        if (nonNull(clientId)) {
+            parameters.put("clientId", clientId);
+        }
+        if (nonNull(dateTimeStart)) {
+            parameters.put("dateTimeStart", dateTimeStart);
+        }
+        if (nonNull(dateTimeEnd)) {
+            parameters.put("dateTimeEnd", dateTimeEnd);
+        }
+        if (nonNull(status)) {
+            parameters.put("status", status);
+        }
+    }
+
+    public GlobalPageDto<ClientSalesReportDto> findFilteredClientSalesReport(LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd, Integer minOrder,
+                                                                             Integer maxOrder, String status, Integer page,
+                                                                             Integer linesPerPage, String direction, String orderBy,
+                                                                             TotalMode totalMode) {
+        GlobalPageDto<ClientSalesReportDto> clientSalesReportPage = queryFindFilteredClientSalesReport(dateTimeStart,
+                dateTimeEnd, minOrder, maxOrder, status, page, linesPerPage, direction, orderBy, totalMode);
+
+        if (needsCountQuery(clientSalesReportPage, totalMode)) {
+            clientSalesReportPage.setTotal(queryCountFilteredClientSalesReport(dateTimeStart, dateTimeEnd, minOrder,
+                    maxOrder, status, totalMode));
+        }
+        applyHasNext(clientSalesReportPage, linesPerPage, totalMode);
 
         return clientSalesReportPage;
     }
 
-    private List<ClientSalesReportDto> queryFindFilteredClientSalesReport(LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd, Integer minOrder,
+    private GlobalPageDto<ClientSalesReportDto> queryFindFilteredClientSalesReport(LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd, Integer minOrder,
                                                                           Integer maxOrder, String status, Integer page,
-                                                                          Integer linesPerPage, String direction, String orderBy) {
+                                                                          Integer linesPerPage, String direction, String orderBy, TotalMode totalMode) {
         try{
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
+            boolean windowTotal = isWindowTotal(totalMode, null);
+            putClientSalesReportFilterParameters(parameters, dateTimeStart, dateTimeEnd, minOrder, maxOrder, status);
 
-            sql.append(" SELECT c.id, c.name, COUNT(o.id), SUM(i.price * i.quantity) ");
-            sql.append(" FROM tb_orders o ");
-            sql.append(" JOIN tb_item_orders i ON i.order_id = o.id ");
-            sql.append(" JOIN tb_clients c ON c.id = o.client_id ");
-            sql.append(" WHERE 1=1 ");
+            String sql = sqlTemplateCache.get("orders.salesReport", parameters.keySet(), orderBy, direction,
+                    windowTotal, this::buildFindFilteredClientSalesReportSql);
 
-            if (nonNull(dateTimeStart)) {
-                sql.append(" AND o.order_date >= :dateTimeStart ");
-                parameters.put("dateTimeStart", dateTimeStart);
-            }
-            if (nonNull(dateTimeEnd)) {
-                sql.append(" AND o.order_date <= :dateTimeEnd ");
-                parameters.put("dateTimeEnd", dateTimeEnd);
-            }
-            if (nonNull(status)) {
-                sql.append(" AND o.status = :status ");
-                parameters.put("status", status);
-            }
-
-            sql.append(" GROUP BY c.id ");
-            sql.append(" HAVING 1=1 ");
-
-            if (nonNull(minOrder)) {
-                sql.append(" AND COUNT(o.id) >= :minOrder ");
-                parameters.put("minOrder", minOrder);
-            }
-            if (nonNull(maxOrder)) {
-                sql.append(" AND COUNT(o.id) <= :maxOrder ");
-                parameters.put("maxOrder", maxOrder);
-            }
-
-            sql.append(" ORDER BY ").append(orderBy).append(" ").append(direction).append(" ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
-
-            Query query = em.createNativeQuery(sql.toString())
-                    .setParameter("limit", linesPerPage)
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("limit", resolveFetchLimit(linesPerPage, totalMode))
                     .setParameter("offset", page * linesPerPage);
 
             setQueryParameters(parameters, query);
@@ -686,7 +1197,13 @@ public class OrderRepository {
                 salesReportList.add(clientSalesReportDto);
             }
 
-            return salesReportList;
+            GlobalPageDto<ClientSalesReportDto> clientSalesReportPage = new GlobalPageDto<>();
+            clientSalesReportPage.setItems(salesReportList);
+            if (windowTotal) {
+                clientSalesReportPage.setTotal(extractWindowTotal(resultList, page));
+            }
+
+            return clientSalesReportPage;
 
         }catch (Exception e) {
             throw new ClientErrorException("Erro ao buscar relatório de vendas filtrado.");
@@ -694,56 +1211,105 @@ public class OrderRepository {
     }
 
     private Long queryCountFilteredClientSalesReport(LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
-                                                     Integer minOrder, Integer maxOrder, String status) {
+                                                     Integer minOrder, Integer maxOrder, String status, TotalMode totalMode) {
         try{
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
+            putClientSalesReportFilterParameters(parameters, dateTimeStart, dateTimeEnd, minOrder, maxOrder, status);
 
-            sql.append(" SELECT COUNT(*) FROM ( ");
-            sql.append(" SELECT c.id ");
-            sql.append(" FROM tb_orders o ");
-            sql.append(" JOIN tb_item_orders i ON i.order_id = o.id ");
-            sql.append(" JOIN tb_clients c ON c.id = o.client_id ");
-            sql.append(" WHERE 1=1 ");
+            String sql = sqlTemplateCache.get("orders.salesReport.count", parameters.keySet(),
+                    this::buildCountFilteredClientSalesReportSql);
 
-            if (nonNull(dateTimeStart)) {
-                sql.append(" AND o.order_date >= :dateTimeStart ");
-                parameters.put("dateTimeStart", dateTimeStart);
-            }
-            if (nonNull(dateTimeEnd)) {
-                sql.append(" AND o.order_date <= :dateTimeEnd ");
-                parameters.put("dateTimeEnd", dateTimeEnd);
-            }
-            if (nonNull(status)) {
-                sql.append(" AND o.status = :status ");
-                parameters.put("status", status);
+            if (TotalMode.ESTIMATE.equals(totalMode)) {
+                Long estimatedTotal = rowCountEstimator.estimateRowCount(sql, parameters);
+                if (nonNull(estimatedTotal)) {
+                    return estimatedTotal;
+                }
             }
 
-            sql.append(" GROUP BY c.id ");
-            sql.append(" HAVING 1=1 ");
+            return filterCountCache.getOrCount(JOINED_COUNT_TABLES, sql, parameters, () -> {
+                Query query = em.createNativeQuery(sql);
 
-            if (nonNull(minOrder)) {
-                sql.append(" AND COUNT(o.id) >= :minOrder ");
-                parameters.put("minOrder", minOrder);
-            }
-            if (nonNull(maxOrder)) {
-                sql.append(" AND COUNT(o.id) <= :maxOrder ");
-                parameters.put("maxOrder", maxOrder);
-            }
+                setQueryParameters(parameters, query);
 
-            sql.append(" ) subquery ");
+                Object result = query.getSingleResult();
+                Number total = (Number) result;
 
-            Query query = em.createNativeQuery(sql.toString());
+                return total.longValue();
+            });
 
-            setQueryParameters(parameters, query);
+        } catch (Exception e) {
+            throw new ClientErrorException("Erro ao contar quantos registros existem no relatório de vendas filtrado.");
+        }
+    }
 
-            Object result = query.getSingleResult();
-            Number total = (Number) result;
+    private String buildFindFilteredClientSalesReportSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        // Com GROUP BY a janela é avaliada depois do HAVING, então conta clientes e não linhas de pedido
+        sql.append(" SELECT c.id, c.name, COUNT(o.id), SUM(i.price * i.quantity) ");
+        if (key.windowTotal()) {
+            sql.append(WINDOW_TOTAL_COLUMN);
+        }
+        appendClientSalesReportFilters(sql, key);
 
-            return total.longValue();
+        sql.append(" ORDER BY ").append(key.orderBy()).append(" ").append(key.direction()).append(" ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        return sql.toString();
+    }
 
-        } catch (Exception e) {
-            throw new ClientErrorException("Erro ao contar quantos registros existem no relatório de vendas filtrado.");
+    private String buildCountFilteredClientSalesReportSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT COUNT(*) FROM ( ");
+        sql.append(" SELECT c.id ");
+        appendClientSalesReportFilters(sql, key);
+        sql.append(" ) subquery ");
+        return sql.toString();
+    }
+
+    // FROM, filtros, GROUP BY e HAVING compartilhados pela busca e pela contagem do relatório
+    private void appendClientSalesReportFilters(StringBuilder sql, SqlTemplateCache.Key key) {
+        sql.append(" FROM tb_orders o ");
+        sql.append(" JOIN tb_item_orders i ON i.order_id = o.id ");
+        sql.append(" JOIN tb_clients c ON c.id = o.client_id ");
+        sql.append(" WHERE 1=1 ");
+
+        if (key.has("dateTimeStart")) {
+            sql.append(" AND o.order_date >= :dateTimeStart ");
+        }
+        if (key.has("dateTimeEnd")) {
+            sql.append(" AND o.order_date <= :dateTimeEnd ");
+        }
+        if (key.has("status")) {
+            sql.append(" AND o.status = :status ");
+        }
+
+        sql.append(" GROUP BY c.id ");
+        sql.append(" HAVING 1=1 ");
+
+        if (key.has("minOrder")) {
+            sql.append(" AND COUNT(o.id) >= :minOrder ");
+        }
+        if (key.has("maxOrder")) {
+            sql.append(" AND COUNT(o.id) <= :maxOrder ");
+        }
+    }
+
+    private void putClientSalesReportFilterParameters(Map<String, Object> parameters, LocalDateTime dateTimeStart,
+                                                      LocalDateTime dateTimeEnd, Integer minOrder, Integer maxOrder,
+                                                      String status) {
+        if (nonNull(dateTimeStart)) {
+            parameters.put("dateTimeStart", dateTimeStart);
+        }
+        if (nonNull(dateTimeEnd)) {
+            parameters.put("dateTimeEnd", dateTimeEnd);
+        }
+        if (nonNull(status)) {
+            parameters.put("status", status);
+        }
+        if (nonNull(minOrder)) {
+            parameters.put("minOrder", minOrder);
+        }
+        if (nonNull(maxOrder)) {
+            parameters.put("maxOrder", maxOrder);
         }
     }
 
@@ -0,0 +1,92 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.isNull;
+
+// Preço atual dos produtos já usados em itens de pedido, por id (UUID: dois longs, sem String). Leitura sem
+// trava (Caffeine, getIfPresent); as escritas em tb_products pela aplicação atualizam a snapshot após o commit
+@Component
+public class ProductPriceSnapshot implements MeterBinder {
+
+    private static final long MAXIMUM_SIZE = 100_000;
+
+    // Limite de segurança para escritas feitas fora da aplicação (outra instância, direto no banco), que não
+    // passam pela atualização após o commit
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+    // As escritas chegam pelo SKU: o índice leva ao id da entrada a atualizar. Não vence sozinho, sai quando o
+    // preço sai; assim todo preço na snapshot tem o SKU indexado e a atualização após o commit não o perde
+    private final Map<String, UUID> idsBySku = new ConcurrentHashMap<>();
+
+    private final Cache<UUID, SkuPrice> pricesById = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .evictionListener((UUID id, SkuPrice entry, RemovalCause cause) -> {
+                if (!isNull(id) && !isNull(entry)) {
+                    idsBySku.remove(entry.sku(), id);
+                }
+            })
+            .recordStats()
+            .build();
+
+    private final CacheWriteVersion version = new CacheWriteVersion();
+
+    public Double findPrice(UUID id) {
+        SkuPrice entry = pricesById.getIfPresent(id);
+        return isNull(entry) ? null : entry.price();
+    }
+
+    public long currentVersion() {
+        return version.current();
+    }
+
+    // Chamado com o preço lido do banco e a versão anterior à leitura. O índice é gravado depois do preço: uma
+    // remoção entre os dois deixa no máximo um SKU sem preço, que só custa uma atualização sem efeito
+    public void load(UUID id, String sku, Double price, long readVersion) {
+        SkuPrice entry = new SkuPrice(sku, price);
+        pricesById.asMap().putIfAbsent(id, entry);
+        idsBySku.put(sku, id);
+        if (version.changedSince(readVersion) && pricesById.asMap().remove(id, entry)) {
+            idsBySku.remove(sku, id);
+        }
+    }
+
+    public void updatePriceAfterCommit(String sku, Double price) {
+        version.applyAfterCommit(() -> {
+            UUID id = idsBySku.get(sku);
+            if (!isNull(id)) {
+                // Só substitui o que ainda está na snapshot: um preço removido no meio volta pelo load
+                pricesById.asMap().computeIfPresent(id, (key, entry) -> new SkuPrice(sku, price));
+            }
+        });
+    }
+
+    public void removeAfterCommit(String sku) {
+        version.applyAfterCommit(() -> {
+            UUID id = idsBySku.remove(sku);
+            if (!isNull(id)) {
+                pricesById.invalidate(id);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, pricesById, "productPrice");
+    }
+
+    private record SkuPrice(String sku, Double price) {
+    }
+}
@@ -1,28 +1,70 @@
 package com.rodrigopettenon.orderflow.repositories;
 
+import com.rodrigopettenon.orderflow.dtos.CursorDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
+import com.rodrigopettenon.orderflow.dtos.ProductBulkResultDto;
 import com.rodrigopettenon.orderflow.dtos.ProductDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ProductModel;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.io.UncheckedIOException;
 import java.sql.Date;
+import java.time.LocalDate;
 import java.util.*;
-
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.rodrigopettenon.orderflow.repositories.ExistenceMemo.*;
+import static com.rodrigopettenon.orderflow.repositories.FilterCountCache.*;
+import static com.rodrigopettenon.orderflow.utils.DatabaseErrorUtil.isDuplicateKey;
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.EXPORT_FETCH_SIZE;
+import static com.rodrigopettenon.orderflow.utils.ETagUtil.rowETag;
 import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.*;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 @Repository
 public class ProductRepository {
 
+    private static final Map<String, Class<?>> CURSOR_TYPES = Map.of(
+            "name", String.class,
+            "sku", String.class,
+            "price", Double.class,
+            "expiration_date", LocalDate.class);
+
+    private static final List<String> FILTER_COUNT_TABLES = List.of(TB_PRODUCTS);
+
+    private static final int UPSERT_BATCH_SIZE = 500;
+
     @PersistenceContext
     private EntityManager em;
 
-    public void saveProduct(ProductDto productDto) {
+    @Autowired
+    private ExistenceMemo existenceMemo;
+
+    @Autowired
+    private RowCountEstimator rowCountEstimator;
+
+    @Autowired
+    private FilterCountCache filterCountCache;
+
+    @Autowired
+    private SqlTemplateCache sqlTemplateCache;
+
+    @Autowired
+    private ProductPriceSnapshot productPriceSnapshot;
+
+    // O índice único de sku decide a duplicidade: false quando o SKU já está cadastrado
+    public Boolean saveProduct(ProductDto productDto) {
         try{
             UUID id = UUID.randomUUID();
 
@@ -38,13 +80,118 @@ public class ProductRepository {
                     .setParameter("expiration", productDto.getExpiration());
 
             query.executeUpdate();
+            filterCountCache.invalidate(TB_PRODUCTS);
+            return true;
         } catch (Exception e) {
+            if (isDuplicateKey(e)) {
+                return false;
+            }
             logUnexpectedErrorOnSaveClientWithSku(productDto.getSku(), e);
             throw new ClientErrorException("Erro ao cadastrar um novo produto. ");
         }
     }
 
+    // Por bloco: uma leitura com IN classifica os SKUs (o affected rows do MySQL não separa novos de
+    // alterados num INSERT multi-linha) e só os novos/alterados vão para o INSERT ... ON DUPLICATE KEY UPDATE,
+    // que também cobre um SKU cadastrado por outra requisição entre a leitura e a escrita
+    public ProductBulkResultDto upsertProductsBySku(List<ProductDto> productDtos) {
+        try {
+            ProductBulkResultDto result = new ProductBulkResultDto();
+            for (int start = 0; start < productDtos.size(); start += UPSERT_BATCH_SIZE) {
+                List<ProductDto> chunk = productDtos.subList(start, Math.min(start + UPSERT_BATCH_SIZE, productDtos.size()));
+
+                Map<String, ProductDto> currentProducts = findProductsBySkus(chunk);
+                List<ProductDto> changedProducts = new ArrayList<>();
+                for (ProductDto productDto : chunk) {
+                    ProductDto currentProduct = currentProducts.get(productDto.getSku());
+                    if (isNull(currentProduct)) {
+                        result.setInserted(result.getInserted() + 1);
+                        changedProducts.add(productDto);
+                    } else if (hasSameData(currentProduct, productDto)) {
+                        result.setUnchanged(result.getUnchanged() + 1);
+                    } else {
+                        result.setUpdated(result.getUpdated() + 1);
+                        changedProducts.add(productDto);
+                    }
+                }
+
+                if (!changedProducts.isEmpty()) {
+                    upsertChunk(changedProducts);
+                }
+                for (ProductDto productDto : changedProducts) {
+                    productPriceSnapshot.updatePriceAfterCommit(productDto.getSku(), productDto.getPrice());
+                }
+            }
+            if (result.getInserted() > 0 || result.getUpdated() > 0) {
+                filterCountCache.invalidate(TB_PRODUCTS);
+            }
+            return result;
+        } catch (Exception e) {
+            logUnexpectedErrorOnUpsertProductsBySku(e);
+            throw new ClientErrorException("Erro ao sincronizar os produtos pelo SKU.");
+        }
+    }
+
+    private Map<String, ProductDto> findProductsBySkus(List<ProductDto> chunk) {
+        List<String> skus = new ArrayList<>();
+        for (ProductDto productDto : chunk) {
+            skus.add(productDto.getSku());
+        }
+
+        String sql = (" SELECT name, sku, price, expiration_date FROM tb_products WHERE sku IN (:skus) ");
+
+        Query query = em.createNativeQuery(sql)
+                .setParameter("skus", skus);
+
+        List<Object[]> resultList = query.getResultList();
+        Map<String, ProductDto> products = new HashMap<>();
+        for (Object[] result : resultList) {
+            ProductDto productDto = new ProductDto();
+            productDto.setName((String) result[0]);
+            productDto.setSku((String) result[1]);
+            productDto.setPrice(((Number) result[2]).doubleValue());
+            productDto.setExpiration(((Date) result[3]).toLocalDate());
+            products.put(productDto.getSku(), productDto);
+        }
+        return products;
+    }
+
+    private boolean hasSameData(ProductDto currentProduct, ProductDto productDto) {
+        return Objects.equals(currentProduct.getName(), productDto.getName())
+                && Objects.equals(currentProduct.getPrice(), productDto.getPrice())
+                && Objects.equals(currentProduct.getExpiration(), productDto.getExpiration());
+    }
+
+    // O id só é usado quando o SKU é novo; num SKU existente o id permanece
+    private void upsertChunk(List<ProductDto> chunk) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" INSERT INTO tb_products (id, name, sku, price, expiration_date) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i > 0 ? ", " : " ");
+            sql.append("(:id").append(i).append(", :name").append(i).append(", :sku").append(i)
+                    .append(", :price").append(i).append(", :expiration").append(i).append(")");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE name = VALUES(name), price = VALUES(price), ");
+        sql.append(" expiration_date = VALUES(expiration_date), row_version = row_version + 1 ");
+
+        Query query = em.createNativeQuery(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            ProductDto productDto = chunk.get(i);
+            query.setParameter("id" + i, UUID.randomUUID().toString())
+                    .setParameter("name" + i, productDto.getName())
+                    .setParameter("sku" + i, productDto.getSku())
+                    .setParameter("price" + i, productDto.getPrice())
+                    .setParameter("expiration" + i, productDto.getExpiration());
+        }
+
+        query.executeUpdate();
+    }
+
     public Boolean existsProductBySku(String sku) {
+        return existenceMemo.exists(PRODUCT_SKU, sku, () -> queryExistsProductBySku(sku));
+    }
+
+    private Boolean queryExistsProductBySku(String sku) {
         try{
             String sql = " SELECT 1 FROM tb_products WHERE sku = :sku LIMIT 1 ";
 
@@ -62,6 +209,10 @@ public class ProductRepository {
     }
 
     public Boolean existsProductById(UUID id) {
+        return existenceMemo.exists(PRODUCT_ID, id, () -> queryExistsProductById(id));
+    }
+
+    private Boolean queryExistsProductById(UUID id) {
         try{
             String sql = " SELECT 1 FROM tb_products WHERE id = :id LIMIT 1 ";
 
@@ -77,16 +228,76 @@ public class ProductRepository {
         }
     }
 
-    public List<ProductDto> findAllProducts(Integer page, Integer linesPerPage, String direction, String orderBy) {
+    // Existência e preço de um produto para o item de pedido: depois da primeira leitura sai da snapshot,
+    // sem ir a tb_products. null quando o produto não está cadastrado
+    public Double findPriceById(UUID id) {
+        Double snapshotPrice = productPriceSnapshot.findPrice(id);
+        if (nonNull(snapshotPrice)) {
+            return snapshotPrice;
+        }
+        try {
+            long readVersion = productPriceSnapshot.currentVersion();
+            String sql = " SELECT sku, price FROM tb_products WHERE id = :id LIMIT 1 ";
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("id", id.toString());
+
+            List<Object[]> resultList = query.getResultList();
+            if (resultList.isEmpty()) {
+                return null;
+            }
+
+            Object[] result = resultList.get(0);
+            Double price = ((Number) result[1]).doubleValue();
+            productPriceSnapshot.load(id, (String) result[0], price, readVersion);
+            return price;
+        } catch (Exception e) {
+            logUnexpectedErrorFindingProductPriceById(id, e);
+            throw new ClientErrorException("Erro ao buscar o preço do produto pelo id.");
+        }
+    }
+
+    // Existência e preço de todos os produtos de um lote numa única consulta; ids ausentes não vêm no mapa
+    public Map<UUID, Double> findPricesByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            String sql = (" SELECT id, price FROM tb_products WHERE id IN (:ids) ");
+
+            List<String> idValues = new ArrayList<>();
+            for (UUID id : ids) {
+                idValues.add(id.toString());
+            }
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("ids", idValues);
+
+            List<Object[]> resultList = query.getResultList();
+            Map<UUID, Double> prices = new HashMap<>();
+            for (Object[] result : resultList) {
+                prices.put(UUID.fromString((String) result[0]), ((Number) result[1]).doubleValue());
+            }
+            return prices;
+        } catch (Exception e) {
+            logUnexpectedErrorFindingProductPricesByIds(e);
+            throw new ClientErrorException("Erro ao buscar os preços dos produtos.");
+        }
+    }
+
+    public List<ProductDto> findAllProducts(Integer page, Integer linesPerPage, String direction, String orderBy,
+                                            CursorDto cursor) {
         try{
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT name, sku, price, expiration_date FROM tb_products ");
-            sql.append(" ORDER BY " + orderBy + " " + direction + " ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
+            Map<String, Object> parameters = new HashMap<>();
+            putProductCursorParameters(parameters, orderBy, cursor);
 
-            Query query = em.createNativeQuery(sql.toString())
+            String sql = sqlTemplateCache.get("products.all", parameters.keySet(), orderBy, direction, false,
+                    this::buildFindAllProductsSql);
+
+            Query query = em.createNativeQuery(sql)
                     .setParameter("limit", linesPerPage)
-                    .setParameter("offset", page * linesPerPage);
+                    .setParameter("offset", nonNull(cursor) ? 0 : page * linesPerPage);
+            setQueryParameters(query, parameters);
 
             List<Object[]> results = query.getResultList();
             List<ProductDto> products =  new ArrayList<>();
@@ -103,6 +314,8 @@ public class ProductRepository {
 
             return products;
 
+        } catch (ClientErrorException e) {
+            throw e; // para o erro genérico não engolir a exceção de cursor inválido
         } catch (Exception e) {
             logUnexpectedErrorOnFindAllProducts(e);
             throw new ClientErrorException("Erro ao buscar todos produtos.");
@@ -110,6 +323,34 @@ public class ProductRepository {
 
     }
 
+    // Cópia completa da tabela em ordem de id: linhas lidas do cursor do driver e entregues uma a uma
+    public void streamAllProducts(Consumer<ProductDto> consumer) {
+        try {
+            String sql = (" SELECT id, name, sku, price, expiration_date FROM tb_products ORDER BY id ");
+
+            Query query = em.createNativeQuery(sql)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE);
+
+            try (Stream<Object[]> rows = query.getResultStream()) {
+                rows.forEach(result -> {
+                    ProductDto productDto = new ProductDto();
+                    productDto.setId(UUID.fromString((String) result[0]));
+                    productDto.setName((String) result[1]);
+                    productDto.setSku((String) result[2]);
+                    productDto.setPrice(((Number) result[3]).doubleValue());
+                    productDto.setExpiration(((Date) result[4]).toLocalDate());
+
+                    consumer.accept(productDto);
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e; // falha ao escrever na resposta (cliente desconectou), não é erro da consulta
+        } catch (Exception e) {
+            logUnexpectedErrorOnExportProducts(e);
+            throw new ClientErrorException("Erro ao exportar produtos.");
+        }
+    }
+
     public ProductModel findProductModelById(UUID id) {
         try{
             String sql = (" SELECT id, name, sku, price, expiration_date FROM tb_products WHERE id = :id LIMIT 1 ");
@@ -144,7 +385,7 @@ public class ProductRepository {
 
     public ProductDto findProductBySku(String sku) {
         try{
-            String sql = " SELECT id, name, sku, price, expiration_date FROM tb_products WHERE sku = :sku";
+            String sql = " SELECT id, name, sku, price, expiration_date, row_version FROM tb_products WHERE sku = :sku";
 
             Query query = em.createNativeQuery(sql)
                     .setParameter("sku", sku);
@@ -161,6 +402,7 @@ public class ProductRepository {
             productDtoFound.setSku((String) result[2]);
             productDtoFound.setPrice((Double) result[3]);
             productDtoFound.setExpiration(((Date) result[4]).toLocalDate());
+            productDtoFound.setRowVersion(((Number) result[5]).longValue());
 
             logFoundProductBySkuSuccessfully(sku);
             return productDtoFound;
@@ -174,11 +416,31 @@ public class ProductRepository {
 
     }
 
+    // Só id e versão, para responder um If-None-Match sem ler nem serializar o produto; null quando não existe
+    public String findProductETagBySku(String sku) {
+        try {
+            String sql = " SELECT id, row_version FROM tb_products WHERE sku = :sku LIMIT 1 ";
+
+            Query query = em.createNativeQuery(sql)
+                    .setParameter("sku", sku);
+
+            List<Object[]> resultList = query.getResultList();
+            if (resultList.isEmpty()) {
+                return null;
+            }
+            Object[] result = resultList.get(0);
+            return rowETag(result[0], ((Number) result[1]).longValue());
+        } catch (Exception e) {
+            logUnexpectedErrorOnFindProductETagBySku(sku, e);
+            throw new ClientErrorException("Erro ao buscar a versão do produto pelo SKU.");
+        }
+    }
+
     public ProductDto updateProductBySku(String sku, ProductDto productDto) {
         try{
             StringBuilder sql = new StringBuilder();
-            sql.append(" UPDATE tb_products SET name = :name, price = :price, expiration_date = :expiration ");
-            sql.append(" WHERE sku = :sku ");
+            sql.append(" UPDATE tb_products SET name = :name, price = :price, expiration_date = :expiration, ");
+            sql.append(" row_version = row_version + 1 WHERE sku = :sku ");
 
             Query query = em.createNativeQuery(sql.toString())
                     .setParameter("name", productDto.getName())
@@ -187,6 +449,8 @@ public class ProductRepository {
                     .setParameter("sku", sku);
 
             query.executeUpdate();
+            filterCountCache.invalidate(TB_PRODUCTS);
+            productPriceSnapshot.updatePriceAfterCommit(sku, productDto.getPrice());
 
             logProductUpdatedBySkuSuccessfully(sku);
             return productDto;
@@ -204,6 +468,9 @@ public class ProductRepository {
                     .setParameter("sku", sku);
 
             query.executeUpdate();
+            filterCountCache.invalidate(TB_PRODUCTS);
+            productPriceSnapshot.removeAfterCommit(sku);
+            existenceMemo.forgetAll();
         } catch (Exception e) {
             logUnexpectedErrorOnDeleteProductBySku(sku, e);
             throw new ClientErrorException("Erro ao realizar deleção do produto pela SKU.");
@@ -229,51 +496,36 @@ public class ProductRepository {
 
     public GlobalPageDto<ProductDto> findFilteredProducts(String name, String sku, Double minPrice,
                                               Double maxPrice, Integer page, Integer linesPerPage,
-                                              String fixedDirection, String fixedOrderBy) {
-            List<ProductDto> products = queryFindFilteredProducts(name, sku, minPrice, maxPrice,
-                    page, linesPerPage, fixedDirection, fixedOrderBy);
-
-            Long total = queryCountFilteredProducts(name, sku, minPrice, maxPrice);
+                                              String fixedDirection, String fixedOrderBy, CursorDto cursor,
+                                              TotalMode totalMode) {
+            GlobalPageDto<ProductDto> productPageDto = queryFindFilteredProducts(name, sku, minPrice, maxPrice,
+                    page, linesPerPage, fixedDirection, fixedOrderBy, cursor, totalMode);
 
-            GlobalPageDto<ProductDto> productPageDto = new GlobalPageDto<>();
-            productPageDto.setItems(products);
-            productPageDto.setTotal(total);
+            if (needsCountQuery(productPageDto, totalMode)) {
+                productPageDto.setTotal(queryCountFilteredProducts(name, sku, minPrice, maxPrice, totalMode));
+            }
+            applyHasNext(productPageDto, linesPerPage, totalMode);
 
             logFindFilteredProductsSuccessfully(name, sku, minPrice, maxPrice);
             return productPageDto;
     }
 
-    protected List<ProductDto> queryFindFilteredProducts(String name, String sku, Double minPrice,
+    protected GlobalPageDto<ProductDto> queryFindFilteredProducts(String name, String sku, Double minPrice,
                                                        Double maxPrice, Integer page, Integer linesPerPage,
-                                                       String fixedDirection, String fixedOrderBy) {
+                                                       String fixedDirection, String fixedOrderBy,
+                                                       CursorDto cursor, TotalMode totalMode) {
         try {
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
-            sql.append(" SELECT name, sku, price, expiration_date FROM tb_products WHERE 1=1 ");
+            boolean windowTotal = isWindowTotal(totalMode, cursor);
+            putProductFilterParameters(parameters, name, sku, minPrice, maxPrice);
+            putProductCursorParameters(parameters, fixedOrderBy, cursor);
 
-            if (isNotBlank(name)) {
-                sql.append(" AND name LIKE :name ");
-                parameters.put("name", "%" + name + "%");
-            }
-            if (isNotBlank(sku)) {
-                sql.append(" AND sku = :sku ");
-                parameters.put("sku", sku);
-            }
-            if (nonNull(minPrice)) {
-                sql.append(" AND price >= :minPrice ");
-                parameters.put("minPrice", minPrice);
-            }
-            if (nonNull(maxPrice)) {
-                sql.append(" AND price <= :maxPrice ");
-                parameters.put("maxPrice", maxPrice);
-            }
+            String sql = sqlTemplateCache.get("products.filter", parameters.keySet(), fixedOrderBy, fixedDirection,
+                    windowTotal, this::buildFindFilteredProductsSql);
 
-            sql.append(" ORDER BY " + fixedOrderBy + " " + fixedDirection + " ");
-            sql.append(" LIMIT :limit OFFSET :offset ");
-
-            Query queryProducts = em.createNativeQuery(sql.toString())
-                    .setParameter("limit", linesPerPage)
-                    .setParameter("offset", page * linesPerPage);
+            Query queryProducts = em.createNativeQuery(sql)
+                    .setParameter("limit", resolveFetchLimit(linesPerPage, totalMode))
+                    .setParameter("offset", nonNull(cursor) ? 0 : page * linesPerPage);
             setQueryParameters(queryProducts, parameters);
 
             logInfoStartingProductsSearchQueryFiltered(name, sku, minPrice, maxPrice);
@@ -290,7 +542,15 @@ public class ProductRepository {
                 products.add(productDto);
             }
 
-            return products;
+            GlobalPageDto<ProductDto> productPageDto = new GlobalPageDto<>();
+            productPageDto.setItems(products);
+            if (windowTotal) {
+                productPageDto.setTotal(extractWindowTotal(productResults, page));
+            }
+
+            return productPageDto;
+        } catch (ClientErrorException e) {
+            throw e; // para o erro genérico não engolir a exceção de cursor inválido
         } catch (Exception e) {
             logUnexpectedErrorOnFindFilteredProducts(e);
             throw new ClientErrorException("Erro ao buscar produtos filtrados.");
@@ -298,38 +558,31 @@ public class ProductRepository {
     }
 
     protected Long queryCountFilteredProducts(String name, String sku,
-                                                     Double minPrice, Double maxPrice){
+                                                     Double minPrice, Double maxPrice, TotalMode totalMode){
         try {
             Map<String, Object> parameters = new HashMap<>();
-            StringBuilder sql = new StringBuilder();
+            putProductFilterParameters(parameters, name, sku, minPrice, maxPrice);
 
-            sql.append(" SELECT COUNT(*) FROM tb_products WHERE 1=1 ");
+            String sql = sqlTemplateCache.get("products.filter.count", parameters.keySet(),
+                    this::buildCountFilteredProductsSql);
 
-            if (isNotBlank(name)) {
-                sql.append(" AND name LIKE :name ");
-                parameters.put("name", "%" + name + "%");
-            }
-            if (isNotBlank(sku)) {
-                sql.append(" AND sku = :sku ");
-                parameters.put("sku", sku);
-            }
-            if (nonNull(minPrice)) {
-                sql.append(" AND price >= :minPrice ");
-                parameters.put("minPrice", minPrice);
-            }
-            if (nonNull(maxPrice)) {
-                sql.append(" AND price <= :maxPrice ");
-                parameters.put("maxPrice", maxPrice);
+            if (TotalMode.ESTIMATE.equals(totalMode)) {
+                Long estimatedTotal = rowCountEstimator.estimateRowCount(sql, parameters);
+                if (nonNull(estimatedTotal)) {
+                    return estimatedTotal;
+                }
             }
 
-            Query queryCount = em.createNativeQuery(sql.toString());
-            setQueryParameters(queryCount, parameters);
+            return filterCountCache.getOrCount(FILTER_COUNT_TABLES, sql, parameters, () -> {
+                Query queryCount = em.createNativeQuery(sql);
+                setQueryParameters(queryCount, parameters);
 
-            logInfoStartingFilteredProductsCountQuery(name, sku, minPrice, maxPrice);
-            Object countResult = queryCount.getSingleResult();
-            Number total = (Number) countResult;
+                logInfoStartingFilteredProductsCountQuery(name, sku, minPrice, maxPrice);
+                Object countResult = queryCount.getSingleResult();
+                Number total = (Number) countResult;
 
-            return total.longValue();
+                return total.longValue();
+            });
         } catch (Exception e) {
             logUnexpectedErrorOnCountFilteredProducts(e);
             throw new ClientErrorException("Erro ao contar produtos filtrados.");
@@ -337,6 +590,83 @@ public class ProductRepository {
 
     }
 
+    private String buildFindAllProductsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT name, sku, price, expiration_date FROM tb_products WHERE 1=1 ");
+        appendProductCursorCondition(sql, key);
+        sql.append(" ORDER BY " + key.orderBy() + " " + key.direction() + ", sku " + key.direction() + " ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        return sql.toString();
+    }
+
+    private String buildFindFilteredProductsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT name, sku, price, expiration_date ");
+        if (key.windowTotal()) {
+            sql.append(WINDOW_TOTAL_COLUMN);
+        }
+        appendProductFilters(sql, key);
+        appendProductCursorCondition(sql, key);
+
+        sql.append(" ORDER BY " + key.orderBy() + " " + key.direction() + ", sku " + key.direction() + " ");
+        sql.append(" LIMIT :limit OFFSET :offset ");
+        return sql.toString();
+    }
+
+    private String buildCountFilteredProductsSql(SqlTemplateCache.Key key) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(" SELECT COUNT(*) ");
+        appendProductFilters(sql, key);
+        return sql.toString();
+    }
+
+    private void appendProductFilters(StringBuilder sql, SqlTemplateCache.Key key) {
+        sql.append(" FROM tb_products WHERE 1=1 ");
+
+        if (key.has("name")) {
+            sql.append(" AND name LIKE :name ");
+        }
+        if (key.has("sku")) {
+            sql.append(" AND sku = :sku ");
+        }
+        if (key.has("minPrice")) {
+            sql.append(" AND price >= :minPrice ");
+        }
+        if (key.has("maxPrice")) {
+            sql.append(" AND price <= :maxPrice ");
+        }
+    }
+
+    private void putProductFilterParameters(Map<String, Object> parameters, String name, String sku,
+                                            Double minPrice, Double maxPrice) {
+        if (isNotBlank(name)) {
+            parameters.put("name", "%" + name + "%");
+        }
+        if (isNotBlank(sku)) {
+            parameters.put("sku", sku);
+        }
+        if (nonNull(minPrice)) {
+            parameters.put("minPrice", minPrice);
+        }
+        if (nonNull(maxPrice)) {
+            parameters.put("maxPrice", maxPrice);
+        }
+    }
+
+    // O SKU é único, então serve de desempate para nomes/preços/datas repetidos
+    private void appendProductCursorCondition(StringBuilder sql, SqlTemplateCache.Key key) {
+        if (key.has(CURSOR_LAST_KEY)) {
+            appendKeysetCondition(sql, key.orderBy(), "sku", key.direction());
+        }
+    }
+
+    private void putProductCursorParameters(Map<String, Object> parameters, String orderBy, CursorDto cursor) {
+        if (nonNull(cursor)) {
+            putKeysetParameters(parameters, parseCursorValue(cursor.getSortValue(), CURSOR_TYPES.get(orderBy.toLowerCase())),
+                    cursor.getLastKey());
+        }
+    }
+
     void setQueryParameters(Query query, Map<String, Object> parameters) {
         for (Map.Entry<String, Object> param : parameters.entrySet()) {
             query.setParameter(param.getKey(), param.getValue());
@@ -0,0 +1,53 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.rodrigopettenon.orderflow.utils.LogUtil.logRowCountEstimateUnavailable;
+
+@Component
+public class RowCountEstimator {
+
+    // Colunas do EXPLAIN do MySQL: id, select_type, table, partitions, type, possible_keys, key, key_len, ref, rows, filtered, Extra
+    private static final int ID_COLUMN = 0;
+    private static final int ROWS_COLUMN = 9;
+    private static final int FILTERED_COLUMN = 10;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // Usa a estimativa de linhas do otimizador no lugar do COUNT(*). Retorna null quando não há estimativa.
+    public Long estimateRowCount(String countSql, Map<String, Object> parameters) {
+        try {
+            Query query = em.createNativeQuery(" EXPLAIN " + countSql);
+            for (Map.Entry<String, Object> param : parameters.entrySet()) {
+                query.setParameter(param.getKey(), param.getValue());
+            }
+
+            List<Object[]> plan = query.getResultList();
+
+            // As tabelas do SELECT externo (id = 1) formam o join; a estimativa é o produto das linhas filtradas de cada uma
+            double estimate = 1;
+            boolean estimated = false;
+            for (Object[] row : plan) {
+                if (row.length <= FILTERED_COLUMN || !(row[ID_COLUMN] instanceof Number id) || id.intValue() != 1
+                        || !(row[ROWS_COLUMN] instanceof Number rows)) {
+                    continue;
+                }
+                double filtered = row[FILTERED_COLUMN] instanceof Number percent ? percent.doubleValue() : 100;
+                estimate *= rows.doubleValue() * filtered / 100;
+                estimated = true;
+            }
+
+            return estimated ? Math.round(estimate) : null;
+        } catch (Exception e) {
+            logRowCountEstimateUnavailable(e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// SQL das buscas filtradas montado uma vez por combinação de filtros/ordenação; nas requisições seguintes só os
+// parâmetros mudam
+@Component
+public class SqlTemplateCache {
+
+    // Combinações finitas: filtros presentes x orderBy/direction já validados pelos services x total por janela
+    private final Map<Key, String> templates = new ConcurrentHashMap<>();
+
+    // Os nomes dos parâmetros vinculados identificam quais filtros (e cursor) estão presentes
+    public String get(String queryName, Set<String> boundParameters, String orderBy, String direction,
+                      boolean windowTotal, Function<Key, String> builder) {
+        return templates.computeIfAbsent(
+                new Key(queryName, Set.copyOf(boundParameters), orderBy, direction, windowTotal), builder);
+    }
+
+    public String get(String queryName, Set<String> boundParameters, Function<Key, String> builder) {
+        return get(queryName, boundParameters, null, null, false, builder);
+    }
+
+    public record Key(String queryName, Set<String> boundParameters, String orderBy, String direction,
+                      boolean windowTotal) {
+
+        public boolean has(String parameter) {
+            return boundParameters.contains(parameter);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.rodrigopettenon.orderflow.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rodrigopettenon.orderflow.dtos.BatchItemResultDto;
+import com.rodrigopettenon.orderflow.dtos.ClientDto;
+import com.rodrigopettenon.orderflow.dtos.ClientImportJobDto;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.models.ImportJobStatus;
+import com.rodrigopettenon.orderflow.repositories.ClientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.parseCsvLine;
+import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static com.rodrigopettenon.orderflow.utils.StringsValidation.*;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+// Importação em massa de clientes: o arquivo é lido em blocos, cada bloco validado em paralelo,
+// deduplicado, conferido com o banco em uma consulta por coluna e gravado em INSERT multi-linha
+@Service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ClientImportService {
+
+    private static final List<String> REQUIRED_COLUMNS = Arrays.asList("name", "email", "cpf", "birth_date");
+    private static final int CHUNK_SIZE = 1000;
+
+    // Só as primeiras rejeições vão no retorno; os contadores seguem contando todas
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    private final Cache<UUID, ClientImportJobDto> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+
+    public ClientImportJobDto startImport(MultipartFile file) {
+        UUID jobId = UUID.randomUUID();
+        logImportClientsStart(jobId);
+
+        if (isNull(file) || file.isEmpty()) {
+            throw new ClientErrorException("O arquivo CSV de clientes é obrigatório.");
+        }
+
+        // O arquivo temporário do multipart é apagado ao fim da requisição, antes do processamento terminar
+        Path csvFile = copyToTempFile(file);
+        Map<String, Integer> columns;
+        try {
+            columns = readHeader(csvFile);
+        } catch (ClientErrorException e) {
+            deleteTempFile(csvFile);
+            throw e;
+        }
+
+        ClientImportJobDto job = new ImportProgress().toJob(jobId, ImportJobStatus.RUNNING);
+        jobs.put(jobId, job);
+        taskExecutor.execute(() -> runImport(jobId, csvFile, columns));
+        return job;
+    }
+
+    public ClientImportJobDto findImportJob(UUID jobId) {
+        ClientImportJobDto job = jobs.getIfPresent(jobId);
+        if (isNull(job)) {
+            throw new ClientErrorException("Importação não encontrada pelo id: " + jobId);
+        }
+        return job;
+    }
+
+    private void runImport(UUID jobId, Path csvFile, Map<String, Integer> columns) {
+        ImportProgress progress = new ImportProgress();
+        Set<String> seenCpfs = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            reader.readLine(); // cabeçalho, já validado em startImport
+
+            List<CsvLine> chunk = new ArrayList<>(CHUNK_SIZE);
+            int lineNumber = 1;
+            String line;
+            while (nonNull(line = reader.readLine())) {
+                lineNumber++;
+                if (isBlank(line)) {
+                    continue;
+                }
+                chunk.add(new CsvLine(lineNumber, line));
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, columns, seenCpfs, seenEmails, progress);
+                    jobs.put(jobId, progress.toJob(jobId, ImportJobStatus.RUNNING));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, columns, seenCpfs, seenEmails, progress);
+            }
+
+            jobs.put(jobId, progress.toJob(jobId, ImportJobStatus.COMPLETED));
+            logImportClientsFinished(jobId, progress.imported, progress.rejected);
+        } catch (Exception e) {
+            logUnexpectedErrorOnImportClients(jobId, e);
+            ClientImportJobDto failedJob = progress.toJob(jobId, ImportJobStatus.FAILED);
+            failedJob.setError("Erro ao ler o arquivo de importação; os blocos já gravados foram mantidos.");
+            jobs.put(jobId, failedJob);
+        } finally {
+            deleteTempFile(csvFile);
+        }
+    }
+
+    private void importChunk(List<CsvLine> chunk, Map<String, Integer> columns, Set<String> seenCpfs,
+                             Set<String> seenEmails, ImportProgress progress) {
+        // Validação só de CPU em paralelo; toList mantém a ordem do arquivo para a deduplicação abaixo
+        List<BatchItemResultDto<ClientDto>> validated = chunk.parallelStream()
+                .map(csvLine -> parseAndValidate(csvLine, columns))
+                .toList();
+
+        // Na duplicidade dentro do arquivo, a primeira ocorrência é a que vale
+        List<BatchItemResultDto<ClientDto>> candidates = new ArrayList<>();
+        for (BatchItemResultDto<ClientDto> row : validated) {
+            if (nonNull(row.getError())) {
+                progress.reject(row.getIndex(), row.getError());
+                continue;
+            }
+            ClientDto clientDto = row.getItem();
+            if (seenCpfs.contains(clientDto.getCpf())) {
+                progress.reject(row.getIndex(), "O CPF do cliente está duplicado no arquivo.");
+                continue;
+            }
+            if (seenEmails.contains(clientDto.getEmail())) {
+                progress.reject(row.getIndex(), "O email do cliente está duplicado no arquivo.");
+                continue;
+            }
+            seenCpfs.add(clientDto.getCpf());
+            seenEmails.add(clientDto.getEmail());
+            candidates.add(row);
+        }
+        progress.processed += chunk.size();
+
+        if (candidates.isEmpty()) {
+            return;
+        }
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.executeWithoutResult(transactionStatus -> saveNewClients(candidates, progress));
+        } catch (ClientErrorException e) {
+            for (BatchItemResultDto<ClientDto> row : candidates) {
+                progress.reject(row.getIndex(), e.getMessage());
+            }
+        }
+    }
+
+    private void saveNewClients(List<BatchItemResultDto<ClientDto>> candidates, ImportProgress progress) {
+        List<String> cpfs = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        for (BatchItemResultDto<ClientDto> row : candidates) {
+            cpfs.add(row.getItem().getCpf());
+            emails.add(row.getItem().getEmail());
+        }
+        Set<String> existingCpfs = clientRepository.findExistingCpfs(cpfs);
+        Set<String> existingEmails = clientRepository.findExistingEmails(emails);
+
+        List<BatchItemResultDto<ClientDto>> newRows = new ArrayList<>();
+        List<Integer> rejectedLines = new ArrayList<>();
+        List<String> rejectedErrors = new ArrayList<>();
+        for (BatchItemResultDto<ClientDto> row : candidates) {
+            ClientDto clientDto = row.getItem();
+            if (existingCpfs.contains(clientDto.getCpf())) {
+                rejectedLines.add(row.getIndex());
+                rejectedErrors.add("O CPF do cliente já está cadastrado.");
+            } else if (existingEmails.contains(clientDto.getEmail())) {
+                rejectedLines.add(row.getIndex());
+                rejectedErrors.add("O email do cliente já está cadastrado.");
+            } else {
+                newRows.add(row);
+            }
+        }
+
+        List<ClientDto> newClients = newRows.stream().map(BatchItemResultDto::getItem).toList();
+        clientRepository.saveClientsBatch(newClients);
+
+        // Um /clients/save concorrente entre a conferência e o INSERT fica com o CPF ou o email: o banco ignora
+        // só aquela linha, e ela entra como rejeitada. A linha é nossa quando o CPF ficou com o email do arquivo
+        long imported = 0;
+        if (!newClients.isEmpty()) {
+            Map<String, String> savedEmailsByCpf = clientRepository.findEmailsByCpfs(
+                    newClients.stream().map(ClientDto::getCpf).toList());
+            for (BatchItemResultDto<ClientDto> row : newRows) {
+                String savedEmail = savedEmailsByCpf.get(row.getItem().getCpf());
+                if (row.getItem().getEmail().equals(savedEmail)) {
+                    imported++;
+                } else {
+                    rejectedLines.add(row.getIndex());
+                    rejectedErrors.add(isNull(savedEmail)
+                            ? "O email do cliente já está cadastrado." : "O CPF do cliente já está cadastrado.");
+                }
+            }
+        }
+
+        // Só contabiliza depois do INSERT, para que uma falha do bloco não conte as linhas duas vezes
+        for (int i = 0; i < rejectedLines.size(); i++) {
+            progress.reject(rejectedLines.get(i), rejectedErrors.get(i));
+        }
+        progress.imported += imported;
+    }
+
+    // Mesmas regras de ClientService.save (StringsValidation), sem os logs de validação por campo (milhões de linhas)
+    private BatchItemResultDto<ClientDto> parseAndValidate(CsvLine csvLine, Map<String, Integer> columns) {
+        List<String> fields = parseCsvLine(csvLine.content());
+        if (fields.size() < columns.size()) {
+            return new BatchItemResultDto<>(csvLine.lineNumber(), null, "A linha não possui todas as colunas do cabeçalho.");
+        }
+
+        String name = fields.get(columns.get("name")).trim();
+        String email = fields.get(columns.get("email")).trim();
+        String cpf = denormalizeCpf(fields.get(columns.get("cpf")).trim());
+        String birthValue = fields.get(columns.get("birth_date")).trim();
+
+        String error = clientNameError(name);
+        if (isNull(error)) {
+            error = clientEmailError(email);
+        }
+        if (isNull(error)) {
+            error = clientCpfError(cpf);
+        }
+        LocalDate birth = null;
+        if (isNull(error)) {
+            try {
+                birth = isBlank(birthValue) ? null : LocalDate.parse(birthValue);
+                error = clientBirthError(birth);
+            } catch (DateTimeParseException e) {
+                error = "A data de nascimento do cliente é inválida, use o formato yyyy-MM-dd.";
+            }
+        }
+        if (nonNull(error)) {
+            return new BatchItemResultDto<>(csvLine.lineNumber(), null, error);
+        }
+
+        ClientDto clientDto = new ClientDto();
+        clientDto.setName(name);
+        clientDto.setEmail(email);
+        clientDto.setCpf(cpf);
+        clientDto.setBirth(birth);
+        return new BatchItemResultDto<>(csvLine.lineNumber(), clientDto, null);
+    }
+
+    // Colunas localizadas pelo nome, então o CSV de /clients/export pode ser reimportado como está
+    private Map<String, Integer> readHeader(Path csvFile) {
+        String header;
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            header = reader.readLine();
+        } catch (IOException e) {
+            throw new ClientErrorException("Erro ao ler o arquivo CSV de clientes.");
+        }
+        if (isBlank(header)) {
+            throw new ClientErrorException("O arquivo CSV de clientes deve começar pelo cabeçalho.");
+        }
+
+        Map<String, Integer> headerColumns = new HashMap<>();
+        List<String> names = parseCsvLine(header.replace("\uFEFF", ""));
+        for (int i = 0; i < names.size(); i++) {
+            headerColumns.put(names.get(i).trim().toLowerCase(), i);
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (String column : REQUIRED_COLUMNS) {
+            if (!headerColumns.containsKey(column)) {
+                throw new ClientErrorException("O cabeçalho do CSV deve conter as colunas: " + String.join(", ", REQUIRED_COLUMNS));
+            }
+            columns.put(column, headerColumns.get(column));
+        }
+        return columns;
+    }
+
+    private Path copyToTempFile(MultipartFile file) {
+        try (InputStream inputStream = file.getInputStream()) {
+            Path csvFile = Files.createTempFile("clients-import-", ".csv");
+            Files.copy(inputStream, csvFile, StandardCopyOption.REPLACE_EXISTING);
+            return csvFile;
+        } catch (IOException e) {
+            throw new ClientErrorException("Erro ao receber o arquivo CSV de clientes.");
+        }
+    }
+
+    private void deleteTempFile(Path csvFile) {
+        try {
+            Files.deleteIfExists(csvFile);
+        } catch (IOException e) {
+            csvFile.toFile().deleteOnExit();
+        }
+    }
+
+    private record CsvLine(int lineNumber, String content) {
+    }
+
+    // Estado mutável da importação, usado só pela thread do job; cada publicação no cache é uma cópia
+    private static class ImportProgress {
+
+        private long processed;
+        private long imported;
+        private long rejected;
+        private final List<BatchItemResultDto<ClientDto>> rejections = new ArrayList<>();
+
+        private void reject(Integer lineNumber, String error) {
+            rejected++;
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                rejections.add(new BatchItemResultDto<>(lineNumber, null, error));
+            }
+        }
+
+        private ClientImportJobDto toJob(UUID jobId, ImportJobStatus status) {
+            ClientImportJobDto job = new ClientImportJobDto();
+            job.setJobId(jobId);
+            job.setStatus(status.toString());
+            job.setProcessedRows(processed);
+            job.setImportedRows(imported);
+            job.setRejectedRows(rejected);
+            job.setRejections(new ArrayList<>(rejections));
+            return job;
+        }
+    }
+}
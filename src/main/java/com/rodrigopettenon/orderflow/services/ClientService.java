@@ -1,19 +1,32 @@
 package com.rodrigopettenon.orderflow.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rodrigopettenon.orderflow.dtos.ClientDto;
+import com.rodrigopettenon.orderflow.dtos.CursorDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import com.rodrigopettenon.orderflow.repositories.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.streamInReadOnlyTransaction;
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.writeExportLine;
 import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.decodeCursor;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.encodeCursor;
 import static com.rodrigopettenon.orderflow.utils.StringsValidation.*;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -29,49 +42,72 @@ public class ClientService {
     @Autowired
     private ClientRepository clientRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
+    // INSERT direto: a duplicidade vem das colunas únicas e só então é consultado qual delas repetiu
     @Transactional
     public void save(ClientDto clientDto){
         logSaveClientWithCpfStart(clientDto.getCpf());
 
         validateName(clientDto.getName());
         validateEmail(clientDto.getEmail());
-        emailExists(clientDto.getEmail());
         validateBirth(clientDto.getBirth());
 
         String cpf = validateAndNormalizeCpf(clientDto.getCpf());
-        cpfExists(cpf);
         clientDto.setCpf(cpf);
 
-        clientRepository.saveClient(clientDto);
+        if (!clientRepository.saveClient(clientDto)) {
+            explainDuplicateClient(clientDto);
+        }
         logClientSavedWithCpfSuccessfully(cpf);
     }
 
-    public GlobalPageDto<ClientDto> findAllClients(Integer page, Integer linesPerPage, String direction, String orderBy) {
+    public GlobalPageDto<ClientDto> findAllClients(Integer page, Integer linesPerPage, String direction, String orderBy,
+                                                   String cursor) {
         logFindAllClientsStart();
         Integer sanitizedPage = sanitizePage(page);
         Integer sanitizedLinesPerPage = sanitizeLinesPerPage(linesPerPage);
         String fixedDirection = resolveDirectionOrDefault(direction);
         String fixedOrderBy = resolveOrderByOrDefault(orderBy);
+        CursorDto validatedCursor = validateCursorFilter(cursor, fixedOrderBy, fixedDirection);
 
 
-        List<ClientDto> clients = clientRepository.findAllClients(sanitizedPage, sanitizedLinesPerPage, fixedDirection, fixedOrderBy);
-        Long total = clientRepository.countTotalClients();
+        List<ClientDto> clients = clientRepository.findAllClients(sanitizedPage, sanitizedLinesPerPage, fixedDirection,
+                fixedOrderBy, validatedCursor);
+        // O total não muda de uma página para a outra: quem pagina por cursor já o recebeu na primeira
+        Long total = isNull(validatedCursor) ? clientRepository.countTotalClients() : null;
 
         GlobalPageDto<ClientDto> clientPageDto = new GlobalPageDto<>();
         clientPageDto.setItems(clients);
         clientPageDto.setTotal(total);
+        clientPageDto.setNextCursor(buildNextCursor(clientPageDto, sanitizedLinesPerPage, fixedDirection, fixedOrderBy));
 
         logFindAllClientsSuccessfully();
         return clientPageDto;
     }
 
+    // Cópia completa de tb_clients para sistemas externos, sem paginação nem contagem
+    public StreamingResponseBody exportClients(ExportFormat format) {
+        logExportClientsStart(format);
+
+        String[] csvHeader = {"id", "name", "email", "cpf", "birth_date"};
+
+        return streamInReadOnlyTransaction(transactionManager, format, csvHeader, writer ->
+                clientRepository.streamAllClients(client -> writeExportLine(writer, format, objectMapper, client,
+                        client.getId(), client.getName(), client.getEmail(), client.getCpf(), client.getBirth())));
+    }
+
     @Transactional(readOnly = true)
     public GlobalPageDto<ClientDto> findFilteredClients(String name, String email,
                                              String cpf, LocalDate birthStart,
                                              LocalDate birthEnd, Integer page,
                                              Integer linesPerPage, String direction,
-                                             String orderBy) {
+                                             String orderBy, String cursor, String total) {
         logFindFilteredClientsStart();
 
         Integer sanitizedPage = sanitizePage(page);
@@ -82,11 +118,17 @@ public class ClientService {
         String validatedCpfFilter = sanitizeAndValidateCpfFilter(cpf);
         String fixedDirection = resolveDirectionOrDefault(direction);
         String fixedOrderBy = resolveOrderByOrDefault(orderBy);
+        CursorDto validatedCursor = validateCursorFilter(cursor, fixedOrderBy, fixedDirection);
+        TotalMode fixedTotalMode = TotalMode.fromValueOrDefault(total);
 
         validateBirthStartAndBirthEnd(birthStart, birthEnd);
 
-        return clientRepository.findFilteredClients(validatedNameFilter, validatedEmailFilter, validatedCpfFilter, birthStart,
-                birthEnd, sanitizedPage, sanitizedLinesPerPage, fixedDirection, fixedOrderBy);
+        GlobalPageDto<ClientDto> clientPageDto = clientRepository.findFilteredClients(validatedNameFilter, validatedEmailFilter,
+                validatedCpfFilter, birthStart, birthEnd, sanitizedPage, sanitizedLinesPerPage, fixedDirection, fixedOrderBy,
+                validatedCursor, fixedTotalMode);
+        clientPageDto.setNextCursor(buildNextCursor(clientPageDto, sanitizedLinesPerPage, fixedDirection, fixedOrderBy));
+
+        return clientPageDto;
     }
 
     @Transactional(readOnly = true)
@@ -99,6 +141,18 @@ public class ClientService {
         return clientRepository.findClientByEmail(email);
     }
 
+    // Para o If-None-Match de GET /clients/cpf/{cpf}: só a versão do cliente, sem ler a linha inteira
+    public String findETagByCpf(String cpf) {
+        String validatedCpf = validateAndNormalizeCpf(cpf);
+
+        String eTag = clientRepository.findClientETagByCpf(validatedCpf);
+        if (isNull(eTag)) {
+            logClientNotFoundByCpf(validatedCpf);
+            throw new ClientErrorException("Nenhum cliente cadastrado com esse CPF.");
+        }
+        return eTag;
+    }
+
     @Transactional(readOnly = true)
     public ClientDto findByCpf(String cpf) {
         logFindClientByCpfStart(cpf);
@@ -128,12 +182,24 @@ public class ClientService {
         logClientDeletionByCpfStart(cpf);
 
         String validatedCpf = validateAndNormalizeCpf(cpf);
-        cpfNotExist(validatedCpf);
+        Long clientId = clientRepository.findClientIdByCpf(validatedCpf);
+        if (isNull(clientId)) {
+            logClientNotFoundByCpf(validatedCpf);
+            throw new ClientErrorException("Nenhum cliente cadastrado com esse CPF.");
+        }
 
-        clientRepository.deleteClientByCpf(validatedCpf);
+        clientRepository.deleteClientByCpf(validatedCpf, clientId);
         logClientDeletedByCpfSuccessfully(cpf);
     }
 
+    // Carga na subida e reconciliação periódica do bitmap de ids com tb_clients
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "PT10M", initialDelayString = "PT10M")
+    @Transactional(readOnly = true)
+    public void reloadClientIdBitmap() {
+        clientRepository.reloadClientIdBitmap();
+    }
+
     //Validações filtros GET
 
     private String sanitizeNameFilter(String name) {
@@ -212,43 +278,59 @@ public class ClientService {
         return orderBy.toLowerCase();
     }
 
-    //Validações de dados
+    // Validações e montagem do cursor de paginação (keyset)
 
-    private void validateName(String name){
-        logClientNameValidation(name);
-
-        if (isBlank(name)) {
-            throw new ClientErrorException("O nome do cliente é obrigatório.");
+    private CursorDto validateCursorFilter(String cursor, String orderBy, String direction) {
+        logClientCursorFilterValidation(cursor);
+        if (isBlank(cursor)) {
+            return null;
         }
-        if (name.length() <= 3) {
-            throw new ClientErrorException("O nome do cliente deve ter mais de 3 caracteres.");
+
+        CursorDto cursorDto = decodeCursor(cursor);
+        if (!orderBy.equals(cursorDto.getOrderBy()) || !direction.equals(cursorDto.getDirection())) {
+            throw new ClientErrorException("O cursor informado não corresponde à ordenação solicitada.");
         }
+        return cursorDto;
+    }
 
-        if (name.length() > 100) {
-            throw new ClientErrorException("O nome do cliente deve ser menor que 100 caracteres.");
+    private String buildNextCursor(GlobalPageDto<ClientDto> clientPageDto, Integer linesPerPage, String direction, String orderBy) {
+        List<ClientDto> clients = clientPageDto.getItems();
+        if (isNull(clients) || clients.isEmpty() || clients.size() < linesPerPage
+                || Boolean.FALSE.equals(clientPageDto.getHasNext())) {
+            return null;
         }
+
+        ClientDto lastClient = clients.get(clients.size() - 1);
+        Object sortValue = switch (orderBy) {
+            case "email" -> lastClient.getEmail();
+            case "cpf" -> lastClient.getCpf();
+            case "birth_date" -> lastClient.getBirth();
+            default -> lastClient.getName();
+        };
+        return encodeCursor(orderBy, direction, sortValue, lastClient.getCpf());
+    }
+
+    //Validações de dados
+
+    private void validateName(String name){
+        logClientNameValidation(name);
+        throwIfInvalid(clientNameError(name));
     }
 
     private void validateBirth(LocalDate birth) {
         logClientBirthValidation(birth);
-
-        if (isNull(birth)) {
-            throw new ClientErrorException("A data de nascimento do cliente é obrigatória.");
-        }
-        if (birth.isAfter(LocalDate.now())) {
-            throw new ClientErrorException("A data de nascimento não pode ser futura.");
-        }
+        throwIfInvalid(clientBirthError(birth));
     }
 
     private void validateEmail(String email) {
         logClientEmailValidation(email);
+        throwIfInvalid(clientEmailError(email));
+    }
 
-        if (isBlank(email)) {
-            throw new ClientErrorException("O email do cliente é obrigatório.");
-        }
-        if (!isValidEmail(email)) {
-            throw new ClientErrorException("O email do cliente é inválido.");
-        }
+    private void explainDuplicateClient(ClientDto clientDto) {
+        emailExists(clientDto.getEmail());
+        cpfExists(clientDto.getCpf());
+        throw new ClientErrorException("O cliente já está cadastrado.");
     }
 
     private void emailExists(String email) {
@@ -275,12 +357,12 @@ public class ClientService {
 
     private void validateCpf(String cpf) {
         logClientCpfValidation(cpf);
+        throwIfInvalid(clientCpfError(cpf));
+    }
 
-        if (isBlank(cpf)) {
-            throw new ClientErrorException("O CPF do cliente é obrigatório.");
-        }
-        if (!isValidCPF(cpf)) {
-            throw new ClientErrorException("O CPF do cliente é inválido.");
+    private void throwIfInvalid(String error) {
+        if (nonNull(error)) {
+            throw new ClientErrorException(error);
         }
     }
 
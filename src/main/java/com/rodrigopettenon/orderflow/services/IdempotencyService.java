@@ -0,0 +1,172 @@
+package com.rodrigopettenon.orderflow.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rodrigopettenon.orderflow.dtos.IdempotentResponseDto;
+import com.rodrigopettenon.orderflow.dtos.StandardObjectReturn;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.repositories.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+// Idempotency-Key dos cadastros: a primeira requisição com a chave executa e tem a resposta gravada;
+// as repetições recebem essa mesma resposta, sem passar pelos serviços de cadastro
+@Service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int KEY_MAX_LENGTH = 100;
+    private static final Duration KEY_TTL = Duration.ofHours(24);
+    private static final Duration IN_PROGRESS_TTL = Duration.ofMinutes(10);
+
+    // Espelho em memória das respostas concluídas de tb_idempotency_keys; a leitura do Caffeine não trava,
+    // então uma repetição não toca no banco
+    private final Cache<String, IdempotentResponseDto> responses = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(KEY_TTL)
+            .build();
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Sem chave, só executa. A reserva, a resposta e a liberação da chave têm transações próprias:
+    // a ação roda fora delas, com as transações dos seus serviços
+    public ResponseEntity<?> execute(String idempotencyKey, String endpoint, Object requestBody,
+                                     Supplier<ResponseEntity<StandardObjectReturn>> action) {
+        if (isBlank(idempotencyKey)) {
+            return action.get();
+        }
+        validateIdempotencyKey(idempotencyKey);
+        String key = endpoint + ":" + idempotencyKey;
+        String requestHash = hashRequestBody(requestBody);
+
+        IdempotentResponseDto cachedResponse = responses.getIfPresent(key);
+        if (nonNull(cachedResponse)) {
+            validateSameRequest(key, requestHash, cachedResponse);
+            return replay(key, cachedResponse);
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Boolean reserved = transaction.execute(status ->
+                idempotencyKeyRepository.reserveKey(key, requestHash, LocalDateTime.now()));
+        if (!Boolean.TRUE.equals(reserved)) {
+            return replayStoredResponse(key, requestHash);
+        }
+
+        ResponseEntity<StandardObjectReturn> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            releaseKey(transaction, key, e);
+            throw e;
+        }
+
+        IdempotentResponseDto storedResponse = new IdempotentResponseDto(requestHash, response.getStatusCode().value(),
+                writeBody(response.getBody()));
+        transaction.executeWithoutResult(status -> idempotencyKeyRepository.completeKey(key, storedResponse));
+        responses.put(key, storedResponse);
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1H")
+    public void deleteExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deletedKeys = new TransactionTemplate(transactionManager).execute(status ->
+                idempotencyKeyRepository.deleteExpiredKeys(now.minus(KEY_TTL), now.minus(IN_PROGRESS_TTL)));
+        logExpiredIdempotencyKeysDeleted(deletedKeys);
+    }
+
+    // Chave já reservada: outra instância (ou o cache vencido) gravou a resposta, ou a requisição ainda roda
+    private ResponseEntity<?> replayStoredResponse(String key, String requestHash) {
+        IdempotentResponseDto storedResponse = idempotencyKeyRepository.findIdempotentResponse(key);
+        if (nonNull(storedResponse)) {
+            validateSameRequest(key, requestHash, storedResponse);
+        }
+        if (isNull(storedResponse) || isNull(storedResponse.getStatus())) {
+            logIdempotencyKeyInProgress(key);
+            throw new ClientErrorException("Já existe uma requisição em andamento com esta Idempotency-Key.");
+        }
+        responses.put(key, storedResponse);
+        return replay(key, storedResponse);
+    }
+
+    private ResponseEntity<?> replay(String key, IdempotentResponseDto storedResponse) {
+        try {
+            logIdempotentResponseReplayed(key);
+            return ResponseEntity.status(storedResponse.getStatus())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(objectMapper.readTree(storedResponse.getBody()));
+        } catch (JsonProcessingException e) {
+            throw new ClientErrorException("Erro ao ler a resposta gravada da Idempotency-Key.", e);
+        }
+    }
+
+    // Requisição que falhou não deixa a chave presa: o cliente pode repetir com a mesma chave
+    private void releaseKey(TransactionTemplate transaction, String key, RuntimeException failure) {
+        try {
+            transaction.executeWithoutResult(status -> idempotencyKeyRepository.deleteKey(key));
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    // A mesma chave com outro corpo é erro do cliente: responder com a resposta de outra requisição esconderia isso
+    private void validateSameRequest(String key, String requestHash, IdempotentResponseDto storedResponse) {
+        if (nonNull(storedResponse.getRequestHash()) && !storedResponse.getRequestHash().equals(requestHash)) {
+            logIdempotencyKeyReusedWithDifferentBody(key);
+            throw new ClientErrorException("A Idempotency-Key já foi usada com outro corpo de requisição.");
+        }
+    }
+
+    private String hashRequestBody(Object requestBody) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(requestBody));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new ClientErrorException("Erro ao ler o corpo da requisição da Idempotency-Key.", e);
+        }
+    }
+
+    private String writeBody(StandardObjectReturn body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new ClientErrorException("Erro ao gravar a resposta da Idempotency-Key.", e);
+        }
+    }
+
+    private void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey.length() > KEY_MAX_LENGTH) {
+            logIdempotencyKeyValidation(idempotencyKey);
+            throw new ClientErrorException("A Idempotency-Key deve ter no máximo " + KEY_MAX_LENGTH + " caracteres.");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.rodrigopettenon.orderflow.services;
 
+import com.rodrigopettenon.orderflow.dtos.BatchItemResultDto;
+import com.rodrigopettenon.orderflow.dtos.BatchResultDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
 import com.rodrigopettenon.orderflow.dtos.ItemOrderDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalFullDetailsDto;
@@ -7,6 +9,7 @@ import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ItemOrderModel;
 import com.rodrigopettenon.orderflow.models.OrderModel;
 import com.rodrigopettenon.orderflow.models.ProductModel;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import com.rodrigopettenon.orderflow.repositories.ClientRepository;
 import com.rodrigopettenon.orderflow.repositories.ItemOrderRepository;
 import com.rodrigopettenon.orderflow.repositories.OrderRepository;
@@ -16,9 +19,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
 import static java.util.Objects.isNull;
@@ -30,6 +31,7 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 public class ItemOrderService {
 
     private static final List<String> ALLOWED_DIRECTION = Arrays.asList("asc", "desc");
+    private static final int BATCH_MAX_SIZE = 1000;
     private static final List<String> ALLOWED_ORDER_BY = Arrays.asList("id", "order_id", "product_id", "quantity", "price");
     private static final List<String> ALLOWED_ORDER_BY_FULL_DETAILS = Arrays.asList("i.quantity", "i.price", "p.price", "p.name", "o.order_date", "c.name");
 
@@ -45,31 +47,138 @@ public class ItemOrderService {
     @Autowired
     private ClientRepository clientRepository;
 
-    @Transactional
+    // Sem transação no serviço: o repositório abre a do INSERT, ou o manda para o group commit, e a requisição
+    // não segura uma conexão enquanto espera o grupo ser gravado
     public ItemOrderDto saveItemOrder(ItemOrderDto itemOrderDto) {
 
         logSaveItemOrderStart(itemOrderDto.getOrderId(), itemOrderDto.getProductId());
 
         validateOrderId(itemOrderDto.getOrderId());
-        validateProductId(itemOrderDto.getProductId());
+        Double productPrice = validateProductIdAndFindPrice(itemOrderDto.getProductId());
         validateQuantity(itemOrderDto.getQuantity());
 
         OrderModel orderModel = orderRepository.findOrderModelById(itemOrderDto.getOrderId());
-        ProductModel productModel = productRepository.findProductModelById(itemOrderDto.getProductId());
+
+        ProductModel productModel = new ProductModel();
+        productModel.setId(itemOrderDto.getProductId());
 
         ItemOrderModel itemOrderModel = new ItemOrderModel();
         itemOrderModel.setOrder(orderModel);
         itemOrderModel.setProduct(productModel);
         itemOrderModel.setQuantity(itemOrderDto.getQuantity());
-        itemOrderModel.setPrice(productModel.getPrice());
+        itemOrderModel.setPrice(productPrice);
 
         return itemOrderRepository.saveItemOrder(itemOrderModel);
     }
 
+    // Pedidos validados com um IN e produtos com outro, que já traz os preços; as linhas válidas são
+    // gravadas juntas e a resposta traz, na ordem de entrada, o item criado ou o erro de cada linha
+    @Transactional
+    public BatchResultDto<ItemOrderDto> saveItemOrdersBatch(List<ItemOrderDto> itemOrderDtos) {
+        validateBatchSize(itemOrderDtos);
+        logSaveItemOrdersBatchStart(itemOrderDtos.size());
+
+        Set<UUID> orderIds = new HashSet<>();
+        Set<UUID> productIds = new HashSet<>();
+        for (ItemOrderDto itemOrderDto : itemOrderDtos) {
+            if (nonNull(itemOrderDto) && nonNull(itemOrderDto.getOrderId())) {
+                orderIds.add(itemOrderDto.getOrderId());
+            }
+            if (nonNull(itemOrderDto) && nonNull(itemOrderDto.getProductId())) {
+                productIds.add(itemOrderDto.getProductId());
+            }
+        }
+        Set<UUID> existingOrderIds = orderRepository.findExistingOrderIds(orderIds);
+        Map<UUID, Double> productPrices = productRepository.findPricesByIds(productIds);
+
+        List<BatchItemResultDto<ItemOrderDto>> results = new ArrayList<>();
+        List<ItemOrderModel> validItemOrders = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+
+        for (int index = 0; index < itemOrderDtos.size(); index++) {
+            try {
+                ItemOrderDto itemOrderDto = itemOrderDtos.get(index);
+                if (isNull(itemOrderDto)) {
+                    throw new ClientErrorException("O item do pedido é obrigatório.");
+                }
+                validateBatchOrderId(itemOrderDto.getOrderId(), existingOrderIds);
+                validateBatchProductId(itemOrderDto.getProductId(), productPrices);
+                validateQuantity(itemOrderDto.getQuantity());
+
+                OrderModel orderModel = new OrderModel();
+                orderModel.setId(itemOrderDto.getOrderId());
+
+                ProductModel productModel = new ProductModel();
+                productModel.setId(itemOrderDto.getProductId());
+
+                ItemOrderModel itemOrderModel = new ItemOrderModel();
+                itemOrderModel.setOrder(orderModel);
+                itemOrderModel.setProduct(productModel);
+                itemOrderModel.setQuantity(itemOrderDto.getQuantity());
+                itemOrderModel.setPrice(productPrices.get(itemOrderDto.getProductId()));
+
+                validItemOrders.add(itemOrderModel);
+                validIndexes.add(index);
+                results.add(null); // preenchido depois da gravação
+            } catch (ClientErrorException e) {
+                results.add(new BatchItemResultDto<>(index, null, e.getMessage()));
+            }
+        }
+
+        List<ItemOrderDto> savedItemOrders = validItemOrders.isEmpty() ? new ArrayList<>()
+                : itemOrderRepository.saveItemOrdersBatch(validItemOrders);
+        for (int i = 0; i < savedItemOrders.size(); i++) {
+            Integer index = validIndexes.get(i);
+            results.set(index, new BatchItemResultDto<>(index, savedItemOrders.get(i), null));
+        }
+
+        return new BatchResultDto<>(results);
+    }
+
+    // Roda na transação do pedido recém-criado (MANDATORY): um item inválido desfaz o pedido inteiro.
+    // Produtos e preços vêm de uma única consulta e os itens são gravados com INSERT multi-linha
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<ItemOrderDto> saveItemOrdersOfNewOrder(OrderModel orderModel, List<ItemOrderDto> itemOrderDtos) {
+        Set<UUID> productIds = new HashSet<>();
+        for (ItemOrderDto itemOrderDto : itemOrderDtos) {
+            if (nonNull(itemOrderDto) && nonNull(itemOrderDto.getProductId())) {
+                productIds.add(itemOrderDto.getProductId());
+            }
+        }
+        Map<UUID, Double> productPrices = productRepository.findPricesByIds(productIds);
+
+        List<ItemOrderModel> itemOrderModels = new ArrayList<>();
+        for (int index = 0; index < itemOrderDtos.size(); index++) {
+            ItemOrderDto itemOrderDto = itemOrderDtos.get(index);
+            try {
+                if (isNull(itemOrderDto)) {
+                    throw new ClientErrorException("O item do pedido é obrigatório.");
+                }
+                validateBatchProductId(itemOrderDto.getProductId(), productPrices);
+                validateQuantity(itemOrderDto.getQuantity());
+            } catch (ClientErrorException e) {
+                throw new ClientErrorException("Item " + index + ": " + e.getMessage());
+            }
+
+            ProductModel productModel = new ProductModel();
+            productModel.setId(itemOrderDto.getProductId());
+
+            ItemOrderModel itemOrderModel = new ItemOrderModel();
+            itemOrderModel.setOrder(orderModel);
+            itemOrderModel.setProduct(productModel);
+            itemOrderModel.setQuantity(itemOrderDto.getQuantity());
+            itemOrderModel.setPrice(productPrices.get(itemOrderDto.getProductId()));
+
+            itemOrderModels.add(itemOrderModel);
+        }
+
+        return itemOrderRepository.saveItemOrdersBatch(itemOrderModels);
+    }
+
     @Transactional(readOnly = true)
     public GlobalPageDto<ItemOrderDto> findFilteredItemOrders(UUID id, UUID orderId, UUID productId, Integer minQuantity,
                                                               Integer maxQuantity, Integer page, Integer linesPerPage,
-                                                              String direction, String orderBy) {
+                                                              String direction, String orderBy, String total) {
         logFindFilteredItemOrdersStart();
 
         validateFilteredItemOrdersId(id);
@@ -80,16 +189,17 @@ public class ItemOrderService {
         Integer fixedLinesPerPage = fixLinesPerPage(linesPerPage);
         String fixedDirection = fixDirection(direction);
         String fixedOrderBy = fixOrderBy(orderBy);
+        TotalMode fixedTotalMode = TotalMode.fromValueOrDefault(total);
 
 
         return itemOrderRepository.findFilteredItemOrders(id, orderId, productId, minQuantity, maxQuantity,
-                fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy);
+                fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy, fixedTotalMode);
     }
 
     @Transactional(readOnly = true)
     public GlobalPageDto<GlobalFullDetailsDto> findFullDetailsItemOrders(UUID itemOrderId, UUID productId, UUID orderId,
                                                                          Long clientId, Integer page, Integer linesPerPage,
-                                                                         String direction, String orderBy) {
+                                                                         String direction, String orderBy, String total) {
         logFindFullDetailsItemOrdersStart();
 
         validateFilteredItemOrdersId(itemOrderId);
@@ -100,8 +210,9 @@ public class ItemOrderService {
         Integer fixedLinesPerPage = fixLinesPerPage(linesPerPage);
         String fixedDirection = fixDirection(direction);
         String fixedOrderBy = fixOrderByFullDetails(orderBy);
+        TotalMode fixedTotalMode = TotalMode.fromValueOrDefault(total);
 
-        return itemOrderRepository.findFullDetailsItemOrders(itemOrderId, productId, orderId, clientId, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy);
+        return itemOrderRepository.findFullDetailsItemOrders(itemOrderId, productId, orderId, clientId, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy, fixedTotalMode);
     }
 
     private String fixOrderByFullDetails(String orderBy) {
@@ -179,6 +290,9 @@ public class ItemOrderService {
     }
 
     private void validateFilteredFullDetailsOrderId(UUID orderId) {
+        if (nonNull(orderId)) {
+            orderRepository.prefetchOrderExistence(orderId);
+        }
         validateFilteredOrderId(orderId);
         if (nonNull(orderId) && !itemOrderRepository.existsItemOrderByOrderId(orderId)) {
             logItemOrderNotFoundByOrderId(orderId);
@@ -197,6 +311,9 @@ public class ItemOrderService {
 
     private void validateFilteredFullDetailsClientId(Long clientId) {
         logFilterItemOrderClientIdValidation(clientId);
+        if (nonNull(clientId)) {
+            clientRepository.prefetchClientExistence(clientId);
+        }
         if (nonNull(clientId) && !clientRepository.existsClientById(clientId)) {
             throw new ClientErrorException("O ID do cliente informado não está cadastrado.");
         }
@@ -220,12 +337,41 @@ public class ItemOrderService {
         }
     }
 
-    private void validateProductId(UUID productId) {
+    // Uma única leitura (normalmente da snapshot de preços) valida o produto e traz o preço do item
+    private Double validateProductIdAndFindPrice(UUID productId) {
         logItemOrderProductIdValidation(productId);
         if(isNull(productId)) {
             throw new ClientErrorException("O ID do produto é obrigatório.");
         }
-        if (!productRepository.existsProductById(productId)) {
+        Double price = productRepository.findPriceById(productId);
+        if (isNull(price)) {
+            throw new ClientErrorException("O ID do produto informado não está cadastrado.");
+        }
+        return price;
+    }
+
+    private void validateBatchSize(List<?> batch) {
+        if (isNull(batch) || batch.isEmpty() || batch.size() > BATCH_MAX_SIZE) {
+            throw new ClientErrorException("O lote deve conter entre 1 e " + BATCH_MAX_SIZE + " itens de pedido.");
+        }
+    }
+
+    private void validateBatchOrderId(UUID orderId, Set<UUID> existingOrderIds) {
+        logItemOrderOrderIdValidation(orderId);
+        if (isNull(orderId)) {
+            throw new ClientErrorException("O ID do pedido é obrigatório.");
+        }
+        if (!existingOrderIds.contains(orderId)) {
+            throw new ClientErrorException("O ID do pedido informado não está cadastrado.");
+        }
+    }
+
+    private void validateBatchProductId(UUID productId, Map<UUID, Double> productPrices) {
+        logItemOrderProductIdValidation(productId);
+        if (isNull(productId)) {
+            throw new ClientErrorException("O ID do produto é obrigatório.");
+        }
+        if (!productPrices.containsKey(productId)) {
             throw new ClientErrorException("O ID do produto informado não está cadastrado.");
         }
     }
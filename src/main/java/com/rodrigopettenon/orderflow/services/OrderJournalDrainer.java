@@ -0,0 +1,131 @@
+package com.rodrigopettenon.orderflow.services;
+
+import com.rodrigopettenon.orderflow.dtos.OrderDto;
+import com.rodrigopettenon.orderflow.repositories.OrderJournal;
+import com.rodrigopettenon.orderflow.repositories.OrderJournal.JournalEntry;
+import com.rodrigopettenon.orderflow.repositories.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.rodrigopettenon.orderflow.utils.DatabaseErrorUtil.isRejectedRow;
+import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCauseMessage;
+
+// Grava em tb_orders, em blocos grandes e numa única thread, os pedidos aceitos pelo OrderJournal
+@Service
+public class OrderJournalDrainer {
+
+    private static final int DRAIN_BATCH_SIZE = 1000;
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    @Autowired
+    private OrderJournal orderJournal;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile boolean running;
+    private Thread drainerThread;
+
+    @PostConstruct
+    void start() {
+        if (!orderJournal.isEnabled()) {
+            return;
+        }
+        running = true;
+        drainerThread = Thread.ofPlatform().name("order-journal-drainer").daemon(true).start(this::drainLoop);
+    }
+
+    // No desligamento grava o que ainda está na fila; o que não der fica no journal para o replay
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (nonNull(drainerThread)) {
+            drainerThread.join(SHUTDOWN_TIMEOUT.toMillis());
+        }
+    }
+
+    private void drainLoop() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        while (running || orderJournal.hasUndrainedEntries()) {
+            try {
+                List<JournalEntry> batch = orderJournal.takeBatch(DRAIN_BATCH_SIZE, running ? POLL_TIMEOUT : Duration.ZERO);
+                // No desligamento, uma falha encerra a drenagem: gravar um bloco posterior moveria a posição
+                // drenada para depois do que falhou, que não seria mais reaplicado
+                if (!batch.isEmpty() && !drainBatch(transaction, batch)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Bloco recusado: linha a linha, na ordem do journal, para um pedido que o banco não aceita não travar os
+    // outros. false quando parou no desligamento com entradas ainda não gravadas
+    boolean drainBatch(TransactionTemplate transaction, List<JournalEntry> batch) throws InterruptedException {
+        if (isNull(trySave(transaction, batch))) {
+            orderJournal.markDrained(batch);
+            logOrderJournalDrained(batch.size());
+            return true;
+        }
+        for (JournalEntry entry : batch) {
+            if (!drainEntry(transaction, entry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Recusa do próprio registro (FK, NOT NULL, tamanho) vai para a dead letter; qualquer outra falha (banco fora,
+    // lock) repete a mesma entrada, e as seguintes esperam
+    private boolean drainEntry(TransactionTemplate transaction, JournalEntry entry) throws InterruptedException {
+        while (true) {
+            RuntimeException error = trySave(transaction, List.of(entry));
+            if (isNull(error) || (isRejectedRow(error) && deadLetter(transaction, entry, error))) {
+                orderJournal.markDrained(List.of(entry));
+                return true;
+            }
+            if (!running) {
+                return false;
+            }
+            Thread.sleep(RETRY_DELAY.toMillis());
+        }
+    }
+
+    private RuntimeException trySave(TransactionTemplate transaction, List<JournalEntry> entries) {
+        List<OrderDto> orders = entries.stream().map(JournalEntry::order).toList();
+        try {
+            transaction.executeWithoutResult(transactionStatus -> orderRepository.saveJournaledOrders(orders));
+            return null;
+        } catch (RuntimeException e) {
+            logUnexpectedErrorOnDrainOrderJournal(e);
+            return e;
+        }
+    }
+
+    private boolean deadLetter(TransactionTemplate transaction, JournalEntry entry, RuntimeException error) {
+        try {
+            transaction.executeWithoutResult(transactionStatus ->
+                    orderRepository.saveDeadLetterOrder(entry.order(), getRootCauseMessage(error)));
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
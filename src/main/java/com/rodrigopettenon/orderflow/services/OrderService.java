@@ -1,25 +1,39 @@
 package com.rodrigopettenon.orderflow.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rodrigopettenon.orderflow.dtos.*;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ClientModel;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
 import com.rodrigopettenon.orderflow.models.OrderModel;
 import com.rodrigopettenon.orderflow.models.OrderStatus;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import com.rodrigopettenon.orderflow.repositories.ClientRepository;
 import com.rodrigopettenon.orderflow.repositories.ItemOrderRepository;
+import com.rodrigopettenon.orderflow.repositories.OrderJournal;
 import com.rodrigopettenon.orderflow.repositories.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
 
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.streamInReadOnlyTransaction;
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.writeExportLine;
 import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.decodeCursor;
 import static com.rodrigopettenon.orderflow.utils.StringsValidation.removeAllSpaces;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 @Service
@@ -28,6 +42,8 @@ public class OrderService{
 
     private static final List<String> ALLOWED_ORDER_BY = Arrays.asList("id", "client_id", "order_date", "status");
     private static final List<String> ALLOWED_DIRECTION = Arrays.asList("asc", "desc");
+    private static final int BATCH_MAX_SIZE = 1000;
+    private static final int STATUS_BULK_MAX_SIZE = 10_000;
     private static final Map<String, String> ORDER_BY_COLUMN_MAP_FILTER;
     static {
         Map<String, String> map = new HashMap<>();
@@ -61,6 +77,15 @@ public class OrderService{
     @Autowired
     private ItemOrderService itemOrderService;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderJournal orderJournal;
+
     @Transactional
     public OrderDto saveOrder(OrderDto orderDto) {
         logSaveOrderStart();
@@ -78,51 +103,243 @@ public class OrderService{
         return orderRepository.saveOrder(orderModel);
     }
 
+    // Modo assíncrono: o pedido vai para o journal local e é gravado em tb_orders depois, em bloco.
+    // Com o journal desligado ou cheio, grava na hora como saveOrder
+    public OrderDto acceptOrder(OrderDto orderDto) {
+        logAcceptOrderStart();
+        validateClientId(orderDto.getClientId());
+        OrderStatus validatedOrderStatus = validateOrderStatus(orderDto.getStatus());
+
+        OrderDto acceptedOrder = new OrderDto();
+        acceptedOrder.setId(UUID.randomUUID());
+        acceptedOrder.setClientId(orderDto.getClientId());
+        acceptedOrder.setOrderDate(LocalDateTime.now());
+        acceptedOrder.setStatus(validatedOrderStatus.toString());
+        acceptedOrder.setPersisted(false);
+
+        if (orderJournal.append(acceptedOrder)) {
+            return acceptedOrder;
+        }
+
+        ClientModel client = new ClientModel();
+        client.setId(orderDto.getClientId());
+
+        OrderModel orderModel = new OrderModel();
+        orderModel.setClient(client);
+        orderModel.setOrderDate(acceptedOrder.getOrderDate());
+        orderModel.setStatus(validatedOrderStatus);
+
+        return new TransactionTemplate(transactionManager).execute(transactionStatus -> orderRepository.saveOrder(orderModel));
+    }
+
+    // Pedido e itens numa única transação: cliente buscado uma vez (existência e dados da resposta)
+    // e itens gravados em lote; qualquer erro desfaz o pedido inteiro
+    @Transactional
+    public FullOrderDto saveFullOrder(FullOrderDto fullOrderDto) {
+        logSaveFullOrderStart();
+        if (isNull(fullOrderDto)) {
+            throw new ClientErrorException("O pedido é obrigatório.");
+        }
+        if (isNull(fullOrderDto.getClientId())) {
+            throw new ClientErrorException("O id do cliente é obrigatório.");
+        }
+        OrderStatus validatedOrderStatus = validateOrderStatus(fullOrderDto.getStatus());
+        validateFullOrderItems(fullOrderDto.getItems());
+
+        ClientModel client = clientRepository.findClientModelById(fullOrderDto.getClientId());
+
+        OrderModel orderModel = new OrderModel();
+        orderModel.setClient(client);
+        orderModel.setOrderDate(LocalDateTime.now());
+        orderModel.setStatus(validatedOrderStatus);
+
+        OrderDto savedOrder = orderRepository.saveOrder(orderModel);
+        orderModel.setId(savedOrder.getId());
+
+        List<ItemOrderDto> savedItemOrders = itemOrderService.saveItemOrdersOfNewOrder(orderModel, fullOrderDto.getItems());
+        for (ItemOrderDto savedItemOrder : savedItemOrders) {
+            savedItemOrder.setTotalPrice(BigDecimal.valueOf(savedItemOrder.getPrice())
+                    .multiply(BigDecimal.valueOf(savedItemOrder.getQuantity()))
+                    .setScale(2, RoundingMode.HALF_UP).doubleValue());
+        }
+
+        ClientDto clientDto = new ClientDto();
+        clientDto.setId(client.getId());
+        clientDto.setName(client.getName());
+        clientDto.setEmail(client.getEmail());
+
+        FullOrderDto savedFullOrder = new FullOrderDto();
+        savedFullOrder.setOrder(savedOrder);
+        savedFullOrder.setClient(clientDto);
+        savedFullOrder.setItems(savedItemOrders);
+        return savedFullOrder;
+    }
+
+    // Valida cada linha sem interromper o lote: clientes checados com um único IN e as linhas válidas
+    // gravadas juntas; a resposta traz, na ordem de entrada, o pedido criado ou o erro de cada linha
+    @Transactional
+    public BatchResultDto<OrderDto> saveOrdersBatch(List<OrderDto> orderDtos) {
+        validateBatchSize(orderDtos);
+        logSaveOrdersBatchStart(orderDtos.size());
+
+        Set<Long> clientIds = new HashSet<>();
+        for (OrderDto orderDto : orderDtos) {
+            if (nonNull(orderDto) && nonNull(orderDto.getClientId())) {
+                clientIds.add(orderDto.getClientId());
+            }
+        }
+        Set<Long> existingClientIds = clientRepository.findExistingClientIds(clientIds);
+        LocalDateTime orderDate = LocalDateTime.now();
+
+        List<BatchItemResultDto<OrderDto>> results = new ArrayList<>();
+        List<OrderModel> validOrders = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+
+        for (int index = 0; index < orderDtos.size(); index++) {
+            try {
+                OrderDto orderDto = orderDtos.get(index);
+                if (isNull(orderDto)) {
+                    throw new ClientErrorException("O pedido é obrigatório.");
+                }
+                validateBatchClientId(orderDto.getClientId(), existingClientIds);
+                OrderStatus validatedOrderStatus = validateOrderStatus(orderDto.getStatus());
+
+                ClientModel client = new ClientModel();
+                client.setId(orderDto.getClientId());
+
+                OrderModel orderModel = new OrderModel();
+                orderModel.setClient(client);
+                orderModel.setOrderDate(orderDate);
+                orderModel.setStatus(validatedOrderStatus);
+
+                validOrders.add(orderModel);
+                validIndexes.add(index);
+                results.add(null); // preenchido depois da gravação
+            } catch (ClientErrorException e) {
+                results.add(new BatchItemResultDto<>(index, null, e.getMessage()));
+            }
+        }
+
+        List<OrderDto> savedOrders = validOrders.isEmpty() ? new ArrayList<>() : orderRepository.saveOrdersBatch(validOrders);
+        for (int i = 0; i < savedOrders.size(); i++) {
+            Integer index = validIndexes.get(i);
+            results.set(index, new BatchItemResultDto<>(index, savedOrders.get(i), null));
+        }
+
+        return new BatchResultDto<>(results);
+    }
+
     @Transactional(readOnly = true)
     public GlobalPageDto<OrderDto> findFilteredOrders(UUID id, Long clientId, LocalDateTime dateTimeStart,
                                             LocalDateTime dateTimeEnd, String status, Integer page,
-                                            Integer linesPerPage, String direction, String orderBy) {
+                                            Integer linesPerPage, String direction, String orderBy, String cursor, String total) {
         logFindFilteredOrdersStart();
 
         Integer fixedPage = fixPageFilter(page);
         Integer fixedLinesPerPage = fixLinesPerPageFilter(linesPerPage);
         String fixedDirection = fixDirectionFilter(direction);
         String fixedOrderBy = fixOrderByFilter(orderBy);
+        TotalMode fixedTotalMode = TotalMode.fromValueOrDefault(total);
+        CursorDto validatedCursor = validateCursorFilter(cursor, fixedOrderBy, fixedDirection);
         validateFilterOrderId(id);
         validateFilterClientId(clientId);
         validateFilterOrderDateTimeStartAndDateTimeEnd(dateTimeStart, dateTimeEnd);
         String validatedStatus = validateFilterOrderStatus(status);
 
-        return orderRepository.findFilteredOrders(id, clientId, dateTimeStart, dateTimeEnd, validatedStatus, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy);
+        return orderRepository.findFilteredOrders(id, clientId, dateTimeStart, dateTimeEnd, validatedStatus, fixedPage,
+                fixedLinesPerPage, fixedDirection, fixedOrderBy, validatedCursor, fixedTotalMode);
     }
 
-    @Transactional(readOnly = true)
+    // Para o If-None-Match de GET /order/id. Pedido ainda só no journal não tem ETag: a resposta muda quando
+    // ele chega em tb_orders
+    public String findETagById(UUID id) {
+        validateRequiredOrderId(id);
+        if (nonNull(orderJournal.findPendingOrder(id))) {
+            return null;
+        }
+
+        String eTag = orderRepository.findOrderETagById(id);
+        if (isNull(eTag)) {
+            throw new ClientErrorException("O id do pedido não está cadastrado.");
+        }
+        return eTag;
+    }
+
+    // Sem transação, como findETagById: um acerto no OrderByIdCache responde sem pegar conexão do pool
     public OrderDto findById(UUID id) {
         logFindOrderByIdStart(id);
-        validateOrderId(id);
+        OrderDto journaledOrder = isNull(id) ? null : orderJournal.findPendingOrder(id);
+        if (nonNull(journaledOrder)) {
+            return journaledOrder;
+        }
+        validateRequiredOrderId(id);
 
-        return orderRepository.findOrderById(id);
+        // A própria busca responde se o pedido existe, sem um existsOrderById antes
+        OrderDto orderDto = orderRepository.findOrderById(id);
+        if (isNull(orderDto)) {
+            throw new ClientErrorException("O id do pedido não está cadastrado.");
+        }
+        return orderDto;
     }
 
+    // Um único UPDATE condicional; a leitura do pedido só acontece quando ele é recusado, para explicar o motivo
     @Transactional
     public void updateOrderStatusById(UUID id, String status) {
-        validateOrderId(id);
+        validateRequiredOrderId(id);
         OrderStatus newStatus = validateOrderStatus(status);
         validateNewStatusForUpdate(newStatus);
 
-        OrderDto orderDto = orderRepository.findOrderById(id);
-        String currentStatus = orderDto.getStatus().toUpperCase();
+        if (!orderRepository.updateStatusById(id, newStatus)) {
+            explainRejectedStatusUpdate(id);
+        }
+        logUpdateOrderStatusByIdSuccessfully(id);
+    }
+
+    // Fechamento do dia: mesma regra de updateOrderStatusById (só sai de PENDING), aplicada em conjunto
+    @Transactional
+    public OrderStatusBulkDto updateOrdersStatusBulk(OrderStatusBulkDto orderStatusBulkDto) {
+        if (isNull(orderStatusBulkDto)) {
+            throw new ClientErrorException("Os dados da atualização em massa são obrigatórios.");
+        }
+        logUpdateOrdersStatusBulkStart(orderStatusBulkDto.getStatus());
 
-        validateCurrentStatusForUpdate(currentStatus);
+        OrderStatus newStatus = validateOrderStatus(orderStatusBulkDto.getStatus());
+        validateNewStatusForUpdate(newStatus);
 
-        orderRepository.updateStatusById(id, newStatus);
-        logUpdateOrderStatusByIdSuccessfully(id);
+        OrderStatusBulkDto result = new OrderStatusBulkDto();
+        result.setStatus(newStatus.toString());
+
+        List<UUID> ids = orderStatusBulkDto.getIds();
+        if (nonNull(ids) && !ids.isEmpty()) {
+            Set<UUID> requestedIds = validateStatusBulkIds(orderStatusBulkDto);
+            Set<UUID> updatedIds = orderRepository.updatePendingStatusByIds(requestedIds, newStatus);
+
+            List<UUID> skippedIds = new ArrayList<>();
+            for (UUID id : requestedIds) {
+                if (!updatedIds.contains(id)) {
+                    skippedIds.add(id);
+                }
+            }
+            result.setUpdated(updatedIds.size());
+            result.setSkippedIds(skippedIds);
+        } else {
+            validateStatusBulkFilter(orderStatusBulkDto);
+            result.setClientId(orderStatusBulkDto.getClientId());
+            result.setDateTimeStart(orderStatusBulkDto.getDateTimeStart());
+            result.setDateTimeEnd(orderStatusBulkDto.getDateTimeEnd());
+            result.setUpdated(orderRepository.updatePendingStatusByFilter(orderStatusBulkDto.getClientId(),
+                    orderStatusBulkDto.getDateTimeStart(), orderStatusBulkDto.getDateTimeEnd(), newStatus));
+        }
+
+        logUpdateOrdersStatusBulkSuccessfully(result.getUpdated());
+        return result;
     }
 
     @Transactional(readOnly = true)
     public GlobalPageDto<GlobalFullDetailsDto> findFilteredOrdersDetails(UUID orderId, Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
                                                                          Integer minQuantity, Integer maxQuantity, String status, Integer page,
-                                                                         Integer linesPerPage, String direction, String orderBy) {
+                                                                         Integer linesPerPage, String direction, String orderBy,
+                                                                         String cursor, String total) {
         logFindFilteredOrderDetailsStart();
 
         validateFilterOrderIdDetails(orderId);
@@ -135,14 +352,50 @@ public class OrderService{
         Integer fixedLinesPerPage = fixLinesPerPageFilter(linesPerPage);
         String fixedDirection = fixDirectionFilter(direction);
         String fixedOrderBy = fixOrderByFilteredDetails(orderBy);
+        TotalMode fixedTotalMode = TotalMode.fromValueOrDefault(total);
+        CursorDto validatedCursor = validateCursorFilter(cursor, fixedOrderBy, fixedDirection);
 
         return orderRepository.findFilteredOrdersDetails(orderId, clientId, dateTimeStart, dateTimeEnd,
-                minQuantity, maxQuantity, validatedStatus, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy);
+                minQuantity, maxQuantity, validatedStatus, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy,
+                validatedCursor, fixedTotalMode);
+    }
+
+    // Valida os filtros antes de a resposta começar; as linhas são escritas depois, na thread da resposta assíncrona
+    public StreamingResponseBody exportOrdersDetails(UUID orderId, Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
+                                                     Integer minQuantity, Integer maxQuantity, String status,
+                                                     String direction, String orderBy, ExportFormat format) {
+        logExportOrdersDetailsStart(format);
+
+        validateFilterOrderIdDetails(orderId);
+        validateFilterClientIdDetails(clientId);
+        validateFilterClientId(clientId);
+        validateFilteredDateTimeStartAndDateTimeEndDetails(dateTimeStart, dateTimeEnd);
+        itemOrderService.validateFilteredMinQuantityAndMaxQuantity(minQuantity, maxQuantity);
+        String validatedStatus = validateFilterOrderStatus(status);
+        String fixedDirection = fixDirectionFilter(direction);
+        String fixedOrderBy = fixOrderByFilteredDetails(orderBy);
+
+        String[] csvHeader = {"order_id", "order_date", "order_status", "client_id", "client_name",
+                "client_email", "item_quantity", "item_total_price"};
+
+        return streamInReadOnlyTransaction(transactionManager, format, csvHeader, writer ->
+                orderRepository.streamFilteredOrdersDetails(orderId, clientId, dateTimeStart, dateTimeEnd,
+                        minQuantity, maxQuantity, validatedStatus, fixedDirection, fixedOrderBy,
+                        orderDetails -> writeOrderDetailsLine(writer, format, orderDetails)));
+    }
+
+    private void writeOrderDetailsLine(Writer writer, ExportFormat format, GlobalFullDetailsDto orderDetails) {
+        OrderDto order = orderDetails.getOrder();
+        ClientDto client = orderDetails.getClient();
+        ItemOrderDto itemOrder = orderDetails.getItemOrder();
+        writeExportLine(writer, format, objectMapper, orderDetails, order.getId(), order.getOrderDate(),
+                order.getStatus(), client.getId(), client.getName(), client.getEmail(), itemOrder.getQuantity(),
+                itemOrder.getTotalPrice());
     }
 
     @Transactional(readOnly = true)
     public GlobalPageDto<RelevantOrderDataDto> findFilteredRelevantOrderData(Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
-                                                                             String status, Integer page, Integer linesPerPage, String direction, String orderBy) {
+                                                                             String status, Integer page, Integer linesPerPage, String direction, String orderBy, String total) {
         logFindFilteredRelevantOrderDataStart();
 
         validateFilterClientId(clientId);
@@ -153,15 +406,16 @@ public class OrderService{
         Integer fixedLinesPerPage = fixLinesPerPageFilter(linesPerPage);
         String fixedDirection = fixDirectionFilter(direction);
         String fixedOrderBy = fixOrderByFilteredDetails(orderBy);
+        TotalMode fixedTotalMode = TotalMode.fromValueOrDefault(total);
 
         return orderRepository.findFilteredRelevantOrderData(clientId, dateTimeStart, dateTimeEnd,
-                validatedStatus, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy);
+                validatedStatus, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy, fixedTotalMode);
     }
 
     @Transactional(readOnly = true)
     public GlobalPageDto<ClientSalesReportDto> findFilteredClientSalesReport(LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
                                                                              Integer minOrder, Integer maxOrder, String status, Integer page,
-                                                                             Integer linesPerPage, String direction, String orderBy) {
+                                                                             Integer linesPerPage, String direction, String orderBy, String total) {
         logFindOrderClientSalesReportStart();
 
         validateFilteredDateTimeStartAndDateTimeEndDetails(dateTimeStart, dateTimeEnd);
@@ -172,10 +426,11 @@ public class OrderService{
         Integer fixedLinesPerPage = fixLinesPerPageFilter(linesPerPage);
         String fixedDirection = fixDirectionFilter(direction);
         String fixedOrderBy = fixOrderByFilteredSalesReport(orderBy);
+        TotalMode fixedTotalMode = TotalMode.fromValueOrDefault(total);
 
 
         return orderRepository.findFilteredClientSalesReport(dateTimeStart, dateTimeEnd, minOrder, maxOrder,
-                validatedStatus, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy);
+                validatedStatus, fixedPage, fixedLinesPerPage, fixedDirection, fixedOrderBy, fixedTotalMode);
     }
 
     private void validateMinOrderAndMaxOrderFilter(Integer minOrder, Integer maxOrder) {
@@ -209,6 +464,18 @@ public class OrderService{
 
     }
 
+    private void explainRejectedStatusUpdate(UUID id) {
+        if (nonNull(orderJournal.findPendingOrder(id))) {
+            throw new ClientErrorException("O pedido foi aceito e ainda está sendo gravado, tente novamente em instantes.");
+        }
+        String currentStatus = orderRepository.findOrderStatusById(id);
+        if (isNull(currentStatus)) {
+            throw new ClientErrorException("O id do pedido não está cadastrado.");
+        }
+        validateCurrentStatusForUpdate(currentStatus.toUpperCase());
+        throw new ClientErrorException("Não foi possível atualizar o status do pedido, tente novamente.");
+    }
+
     private void validateCurrentStatusForUpdate(String currentStatus) {
         logOrderCurrentStatusValidation(currentStatus);
         if (!"PENDING".equalsIgnoreCase(currentStatus)){
@@ -216,6 +483,36 @@ public class OrderService{
         }
     }
 
+    // Ids repetidos contam uma vez; a ordem de entrada é mantida para a lista de ignorados
+    private Set<UUID> validateStatusBulkIds(OrderStatusBulkDto orderStatusBulkDto) {
+        if (nonNull(orderStatusBulkDto.getClientId()) || nonNull(orderStatusBulkDto.getDateTimeStart())
+                || nonNull(orderStatusBulkDto.getDateTimeEnd())) {
+            throw new ClientErrorException("Informe a lista de ids ou o filtro de cliente/período, não ambos.");
+        }
+        List<UUID> ids = orderStatusBulkDto.getIds();
+        if (ids.size() > STATUS_BULK_MAX_SIZE) {
+            throw new ClientErrorException("A lista deve conter no máximo " + STATUS_BULK_MAX_SIZE + " ids de pedidos.");
+        }
+        Set<UUID> requestedIds = new LinkedHashSet<>();
+        for (UUID id : ids) {
+            if (isNull(id)) {
+                throw new ClientErrorException("A lista de ids não pode conter ids nulos.");
+            }
+            requestedIds.add(id);
+        }
+        return requestedIds;
+    }
+
+    private void validateStatusBulkFilter(OrderStatusBulkDto orderStatusBulkDto) {
+        if (isNull(orderStatusBulkDto.getClientId()) && isNull(orderStatusBulkDto.getDateTimeStart())
+                && isNull(orderStatusBulkDto.getDateTimeEnd())) {
+            throw new ClientErrorException("Informe a lista de ids ou um filtro de cliente e/ou período.");
+        }
+        validateFilterClientId(orderStatusBulkDto.getClientId());
+        validateFilterOrderDateTimeStartAndDateTimeEnd(orderStatusBulkDto.getDateTimeStart(),
+                orderStatusBulkDto.getDateTimeEnd());
+    }
+
     private void validateNewStatusForUpdate(OrderStatus newStatus) {
         logOrderNewStatusValidation(newStatus);
         if (newStatus.toString().equals("PENDING")) {
@@ -233,6 +530,28 @@ public class OrderService{
         }
     }
 
+    private void validateBatchSize(List<?> batch) {
+        if (isNull(batch) || batch.isEmpty() || batch.size() > BATCH_MAX_SIZE) {
+            throw new ClientErrorException("O lote deve conter entre 1 e " + BATCH_MAX_SIZE + " pedidos.");
+        }
+    }
+
+    private void validateFullOrderItems(List<ItemOrderDto> items) {
+        if (isNull(items) || items.isEmpty() || items.size() > BATCH_MAX_SIZE) {
+            throw new ClientErrorException("O pedido deve conter entre 1 e " + BATCH_MAX_SIZE + " itens.");
+        }
+    }
+
+    private void validateBatchClientId(Long clientId, Set<Long> existingClientIds) {
+        logOrderClientIdValidation(clientId);
+        if (isNull(clientId)) {
+            throw new ClientErrorException("O id do cliente é obrigatório.");
+        }
+        if (!existingClientIds.contains(clientId)) {
+            throw new ClientErrorException("Não existe cliente cadastrado com o id informado: " + clientId);
+        }
+    }
+
     private OrderStatus validateOrderStatus(String status) {
         logOrderStatusValidation(status);
         try{
@@ -248,14 +567,11 @@ public class OrderService{
         }
     }
 
-    private void validateOrderId(UUID id) {
+    private void validateRequiredOrderId(UUID id) {
         logOrderIdValidation(id);
         if (isNull(id)) {
             throw new ClientErrorException("O id do pedido é obrigatório.");
         }
-        if (!orderRepository.existsOrderById(id)){
-            throw new ClientErrorException("O id do pedido não está cadastrado.");
-        }
     }
 
     private void notExistsById(UUID id) {
@@ -279,6 +595,9 @@ public class OrderService{
      }
 
      private void validateFilterOrderIdDetails(UUID orderId) {
+        if (nonNull(orderId)) {
+            orderRepository.prefetchOrderExistence(orderId);
+        }
         validateFilterOrderId(orderId);
         if (nonNull(orderId) && !itemOrderRepository.existsItemOrderByOrderId(orderId)) {
             throw new ClientErrorException("Nenhum item de pedido vinculado ao id do pedido informado.");
@@ -286,6 +605,9 @@ public class OrderService{
      }
 
      private void validateFilterClientIdDetails(Long clientId) {
+        if (nonNull(clientId)) {
+            clientRepository.prefetchClientExistence(clientId);
+        }
         validateFilterClientId(clientId);
         if (nonNull(clientId) && !itemOrderRepository.existsItemOrderByClientId(clientId)) {
             throw new ClientErrorException("Nenhum item de pedido vinculado ao id do cliente informado.");
@@ -322,6 +644,19 @@ public class OrderService{
         }
     }
 
+    private CursorDto validateCursorFilter(String cursor, String orderBy, String direction) {
+        logFilterOrderCursorValidation(cursor);
+        if (isBlank(cursor)) {
+            return null;
+        }
+
+        CursorDto cursorDto = decodeCursor(cursor);
+        if (!orderBy.equals(cursorDto.getOrderBy()) || !direction.equals(cursorDto.getDirection())) {
+            throw new ClientErrorException("O cursor informado não corresponde à ordenação solicitada.");
+        }
+        return cursorDto;
+    }
+
     private Integer fixPageFilter(Integer page) {
         if (isNull(page) || page < 0) {
             return 0;
@@ -1,19 +1,32 @@
 package com.rodrigopettenon.orderflow.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rodrigopettenon.orderflow.dtos.CursorDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
+import com.rodrigopettenon.orderflow.dtos.ProductBulkResultDto;
 import com.rodrigopettenon.orderflow.dtos.ProductDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import com.rodrigopettenon.orderflow.repositories.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.streamInReadOnlyTransaction;
+import static com.rodrigopettenon.orderflow.utils.ExportUtil.writeExportLine;
 import static com.rodrigopettenon.orderflow.utils.LogUtil.*;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.decodeCursor;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.encodeCursor;
 import static com.rodrigopettenon.orderflow.utils.StringsValidation.isAlphanumeric;
 import static com.rodrigopettenon.orderflow.utils.StringsValidation.normalizeSpaces;
 import static java.util.Objects.isNull;
@@ -26,56 +39,129 @@ public class ProductService {
 
     private static final List<String> ALLOWED_DIRECTION = Arrays.asList("asc", "desc");
     private static final List<String> ALLOWED_ORDER_BY = Arrays.asList("name", "sku", "price", "expiration_date");
+    private static final int BULK_MAX_SIZE = 50_000;
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // INSERT direto: um SKU repetido é recusado pelo índice único, sem consulta de existência antes
     @Transactional
     public void saveProduct(ProductDto productDto) {
         logSaveProductWithSkuStart(productDto.getSku());
 
         validateDtoData(productDto);
         validateSku(productDto.getSku());
-        skuExists(productDto.getSku());
 
-        productRepository.saveProduct(productDto);
+        if (!productRepository.saveProduct(productDto)) {
+            logProductSkuAlreadyExists(productDto.getSku());
+            throw new ClientErrorException("O SKU informado já está cadastrado.");
+        }
         logProductSavedWithSkuSuccessfully(productDto.getSku());
     }
 
+    // Sincronização de tabelas de preço: insere os SKUs novos e atualiza os existentes, sem consulta por SKU
+    @Transactional
+    public ProductBulkResultDto upsertProductsBySku(List<ProductDto> productDtos) {
+        validateBulkSize(productDtos);
+        logUpsertProductsBySkuStart(productDtos.size());
+
+        Set<String> skus = new HashSet<>();
+        for (int index = 0; index < productDtos.size(); index++) {
+            ProductDto productDto = productDtos.get(index);
+            try {
+                if (isNull(productDto)) {
+                    throw new ClientErrorException("O produto é obrigatório.");
+                }
+                validateSku(productDto.getSku());
+                validateDtoData(productDto);
+                if (!skus.add(productDto.getSku())) {
+                    throw new ClientErrorException("O SKU informado está repetido na lista.");
+                }
+            } catch (ClientErrorException e) {
+                throw new ClientErrorException("Produto " + index + ": " + e.getMessage());
+            }
+        }
+
+        ProductBulkResultDto result = productRepository.upsertProductsBySku(productDtos);
+        logUpsertProductsBySkuSuccessfully(result.getInserted(), result.getUpdated(), result.getUnchanged());
+        return result;
+    }
+
     @Transactional(readOnly = true)
-    public GlobalPageDto<ProductDto> findAllProducts(Integer page, Integer linesPerPage, String direction, String orderBy) {
+    public GlobalPageDto<ProductDto> findAllProducts(Integer page, Integer linesPerPage, String direction, String orderBy,
+                                                     String cursor) {
 
         Integer sanitizedPage = sanitizePage(page);
         Integer sanitizedLinesPerPage = sanitizeLinesPerPage(linesPerPage);
 
         String fixedDirection = fixDirection(direction);
         String fixedOrderBy = fixOrderBy(orderBy);
+        CursorDto validatedCursor = validateCursorFilter(cursor, fixedOrderBy, fixedDirection);
 
-        Long total = productRepository.countAllProducts();
-        List<ProductDto> products = productRepository.findAllProducts(sanitizedPage, sanitizedLinesPerPage, fixedDirection, fixedOrderBy);
+        // O total não muda de uma página para a outra: quem pagina por cursor já o recebeu na primeira
+        Long total = isNull(validatedCursor) ? productRepository.countAllProducts() : null;
+        List<ProductDto> products = productRepository.findAllProducts(sanitizedPage, sanitizedLinesPerPage, fixedDirection,
+                fixedOrderBy, validatedCursor);
 
         GlobalPageDto<ProductDto> productPageDto = new GlobalPageDto<>();
         productPageDto.setTotal(total);
         productPageDto.setItems(products);
+        productPageDto.setNextCursor(buildNextCursor(productPageDto, sanitizedLinesPerPage, fixedDirection, fixedOrderBy));
 
         return productPageDto;
     }
 
+    // Cópia completa de tb_products para sistemas externos, sem paginação nem contagem
+    public StreamingResponseBody exportProducts(ExportFormat format) {
+        logExportProductsStart(format);
+
+        String[] csvHeader = {"id", "name", "sku", "price", "expiration_date"};
+
+        return streamInReadOnlyTransaction(transactionManager, format, csvHeader, writer ->
+                productRepository.streamAllProducts(product -> writeExportLine(writer, format, objectMapper, product,
+                        product.getId(), product.getName(), product.getSku(), product.getPrice(),
+                        product.getExpiration())));
+    }
+
     @Transactional(readOnly = true)
     public GlobalPageDto<ProductDto> findFilteredProducts(String name, String sku, Double minPrice,
                                        Double maxPrice, Integer page, Integer linesPerPage,
-                                       String direction, String orderBy) {
+                                       String direction, String orderBy, String cursor, String total) {
         Integer sanitizedPage = sanitizePage(page);
         Integer sanitizedLinesPerPage = sanitizeLinesPerPage(linesPerPage);
 
         String fixedDirection = fixDirection(direction);
         String fixedOrderBy = fixOrderBy(orderBy);
+        CursorDto validatedCursor = validateCursorFilter(cursor, fixedOrderBy, fixedDirection);
+        TotalMode fixedTotalMode = TotalMode.fromValueOrDefault(total);
 
         String sanitizedName = sanitizeNameFilter(name);
         String sanitizedSku = validateSkuFilter(sku);
         validateMinPriceAndMaxPriceFilter(minPrice, maxPrice);
 
-        return  productRepository.findFilteredProducts(sanitizedName, sanitizedSku, minPrice, maxPrice, sanitizedPage, sanitizedLinesPerPage, fixedDirection, fixedOrderBy);
+        GlobalPageDto<ProductDto> productPageDto = productRepository.findFilteredProducts(sanitizedName, sanitizedSku, minPrice,
+                maxPrice, sanitizedPage, sanitizedLinesPerPage, fixedDirection, fixedOrderBy, validatedCursor, fixedTotalMode);
+        productPageDto.setNextCursor(buildNextCursor(productPageDto, sanitizedLinesPerPage, fixedDirection, fixedOrderBy));
+
+        return productPageDto;
+    }
+
+    // Para o If-None-Match de GET /products/sku: só a versão do produto, sem ler a linha inteira
+    public String findETagBySku(String sku) {
+        validateSku(sku);
+
+        String eTag = productRepository.findProductETagBySku(sku);
+        if (isNull(eTag)) {
+            logProductNotFoundBySku(sku);
+            throw new ClientErrorException("O SKU informado não está cadastrado.");
+        }
+        return eTag;
     }
 
     @Transactional(readOnly = true)
@@ -178,6 +264,44 @@ public class ProductService {
         return orderBy;
     }
 
+    // Validações e montagem do cursor de paginação (keyset)
+
+    private CursorDto validateCursorFilter(String cursor, String orderBy, String direction) {
+        logProductCursorFilterValidation(cursor);
+        if (isBlank(cursor)) {
+            return null;
+        }
+
+        CursorDto cursorDto = decodeCursor(cursor);
+        if (!orderBy.equals(cursorDto.getOrderBy()) || !direction.equals(cursorDto.getDirection())) {
+            throw new ClientErrorException("O cursor informado não corresponde à ordenação solicitada.");
+        }
+        return cursorDto;
+    }
+
+    private String buildNextCursor(GlobalPageDto<ProductDto> productPageDto, Integer linesPerPage, String direction, String orderBy) {
+        List<ProductDto> products = productPageDto.getItems();
+        if (isNull(products) || products.isEmpty() || products.size() < linesPerPage
+                || Boolean.FALSE.equals(productPageDto.getHasNext())) {
+            return null;
+        }
+
+        ProductDto lastProduct = products.get(products.size() - 1);
+        Object sortValue = switch (orderBy.toLowerCase()) {
+            case "sku" -> lastProduct.getSku();
+            case "price" -> lastProduct.getPrice();
+            case "expiration_date" -> lastProduct.getExpiration();
+            default -> lastProduct.getName();
+        };
+        return encodeCursor(orderBy, direction, sortValue, lastProduct.getSku());
+    }
+
+    private void validateBulkSize(List<ProductDto> productDtos) {
+        if (isNull(productDtos) || productDtos.isEmpty() || productDtos.size() > BULK_MAX_SIZE) {
+            throw new ClientErrorException("A lista deve conter entre 1 e " + BULK_MAX_SIZE + " produtos.");
+        }
+    }
+
     private void validateDtoData(ProductDto productDto) {
         validateName(productDto.getName());
         validatePrice(productDto.getPrice());
@@ -209,13 +333,6 @@ public class ProductService {
         }
     }
 
-    private void skuExists(String sku) {
-        if (productRepository.existsProductBySku(sku)) {
-            logProductSkuAlreadyExists(sku);
-            throw new ClientErrorException("O SKU informado já está cadastrado.");
-        }
-    }
-
     private void skuNotExist(String sku) {
         if (!productRepository.existsProductBySku(sku)) {
             logProductNotFoundBySku(sku);
@@ -0,0 +1,38 @@
+package com.rodrigopettenon.orderflow.utils;
+
+import java.sql.SQLException;
+
+public class DatabaseErrorUtil {
+
+    // Código do MySQL para "Duplicate entry" e SQLState padrão de violação de unicidade (H2/PostgreSQL)
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+
+    // Classes de SQLState do padrão: 22 = dado inválido (tamanho, formato), 23 = restrição (FK, NOT NULL)
+    private static final String DATA_EXCEPTION_SQL_STATE_CLASS = "22";
+    private static final String INTEGRITY_VIOLATION_SQL_STATE_CLASS = "23";
+
+    // A SQLException do driver chega embrulhada pelo Hibernate/JPA; procura na cadeia de causas
+    public static boolean isDuplicateKey(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && (sqlException.getErrorCode() == MYSQL_DUPLICATE_ENTRY
+                    || UNIQUE_VIOLATION_SQL_STATE.equals(sqlException.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Erro do próprio registro, que se repete a cada nova tentativa; falhas de conexão, lock e timeout não entram
+    public static boolean isRejectedRow(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && (sqlException.getSQLState().startsWith(DATA_EXCEPTION_SQL_STATE_CLASS)
+                    || sqlException.getSQLState().startsWith(INTEGRITY_VIOLATION_SQL_STATE_CLASS))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
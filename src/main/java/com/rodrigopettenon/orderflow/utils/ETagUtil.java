@@ -0,0 +1,17 @@
+package com.rodrigopettenon.orderflow.utils;
+
+import static java.util.Objects.isNull;
+
+public class ETagUtil {
+
+    // rowVersion é a coluna row_version de tb_clients, tb_orders e tb_products, incrementada em cada UPDATE feito
+    // pelos repositórios. Fracos porque o StandardObjectReturn leva o horário da resposta; o If-None-Match compara
+    // no modo fraco, então o 304 sai igual. O id entra junto para uma linha recriada com a mesma chave não repetir
+    // o ETag
+    public static String rowETag(Object id, Long rowVersion) {
+        if (isNull(id) || isNull(rowVersion)) {
+            return null;
+        }
+        return "W/\"" + id + "-" + rowVersion + "\"";
+    }
+}
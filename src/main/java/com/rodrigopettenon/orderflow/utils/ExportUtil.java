@@ -0,0 +1,106 @@
+package com.rodrigopettenon.orderflow.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+
+public class ExportUtil {
+
+    // Linhas buscadas por ida ao banco no cursor do driver (useCursorFetch) durante as exportações
+    public static final int EXPORT_FETCH_SIZE = 1000;
+
+    // O cursor do driver só fica aberto dentro de uma transação, que precisa ser aberta na thread da escrita
+    public static StreamingResponseBody streamInReadOnlyTransaction(PlatformTransactionManager transactionManager,
+                                                                    ExportFormat format, String[] csvHeader,
+                                                                    Consumer<Writer> rowsWriter) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (ExportFormat.CSV.equals(format)) {
+                writeCsvLine(writer, (Object[]) csvHeader);
+            }
+
+            readOnlyTransaction.executeWithoutResult(transactionStatus -> rowsWriter.accept(writer));
+
+            writer.flush();
+        };
+    }
+
+    // Uma linha da exportação: o DTO em JSON (NDJSON) ou os valores informados em CSV
+    public static void writeExportLine(Writer writer, ExportFormat format, ObjectMapper objectMapper, Object dto,
+                                       Object... csvValues) {
+        try {
+            if (ExportFormat.CSV.equals(format)) {
+                writeCsvLine(writer, csvValues);
+                return;
+            }
+            writer.write(objectMapper.writeValueAsString(dto));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Uma linha CSV (RFC 4180): campos com separador, aspas ou quebra de linha vão entre aspas
+    public static void writeCsvLine(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    // Inverso de writeCsvLine, para reimportar os arquivos exportados; campos com quebra de linha não são suportados
+    public static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String escapeCsv(Object value) {
+        if (isNull(value)) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,5 +1,6 @@
 package com.rodrigopettenon.orderflow.utils;
 
+import com.rodrigopettenon.orderflow.models.ExportFormat;
 import com.rodrigopettenon.orderflow.models.OrderStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +25,12 @@ public class LogUtil {
     }
 
 
+    //Idempotency-Key
+    public static void logIdempotencyKeyValidation(String idempotencyKey) {
+        logValidation("Idempotency-Key", idempotencyKey);
+    }
+
+
     //Client
     public static void logClientNameFilterValidation(String name) {
         logFilterValidation("nome", name);
@@ -45,6 +52,10 @@ public class LogUtil {
         logFilterValidation("data de nascimento final", birthEnd);
     }
 
+    public static void logClientCursorFilterValidation(String cursor) {
+        logFilterValidation("cursor de paginação do cliente", cursor);
+    }
+
     public static void logClientNameValidation(String name) {
         logValidation("nome", name);
     }
@@ -76,6 +87,10 @@ public class LogUtil {
         logFilterValidation("preço máximo", maxPrice);
     }
 
+    public static void logProductCursorFilterValidation(String cursor) {
+        logFilterValidation("cursor de paginação do produto", cursor);
+    }
+
     public static void logProductNameValidation(String name) {
         logValidation("nome", name);
     }
@@ -141,6 +156,10 @@ public class LogUtil {
         logFilterValidation("máximo de pedidos", maxOrder);
     }
 
+    public static void logFilterOrderCursorValidation(String cursor) {
+        logFilterValidation("cursor de paginação do pedido", cursor);
+    }
+
 
 
 
@@ -193,6 +212,10 @@ public class LogUtil {
         logger.info("[INÍCIO] Iniciando salvamento de item de pedido: orderId={}, productId={}", orderId, productId);
     }
 
+    public static void logSaveItemOrdersBatchStart(Integer size) {
+        logStartOfProcess("salvamento de um lote de itens de pedido com tamanho", size);
+    }
+
 
 
     //Clients
@@ -208,6 +231,14 @@ public class LogUtil {
         logStartOfProcess("obtenção da lista de clientes", null);
     }
 
+    public static void logExportClientsStart(ExportFormat format) {
+        logStartOfProcess("exportação dos clientes", format);
+    }
+
+    public static void logImportClientsStart(UUID jobId) {
+        logStartOfProcess("importação de clientes por CSV, job", jobId);
+    }
+
     public static void logCountOfAllClientsInListStart() {
         logStartOfProcess("contagem de todos clientes da lista", null);
     }
@@ -250,11 +281,35 @@ public class LogUtil {
         logStartOfProcess("deleção do produto pelo SKU", sku);
     }
 
+    public static void logUpsertProductsBySkuStart(Integer size) {
+        logStartOfProcess("sincronização em massa de produtos pelo SKU, produtos recebidos", size);
+    }
+
+    public static void logExportProductsStart(ExportFormat format) {
+        logStartOfProcess("exportação dos produtos", format);
+    }
+
     //Orders
     public static void logSaveOrderStart() {
         logStartOfProcess("salvamento de um novo pedido", null);
     }
 
+    public static void logSaveFullOrderStart() {
+        logStartOfProcess("salvamento de um novo pedido com itens", null);
+    }
+
+    public static void logUpdateOrdersStatusBulkStart(String status) {
+        logStartOfProcess("atualização em massa do status de pedidos PENDING para", status);
+    }
+
+    public static void logAcceptOrderStart() {
+        logStartOfProcess("aceite assíncrono de um novo pedido pelo journal", null);
+    }
+
+    public static void logSaveOrdersBatchStart(Integer size) {
+        logStartOfProcess("salvamento de um lote de pedidos com tamanho", size);
+    }
+
     public static void logFindFilteredOrdersStart() {
         logStartOfProcess("busca de pedidos filtrados", null);
     }
@@ -283,6 +338,10 @@ public class LogUtil {
         logStartOfProcess("busca de pediddos filtrados com detalhes", null);
     }
 
+    public static void logExportOrdersDetailsStart(ExportFormat format) {
+        logStartOfProcess("exportação de pedidos filtrados com detalhes", format);
+    }
+
     public static void logCheckExistenceOfOrderByIdStart(UUID id) {
         logStartOfProcess("checagem de existência do pedido pelo id", id);
     }
@@ -371,6 +430,14 @@ public class LogUtil {
         logSuccessfully("salvar cliente de CPF", cpf);
     }
 
+    public static void logClientIdBitmapReloaded(Long loadedIds) {
+        logSuccessfully("recarregar o bitmap de ids de clientes, ids carregados", loadedIds);
+    }
+
+    public static void logImportClientsFinished(UUID jobId, Long importedRows, Long rejectedRows) {
+        logger.info("[SUCESSO] Sucesso ao importar clientes por CSV: job={}, importados={}, rejeitados={}", jobId, importedRows, rejectedRows);
+    }
+
     public static void logFindAllClientsSuccessfully() {
         logSuccessfully("buscar todos os clientes", null);
     }
@@ -392,6 +459,10 @@ public class LogUtil {
     }
 
     //Orders
+    public static void logUpdateOrdersStatusBulkSuccessfully(Integer updated) {
+        logSuccessfully("atualizar o status de pedidos em massa, pedidos atualizados", updated);
+    }
+
     public static void logUpdateOrderStatusByIdSuccessfully(UUID id) {
         logSuccessfully("atualizar status do pedido pelo id", id);
     }
@@ -400,6 +471,18 @@ public class LogUtil {
         logSuccessfully("ao salvar um novo pedido", id, clientId, orderDate, status);
     }
 
+    public static void logOrderJournalReplayed(Integer pendingOrders) {
+        logSuccessfully("reaplicar o journal de pedidos, pedidos pendentes de gravação", pendingOrders);
+    }
+
+    public static void logOrderJournalDrained(Integer savedOrders) {
+        logSuccessfully("gravar pedidos do journal, pedidos gravados", savedOrders);
+    }
+
+    public static void logSaveOrdersBatchSuccessfully(Integer savedOrders) {
+        logSuccessfully("salvar lote de pedidos, pedidos gravados", savedOrders);
+    }
+
     public static void logFindOrderByIdSuccessfully(UUID id) {
         logSuccessfully("encontrar pedido pelo ID", id);
     }
@@ -438,12 +521,29 @@ public class LogUtil {
         logSuccessfully("atualizar produto pelo SKU", sku);
     }
 
+    public static void logUpsertProductsBySkuSuccessfully(Integer inserted, Integer updated, Integer unchanged) {
+        logger.info("[SUCESSO] Sucesso ao sincronizar produtos pelo SKU: inseridos={}, atualizados={}, inalterados={}", inserted, updated, unchanged);
+    }
+
 
     //ItemOrder
     public static void logSaveItemOrderSuccessfully(UUID orderId, UUID productId) {
         logSuccessfully("salvar item do pedido", orderId, productId);
     }
 
+    public static void logSaveItemOrdersBatchSuccessfully(Integer savedItemOrders) {
+        logSuccessfully("salvar lote de itens de pedido, itens gravados", savedItemOrders);
+    }
+
+    //Idempotency-Key
+    public static void logIdempotentResponseReplayed(String idempotencyKey) {
+        logSuccessfully("devolver a resposta já gravada para a Idempotency-Key", idempotencyKey);
+    }
+
+    public static void logExpiredIdempotencyKeysDeleted(Integer deletedKeys) {
+        logSuccessfully("apagar Idempotency-Keys expiradas, chaves apagadas", deletedKeys);
+    }
+
     public static void logFindFilteredItemOrdersSuccessfully() {
         logSuccessfully("buscar por itens de pedido com filtros", null);
     }
@@ -514,6 +614,25 @@ public class LogUtil {
         logFailed("Nenhum item de pedido encontrado com o ID do cliente", clientId);
     }
 
+    //Journal de pedidos
+    public static void logOrderDeadLettered(UUID id, String errorMessage) {
+        logFailed("Pedido do journal recusado pelo banco, gravado em tb_orders_dead_letter", id + " (" + errorMessage + ")");
+    }
+
+    //Idempotency-Key
+    public static void logIdempotencyKeyReusedWithDifferentBody(String key) {
+        logFailed("Idempotency-Key repetida com outro corpo de requisição", key);
+    }
+
+    public static void logIdempotencyKeyInProgress(String idempotencyKey) {
+        logFailed("Já existe uma requisição em andamento com a Idempotency-Key", idempotencyKey);
+    }
+
+    //Paginação
+    public static void logRowCountEstimateUnavailable(Exception e) {
+        logFailed("Estimativa de total indisponível, usando contagem exata", e.getMessage());
+    }
+
 
 
     //LOGS DE ERROS
@@ -531,6 +650,22 @@ public class LogUtil {
         logUnexpectedError("buscar todos os clientes ordenados por", orderBy, e);
     }
 
+    public static void logUnexpectedErrorOnExportClients(Exception e) {
+        logUnexpectedError("exportar os clientes", null, e);
+    }
+
+    public static void logUnexpectedErrorOnImportClients(UUID jobId, Exception e) {
+        logUnexpectedError("importar clientes por CSV, job", jobId, e);
+    }
+
+    public static void logUnexpectedErrorOnSaveClientsBatch(Exception e) {
+        logUnexpectedError("salvar lote de clientes importados", null, e);
+    }
+
+    public static void logUnexpectedErrorFindingExistingClientCpfsAndEmails(Exception e) {
+        logUnexpectedError("verificar CPFs e emails já cadastrados do lote", null, e);
+    }
+
     public static void logUnexpectedErrorOnCountAllClientsInList(Exception e) {
         logUnexpectedError("realizar contagem de todos clientes na lista", null, e);
     }
@@ -555,6 +690,10 @@ public class LogUtil {
         logUnexpectedError("salvar cliente de CPF", cpf, e);
     }
 
+    public static void logUnexpectedErrorFindingExistingClientIds(Exception e) {
+        logUnexpectedError("verificar existência dos clientes do lote", null, e);
+    }
+
     public static void logUnexpectedErrorCheckingClientExistenceByCpf(String cpf, Exception e) {
         logUnexpectedError("verificar existência pelo CPF", cpf, e);
     }
@@ -571,6 +710,10 @@ public class LogUtil {
         logUnexpectedError("realizar deleção do cliente pelo CPF", cpf, e);
     }
 
+    public static void logUnexpectedErrorOnReloadClientIdBitmap(Exception e) {
+        logUnexpectedError("recarregar o bitmap de ids de clientes", null, e);
+    }
+
 
     //Products
     public static void logUnexpectedErrorOnCountFilteredProducts(Exception e) {
@@ -584,6 +727,10 @@ public class LogUtil {
         logUnexpectedError("buscar todos produtos", null, e);
     }
 
+    public static void logUnexpectedErrorOnExportProducts(Exception e) {
+        logUnexpectedError("exportar os produtos", null, e);
+    }
+
     public static void logUnexpectedErrorOnCountAllProducts(Exception e) {
         logUnexpectedError("contar todos produtos",null, e);
     }
@@ -595,6 +742,18 @@ public class LogUtil {
         logUnexpectedError("verificar existencia pelo SKU", sku, e);
     }
 
+    public static void logUnexpectedErrorOnFindProductETagBySku(String sku, Exception e) {
+        logUnexpectedError("buscar a versão do produto pelo SKU", sku, e);
+    }
+
+    public static void logUnexpectedErrorOnFindClientETagByCpf(String cpf, Exception e) {
+        logUnexpectedError("buscar a versão do cliente pelo CPF", cpf, e);
+    }
+
+    public static void logUnexpectedErrorOnFindOrderETagById(UUID id, Exception e) {
+        logUnexpectedError("buscar a versão do pedido pelo id", id, e);
+    }
+
     public static void logUnexpectedErrorOnFindProductBySku(String sku, Exception e) {
         logUnexpectedError("buscar produto pelo SKU", sku, e);
     }
@@ -611,6 +770,26 @@ public class LogUtil {
         logUnexpectedError("salvar um novo pedido",null, e);
     }
 
+    public static void logUnexpectedErrorOnSaveJournaledOrders(Exception e) {
+        logUnexpectedError("gravar pedidos do journal", null, e);
+    }
+
+    public static void logUnexpectedErrorOnSaveDeadLetterOrder(UUID id, Exception e) {
+        logUnexpectedError("gravar o pedido recusado do journal", id, e);
+    }
+
+    public static void logUnexpectedErrorOnDrainOrderJournal(Exception e) {
+        logUnexpectedError("drenar o journal de pedidos, nova tentativa em instantes", null, e);
+    }
+
+    public static void logUnexpectedErrorOnSaveOrdersBatch(Exception e) {
+        logUnexpectedError("salvar lote de pedidos", null, e);
+    }
+
+    public static void logUnexpectedErrorOnUpdateOrdersStatusBulk(Exception e) {
+        logUnexpectedError("atualizar o status dos pedidos em massa", null, e);
+    }
+
     public static void logUnexpectedErrorOnUpdateOrderStatusById(UUID id, Exception e) {
         logUnexpectedError("atualizar um pedido pelo ID", id, e);
     }
@@ -623,6 +802,14 @@ public class LogUtil {
         logUnexpectedError("verificar existência do pedido pelo ID", id, e);
     }
 
+    public static void logUnexpectedErrorOnPrefetchOrderExistence(UUID id, Exception e) {
+        logUnexpectedError("verificar existência do pedido e dos seus itens", id, e);
+    }
+
+    public static void logUnexpectedErrorOnPrefetchClientExistence(Long id, Exception e) {
+        logUnexpectedError("verificar existência do cliente, dos seus pedidos e itens", id, e);
+    }
+
     public static void logUnexpectedErrorCheckingExistenceOfOrderByClientId(Long id, Exception e) {
         logUnexpectedError("verificar existência do pedido pelo ID do cliente", id, e);
     }
@@ -639,6 +826,10 @@ public class LogUtil {
         logUnexpectedError("buscar pedidos filtrados com detalhes", null, e);
     }
 
+    public static void logUnexpectedErrorOnExportOrdersDetails(Exception e) {
+        logUnexpectedError("exportar pedidos filtrados com detalhes", null, e);
+    }
+
     public static void logUnexpectedErrorOnCountFilteredOrdersDetails(Exception e) {
         logUnexpectedError("contar pedidos filtrados com detalhes", null, e);
     }
@@ -652,6 +843,30 @@ public class LogUtil {
         logUnexpectedError("salvar item de pedido", orderId, e);
     }
 
+    public static void logUnexpectedErrorOnSaveItemOrdersBatch(Exception e) {
+        logUnexpectedError("salvar lote de itens de pedido", null, e);
+    }
+
+    public static void logUnexpectedErrorOnSaveItemOrderGroup(Integer groupSize, Exception e) {
+        logUnexpectedError("salvar grupo de itens de pedido, regravando um a um; tamanho do grupo", groupSize, e);
+    }
+
+    public static void logUnexpectedErrorFindingExistingOrderIds(Exception e) {
+        logUnexpectedError("verificar existência dos pedidos do lote", null, e);
+    }
+
+    public static void logUnexpectedErrorOnUpsertProductsBySku(Exception e) {
+        logUnexpectedError("sincronizar produtos pelo SKU", null, e);
+    }
+
+    public static void logUnexpectedErrorFindingProductPriceById(UUID id, Exception e) {
+        logUnexpectedError("buscar o preço do produto pelo id", id, e);
+    }
+
+    public static void logUnexpectedErrorFindingProductPricesByIds(Exception e) {
+        logUnexpectedError("buscar os preços dos produtos do lote", null, e);
+    }
+
     public static void logUnexpectedErrorOnFindFilteredItemOrders(Exception e) {
         logUnexpectedError("buscar itens de pedido com filtros", null, e);
     }
@@ -671,4 +886,25 @@ public class LogUtil {
     public static void logUnexpectedErrorCheckingExistenceOfItemOrderByClientId(Long clientId, Exception e) {
         logUnexpectedError("verificar existência de item de pedido pelo ID do cliente", clientId, e);
     }
+
+    //Idempotency-Key
+    public static void logUnexpectedErrorOnReserveIdempotencyKey(String idempotencyKey, Exception e) {
+        logUnexpectedError("registrar a Idempotency-Key", idempotencyKey, e);
+    }
+
+    public static void logUnexpectedErrorOnFindIdempotentResponse(String idempotencyKey, Exception e) {
+        logUnexpectedError("buscar a resposta da Idempotency-Key", idempotencyKey, e);
+    }
+
+    public static void logUnexpectedErrorOnCompleteIdempotencyKey(String idempotencyKey, Exception e) {
+        logUnexpectedError("gravar a resposta da Idempotency-Key", idempotencyKey, e);
+    }
+
+    public static void logUnexpectedErrorOnDeleteIdempotencyKey(String idempotencyKey, Exception e) {
+        logUnexpectedError("liberar a Idempotency-Key", idempotencyKey, e);
+    }
+
+    public static void logUnexpectedErrorOnDeleteExpiredIdempotencyKeys(Exception e) {
+        logUnexpectedError("apagar as Idempotency-Keys expiradas", null, e);
+    }
 }
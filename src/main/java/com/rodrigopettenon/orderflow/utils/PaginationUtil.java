@@ -0,0 +1,143 @@
+package com.rodrigopettenon.orderflow.utils;
+
+import com.rodrigopettenon.orderflow.dtos.CursorDto;
+import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.models.TotalMode;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+public class PaginationUtil {
+
+    // Formato do cursor: orderBy|direction|chave única|valor de ordenação (o valor fica por último pois pode conter '|')
+    private static final String CURSOR_SEPARATOR = "|";
+    private static final int CURSOR_PARTS = 4;
+
+    // Coluna de total calculada sobre todas as linhas filtradas antes do LIMIT, vem sempre por último no SELECT.
+    // Quando o total sai da contagem separada, os repositórios montam o FROM e os filtros dela pelo mesmo método da
+    // busca, para as duas nunca divergirem
+    public static final String WINDOW_TOTAL_COLUMN = ", COUNT(*) OVER() AS window_total ";
+
+    public static String encodeCursor(String orderBy, String direction, Object sortValue, Object lastKey) {
+        String rawCursor = orderBy + CURSOR_SEPARATOR + direction + CURSOR_SEPARATOR
+                + lastKey + CURSOR_SEPARATOR + formatCursorValue(sortValue);
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(rawCursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorDto decodeCursor(String cursor) {
+        try {
+            String rawCursor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = rawCursor.split("\\|", CURSOR_PARTS);
+
+            if (parts.length != CURSOR_PARTS || isBlank(parts[2])) {
+                throw new ClientErrorException("O cursor informado é inválido.");
+            }
+
+            return new CursorDto(parts[0], parts[1], parts[3], parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new ClientErrorException("O cursor informado é inválido.");
+        }
+    }
+
+    public static Object parseCursorValue(String value, Class<?> type) {
+        try {
+            if (LocalDateTime.class.equals(type)) {
+                return LocalDateTime.parse(value);
+            }
+            if (LocalDate.class.equals(type)) {
+                return LocalDate.parse(value);
+            }
+            if (Long.class.equals(type)) {
+                return Long.valueOf(value);
+            }
+            if (Integer.class.equals(type)) {
+                return Integer.valueOf(value);
+            }
+            if (Double.class.equals(type)) {
+                return Double.valueOf(value);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            throw new ClientErrorException("O cursor informado é inválido.");
+        }
+    }
+
+    public static final String CURSOR_SORT_VALUE = "cursorSortValue";
+    public static final String CURSOR_LAST_KEY = "cursorLastKey";
+
+    // Condição de seek: (coluna, chave) estritamente depois da última linha da página anterior
+    public static void appendKeysetCondition(StringBuilder sql, String sortColumn, String keyColumn, String direction) {
+        String operator = "desc".equalsIgnoreCase(direction) ? "<" : ">";
+
+        sql.append(" AND (").append(sortColumn).append(" ").append(operator).append(" :cursorSortValue ");
+        sql.append(" OR (").append(sortColumn).append(" = :cursorSortValue AND ")
+                .append(keyColumn).append(" ").append(operator).append(" :cursorLastKey)) ");
+    }
+
+    public static void putKeysetParameters(Map<String, Object> parameters, Object sortValue, Object lastKey) {
+        parameters.put(CURSOR_SORT_VALUE, sortValue);
+        parameters.put(CURSOR_LAST_KEY, lastKey);
+    }
+
+    // Sem total, busca uma linha a mais só para saber se existe próxima página
+    public static Integer resolveFetchLimit(Integer linesPerPage, TotalMode totalMode) {
+        return TotalMode.NONE.equals(totalMode) ? linesPerPage + 1 : linesPerPage;
+    }
+
+    public static <T> void applyHasNext(GlobalPageDto<T> pageDto, Integer linesPerPage, TotalMode totalMode) {
+        if (!TotalMode.NONE.equals(totalMode)) {
+            return;
+        }
+
+        List<T> items = pageDto.getItems();
+        boolean hasNext = items.size() > linesPerPage;
+        if (hasNext) {
+            pageDto.setItems(new ArrayList<>(items.subList(0, linesPerPage)));
+        } else {
+            pageDto.setNextCursor(null);
+        }
+        pageDto.setHasNext(hasNext);
+    }
+
+    // Com cursor o WHERE inclui a condição de seek e a janela contaria só o restante, então usa a contagem separada
+    public static boolean isWindowTotal(TotalMode totalMode, CursorDto cursor) {
+        return TotalMode.WINDOW.equals(totalMode) && isNull(cursor);
+    }
+
+    // Página vazia só garante total zero quando é a primeira; nas demais o total fica para a contagem separada
+    public static Long extractWindowTotal(List<Object[]> resultList, Integer page) {
+        if (resultList.isEmpty()) {
+            return page == 0 ? 0L : null;
+        }
+
+        Object[] firstResult = resultList.get(0);
+        return ((Number) firstResult[firstResult.length - 1]).longValue();
+    }
+
+    public static boolean needsCountQuery(GlobalPageDto<?> pageDto, TotalMode totalMode) {
+        return !TotalMode.NONE.equals(totalMode) && isNull(pageDto.getTotal());
+    }
+
+    private static String formatCursorValue(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate().toString();
+        }
+        return String.valueOf(value);
+    }
+}
@@ -1,7 +1,10 @@
 package com.rodrigopettenon.orderflow.utils;
 
+import java.time.LocalDate;
 import java.util.regex.Pattern;
 
+import static java.util.Objects.isNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.apache.commons.lang3.StringUtils.leftPad;
 
@@ -18,6 +21,52 @@ public class StringsValidation {
         return false;
     }
 
+    // Regras do cadastro de cliente, compartilhadas pelo ClientService e pela importação em massa:
+    // devolvem a mensagem de erro, ou null quando o valor é válido
+
+    public static String clientNameError(String name) {
+        if (isBlank(name)) {
+            return "O nome do cliente é obrigatório.";
+        }
+        if (name.length() <= 3) {
+            return "O nome do cliente deve ter mais de 3 caracteres.";
+        }
+        if (name.length() > 100) {
+            return "O nome do cliente deve ser menor que 100 caracteres.";
+        }
+        return null;
+    }
+
+    public static String clientEmailError(String email) {
+        if (isBlank(email)) {
+            return "O email do cliente é obrigatório.";
+        }
+        if (!isValidEmail(email)) {
+            return "O email do cliente é inválido.";
+        }
+        return null;
+    }
+
+    public static String clientCpfError(String cpf) {
+        if (isBlank(cpf)) {
+            return "O CPF do cliente é obrigatório.";
+        }
+        if (!isValidCPF(cpf)) {
+            return "O CPF do cliente é inválido.";
+        }
+        return null;
+    }
+
+    public static String clientBirthError(LocalDate birth) {
+        if (isNull(birth)) {
+            return "A data de nascimento do cliente é obrigatória.";
+        }
+        if (birth.isAfter(LocalDate.now())) {
+            return "A data de nascimento não pode ser futura.";
+        }
+        return null;
+    }
+
     public static String denormalizeCpf(String cpf){
         if(isNotBlank(cpf)){
             return cpfWithFullDigits(cpf);
@@ -0,0 +1,23 @@
+package com.rodrigopettenon.orderflow.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtil {
+
+    // Para os caches e índices em memória dos repositórios: dentro de transação a escrita só é aplicada depois do
+    // commit, para um rollback não deixar em memória o que nunca foi gravado e uma leitura concorrente não
+    // recolocar o valor antigo. Fora de transação é aplicada na hora
+    public static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+            return;
+        }
+        action.run();
+    }
+}
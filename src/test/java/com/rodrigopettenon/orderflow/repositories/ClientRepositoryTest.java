@@ -1,10 +1,13 @@
 package com.rodrigopettenon.orderflow.repositories;
 
 import com.rodrigopettenon.orderflow.dtos.ClientDto;
+import com.rodrigopettenon.orderflow.dtos.CursorDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ClientModel;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.Query;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,16 +15,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Date;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -43,6 +49,21 @@ class ClientRepositoryTest {
     @Mock
     private Query query;
 
+    @Spy
+    private FilterCountCache filterCountCache = new FilterCountCache();
+
+    @Spy
+    private ExistenceMemo existenceMemo = new ExistenceMemo();
+
+    @Spy
+    private SqlTemplateCache sqlTemplateCache = new SqlTemplateCache();
+
+    @Mock
+    private RowCountEstimator rowCountEstimator;
+
+    @Spy
+    private ClientIdBitmap clientIdBitmap = new ClientIdBitmap();
+
     // Método saveClient
     @Test
     @DisplayName("Should successfully save a client to the database.")
@@ -78,6 +99,25 @@ class ClientRepositoryTest {
 
 
 
+    @Test
+    @DisplayName("Should return false when the insert violates a unique column.")
+    void shouldReturnFalseWhenSavingADuplicatedClient() {
+        ClientDto clientDto = new ClientDto();
+        clientDto.setName("Bruce Wayne");
+        clientDto.setEmail("brucewayne@gmail.com");
+        clientDto.setCpf("40177715057");
+        clientDto.setBirth(LocalDate.of(1972, 2, 19));
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        // Como o Hibernate entrega o "Duplicate entry" do MySQL: a SQLException vem como causa
+        when(query.executeUpdate()).thenThrow(new PersistenceException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry '40177715057' for key 'tb_clients.cpf'", "23000", 1062)));
+
+        assertFalse(clientRepository.saveClient(clientDto));
+        verify(filterCountCache, never()).invalidate(any());
+    }
+
     @Test
     @DisplayName("Should ThrowException when failing to save a client.")
     void shouldThrowExceptionWhenSavingClientFails() {
@@ -355,7 +395,7 @@ class ClientRepositoryTest {
         when(query.getResultList()).thenReturn(mockedResult);
 
         // Executamos o método que queremos testar
-        List<ClientDto> resultList = clientRepository.findAllClients(page, linesPerPage, direction, orderBy);
+        List<ClientDto> resultList = clientRepository.findAllClients(page, linesPerPage, direction, orderBy, null);
 
         // assert
         assertNotNull(resultList);
@@ -405,7 +445,7 @@ class ClientRepositoryTest {
 
         // Executamos o teste que queremos testar afirmando uma exception
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
-           clientRepository.findAllClients(page, linesPerPage, direction, orderBy);
+           clientRepository.findAllClients(page, linesPerPage, direction, orderBy, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -722,7 +762,7 @@ class ClientRepositoryTest {
 
         // Criamos uma lista com um cliente
         List<Object[]> expectedResultList = new ArrayList<>();
-        expectedResultList.add(new Object[]{1, "Osvaldo Pires", "osvaldo@gmail.com", "18068803009",  java.sql.Date.valueOf(LocalDate.of(1990, 1, 1))});
+        expectedResultList.add(new Object[]{1, "Osvaldo Pires", "osvaldo@gmail.com", "18068803009",  java.sql.Date.valueOf(LocalDate.of(1990, 1, 1)), 3L});
 
         Object[] expectedResult = expectedResultList.get(0);
         ClientDto expectedClientDto = new ClientDto();
@@ -748,6 +788,7 @@ class ClientRepositoryTest {
         assertEquals(returnedClient.getEmail(), expectedClientDto.getEmail());
         assertEquals(returnedClient.getCpf(), expectedClientDto.getCpf());
         assertEquals(returnedClient.getBirth(), expectedClientDto.getBirth());
+        assertEquals(3L, returnedClient.getRowVersion());
 
         // Verificamos se os métodos foram chamados como o esperado
         verify(em).createNativeQuery(anyString());
@@ -901,7 +942,7 @@ class ClientRepositoryTest {
         when(query.executeUpdate()).thenReturn(1); // Número de clientes que foram deletados
 
         // Executamos o método que queremos testar
-        clientRepository.deleteClientByCpf(cpf);
+        clientRepository.deleteClientByCpf(cpf, 7L);
 
         // Verificamos se todas etapas de criação da query foram realizadas
         verify(em).createNativeQuery(anyString());
@@ -922,7 +963,7 @@ class ClientRepositoryTest {
 
         // Afirmamos a exceção ao executar o método que estamos testando
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
-            clientRepository.deleteClientByCpf(cpf);
+            clientRepository.deleteClientByCpf(cpf, 7L);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -977,6 +1018,49 @@ class ClientRepositoryTest {
         verify(query).getSingleResult();
     }
 
+    @Test
+    @DisplayName("Should seek after the cursor instead of using offset when a cursor is informed.")
+    void shouldSeekAfterTheCursorInsteadOfUsingOffsetWhenACursorIsInformed() {
+        // Arrange - cursor apontando para o último cliente da página anterior
+        Integer page = 50;
+        Integer linesPerPage = 10;
+        CursorDto cursor = new CursorDto("birth_date", "asc", "1990-01-01", "18068803009");
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("limit", linesPerPage)).thenReturn(query);
+        when(query.setParameter("offset", 0)).thenReturn(query);
+        when(query.setParameter("cursorSortValue", LocalDate.of(1990, 1, 1))).thenReturn(query);
+        when(query.setParameter("cursorLastKey", "18068803009")).thenReturn(query);
+        when(query.getResultList()).thenReturn(new ArrayList<>());
+
+        // Act
+        clientRepository.findAllClients(page, linesPerPage, "asc", "birth_date", cursor);
+
+        // Assert - a query busca a partir do cursor e desempata pelo CPF
+        ArgumentCaptor<String> queryCaptor = ArgumentCaptor.forClass(String.class);
+        verify(em).createNativeQuery(queryCaptor.capture());
+        String builtQuery = queryCaptor.getValue().toLowerCase();
+
+        assertTrue(builtQuery.contains("birth_date > :cursorsortvalue"));
+        assertTrue(builtQuery.contains("cpf > :cursorlastkey"));
+        assertTrue(builtQuery.contains("order by birth_date asc, cpf asc"));
+        verify(query).setParameter("offset", 0);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when cursor sort value is invalid.")
+    void shouldThrowExceptionWhenCursorSortValueIsInvalid() {
+        // Arrange - valor de ordenação que não é uma data
+        CursorDto cursor = new CursorDto("birth_date", "asc", "not-a-date", "18068803009");
+
+        // Act & Assert
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
+                clientRepository.findAllClients(0, 10, "asc", "birth_date", cursor));
+
+        assertEquals("O cursor informado é inválido.", exception.getMessage());
+        verify(em, never()).createNativeQuery(anyString());
+    }
+
     // Método queryFindFilteredClients
     @Test
     @DisplayName("Should successfully return filtered clients.")
@@ -1026,7 +1110,7 @@ class ClientRepositoryTest {
 
         // Executamos o método que queremos testar
         List<ClientDto> returnedResultList = clientRepository.queryFindFilteredClients(name, email, cpf,
-                birthStart, birthEnd, page, linesPerPage, direction, orderBy);
+                birthStart, birthEnd, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT).getItems();
 
         // Verificando se a lista retornada está igual a lista esperada
         IntStream.range(0, returnedResultList.size())
@@ -1089,7 +1173,7 @@ class ClientRepositoryTest {
 
         // Executamos o método que queremos testar
         List<ClientDto> returnedResultList = clientRepository.queryFindFilteredClients(null , null, null,
-                null, null, page, linesPerPage, direction, orderBy);
+                null, null, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT).getItems();
 
         // Captura da query SQL que foi construida
         ArgumentCaptor<String> queryCaptor = ArgumentCaptor.forClass(String.class);
@@ -1148,7 +1232,7 @@ class ClientRepositoryTest {
         // Afirmamos a exceção ao executar o método que estamos testando
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             clientRepository.queryFindFilteredClients(name, email, cpf, birthStart, birthEnd,
-                    page, linesPerPage, direction, orderBy);
+                    page, linesPerPage, direction, orderBy, null, TotalMode.EXACT);
         });
         // Verificamos se a mensagem de erro é igual a esperada
         assertEquals("Erro ao buscar clientes filtrados.", exception.getMessage());
@@ -1189,7 +1273,7 @@ class ClientRepositoryTest {
         when(query.getSingleResult()).thenReturn(expectedResult);
 
         // Executamos o método que queremos testar
-        Object returnedResult = clientRepository.queryCountFilteredClients(name, email, cpf, birthStart, birthEnd);
+        Object returnedResult = clientRepository.queryCountFilteredClients(name, email, cpf, birthStart, birthEnd, TotalMode.EXACT);
 
         // Verificamos se o resultado retornado é igual o esperado
         assertEquals(returnedResult, expectedResult.longValue());
@@ -1217,7 +1301,7 @@ class ClientRepositoryTest {
         when(query.getSingleResult()).thenReturn(expectedResult);
 
         // Executamos o método que queremos testar
-        Object returnedResult = clientRepository.queryCountFilteredClients(null, null, null, null, null);
+        Object returnedResult = clientRepository.queryCountFilteredClients(null, null, null, null, null, TotalMode.EXACT);
 
         // Verificamos se o resultado retornado é igual o esperado
         assertEquals(returnedResult, expectedResult.longValue());
@@ -1249,7 +1333,7 @@ class ClientRepositoryTest {
 
         // Afirmamos a exceção no método que estamos testando
         ClientErrorException exception = assertThrows(ClientErrorException.class,() -> {
-            clientRepository.queryCountFilteredClients(name, email, cpf, birthStart, birthEnd);
+            clientRepository.queryCountFilteredClients(name, email, cpf, birthStart, birthEnd, TotalMode.EXACT);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1298,18 +1382,21 @@ class ClientRepositoryTest {
         expectedClientPageDto.setItems(clientDtoList);
         expectedClientPageDto.setTotal(total);
 
+        GlobalPageDto<ClientDto> clientDtoPage = new GlobalPageDto<>();
+        clientDtoPage.setItems(clientDtoList);
+
         ClientRepository spyRepository = Mockito.spy(clientRepository);
 
         // Simulamos ter sucesso ao obter lista de clientes
-        doReturn(clientDtoList).when(spyRepository).queryFindFilteredClients(name, email, cpf,
-                birthStart, birthEnd, page, linesPerPage, direction, orderBy);
+        doReturn(clientDtoPage).when(spyRepository).queryFindFilteredClients(name, email, cpf,
+                birthStart, birthEnd, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT);
 
         // Simulamos ter sucesso ao obter o total de clientes
-        doReturn(total).when(spyRepository).queryCountFilteredClients(name, email, cpf, birthStart, birthEnd);
+        doReturn(total).when(spyRepository).queryCountFilteredClients(name, email, cpf, birthStart, birthEnd, TotalMode.EXACT);
 
         // Executamos o método que queremos testar
         GlobalPageDto<ClientDto> returnedClientPageDto = spyRepository.findFilteredClients(name, email, cpf,
-                birthStart, birthEnd, page, linesPerPage, direction, orderBy);
+                birthStart, birthEnd, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT);
 
         // Verificamos se o ClientPageDto retornado foi igual ao esperado
         assertNotNull(returnedClientPageDto);
@@ -1318,10 +1405,236 @@ class ClientRepositoryTest {
 
         // Verificamos se o método foi chamado como o esperado
         verify(spyRepository).queryCountFilteredClients(name, email, cpf,
-                birthStart, birthEnd);
+                birthStart, birthEnd, TotalMode.EXACT);
         verify(spyRepository).queryFindFilteredClients(name, email, cpf,
-                birthStart, birthEnd, page, linesPerPage, direction, orderBy);
+                birthStart, birthEnd, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT);
+    };
+
+    @Test
+    @DisplayName("Should return estimated total of filtered clients when total mode is estimate.")
+    void shouldReturnEstimatedTotalOfFilteredClientsWhenTotalModeIsEstimate() {
+        String name = "Rodrigo";
+
+        // Simulamos a estimativa do otimizador
+        when(rowCountEstimator.estimateRowCount(anyString(), any())).thenReturn(5000L);
+
+        Long returnedResult = clientRepository.queryCountFilteredClients(name, null, null, null, null, TotalMode.ESTIMATE);
+
+        // A estimativa é retornada sem executar o COUNT(*)
+        assertEquals(5000L, returnedResult);
+        verify(rowCountEstimator).estimateRowCount(anyString(), any());
+        verify(em, never()).createNativeQuery(anyString());
+    };
+
+    @Test
+    @DisplayName("Should fall back to exact count of filtered clients when estimate is unavailable.")
+    void shouldFallBackToExactCountOfFilteredClientsWhenEstimateIsUnavailable() {
+        String name = "Rodrigo";
+
+        // Simulamos que não há estimativa disponível
+        when(rowCountEstimator.estimateRowCount(anyString(), any())).thenReturn(null);
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("name", "%" + name + "%")).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(7);
+
+        Long returnedResult = clientRepository.queryCountFilteredClients(name, null, null, null, null, TotalMode.ESTIMATE);
+
+        // Verificamos que a contagem exata foi usada
+        assertEquals(7L, returnedResult);
+        verify(em).createNativeQuery(anyString());
+        verify(query).getSingleResult();
+    };
+
+    @Test
+    @DisplayName("Should return hasNext without total when total mode is none.")
+    void shouldReturnHasNextWithoutTotalWhenTotalModeIsNone() {
+        Integer page = 0;
+        Integer linesPerPage = 2;
+        String direction = "asc";
+        String orderBy = "name";
+
+        // A busca retorna uma linha a mais que o tamanho da página
+        List<ClientDto> clientDtoList = IntStream.range(0, 3).mapToObj(i -> {
+            ClientDto clientDto = new ClientDto();
+            clientDto.setName("Cliente " + i);
+            return clientDto;
+        }).collect(Collectors.toCollection(ArrayList::new));
+        GlobalPageDto<ClientDto> clientDtoPage = new GlobalPageDto<>();
+        clientDtoPage.setItems(clientDtoList);
+
+        ClientRepository spyRepository = Mockito.spy(clientRepository);
+
+        doReturn(clientDtoPage).when(spyRepository).queryFindFilteredClients(null, null, null,
+                null, null, page, linesPerPage, direction, orderBy, null, TotalMode.NONE);
+
+        GlobalPageDto<ClientDto> returnedClientPageDto = spyRepository.findFilteredClients(null, null, null,
+                null, null, page, linesPerPage, direction, orderBy, null, TotalMode.NONE);
+
+        // A linha extra é descartada e não há total
+        assertNull(returnedClientPageDto.getTotal());
+        assertTrue(returnedClientPageDto.getHasNext());
+        assertEquals(2, returnedClientPageDto.getItems().size());
+
+        // O COUNT(*) não é executado
+        verify(spyRepository, never()).queryCountFilteredClients(any(), any(), any(), any(), any(), any());
+    };
+
+    @Test
+    @DisplayName("Should return page and total in a single query when total mode is window.")
+    void shouldReturnPageAndTotalInASingleQueryWhenTotalModeIsWindow() {
+        // Cada linha traz a coluna COUNT(*) OVER() por último
+        List<Object[]> mockResultList = new ArrayList<>();
+        mockResultList.add(new Object[]{"Rodrigo", "rodrigo@gmail.com", "74624357051", Date.valueOf(LocalDate.of(1998, 10, 1)), 42L});
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("limit", 10)).thenReturn(query);
+        when(query.setParameter("offset", 0)).thenReturn(query);
+        when(query.getResultList()).thenReturn(mockResultList);
+
+        GlobalPageDto<ClientDto> returnedClientPageDto = clientRepository.findFilteredClients(null, null, null,
+                null, null, 0, 10, "asc", "name", null, TotalMode.WINDOW);
+
+        // O total vem da janela e a contagem separada não é executada
+        assertEquals(42L, returnedClientPageDto.getTotal());
+        assertEquals(1, returnedClientPageDto.getItems().size());
+
+        ArgumentCaptor<String> queryCaptor = ArgumentCaptor.forClass(String.class);
+        verify(em, times(1)).createNativeQuery(queryCaptor.capture());
+        assertTrue(queryCaptor.getValue().contains("COUNT(*) OVER()"));
+    };
+
+    @Test
+    @DisplayName("Should fall back to count query when window page is empty beyond the first page.")
+    void shouldFallBackToCountQueryWhenWindowPageIsEmptyBeyondTheFirstPage() {
+        GlobalPageDto<ClientDto> emptyPage = new GlobalPageDto<>();
+        emptyPage.setItems(new ArrayList<>());
+
+        ClientRepository spyRepository = Mockito.spy(clientRepository);
+
+        // Página além do fim: a janela não tem linha de onde tirar o total
+        doReturn(emptyPage).when(spyRepository).queryFindFilteredClients(null, null, null,
+                null, null, 5, 10, "asc", "name", null, TotalMode.WINDOW);
+        doReturn(3L).when(spyRepository).queryCountFilteredClients(null, null, null, null, null, TotalMode.WINDOW);
+
+        GlobalPageDto<ClientDto> returnedClientPageDto = spyRepository.findFilteredClients(null, null, null,
+                null, null, 5, 10, "asc", "name", null, TotalMode.WINDOW);
+
+        assertEquals(3L, returnedClientPageDto.getTotal());
+        verify(spyRepository).queryCountFilteredClients(null, null, null, null, null, TotalMode.WINDOW);
+    };
+
+    @Test
+    @DisplayName("Should serve repeated filtered client count from cache.")
+    void shouldServeRepeatedFilteredClientCountFromCache() {
+        String name = "Rodrigo";
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("name", "%" + name + "%")).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(7);
+
+        // Mesma combinação de filtros duas vezes
+        Long firstResult = clientRepository.queryCountFilteredClients(name, null, null, null, null, TotalMode.EXACT);
+        Long secondResult = clientRepository.queryCountFilteredClients(name, null, null, null, null, TotalMode.EXACT);
+
+        // O COUNT(*) roda uma única vez
+        assertEquals(7L, firstResult);
+        assertEquals(7L, secondResult);
+        verify(query, times(1)).getSingleResult();
     };
 
+    @Test
+    @DisplayName("Should recount filtered clients after a client is saved.")
+    void shouldRecountFilteredClientsAfterAClientIsSaved() {
+        ClientDto clientDto = new ClientDto();
+        clientDto.setName("Bruce Wayne");
+        clientDto.setEmail("brucewayne@gmail.com");
+        clientDto.setCpf("40177715057");
+        clientDto.setBirth(LocalDate.of(1972, 2, 19));
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(7, 8);
 
-}
\ No newline at end of file
+        Long countBeforeSave = clientRepository.queryCountFilteredClients(null, null, null, null, null, TotalMode.EXACT);
+        clientRepository.saveClient(clientDto);
+        Long countAfterSave = clientRepository.queryCountFilteredClients(null, null, null, null, null, TotalMode.EXACT);
+
+        // A escrita em tb_clients invalida a contagem em cache
+        assertEquals(7L, countBeforeSave);
+        assertEquals(8L, countAfterSave);
+        verify(filterCountCache).invalidate(FilterCountCache.TB_CLIENTS);
+        verify(query, times(2)).getSingleResult();
+    };
+
+    @Test
+    @DisplayName("Should reuse the same SQL template for the same combination of filters.")
+    void shouldReuseTheSameSqlTemplateForTheSameCombinationOfFilters() {
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(7, 3);
+
+        // Valores diferentes, mesmos filtros presentes
+        clientRepository.queryCountFilteredClients("Rodrigo", null, null, null, null, TotalMode.EXACT);
+        clientRepository.queryCountFilteredClients("Bruce", null, null, null, null, TotalMode.EXACT);
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(em, times(2)).createNativeQuery(sqlCaptor.capture());
+        List<String> sqls = sqlCaptor.getAllValues();
+
+        // O SQL é montado uma vez e a mesma instância é reaproveitada
+        assertSame(sqls.get(0), sqls.get(1));
+        assertTrue(sqls.get(0).contains("name LIKE :name"));
+    };
+
+
+    @Test
+    @DisplayName("Should answer existence from the id bitmap after the first database hit.")
+    void shouldAnswerClientExistenceFromBitmapAfterFirstHit() {
+        Long clientId = 70_000L;
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(eq("id"), eq(clientId))).thenReturn(query);
+        when(query.getResultList()).thenReturn(Arrays.asList(1));
+
+        assertTrue(clientRepository.existsClientById(clientId));
+        assertTrue(clientRepository.existsClientById(clientId));
+
+        // Só a primeira verificação foi ao banco
+        verify(em, times(1)).createNativeQuery(anyString());
+    }
+
+    @Test
+    @DisplayName("Should check the database again after the client is deleted.")
+    void shouldCheckDatabaseAgainAfterClientIsDeleted() {
+        Long clientId = 42L;
+        String cpf = "18068803009";
+        clientIdBitmap.add(clientId, clientIdBitmap.currentRemovals());
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(Arrays.asList());
+
+        clientRepository.deleteClientByCpf(cpf, clientId);
+
+        assertFalse(clientRepository.existsClientById(clientId));
+        verify(query).getResultList();
+    }
+
+    @Test
+    @DisplayName("Should reload the id bitmap from tb_clients, dropping ids deleted outside the application.")
+    void shouldReloadClientIdBitmapFromTable() {
+        clientIdBitmap.add(5L, clientIdBitmap.currentRemovals());
+
+        when(em.createNativeQuery(contains("SELECT id FROM tb_clients"))).thenReturn(query);
+        when(query.setHint(anyString(), any())).thenReturn(query);
+        when(query.getResultStream()).thenReturn(java.util.stream.Stream.of(1L, 2L, 65_537L));
+
+        clientRepository.reloadClientIdBitmap();
+
+        assertTrue(clientIdBitmap.contains(1L));
+        assertTrue(clientIdBitmap.contains(2L));
+        assertTrue(clientIdBitmap.contains(65_537L));
+        assertFalse(clientIdBitmap.contains(5L));
+        assertFalse(clientIdBitmap.contains(3L));
+    }
+}
@@ -0,0 +1,133 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rodrigopettenon.orderflow.dtos.IdempotentResponseDto;
+import com.rodrigopettenon.orderflow.dtos.StandardObjectReturn;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.services.IdempotencyService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Contra um banco de verdade (H2 no modo MySQL): com o EntityManager mockado, uma chave repetida nunca passa
+// pela transação que o Hibernate marca como rollback-only
+@DataJpaTest
+@Import({IdempotencyKeyRepository.class, IdempotencyService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyKeyRepositoryTest {
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> em.createNativeQuery("SET MODE MySQL").executeUpdate());
+    }
+
+    @Test
+    @DisplayName("Should return false for a repeated key without marking the transaction rollback-only")
+    void shouldReturnFalseForRepeatedKeyInsideTransaction() {
+        Boolean first = transaction.execute(status ->
+                idempotencyKeyRepository.reserveKey("order/save:repetida", "hash-a", LocalDateTime.now()));
+        Boolean repeated = transaction.execute(status ->
+                idempotencyKeyRepository.reserveKey("order/save:repetida", "hash-b", LocalDateTime.now()));
+
+        assertTrue(first);
+        assertFalse(repeated);
+        IdempotentResponseDto stored = idempotencyKeyRepository.findIdempotentResponse("order/save:repetida");
+        assertEquals("hash-a", stored.getRequestHash());
+        assertNull(stored.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should reject a key still reserved by another instance with a client error")
+    void shouldRejectKeyReservedByAnotherInstance() {
+        Map<String, Object> body = Map.of("clientId", 1);
+        transaction.execute(status ->
+                idempotencyKeyRepository.reserveKey("order/save:em-andamento", hashOf(body), LocalDateTime.now()));
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> idempotencyService.execute("em-andamento", "order/save", body, () -> {
+                    throw new AssertionError("A ação não deve ser executada com a chave reservada");
+                }));
+
+        assertEquals("Já existe uma requisição em andamento com esta Idempotency-Key.", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should replay the response stored by another instance")
+    void shouldReplayResponseStoredByAnotherInstance() {
+        Map<String, Object> body = Map.of("clientId", 1);
+        transaction.executeWithoutResult(status -> {
+            idempotencyKeyRepository.reserveKey("order/save:concluida", hashOf(body), LocalDateTime.now());
+            idempotencyKeyRepository.completeKey("order/save:concluida",
+                    new IdempotentResponseDto(hashOf(body), 201, "{\"status\":201,\"object\":\"pedido\"}"));
+        });
+
+        ResponseEntity<?> response = idempotencyService.execute("concluida", "order/save", body, () -> {
+            throw new AssertionError("A ação não deve ser executada numa repetição");
+        });
+
+        assertEquals(201, response.getStatusCode().value());
+        assertEquals("pedido", ((JsonNode) response.getBody()).get("object").asText());
+    }
+
+    @Test
+    @DisplayName("Should store the response and replay it for the same key and body")
+    void shouldStoreResponseAndReplayIt() {
+        Map<String, Object> body = Map.of("clientId", 1);
+
+        idempotencyService.execute("nova", "item-orders/save", body, () -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(new StandardObjectReturn(Instant.now(), HttpStatus.CREATED.value(), null, "item")));
+
+        IdempotentResponseDto stored = idempotencyKeyRepository.findIdempotentResponse("item-orders/save:nova");
+        assertEquals(hashOf(body), stored.getRequestHash());
+        assertEquals(201, stored.getStatus());
+    }
+
+    private String hashOf(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.rodrigopettenon.orderflow.dtos.ItemOrderDto;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.models.ItemOrderModel;
+import com.rodrigopettenon.orderflow.models.OrderModel;
+import com.rodrigopettenon.orderflow.models.ProductModel;
+import com.rodrigopettenon.orderflow.models.TotalMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemOrderRepositoryTest {
+
+    @InjectMocks
+    private ItemOrderRepository itemOrderRepository;
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private Query query;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private FilterCountCache filterCountCache = new FilterCountCache();
+
+    @Spy
+    private ExistenceMemo existenceMemo = new ExistenceMemo();
+
+    @Spy
+    private SqlTemplateCache sqlTemplateCache = new SqlTemplateCache();
+
+    // Método saveItemOrder
+    @Test
+    @DisplayName("Should merge concurrent item inserts into a single multi-row INSERT and commit")
+    void shouldGroupConcurrentItemOrderInsertsIntoOneInsert() throws Exception {
+        enableGroupCommit(3);
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+
+        List<Future<ItemOrderDto>> results = saveConcurrently(3);
+
+        List<UUID> savedIds = new ArrayList<>();
+        for (Future<ItemOrderDto> result : results) {
+            ItemOrderDto saved = result.get();
+            assertNotNull(saved.getId());
+            assertEquals(2, saved.getQuantity());
+            savedIds.add(saved.getId());
+        }
+        assertEquals(3, savedIds.stream().distinct().count());
+
+        // Um único INSERT com as três linhas e um único commit
+        verify(em, times(1)).createNativeQuery(contains(":id2"));
+        verify(query, times(1)).executeUpdate();
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should retry each row alone when the grouped insert fails, failing only the invalid row")
+    void shouldRetryRowsAloneWhenGroupedInsertFails() throws Exception {
+        enableGroupCommit(2);
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.executeUpdate())
+                .thenThrow(new PersistenceException("FK violada"))
+                .thenReturn(1)
+                .thenThrow(new PersistenceException("FK violada"));
+
+        List<Future<ItemOrderDto>> results = saveConcurrently(2);
+
+        int saved = 0;
+        int failed = 0;
+        for (Future<ItemOrderDto> result : results) {
+            try {
+                assertNotNull(result.get().getId());
+                saved++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(ClientErrorException.class, e.getCause());
+                assertEquals("Erro ao salvar o item do pedido no banco de dados.", e.getCause().getMessage());
+                failed++;
+            }
+        }
+        assertEquals(1, saved);
+        assertEquals(1, failed);
+        verify(query, times(3)).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("Should write an uncontended item at once instead of waiting for the group window")
+    void shouldWriteUncontendedItemOrderWithoutWaitingForTheWindow() {
+        ReflectionTestUtils.setField(itemOrderRepository, "groupCommitEnabled", true);
+        ReflectionTestUtils.setField(itemOrderRepository, "groupCommitWindowMs", 10_000L);
+        ReflectionTestUtils.setField(itemOrderRepository, "groupCommitMaxRows", 3);
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+
+        ItemOrderDto saved = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> itemOrderRepository.saveItemOrder(newItemOrderModel()));
+
+        assertNotNull(saved.getId());
+        verify(em).createNativeQuery(contains("VALUES (:id, :order_id"));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should insert the item directly when group commit is disabled")
+    void shouldInsertItemOrderDirectlyWhenGroupCommitIsDisabled() {
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+
+        ItemOrderDto saved = itemOrderRepository.saveItemOrder(newItemOrderModel());
+
+        assertNotNull(saved.getId());
+        verify(em).createNativeQuery(contains("VALUES (:id, :order_id"));
+        verify(query).executeUpdate();
+        // Sem transação do chamador, o INSERT abre e confirma a sua
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    // Método findFullDetailsItemOrders
+    @Test
+    @DisplayName("Should join in the deferred-join subquery only the tables used by the filters and the sort")
+    void shouldJoinOnlyNeededTablesInFullDetailsSubquery() {
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(new ArrayList<>());
+
+        itemOrderRepository.findFullDetailsItemOrders(null, UUID.randomUUID(), null, 7L, 0, 10,
+                "asc", "i.quantity", TotalMode.WINDOW);
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(em).createNativeQuery(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+        String subquery = sql.substring(sql.indexOf("FROM ("), sql.indexOf(") page"));
+
+        assertTrue(subquery.contains("JOIN tb_orders o"));
+        assertTrue(subquery.contains("i.product_id = :productId"));
+        assertFalse(subquery.contains("tb_products"));
+        assertFalse(subquery.contains("tb_clients"));
+        // A consulta externa ainda traz as colunas de produto, pedido e cliente
+        assertTrue(sql.contains("JOIN tb_products p ON p.id = i.product_id"));
+        assertTrue(sql.contains("JOIN tb_clients c ON c.id = o.client_id"));
+    }
+
+    @Test
+    @DisplayName("Should join the client table in the subquery when sorting by client name")
+    void shouldJoinClientsInFullDetailsSubqueryWhenSortingByClientName() {
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(new ArrayList<>());
+
+        itemOrderRepository.findFullDetailsItemOrders(null, null, null, null, 0, 10,
+                "asc", "c.name", TotalMode.WINDOW);
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(em).createNativeQuery(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+        String subquery = sql.substring(sql.indexOf("FROM ("), sql.indexOf(") page"));
+
+        assertTrue(subquery.contains("JOIN tb_orders o ON i.order_id = o.id"));
+        assertTrue(subquery.contains("JOIN tb_clients c ON o.client_id = c.id"));
+        assertFalse(subquery.contains("tb_products"));
+    }
+
+    private void enableGroupCommit(int maxRows) {
+        ReflectionTestUtils.setField(itemOrderRepository, "groupCommitEnabled", true);
+        // Janela longa e um grupo anterior ainda gravando: o grupo só fecha quando enche, o que deixa o teste
+        // determinístico
+        ReflectionTestUtils.setField(itemOrderRepository, "groupCommitWindowMs", 10_000L);
+        ReflectionTestUtils.setField(itemOrderRepository, "groupCommitMaxRows", maxRows);
+        ReflectionTestUtils.setField(itemOrderRepository, "flushingGroups", 1);
+    }
+
+    private List<Future<ItemOrderDto>> saveConcurrently(int callers) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Callable<ItemOrderDto>> calls = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                calls.add(() -> itemOrderRepository.saveItemOrder(newItemOrderModel()));
+            }
+            return executor.invokeAll(calls);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ItemOrderModel newItemOrderModel() {
+        OrderModel orderModel = new OrderModel();
+        orderModel.setId(UUID.randomUUID());
+
+        ProductModel productModel = new ProductModel();
+        productModel.setId(UUID.randomUUID());
+
+        ItemOrderModel itemOrderModel = new ItemOrderModel();
+        itemOrderModel.setOrder(orderModel);
+        itemOrderModel.setProduct(productModel);
+        itemOrderModel.setQuantity(2);
+        itemOrderModel.setPrice(10.0);
+        return itemOrderModel;
+    }
+}
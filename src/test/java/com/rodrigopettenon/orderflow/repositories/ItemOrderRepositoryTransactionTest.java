@@ -0,0 +1,77 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.rodrigopettenon.orderflow.dtos.ItemOrderDto;
+import com.rodrigopettenon.orderflow.models.ItemOrderModel;
+import com.rodrigopettenon.orderflow.models.OrderModel;
+import com.rodrigopettenon.orderflow.models.ProductModel;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Com um gerenciador de transações de verdade: com o EntityManager mockado, um INSERT chamado sem transação
+// (TransactionRequiredException) passa despercebido
+@DataJpaTest(properties = "orderflow.item-order-group-commit.enabled=false")
+@Import({ItemOrderRepository.class, ExistenceMemo.class, RowCountEstimator.class, FilterCountCache.class,
+        SqlTemplateCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ItemOrderRepositoryTransactionTest {
+
+    @Autowired
+    private ItemOrderRepository itemOrderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    @DisplayName("Should save an item order outside a transaction when group commit is disabled")
+    void shouldSaveItemOrderWithoutCallerTransactionWhenGroupCommitIsDisabled() {
+        UUID orderId = UUID.randomUUID();
+        UUID productId = UUID.randomUUID();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createNativeQuery(" INSERT INTO tb_clients (id, name, email, cpf, birth_date, row_version) "
+                    + " VALUES (1, 'João Silva', 'joao@gmail.com', '25654428071', :birth, 0) ")
+                    .setParameter("birth", LocalDate.of(1990, 1, 1)).executeUpdate();
+            em.createNativeQuery(" INSERT INTO tb_orders (id, client_id, order_date, status, row_version) "
+                    + " VALUES (:id, 1, :orderDate, 'PENDING', 0) ")
+                    .setParameter("id", orderId.toString())
+                    .setParameter("orderDate", LocalDateTime.now()).executeUpdate();
+            em.createNativeQuery(" INSERT INTO tb_products (id, name, sku, price, expiration_date, row_version) "
+                    + " VALUES (:id, 'Camiseta Polo', 'AB12CD34', 79.99, :expiration, 0) ")
+                    .setParameter("id", productId.toString())
+                    .setParameter("expiration", LocalDate.of(2030, 1, 1)).executeUpdate();
+        });
+
+        OrderModel order = new OrderModel();
+        order.setId(orderId);
+        ProductModel product = new ProductModel();
+        product.setId(productId);
+        ItemOrderModel itemOrderModel = new ItemOrderModel();
+        itemOrderModel.setOrder(order);
+        itemOrderModel.setProduct(product);
+        itemOrderModel.setQuantity(2);
+        itemOrderModel.setPrice(79.99);
+
+        ItemOrderDto saved = itemOrderRepository.saveItemOrder(itemOrderModel);
+
+        assertNotNull(saved.getId());
+        Number count = (Number) em.createNativeQuery(" SELECT COUNT(*) FROM tb_item_orders WHERE id = :id ")
+                .setParameter("id", saved.getId().toString()).getSingleResult();
+        assertEquals(1, count.intValue());
+    }
+}
@@ -0,0 +1,110 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.rodrigopettenon.orderflow.dtos.OrderDto;
+import com.rodrigopettenon.orderflow.repositories.OrderJournal.JournalEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should replay accepted orders that were not drained when the journal is reopened")
+    void shouldReplayUndrainedOrdersOnReopen() throws Exception {
+        Path file = tempDir.resolve("orders.journal");
+        OrderJournal journal = openJournal(file);
+
+        OrderDto first = newOrder();
+        OrderDto second = newOrder();
+        assertTrue(journal.append(first));
+        assertTrue(journal.append(second));
+
+        // Só o primeiro chegou a tb_orders antes de a aplicação parar
+        List<JournalEntry> batch = journal.takeBatch(1, Duration.ZERO);
+        journal.markDrained(batch);
+        assertNull(journal.findPendingOrder(first.getId()));
+
+        OrderJournal reopened = openJournal(file);
+
+        OrderDto replayed = reopened.findPendingOrder(second.getId());
+        assertNotNull(replayed);
+        assertEquals(second.getClientId(), replayed.getClientId());
+        assertEquals(second.getOrderDate(), replayed.getOrderDate());
+        assertEquals("PENDING", replayed.getStatus());
+        assertFalse(replayed.getPersisted());
+        assertNull(reopened.findPendingOrder(first.getId()));
+        assertEquals(1, reopened.takeBatch(10, Duration.ZERO).size());
+    }
+
+    @Test
+    @DisplayName("Should stop the replay at an entry whose CRC does not match")
+    void shouldIgnoreCorruptedEntryOnReplay() throws Exception {
+        Path file = tempDir.resolve("orders.journal");
+        OrderJournal journal = openJournal(file);
+
+        OrderDto valid = newOrder();
+        OrderDto corrupted = newOrder();
+        journal.append(valid);
+        journal.append(corrupted);
+
+        // Corrompe o último byte do payload da segunda entrada (escrita cortada no meio)
+        int secondEntryEnd = journal.takeBatch(10, Duration.ZERO).get(1).endPosition();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(secondEntryEnd - 1);
+            raf.write(0x7F);
+        }
+
+        OrderJournal reopened = openJournal(file);
+
+        assertNotNull(reopened.findPendingOrder(valid.getId()));
+        assertNull(reopened.findPendingOrder(corrupted.getId()));
+    }
+
+    @Test
+    @DisplayName("Should not replay entries from before the journal was rewound")
+    void shouldNotReplayDrainedEntriesAfterRewind() throws Exception {
+        Path file = tempDir.resolve("orders.journal");
+        OrderJournal journal = openJournal(file);
+
+        OrderDto drained = newOrder();
+        journal.append(drained);
+        journal.markDrained(journal.takeBatch(10, Duration.ZERO));
+
+        OrderJournal reopened = openJournal(file);
+
+        assertNull(reopened.findPendingOrder(drained.getId()));
+        assertFalse(reopened.hasUndrainedEntries());
+    }
+
+    private OrderJournal openJournal(Path file) throws Exception {
+        OrderJournal journal = new OrderJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "path", file.toString());
+        ReflectionTestUtils.setField(journal, "sizeMb", 1);
+        journal.open();
+        return journal;
+    }
+
+    private OrderDto newOrder() {
+        OrderDto order = new OrderDto();
+        order.setId(UUID.randomUUID());
+        order.setClientId(42L);
+        order.setOrderDate(LocalDateTime.of(2025, 11, 28, 10, 15, 30, 123_000_000));
+        order.setStatus("PENDING");
+        order.setPersisted(false);
+        return order;
+    }
+}
@@ -1,28 +1,43 @@
 package com.rodrigopettenon.orderflow.repositories;
 
+import com.rodrigopettenon.orderflow.dtos.GlobalFullDetailsDto;
+import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
 import com.rodrigopettenon.orderflow.dtos.OrderDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ClientModel;
 import com.rodrigopettenon.orderflow.models.OrderModel;
 import com.rodrigopettenon.orderflow.models.OrderStatus;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -40,6 +55,18 @@ class OrderRepositoryTest {
     @Mock
     private Query query;
 
+    @Spy
+    private FilterCountCache filterCountCache = new FilterCountCache();
+
+    @Spy
+    private ExistenceMemo existenceMemo = new ExistenceMemo();
+
+    @Spy
+    private OrderByIdCache orderByIdCache = new OrderByIdCache();
+
+    @Spy
+    private SqlTemplateCache sqlTemplateCache = new SqlTemplateCache();
+
     //Método saveOrder
     @Test
     @DisplayName("Should save a new order successfully and return the OrderDto")
@@ -137,15 +164,30 @@ class OrderRepositoryTest {
         when(query.executeUpdate()).thenReturn(1);
 
         // Act
-        orderRepository.updateStatusById(orderId, newStatus);
+        Boolean updated = orderRepository.updateStatusById(orderId, newStatus);
 
         // Assert
-        verify(em).createNativeQuery(anyString());
+        assertTrue(updated);
+        verify(em).createNativeQuery(contains("AND status = 'PENDING'"));
         verify(query).setParameter("newStatus", newStatus);
         verify(query).setParameter("id", orderId.toString());
         verify(query).executeUpdate();
     }
 
+    @Test
+    @DisplayName("Should return false when the conditional update affects no row")
+    void shouldReturnFalseWhenOrderIsNotPendingOnUpdateStatusById() {
+        UUID orderId = UUID.randomUUID();
+        OrderStatus newStatus = OrderStatus.COMPLETED;
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(0);
+
+        assertFalse(orderRepository.updateStatusById(orderId, newStatus));
+        verify(filterCountCache, never()).invalidate(any());
+    }
+
     @Test
     @DisplayName("Should throw ClientErrorException when an unexpected error occurs while updating order status by id")
     void shouldThrowClientErrorExceptionWhenErrorOccursOnUpdateStatusById() {
@@ -185,7 +227,8 @@ class OrderRepositoryTest {
                 orderId.toString(),
                 clientId,
                 Timestamp.valueOf(orderDate),
-                status
+                status,
+                0L
         };
 
         List<Object[]> resultList = new ArrayList<>();
@@ -211,8 +254,8 @@ class OrderRepositoryTest {
     }
 
     @Test
-    @DisplayName("Should throw ClientErrorException when order is not found by id")
-    void shouldThrowClientErrorExceptionWhenOrderNotFoundById() {
+    @DisplayName("Should return null when order is not found by id")
+    void shouldReturnNullWhenOrderNotFoundById() {
         // Arrange
         UUID orderId = UUID.randomUUID();
 
@@ -221,11 +264,7 @@ class OrderRepositoryTest {
         when(query.getResultList()).thenReturn(List.of()); // lista vazia
 
         // Act & Assert
-        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
-            orderRepository.findOrderById(orderId);
-        });
-
-        assertEquals("Pedido não encontrado com o id informado.", exception.getMessage());
+        assertNull(orderRepository.findOrderById(orderId));
 
         verify(em).createNativeQuery(anyString());
         verify(query).setParameter("id", orderId.toString());
@@ -254,5 +293,289 @@ class OrderRepositoryTest {
         verify(query).getResultList();
     }
 
+    //Método findFilteredOrdersDetails
+    @Test
+    @DisplayName("Should page the order details by item id before joining the wide columns")
+    void shouldPageOrderDetailsByItemIdBeforeJoiningTheWideColumns() {
+        // Arrange
+        UUID orderId = UUID.randomUUID();
+        LocalDateTime orderDate = LocalDateTime.of(2024, 5, 1, 14, 0);
+
+        List<Object[]> resultList = new ArrayList<>();
+        resultList.add(new Object[]{orderId.toString(), Timestamp.valueOf(orderDate), "PAID",
+                1L, "Bruce Wayne", "brucewayne@gmail.com", 2, 39.8, UUID.randomUUID().toString(),
+                Timestamp.valueOf(orderDate)});
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(resultList);
+
+        // Act
+        GlobalPageDto<GlobalFullDetailsDto> result = orderRepository.findFilteredOrdersDetails(null, 1L, null,
+                null, null, null, null, 0, 10, "desc", "o.order_date", null, TotalMode.NONE);
+
+        // Assert
+        assertEquals(1, result.getItems().size());
+        assertEquals(orderId, result.getItems().get(0).getOrder().getId());
+        assertEquals("Bruce Wayne", result.getItems().get(0).getClient().getName());
+        assertEquals(39.8, result.getItems().get(0).getItemOrder().getTotalPrice());
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(em).createNativeQuery(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+
+        // LIMIT fica na subconsulta estreita; o total_price só é calculado para as linhas da página
+        assertTrue(sql.indexOf("LIMIT :limit") < sql.indexOf(") page"));
+        assertTrue(sql.indexOf("ROUND(i.price * i.quantity, 2)") < sql.indexOf("SELECT i.id AS item_id"));
+        assertTrue(sql.contains("JOIN tb_clients c ON c.id = o.client_id"));
+    }
+
+    //Método saveOrdersBatch
+    @Test
+    @DisplayName("Should insert a batch of orders with a single multi-row statement and keep the input order")
+    void shouldInsertABatchOfOrdersWithASingleMultiRowStatement() {
+        // Arrange
+        ClientModel client = new ClientModel();
+        client.setId(1L);
+        LocalDateTime orderDate = LocalDateTime.of(2024, 5, 1, 14, 0);
+
+        List<OrderModel> orderModels = new ArrayList<>();
+        for (OrderStatus status : List.of(OrderStatus.COMPLETED, OrderStatus.PENDING, OrderStatus.CANCELLED)) {
+            OrderModel orderModel = new OrderModel();
+            orderModel.setClient(client);
+            orderModel.setOrderDate(orderDate);
+            orderModel.setStatus(status);
+            orderModels.add(orderModel);
+        }
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(3);
+
+        // Act
+        List<OrderDto> savedOrders = orderRepository.saveOrdersBatch(orderModels);
+
+        // Assert
+        assertEquals(3, savedOrders.size());
+        assertEquals("COMPLETED", savedOrders.get(0).getStatus());
+        assertEquals("CANCELLED", savedOrders.get(2).getStatus());
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(em, times(1)).createNativeQuery(sqlCaptor.capture());
+        assertTrue(sqlCaptor.getValue().contains("(:id2, :client_id2, :order_date2, :status2)"));
+        verify(query, times(1)).executeUpdate();
+        verify(query).setParameter("id1", savedOrders.get(1).getId().toString());
+        verify(filterCountCache).invalidate(FilterCountCache.TB_ORDERS);
+    }
+
+    //Método saveJournaledOrders
+    @Test
+    @DisplayName("Should ignore only repeated ids when writing journaled orders")
+    void shouldIgnoreOnlyRepeatedIdsWhenSavingJournaledOrders() {
+        OrderDto order = new OrderDto();
+        order.setId(UUID.randomUUID());
+        order.setClientId(1L);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus("PENDING");
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+
+        orderRepository.saveJournaledOrders(List.of(order));
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(em).createNativeQuery(sqlCaptor.capture());
+        // INSERT IGNORE também engoliria FK e NOT NULL; só o id repetido do replay pode ser ignorado
+        assertFalse(sqlCaptor.getValue().contains("IGNORE"));
+        assertTrue(sqlCaptor.getValue().contains("ON DUPLICATE KEY UPDATE id = id"));
+    }
+
+    @Test
+    @DisplayName("Should drop a cached order rewritten by the journal replay instead of caching the journal copy")
+    void shouldInvalidateCachedOrderWhenSavingJournaledOrders() {
+        UUID id = UUID.randomUUID();
+        OrderDto cached = new OrderDto();
+        cached.setId(id);
+        cached.setClientId(1L);
+        cached.setOrderDate(LocalDateTime.now());
+        cached.setStatus("PAID");
+        cached.setRowVersion(1L);
+        orderByIdCache.putAfterCommit(cached);
+
+        // Replay depois de uma queda: o journal ainda tem o pedido como PENDING
+        OrderDto journaled = new OrderDto();
+        journaled.setId(id);
+        journaled.setClientId(1L);
+        journaled.setOrderDate(cached.getOrderDate());
+        journaled.setStatus("PENDING");
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+
+        orderRepository.saveJournaledOrders(List.of(journaled));
+
+        assertNull(orderByIdCache.find(id));
+    }
+
+    @Test
+    @DisplayName("Should check an order id only once per request")
+    void shouldCheckOrderIdOnlyOncePerRequest() {
+        UUID orderId = UUID.randomUUID();
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("id", orderId.toString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(1));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertTrue(orderRepository.existsOrderById(orderId));
+            assertTrue(orderRepository.existsOrderById(orderId));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        verify(query, times(1)).getResultList();
+    }
+
+    @Test
+    @DisplayName("Should answer order and item order existence in one query and remember both answers")
+    void shouldPrefetchOrderExistenceInOneQuery() {
+        UUID orderId = UUID.randomUUID();
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("orderId", orderId.toString())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(new Object[]{1L, 0L});
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            orderRepository.prefetchOrderExistence(orderId);
+
+            assertTrue(orderRepository.existsOrderById(orderId));
+            assertTrue(existenceMemo.knows(ExistenceMemo.ITEM_ORDER_ORDER_ID, orderId));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        verify(em, times(1)).createNativeQuery(anyString());
+        verify(query, never()).getResultList();
+    }
+
+    @Test
+    @DisplayName("Should skip the prefetch outside of a request")
+    void shouldSkipPrefetchOutsideOfRequest() {
+        orderRepository.prefetchOrderExistence(UUID.randomUUID());
+
+        verifyNoInteractions(em);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads of the same order from the cache")
+    void shouldServeRepeatedFindOrderByIdFromCache() {
+        UUID orderId = UUID.randomUUID();
+        List<Object[]> resultList = new ArrayList<>();
+        resultList.add(new Object[]{orderId.toString(), 1L, Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 14, 0)),
+                OrderStatus.PENDING.toString(), 0L});
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("id", orderId.toString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(resultList);
+
+        OrderDto first = orderRepository.findOrderById(orderId);
+        first.setStatus(OrderStatus.CANCELLED.toString()); // alterar a cópia recebida não altera o cache
+        OrderDto second = orderRepository.findOrderById(orderId);
 
-}
\ No newline at end of file
+        assertEquals(OrderStatus.PENDING.toString(), second.getStatus());
+        verify(query, times(1)).getResultList();
+    }
+
+    @Test
+    @DisplayName("Should write the new status through to the cached order on updateStatusById")
+    void shouldWriteStatusThroughToCacheOnUpdateStatusById() {
+        UUID orderId = UUID.randomUUID();
+        OrderDto cached = new OrderDto();
+        cached.setId(orderId);
+        cached.setClientId(1L);
+        cached.setStatus(OrderStatus.PENDING.toString());
+        orderByIdCache.load(cached, orderByIdCache.currentVersion());
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(eq("newStatus"), eq(OrderStatus.COMPLETED))).thenReturn(query);
+        when(query.setParameter(eq("id"), eq(orderId.toString()))).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(1);
+
+        assertTrue(orderRepository.updateStatusById(orderId, OrderStatus.COMPLETED));
+
+        assertEquals(OrderStatus.COMPLETED.toString(), orderRepository.findOrderById(orderId).getStatus());
+        verify(query, never()).getResultList();
+    }
+
+    @Test
+    @DisplayName("Should not cache an order read before a concurrent write")
+    void shouldNotCacheOrderReadBeforeConcurrentWrite() {
+        UUID orderId = UUID.randomUUID();
+        OrderDto staleOrder = new OrderDto();
+        staleOrder.setId(orderId);
+        staleOrder.setStatus(OrderStatus.PENDING.toString());
+
+        long readVersion = orderByIdCache.currentVersion();
+        orderByIdCache.updateStatusAfterCommit(orderId, OrderStatus.CANCELLED.toString());
+        orderByIdCache.load(staleOrder, readVersion);
+
+        assertNull(orderByIdCache.find(orderId));
+    }
+
+    @Test
+    @DisplayName("Should answer the order ETag from the cache, following the status write-through")
+    void shouldFindOrderETagFromCacheAfterStatusUpdate() {
+        UUID orderId = UUID.randomUUID();
+        OrderDto cached = new OrderDto();
+        cached.setId(orderId);
+        cached.setStatus(OrderStatus.PENDING.toString());
+        cached.setRowVersion(0L);
+        orderByIdCache.load(cached, orderByIdCache.currentVersion());
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(eq("newStatus"), eq(OrderStatus.COMPLETED))).thenReturn(query);
+        when(query.setParameter(eq("id"), eq(orderId.toString()))).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(1);
+
+        assertEquals("W/\"" + orderId + "-0\"", orderRepository.findOrderETagById(orderId));
+        orderRepository.updateStatusById(orderId, OrderStatus.COMPLETED);
+
+        assertEquals("W/\"" + orderId + "-1\"", orderRepository.findOrderETagById(orderId));
+        verify(em).createNativeQuery(contains("row_version = row_version + 1"));
+        verify(query, never()).getResultList();
+    }
+
+    @Test
+    @DisplayName("Should return null as order ETag when the order does not exist")
+    void shouldReturnNullOrderETagWhenOrderDoesNotExist() {
+        UUID orderId = UUID.randomUUID();
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("id", orderId.toString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of());
+
+        assertNull(orderRepository.findOrderETagById(orderId));
+    }
+
+    @Test
+    @DisplayName("Should cache a count from a transaction under the table versions pinned when it began")
+    void shouldCacheCountUnderVersionsPinnedAtTransactionBegin() {
+        String countSql = " SELECT COUNT(*) FROM tb_orders o WHERE 1=1 ";
+        List<String> tables = List.of(FilterCountCache.TB_ORDERS);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            filterCountCache.afterBegin(mock(TransactionExecution.class), null);
+
+            // Escrita de outra transação confirmada depois do início, fora do snapshot desta leitura
+            CompletableFuture.runAsync(() -> filterCountCache.invalidate(FilterCountCache.TB_ORDERS)).join();
+
+            assertEquals(5L, filterCountCache.getOrCount(tables, countSql, Map.of(), () -> 5L));
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(6L, filterCountCache.getOrCount(tables, countSql, Map.of(), () -> 6L));
+    }
+}
@@ -0,0 +1,176 @@
+package com.rodrigopettenon.orderflow.repositories;
+
+import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
+import com.rodrigopettenon.orderflow.dtos.OrderDto;
+import com.rodrigopettenon.orderflow.models.TotalMode;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Busca paginada com o total na própria consulta (TotalMode.WINDOW, COUNT(*) OVER()) contra página + contagem
+// separada (TotalMode.EXACT), no MySQL. Fora da suíte normal: só roda com a URL de um schema dedicado, que é
+// semeado pelo benchmark/seed-orders.sql até cada tamanho pedido e reaproveitado nas execuções seguintes.
+//
+//   mvn test -Dtest=OrderRepositoryTotalModeBenchmark \
+//       -Dorderflow.benchmark.url="jdbc:mysql://localhost:3306/orderflow_bench?createDatabaseIfNotExist=true" \
+//       -Dorderflow.benchmark.rows=1000000,10000000
+//
+// Na contagem separada o FilterCountCache é invalidado a cada busca: mede a contagem indo ao banco, não o cache
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = OrderRepositoryTotalModeBenchmark.URL_PROPERTY, matches = ".+")
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=update", "spring.jpa.show-sql=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderRepository.class, ExistenceMemo.class, RowCountEstimator.class, FilterCountCache.class,
+        SqlTemplateCache.class, OrderByIdCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderRepositoryTotalModeBenchmark {
+
+    static final String URL_PROPERTY = "orderflow.benchmark.url";
+
+    private static final Logger log = LoggerFactory.getLogger(OrderRepositoryTotalModeBenchmark.class);
+
+    private static final int CLIENTS = 10_000;
+    private static final int SEED_BLOCK = 1_000_000;
+    private static final int LINES_PER_PAGE = 20;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private FilterCountCache filterCountCache;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @DynamicPropertySource
+    static void benchmarkDataSource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty(URL_PROPERTY));
+        registry.add("spring.datasource.username", () -> System.getProperty("orderflow.benchmark.username", "root"));
+        registry.add("spring.datasource.password", () -> System.getProperty("orderflow.benchmark.password", "root"));
+    }
+
+    @Test
+    @DisplayName("Benchmark: window total against page plus separate count")
+    void compareWindowTotalWithSeparateCount() throws SQLException {
+        for (long rows : benchmarkSizes()) {
+            seedOrders(rows);
+            Long clientId = ((Number) em.createNativeQuery(
+                    " SELECT MIN(id) FROM tb_clients WHERE email LIKE 'benchmark%@orderflow.test' ")
+                    .getSingleResult()).longValue();
+
+            List<Scenario> scenarios = List.of(
+                    new Scenario("sem filtro", null, null, null, null, 0),
+                    new Scenario("status", null, null, null, "PENDING", 0),
+                    new Scenario("status, página 500", null, null, null, "PENDING", 500),
+                    new Scenario("período de 30 dias", null, LocalDateTime.of(2024, 6, 1, 0, 0),
+                            LocalDateTime.of(2024, 7, 1, 0, 0), null, 0),
+                    new Scenario("cliente", clientId, null, null, null, 0));
+
+            for (Scenario scenario : scenarios) {
+                Result window = measure(scenario, TotalMode.WINDOW);
+                Result exact = measure(scenario, TotalMode.EXACT);
+                assertEquals(exact.total(), window.total(), "Os dois modos devem devolver o mesmo total");
+
+                log.info(String.format("%,12d pedidos | %-20s | window p50 %8.1f ms p95 %8.1f ms"
+                                + " | exact p50 %8.1f ms p95 %8.1f ms | total %,d",
+                        rows, scenario.name(), window.p50(), window.p95(), exact.p50(), exact.p95(), exact.total()));
+            }
+        }
+    }
+
+    private Result measure(Scenario scenario, TotalMode totalMode) {
+        List<Double> timings = new ArrayList<>();
+        Long total = null;
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            if (TotalMode.EXACT.equals(totalMode)) {
+                filterCountCache.invalidate(FilterCountCache.TB_ORDERS);
+            }
+            long start = System.nanoTime();
+            GlobalPageDto<OrderDto> page = orderRepository.findFilteredOrders(null, scenario.clientId(),
+                    scenario.dateTimeStart(), scenario.dateTimeEnd(), scenario.status(), scenario.page(),
+                    LINES_PER_PAGE, "desc", "order_date", null, totalMode);
+            long elapsed = System.nanoTime() - start;
+
+            if (run >= WARMUP_RUNS) {
+                timings.add(elapsed / 1_000_000.0);
+            }
+            total = page.getTotal();
+        }
+        Collections.sort(timings);
+        return new Result(percentile(timings, 50), percentile(timings, 95), total);
+    }
+
+    // Completa tb_orders até o tamanho pedido, em blocos de até um milhão de linhas por execução do script
+    private void seedOrders(long rows) throws SQLException {
+        long existing = ((Number) em.createNativeQuery(" SELECT COUNT(*) FROM tb_orders ").getSingleResult()).longValue();
+        try (Connection connection = dataSource.getConnection()) {
+            while (existing < rows) {
+                long block = Math.min(SEED_BLOCK, rows - existing);
+                setSessionVariable(connection, "clients", CLIENTS);
+                setSessionVariable(connection, "orders", block);
+                setSessionVariable(connection, "offset", existing);
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("benchmark/seed-orders.sql"));
+                existing += block;
+                log.info(String.format("Semeados %,d de %,d pedidos", existing, rows));
+            }
+        }
+    }
+
+    private void setSessionVariable(Connection connection, String name, long value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SET @" + name + " = ?")) {
+            statement.setLong(1, value);
+            statement.execute();
+        }
+    }
+
+    private List<Long> benchmarkSizes() {
+        return Arrays.stream(System.getProperty("orderflow.benchmark.rows", "1000000,10000000").split(","))
+                .map(String::trim)
+                .map(Long::parseLong)
+                .sorted()
+                .toList();
+    }
+
+    private double percentile(List<Double> sortedTimings, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedTimings.size()) - 1;
+        return sortedTimings.get(Math.max(index, 0));
+    }
+
+    private record Scenario(String name, Long clientId, LocalDateTime dateTimeStart, LocalDateTime dateTimeEnd,
+                            String status, int page) {
+    }
+
+    private record Result(double p50, double p95, Long total) {
+    }
+}
@@ -1,9 +1,11 @@
 package com.rodrigopettenon.orderflow.repositories;
 
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
+import com.rodrigopettenon.orderflow.dtos.ProductBulkResultDto;
 import com.rodrigopettenon.orderflow.dtos.ProductDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ProductModel;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import org.junit.jupiter.api.DisplayName;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -37,6 +40,18 @@ class ProductRepositoryTest {
     @Mock
     private Query query;
 
+    @Spy
+    private FilterCountCache filterCountCache = new FilterCountCache();
+
+    @Spy
+    private ExistenceMemo existenceMemo = new ExistenceMemo();
+
+    @Spy
+    private SqlTemplateCache sqlTemplateCache = new SqlTemplateCache();
+
+    @Spy
+    private ProductPriceSnapshot productPriceSnapshot = new ProductPriceSnapshot();
+
     // Método saveProduct
     @Test
     @DisplayName("Should save product successfully when insert query executes without errors")
@@ -258,7 +273,7 @@ class ProductRepositoryTest {
         when(query.getResultList()).thenReturn(mockResultList);
 
         // Executamos o método real do repositório
-        List<ProductDto> returnedProducts = productRepository.findAllProducts(page, linesPerPage, direction, orderBy);
+        List<ProductDto> returnedProducts = productRepository.findAllProducts(page, linesPerPage, direction, orderBy, null);
 
         // Verificamos se os resultados foram corretamente convertidos e retornados
         assertEquals(2, returnedProducts.size());
@@ -296,7 +311,7 @@ class ProductRepositoryTest {
         when(query.getResultList()).thenReturn(new ArrayList<>());
 
         // Executamos o método que queremos testar
-        List<ProductDto> returnedProducts = productRepository.findAllProducts(page, linesPerPage, direction, orderBy);
+        List<ProductDto> returnedProducts = productRepository.findAllProducts(page, linesPerPage, direction, orderBy, null);
 
         // Afirmamos que a lista é empty
         assertTrue(returnedProducts.isEmpty());
@@ -327,7 +342,7 @@ class ProductRepositoryTest {
 
         // Verificamos se a exceção ClientErrorException é lançada ao chamar o método
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
-            productRepository.findAllProducts(page, linesPerPage, direction, orderBy);
+            productRepository.findAllProducts(page, linesPerPage, direction, orderBy, null);
         });
 
         // Verificamos se a mensagem da exceção é a esperada
@@ -451,7 +466,8 @@ class ProductRepositoryTest {
                 name,
                 sku,
                 price,
-                java.sql.Date.valueOf(expiration)
+                java.sql.Date.valueOf(expiration),
+                2L
         };
 
         List<Object[]> simulatedResultList = new ArrayList<>();
@@ -468,6 +484,7 @@ class ProductRepositoryTest {
         // Verificamos se os dados retornados são exatamente os que simulamos
         assertEquals(productId, returnedProduct.getId());
         assertEquals(name, returnedProduct.getName());
+        assertEquals(2L, returnedProduct.getRowVersion());
         assertEquals(sku, returnedProduct.getSku());
         assertEquals(price, returnedProduct.getPrice());
         assertEquals(expiration, returnedProduct.getExpiration());
@@ -697,11 +714,12 @@ class ProductRepositoryTest {
         when(query.getResultList()).thenReturn(mockResultList);
 
         // Act - chamamos o método real do repositório
-        List<ProductDto> result = ReflectionTestUtils.invokeMethod(
+        GlobalPageDto<ProductDto> resultPage = ReflectionTestUtils.invokeMethod(
                 productRepository,
                 "queryFindFilteredProducts",
-                name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy
+                name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT
         );
+        List<ProductDto> result = resultPage.getItems();
 
         // Assert - verificamos o conteúdo da lista retornada
         assertEquals(2, result.size());
@@ -749,11 +767,12 @@ class ProductRepositoryTest {
         when(query.getResultList()).thenReturn(mockResultList);
 
         // Act - chamamos o método real protegido via ReflectionTestUtils
-        List<ProductDto> result = ReflectionTestUtils.invokeMethod(
+        GlobalPageDto<ProductDto> resultPage = ReflectionTestUtils.invokeMethod(
                 productRepository,
                 "queryFindFilteredProducts",
-                name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy
+                name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT
         );
+        List<ProductDto> result = resultPage.getItems();
 
         // Assert - verificamos o conteúdo da lista retornada
         assertEquals(2, result.size());
@@ -796,7 +815,7 @@ class ProductRepositoryTest {
                 ReflectionTestUtils.invokeMethod(
                         productRepository,
                         "queryFindFilteredProducts",
-                        name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy
+                        name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT
                 )
         );
 
@@ -829,7 +848,7 @@ class ProductRepositoryTest {
         when(query.getSingleResult()).thenReturn(expectedResult);
 
         // Executamos o método que queremos testar
-        Long returnedResult = productRepository.queryCountFilteredProducts(name, sku, minPrice, maxPrice);
+        Long returnedResult = productRepository.queryCountFilteredProducts(name, sku, minPrice, maxPrice, TotalMode.EXACT);
 
         // Verificamos se o resultado retornado é igual ao esperado
         assertEquals(expectedResult.longValue(), returnedResult);
@@ -867,7 +886,7 @@ class ProductRepositoryTest {
         Long result = ReflectionTestUtils.invokeMethod(
                 productRepository,
                 "queryCountFilteredProducts",
-                name, sku, minPrice, maxPrice
+                name, sku, minPrice, maxPrice, TotalMode.EXACT
         );
 
         // Assert - verifica se retornou o valor esperado
@@ -893,7 +912,7 @@ class ProductRepositoryTest {
 
         // Executamos o método e verificamos se a exceção esperada é lançada
         ClientErrorException thrownException = assertThrows(ClientErrorException.class, () ->
-                productRepository.queryCountFilteredProducts(name, sku, minPrice, maxPrice)
+                productRepository.queryCountFilteredProducts(name, sku, minPrice, maxPrice, TotalMode.EXACT)
         );
 
         // Verificamos se a mensagem da exceção é a esperada
@@ -935,6 +954,9 @@ class ProductRepositoryTest {
         filteredProducts.add(productDto1);
         filteredProducts.add(productDto2);
 
+        GlobalPageDto<ProductDto> filteredProductsPage = new GlobalPageDto<>();
+        filteredProductsPage.setItems(filteredProducts);
+
         // Simulamos total de itens filtrados
         Long totalFiltered = 2L;
 
@@ -942,15 +964,15 @@ class ProductRepositoryTest {
         ProductRepository spyRepository = Mockito.spy(productRepository);
 
         // Mockamos métodos protegidos para retornar valores simulados
-        doReturn(filteredProducts).when(spyRepository).queryFindFilteredProducts(
-                eq(name), eq(sku), eq(minPrice), eq(maxPrice), eq(page), eq(linesPerPage), eq(direction), eq(orderBy));
+        doReturn(filteredProductsPage).when(spyRepository).queryFindFilteredProducts(
+                eq(name), eq(sku), eq(minPrice), eq(maxPrice), eq(page), eq(linesPerPage), eq(direction), eq(orderBy), any(), any());
 
         doReturn(totalFiltered).when(spyRepository).queryCountFilteredProducts(
-                eq(name), eq(sku), eq(minPrice), eq(maxPrice));
+                eq(name), eq(sku), eq(minPrice), eq(maxPrice), any());
 
         // Act - chamamos o método real via spy
         GlobalPageDto<ProductDto> result = spyRepository.findFilteredProducts(
-                name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy);
+                name, sku, minPrice, maxPrice, page, linesPerPage, direction, orderBy, null, TotalMode.EXACT);
 
         // Assert - verifica se o resultado está correto
         assertNotNull(result);
@@ -959,10 +981,123 @@ class ProductRepositoryTest {
 
         // Verifica se os métodos protegidos foram chamados
         verify(spyRepository).queryFindFilteredProducts(
-                eq(name), eq(sku), eq(minPrice), eq(maxPrice), eq(page), eq(linesPerPage), eq(direction), eq(orderBy));
-        verify(spyRepository).queryCountFilteredProducts(eq(name), eq(sku), eq(minPrice), eq(maxPrice));
+                eq(name), eq(sku), eq(minPrice), eq(maxPrice), eq(page), eq(linesPerPage), eq(direction), eq(orderBy), any(), any());
+        verify(spyRepository).queryCountFilteredProducts(eq(name), eq(sku), eq(minPrice), eq(maxPrice), any());
     }
 
 
 
-}
\ No newline at end of file
+
+    // Método upsertProductsBySku
+    @Test
+    @DisplayName("Should classify SKUs with one lookup and upsert only new and changed products")
+    void shouldUpsertOnlyNewAndChangedProducts() {
+        ProductDto unchanged = new ProductDto();
+        unchanged.setName("Camiseta Polo");
+        unchanged.setSku("AB12CD34");
+        unchanged.setPrice(79.99);
+        unchanged.setExpiration(LocalDate.of(2026, 12, 31));
+
+        ProductDto changed = new ProductDto();
+        changed.setName("Calça Jeans");
+        changed.setSku("EF56GH78");
+        changed.setPrice(149.90);
+        changed.setExpiration(LocalDate.of(2026, 12, 31));
+
+        ProductDto inserted = new ProductDto();
+        inserted.setName("Boné Azul");
+        inserted.setSku("IJ90KL12");
+        inserted.setPrice(39.90);
+        inserted.setExpiration(LocalDate.of(2027, 6, 30));
+
+        Query lookupQuery = mock(Query.class);
+        when(em.createNativeQuery(contains("WHERE sku IN"))).thenReturn(lookupQuery);
+        when(lookupQuery.setParameter(eq("skus"), any())).thenReturn(lookupQuery);
+        List<Object[]> currentRows = new ArrayList<>();
+        currentRows.add(new Object[]{"Camiseta Polo", "AB12CD34", 79.99, Date.valueOf(LocalDate.of(2026, 12, 31))});
+        currentRows.add(new Object[]{"Calça Jeans", "EF56GH78", 129.90, Date.valueOf(LocalDate.of(2026, 12, 31))});
+        when(lookupQuery.getResultList()).thenReturn(currentRows);
+
+        when(em.createNativeQuery(contains("ON DUPLICATE KEY UPDATE"))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+
+        ProductBulkResultDto result = productRepository.upsertProductsBySku(List.of(unchanged, changed, inserted));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        verify(query, times(1)).executeUpdate();
+        verify(query).setParameter("sku0", "EF56GH78");
+        verify(query).setParameter("sku1", "IJ90KL12");
+        verify(query, never()).setParameter("sku2", "AB12CD34");
+        verify(em, never()).createNativeQuery(contains("SELECT 1 FROM tb_products WHERE sku"));
+    }
+
+    // Método findPriceById
+    @Test
+    @DisplayName("Should read the product price from tb_products once and then serve it from the snapshot")
+    void shouldServeProductPriceFromSnapshotAfterFirstRead() {
+        UUID id = UUID.randomUUID();
+        List<Object[]> resultList = new ArrayList<>();
+        resultList.add(new Object[]{"AB12CD34", 79.99});
+
+        when(em.createNativeQuery(contains("SELECT sku, price FROM tb_products"))).thenReturn(query);
+        when(query.setParameter("id", id.toString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(resultList);
+
+        assertEquals(79.99, productRepository.findPriceById(id));
+        assertEquals(79.99, productRepository.findPriceById(id));
+
+        verify(em, times(1)).createNativeQuery(anyString());
+    }
+
+    @Test
+    @DisplayName("Should write the new price through to the snapshot on update and drop it on delete")
+    void shouldKeepSnapshotInSyncWithUpdateAndDelete() {
+        UUID id = UUID.randomUUID();
+        productPriceSnapshot.load(id, "AB12CD34", 79.99, productPriceSnapshot.currentVersion());
+
+        ProductDto productDto = new ProductDto();
+        productDto.setName("Camiseta Polo");
+        productDto.setPrice(89.99);
+        productDto.setExpiration(LocalDate.of(2026, 12, 31));
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+
+        productRepository.updateProductBySku("AB12CD34", productDto);
+        assertEquals(89.99, productRepository.findPriceById(id));
+
+        productRepository.deleteProductBySku("AB12CD34");
+        assertNull(productPriceSnapshot.findPrice(id));
+    }
+
+    @Test
+    @DisplayName("Should not keep in the snapshot a price read before a concurrent update")
+    void shouldDiscardPriceLoadedBeforeConcurrentUpdate() {
+        UUID id = UUID.randomUUID();
+        productPriceSnapshot.load(id, "AB12CD34", 79.99, productPriceSnapshot.currentVersion());
+        productPriceSnapshot.removeAfterCommit("AB12CD34");
+
+        // Leitura do banco feita antes da escrita, colocada na snapshot depois dela
+        long staleVersion = productPriceSnapshot.currentVersion() - 1;
+        productPriceSnapshot.load(id, "AB12CD34", 79.99, staleVersion);
+
+        assertNull(productPriceSnapshot.findPrice(id));
+    }
+
+    @Test
+    @DisplayName("Should build the product ETag from id and row version only")
+    void shouldFindProductETagBySku() {
+        UUID productId = UUID.randomUUID();
+        List<Object[]> resultList = new ArrayList<>();
+        resultList.add(new Object[]{productId.toString(), 4L});
+
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter("sku", "ABC12345")).thenReturn(query);
+        when(query.getResultList()).thenReturn(resultList);
+
+        assertEquals("W/\"" + productId + "-4\"", productRepository.findProductETagBySku("ABC12345"));
+        verify(em).createNativeQuery(contains("SELECT id, row_version FROM tb_products"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.rodrigopettenon.orderflow.services;
+
+import com.rodrigopettenon.orderflow.dtos.ClientDto;
+import com.rodrigopettenon.orderflow.dtos.ClientImportJobDto;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.repositories.ClientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClientImportServiceTest {
+
+    @InjectMocks
+    private ClientImportService clientImportService;
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    // Executa o job na própria thread do teste
+    @Spy
+    private TaskExecutor taskExecutor = new SyncTaskExecutor();
+
+
+    @Test
+    @DisplayName("Should import valid rows and report invalid, duplicated and already registered rows by line.")
+    void shouldImportValidRowsAndReportRejectedRowsByLine() {
+        String csv = "id,name,email,cpf,birth_date\n"
+                + "1,João Silva,joao@gmail.com,256.544.280-71,1990-01-01\n"
+                + "2,Maria Souza,maria@gmail.com,123.456.789-00,1991-02-02\n"
+                + "3,\"Silva, João\",outro@gmail.com,25654428071,1992-03-03\n"
+                + "4,Ana Lima,ana@gmail.com,52998224725,1993-04-04\n"
+                + "5,Pedro Alves,pedro@gmail.com,11144477735,1994-05-05\n";
+        MockMultipartFile file = new MockMultipartFile("file", "clients.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        when(clientRepository.findExistingCpfs(anyCollection())).thenReturn(Set.of());
+        when(clientRepository.findExistingEmails(anyCollection())).thenReturn(Set.of("ana@gmail.com"));
+        when(clientRepository.findEmailsByCpfs(anyCollection()))
+                .thenReturn(Map.of("25654428071", "joao@gmail.com", "11144477735", "pedro@gmail.com"));
+
+        ClientImportJobDto started = clientImportService.startImport(file);
+        ClientImportJobDto job = clientImportService.findImportJob(started.getJobId());
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(5L, job.getProcessedRows());
+        assertEquals(2L, job.getImportedRows());
+        assertEquals(3L, job.getRejectedRows());
+        assertEquals(3, job.getRejections().get(0).getIndex());
+        assertEquals("O CPF do cliente é inválido.", job.getRejections().get(0).getError());
+        assertEquals(4, job.getRejections().get(1).getIndex());
+        assertEquals("O CPF do cliente está duplicado no arquivo.", job.getRejections().get(1).getError());
+        assertEquals(5, job.getRejections().get(2).getIndex());
+        assertEquals("O email do cliente já está cadastrado.", job.getRejections().get(2).getError());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ClientDto>> captor = ArgumentCaptor.forClass(List.class);
+        verify(clientRepository, times(1)).saveClientsBatch(captor.capture());
+        List<ClientDto> saved = captor.getValue();
+        assertEquals(2, saved.size());
+        assertEquals("25654428071", saved.get(0).getCpf());
+        assertEquals(LocalDate.of(1990, 1, 1), saved.get(0).getBirth());
+        assertEquals("pedro@gmail.com", saved.get(1).getEmail());
+        verify(clientRepository, never()).existsClientByCpf(any());
+    }
+
+    @Test
+    @DisplayName("Should reject only the rows taken by a concurrent save between the check and the insert.")
+    void shouldRejectOnlyRowsTakenByConcurrentSave() {
+        String csv = "name,email,cpf,birth_date\n"
+                + "João Silva,joao@gmail.com,25654428071,1990-01-01\n"
+                + "Ana Lima,ana@gmail.com,52998224725,1993-04-04\n"
+                + "Pedro Alves,pedro@gmail.com,11144477735,1994-05-05\n";
+        MockMultipartFile file = new MockMultipartFile("file", "clients.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        when(clientRepository.findExistingCpfs(anyCollection())).thenReturn(Set.of());
+        when(clientRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+        // Depois da conferência, outro cadastro gravou o CPF da Ana (com outro email) e o email do Pedro
+        when(clientRepository.findEmailsByCpfs(anyCollection()))
+                .thenReturn(Map.of("25654428071", "joao@gmail.com", "52998224725", "ana.lima@gmail.com"));
+
+        ClientImportJobDto started = clientImportService.startImport(file);
+        ClientImportJobDto job = clientImportService.findImportJob(started.getJobId());
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(1L, job.getImportedRows());
+        assertEquals(2L, job.getRejectedRows());
+        assertEquals(3, job.getRejections().get(0).getIndex());
+        assertEquals("O CPF do cliente já está cadastrado.", job.getRejections().get(0).getError());
+        assertEquals(4, job.getRejections().get(1).getIndex());
+        assertEquals("O email do cliente já está cadastrado.", job.getRejections().get(1).getError());
+        verify(clientRepository, times(1)).saveClientsBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Should reject a CSV without the required columns before starting the job.")
+    void shouldRejectCsvWithoutRequiredColumns() {
+        MockMultipartFile file = new MockMultipartFile("file", "clients.csv", "text/csv",
+                "name,email\nJoão Silva,joao@gmail.com\n".getBytes(StandardCharsets.UTF_8));
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> clientImportService.startImport(file));
+
+        assertEquals("O cabeçalho do CSV deve conter as colunas: name, email, cpf, birth_date", exception.getMessage());
+        verifyNoInteractions(taskExecutor, clientRepository);
+    }
+}
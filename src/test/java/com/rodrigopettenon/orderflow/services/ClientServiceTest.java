@@ -1,6 +1,8 @@
 package com.rodrigopettenon.orderflow.services;
 
 import com.rodrigopettenon.orderflow.dtos.ClientDto;
+import com.rodrigopettenon.orderflow.models.TotalMode;
+import com.rodrigopettenon.orderflow.dtos.CursorDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.repositories.ClientRepository;
@@ -17,7 +19,11 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.decodeCursor;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.encodeCursor;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -49,8 +55,7 @@ class ClientServiceTest {
         dto.setBirth(LocalDate.of(1990, 1, 1));
 
         // Soimulando comportamento dos métodos que consultam se o email ou cpf já existem
-        when(clientRepository.existsClientByEmail("joao@gmail.com")).thenReturn(false);
-        when(clientRepository.existsClientByCpf("25654428071")).thenReturn(false);
+        when(clientRepository.saveClient(dto)).thenReturn(true);
 
         // Act (Ação que você quer testar)
         clientService.save(dto);
@@ -58,6 +63,8 @@ class ClientServiceTest {
 
         // Assert (Verificação do comportamento esperado)
         verify(clientRepository).saveClient(dto);
+        verify(clientRepository, never()).existsClientByEmail(any());
+        verify(clientRepository, never()).existsClientByCpf(any());
     }
 
     @Test
@@ -161,7 +168,9 @@ class ClientServiceTest {
         dto.setCpf("256.544.280-71");
         dto.setBirth(LocalDate.of(1990, 1, 1));
 
-        // Simulando que o CPF já está cadastrado
+        // Simulando que o INSERT foi recusado pela coluna única e o CPF já está cadastrado
+        when(clientRepository.saveClient(dto)).thenReturn(false);
+        when(clientRepository.existsClientByEmail("joao@gmail.com")).thenReturn(false);
         when(clientRepository.existsClientByCpf("25654428071")).thenReturn(true);
 
         // Act & Assert (executar e verificar se lança exceção)
@@ -171,9 +180,6 @@ class ClientServiceTest {
 
         // Assert (verificar a mensagem da exceção)
         assertEquals("O CPF do cliente já está cadastrado.", exception.getMessage());
-
-        // Verifica que o método saveClient não foi chamado
-        verify(clientRepository, never()).saveClient(any());
     }
 
     @Test
@@ -253,8 +259,9 @@ class ClientServiceTest {
         dto.setCpf("256.544.280-71");
         dto.setBirth(LocalDate.of(1990, 1, 1));
 
-        // Simulando que o repositório já tem o Email cadastrado
-       when(clientRepository.existsClientByEmail("joao@gmail.com")).thenReturn(true);
+        // Simulando que o INSERT foi recusado e o repositório já tem o Email cadastrado
+        when(clientRepository.saveClient(dto)).thenReturn(false);
+        when(clientRepository.existsClientByEmail("joao@gmail.com")).thenReturn(true);
 
         // Act & Assert (espera lançar a exceção com a mensagem correta)
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -263,9 +270,7 @@ class ClientServiceTest {
 
         // Verifica se a mensagem é exatamente a esperada
         assertEquals("O email do cliente já está cadastrado.", exception.getMessage());
-
-        // Verifica que o método saveClient não foi chamado (porque falhou antes)
-        verify(clientRepository, never()).saveClient(any());
+        verify(clientRepository, never()).existsClientByCpf(any());
     }
 
     @Test
@@ -880,13 +885,13 @@ class ClientServiceTest {
         String cpf = "25654428071"; // CPF normalizado e válido
 
         // Simulamos que o CPF existe no nosso banco
-        when(clientRepository.existsClientByCpf(cpf)).thenReturn(true);
+        when(clientRepository.findClientIdByCpf(cpf)).thenReturn(7L);
 
         // executamos a ação que queremos testar
         clientService.deleteByCpf(cpf);
 
-        // Confirmamos que o repository foi usado porque tudo deu certo
-        verify(clientRepository).deleteClientByCpf(cpf);
+        // Confirmamos que o repository foi usado porque tudo deu certo (com o id, para o bitmap de ids)
+        verify(clientRepository).deleteClientByCpf(cpf, 7L);
     }
 
 
@@ -897,7 +902,7 @@ class ClientServiceTest {
         String cpf = "16465154048"; // CPF válido e normalizado "que trataremos como inexistente"
 
         // Simulamos que o CPF não existe no banco
-        when(clientRepository.existsClientByCpf(cpf)).thenReturn(false);
+        when(clientRepository.findClientIdByCpf(cpf)).thenReturn(null);
 
         // Afirmamos que houve uma exceção pois o CPF não existe no banco
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -908,7 +913,7 @@ class ClientServiceTest {
         assertEquals("Nenhum cliente cadastrado com esse CPF.", exception.getMessage());
 
         // Verificamos que o método do repository não foi usado (porque falhou antes)
-        verify(clientRepository, never()).deleteClientByCpf(any());
+        verify(clientRepository, never()).deleteClientByCpf(any(), any());
     }
 
     @Test
@@ -926,7 +931,7 @@ class ClientServiceTest {
         assertEquals("O CPF do cliente é inválido.", exception.getMessage());
 
         // Verificamos que o método do repository não foi usado (porque falhou antes)
-        verify(clientRepository, never()).deleteClientByCpf(any());
+        verify(clientRepository, never()).deleteClientByCpf(any(), any());
     }
 
     @Test
@@ -944,7 +949,7 @@ class ClientServiceTest {
         assertEquals("O CPF do cliente é obrigatório.", exception.getMessage());
 
         // Verificamos que o método do repository nunca foi usado (porque falhou antes)
-        verify(clientRepository, never()).deleteClientByCpf(any());
+        verify(clientRepository, never()).deleteClientByCpf(any(), any());
     }
 
     @Test
@@ -962,7 +967,7 @@ class ClientServiceTest {
         assertEquals("O CPF do cliente é obrigatório.", exception.getMessage());
 
         // Verificamos que o método do repository não foi usado (porque falhou antes)
-        verify(clientRepository, never()).deleteClientByCpf(any());
+        verify(clientRepository, never()).deleteClientByCpf(any(), any());
     }
 
     // Método findFilteredClients
@@ -1001,11 +1006,11 @@ class ClientServiceTest {
 
         // Simulamos que o nosso método retornou a page esperada
         when(clientRepository.findFilteredClients(name, email, cpf, birthStart, birthEnd,
-                page, linesPerPage, direction, orderBy)).thenReturn(expectedPageDto);
+                page, linesPerPage, direction, orderBy, null, TotalMode.EXACT)).thenReturn(expectedPageDto);
 
         // Executamos o método que queremos testar
         GlobalPageDto<ClientDto> returnedPageDto = clientService.findFilteredClients(name, email, cpf, birthStart, birthEnd,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos se a page esperada é igual a retornada
         assertEquals(expectedPageDto.getTotal(), returnedPageDto.getTotal());
@@ -1017,7 +1022,7 @@ class ClientServiceTest {
 
         // Verificamos que o repository foi usado pois todos os filtros foram preenchidos corretamente
         verify(clientRepository).findFilteredClients(name, email, cpf, birthStart, birthEnd,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, TotalMode.EXACT);
     }
 
     @Test
@@ -1037,7 +1042,7 @@ class ClientServiceTest {
         // Afirmamos exceção pois o filtro CPF inválido
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
            clientService.findFilteredClients(name, email, cpf, birthStart, birthEnd,
-                   page, linesPerPage, direction, orderBy);
+                   page, linesPerPage, direction, orderBy, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1045,7 +1050,7 @@ class ClientServiceTest {
 
         // Verificamos que o método do repository não foi usado (porque falhou antes)
         verify(clientRepository, never()).findFilteredClients(any(),any(), any(), any(),
-                any(), any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1065,7 +1070,7 @@ class ClientServiceTest {
         // Afirmamos exceção pois o filtro de inicio de data de nascimento está no futuro
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             clientService.findFilteredClients(name, email, cpf, birthStart, birthEnd,
-                    page, linesPerPage, direction, orderBy);
+                    page, linesPerPage, direction, orderBy, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1073,7 +1078,7 @@ class ClientServiceTest {
 
         // Verificamos que o método do repository não foi usado (porque falhou antes)
         verify(clientRepository, never()).findFilteredClients(any(),any(), any(), any(),
-                any(), any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any(), any());
 
     }
 
@@ -1094,7 +1099,7 @@ class ClientServiceTest {
         // Afirmamos exceção pois o filtro de inicio de data de nascimento está no futuro
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             clientService.findFilteredClients(name, email, cpf, birthStart, birthEnd,
-                    page, linesPerPage, direction, orderBy);
+                    page, linesPerPage, direction, orderBy, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1102,7 +1107,7 @@ class ClientServiceTest {
 
         // Verificamos que o método do repository não foi usado (porque falhou antes)
         verify(clientRepository, never()).findFilteredClients(any(),any(), any(), any(),
-                any(), any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any(), any());
 
     }
 
@@ -1123,7 +1128,7 @@ class ClientServiceTest {
         // Afirmamos exceção pois o filtro de data de nascimento início é posterior a data final
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             clientService.findFilteredClients(name, email, cpf, birthStart, birthEnd,
-                    page, linesPerPage, direction, orderBy);
+                    page, linesPerPage, direction, orderBy, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1131,7 +1136,7 @@ class ClientServiceTest {
 
         // Verificamos que o método do repository não foi usado (porque falhou antes)
         verify(clientRepository, never()).findFilteredClients(any(),any(), any(), any(),
-                any(), any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any(), any());
 
     }
 
@@ -1146,16 +1151,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy)))
+                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Assert: garante que o fallback para "asc" foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy));
+                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1169,16 +1174,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy)))
+                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Assert: garante que o fallback para "asc" foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy));
+                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1192,16 +1197,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq(direction), eq("name")))
+                eq(page), eq(linesPerPage), eq(direction), eq("name"), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Assert: garante que o fallback para "name" foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq(direction), eq("name"));
+                eq(page), eq(linesPerPage), eq(direction), eq("name"), any(), any());
     }
 
     @Test
@@ -1215,16 +1220,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq(direction), eq("name")))
+                eq(page), eq(linesPerPage), eq(direction), eq("name"), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Assert: garante que o fallback para "name" foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq(direction), eq("name"));
+                eq(page), eq(linesPerPage), eq(direction), eq("name"), any(), any());
     }
 
 
@@ -1239,16 +1244,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), any(), any(), any(),
-                eq(0), eq(linesPerPage), eq(direction), eq(orderBy)))
+                eq(0), eq(linesPerPage), eq(direction), eq(orderBy), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Assert: garante que o fallback para 0 foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), any(), any(), any(),
-                eq(0), eq(linesPerPage), eq(direction), eq(orderBy));
+                eq(0), eq(linesPerPage), eq(direction), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1262,16 +1267,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), any(), any(), any(),
-                eq(0), eq(linesPerPage), eq(direction), eq(orderBy)))
+                eq(0), eq(linesPerPage), eq(direction), eq(orderBy), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Assert: garante que o fallback para 0 foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), any(), any(), any(),
-                eq(0), eq(linesPerPage), eq(direction), eq(orderBy));
+                eq(0), eq(linesPerPage), eq(direction), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1285,16 +1290,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(10), eq(direction), eq(orderBy)))
+                eq(page), eq(10), eq(direction), eq(orderBy), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Assert: garante que o fallback para 10 foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(10), eq(direction), eq(orderBy));
+                eq(page), eq(10), eq(direction), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1308,16 +1313,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(10), eq(direction), eq(orderBy)))
+                eq(page), eq(10), eq(direction), eq(orderBy), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Assert: garante que o fallback para 10 foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), any(), any(), any(),
-                eq(page), eq(10), eq(direction), eq(orderBy));
+                eq(page), eq(10), eq(direction), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1328,16 +1333,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(eq(null), any(), any(), any(), any(),
-                any(), any(), any(), any()))
+                any(), any(), any(), any(), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(name, null, null, null, null,
-                null, null, null, null);
+                null, null, null, null, null, null);
 
         // Assert: garante que o fallback para null foi aplicado
         verify(clientRepository).findFilteredClients(eq(null), any(), any(), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1348,16 +1353,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), eq(null), any(), any(), any(),
-                any(), any(), any(), any()))
+                any(), any(), any(), any(), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, email, null, null, null,
-                null, null, null, null);
+                null, null, null, null, null, null);
 
         // Assert: garante que o fallback para null foi aplicado
         verify(clientRepository).findFilteredClients(any(), eq(null), any(), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1368,16 +1373,16 @@ class ClientServiceTest {
 
         // Simuala retorno do repository com direction padrão aplicado
         when(clientRepository.findFilteredClients(any(), any(), eq(null), any(), any(),
-                any(), any(), any(), any()))
+                any(), any(), any(), any(), any(), any()))
                 .thenReturn(new GlobalPageDto<>());
 
         // Act
         clientService.findFilteredClients(null, null, cpf, null, null,
-                null, null, null, null);
+                null, null, null, null, null, null);
 
         // Assert: garante que o fallback para null foi aplicado
         verify(clientRepository).findFilteredClients(any(), any(), eq(null), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     //findAllClients
@@ -1390,10 +1395,112 @@ class ClientServiceTest {
         String direction = "asc"; // direction válido
         String orderBy = "name"; // ORDER BY válido
 
-        clientService.findAllClients(page, linesPerPage, direction, orderBy);
+        clientService.findAllClients(page, linesPerPage, direction, orderBy, null);
+
+        verify(clientRepository).findAllClients(page, linesPerPage, direction, orderBy, null);
+    }
+
+    @Test
+    @DisplayName("Should return next cursor breaking ties by CPF when the page is full.")
+    void shouldReturnNextCursorBreakingTiesByCpfWhenThePageIsFull() {
+        // Arrange - página cheia com dois clientes de mesmo nome
+        ClientDto firstClient = new ClientDto();
+        firstClient.setName("Maria Souza");
+        firstClient.setCpf("18068803009");
+        ClientDto lastClient = new ClientDto();
+        lastClient.setName("Maria Souza");
+        lastClient.setCpf("40177715057");
+
+        when(clientRepository.findAllClients(0, 2, "asc", "name", null))
+                .thenReturn(List.of(firstClient, lastClient));
+
+        // Act
+        GlobalPageDto<ClientDto> returnedPageDto = clientService.findAllClients(0, 2, "asc", "name", null);
+
+        // Assert - o cursor aponta para o último cliente (nome + CPF)
+        CursorDto nextCursor = decodeCursor(returnedPageDto.getNextCursor());
+        assertEquals("name", nextCursor.getOrderBy());
+        assertEquals("asc", nextCursor.getDirection());
+        assertEquals("Maria Souza", nextCursor.getSortValue());
+        assertEquals("40177715057", nextCursor.getLastKey());
+    }
+
+    @Test
+    @DisplayName("Should not return next cursor when the page is not full.")
+    void shouldNotReturnNextCursorWhenThePageIsNotFull() {
+        // Arrange
+        when(clientRepository.findAllClients(0, 10, "asc", "name", null))
+                .thenReturn(List.of(new ClientDto()));
+
+        // Act
+        GlobalPageDto<ClientDto> returnedPageDto = clientService.findAllClients(0, 10, "asc", "name", null);
 
-        verify(clientRepository).findAllClients(page, linesPerPage, direction, orderBy);
+        // Assert
+        assertNull(returnedPageDto.getNextCursor());
     }
 
+    @Test
+    @DisplayName("Should pass decoded cursor to repository when cursor matches ordering.")
+    void shouldPassDecodedCursorToRepositoryWhenCursorMatchesOrdering() {
+        // Arrange
+        String cursor = encodeCursor("birth_date", "desc", LocalDate.of(1990, 1, 1), "18068803009");
+
+        // Act
+        clientService.findAllClients(0, 10, "desc", "birth_date", cursor);
+
+        // Assert
+        verify(clientRepository).findAllClients(eq(0), eq(10), eq("desc"), eq("birth_date"),
+                argThat(c -> "1990-01-01".equals(c.getSortValue()) && "18068803009".equals(c.getLastKey())));
+    }
+
+    @Test
+    @DisplayName("Should not count all clients again when paging by cursor.")
+    void shouldNotCountAllClientsWhenPagingByCursor() {
+        // Arrange
+        String cursor = encodeCursor("name", "asc", "Maria", "18068803009");
+
+        // Act
+        GlobalPageDto<ClientDto> returnedPageDto = clientService.findAllClients(0, 10, "asc", "name", cursor);
+
+        // Assert
+        assertNull(returnedPageDto.getTotal());
+        verify(clientRepository, never()).countTotalClients();
+    }
+
+    @Test
+    @DisplayName("Should throw exception when cursor does not match the requested ordering.")
+    void shouldThrowExceptionWhenCursorDoesNotMatchTheRequestedOrdering() {
+        // Arrange - cursor gerado ordenando por email, requisição ordenando por nome
+        String cursor = encodeCursor("email", "asc", "maria@gmail.com", "18068803009");
+
+        // Act & Assert
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
+                clientService.findFilteredClients(null, null, null, null, null, 0, 10, "asc", "name", cursor, null));
+
+        assertEquals("O cursor informado não corresponde à ordenação solicitada.", exception.getMessage());
+        verify(clientRepository, never()).findFilteredClients(any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should pass total mode none to repository and skip next cursor on the last page.")
+    void shouldPassTotalModeNoneToRepositoryAndSkipNextCursorOnTheLastPage() {
+        // Arrange - última página sem total
+        GlobalPageDto<ClientDto> pageDto = new GlobalPageDto<>();
+        pageDto.setItems(List.of(new ClientDto()));
+        pageDto.setHasNext(false);
+
+        when(clientRepository.findFilteredClients(null, null, null, null, null, 0, 1, "asc", "name", null, TotalMode.NONE))
+                .thenReturn(pageDto);
+
+        // Act - o valor do parâmetro total não diferencia maiúsculas
+        GlobalPageDto<ClientDto> returnedPageDto = clientService.findFilteredClients(null, null, null, null, null,
+                0, 1, "asc", "name", null, "None");
+
+        // Assert
+        assertNull(returnedPageDto.getTotal());
+        assertFalse(returnedPageDto.getHasNext());
+        assertNull(returnedPageDto.getNextCursor());
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,165 @@
+package com.rodrigopettenon.orderflow.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.rodrigopettenon.orderflow.dtos.IdempotentResponseDto;
+import com.rodrigopettenon.orderflow.dtos.StandardObjectReturn;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.repositories.IdempotencyKeyRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private static final Map<String, Object> ORDER_BODY = Map.of("clientId", 1, "status", "PROCESSING");
+
+    @Test
+    @DisplayName("Should return the original response for a repeated key without running the action or touching the database")
+    void shouldReplayOriginalResponseForRepeatedKey() {
+        AtomicInteger executions = new AtomicInteger();
+        Supplier<ResponseEntity<StandardObjectReturn>> action = () -> ResponseEntity.ok().body(
+                new StandardObjectReturn(Instant.now(), HttpStatus.CREATED.value(), null, "pedido-" + executions.incrementAndGet()));
+
+        when(idempotencyKeyRepository.reserveKey(eq("order/save:abc-123"), any(), any())).thenReturn(true);
+
+        ResponseEntity<?> first = idempotencyService.execute("abc-123", "order/save", ORDER_BODY, action);
+        ResponseEntity<?> repeated = idempotencyService.execute("abc-123", "order/save", ORDER_BODY, action);
+
+        assertEquals(1, executions.get());
+        assertEquals(200, repeated.getStatusCode().value());
+        assertEquals("true", repeated.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        JsonNode body = (JsonNode) repeated.getBody();
+        assertEquals("pedido-1", body.get("object").asText());
+        assertEquals(201, body.get("status").asInt());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+
+        // A repetição saiu do cache: uma só reserva e uma só gravação da resposta
+        verify(idempotencyKeyRepository, times(1)).reserveKey(any(), any(), any());
+        verify(idempotencyKeyRepository, times(1)).completeKey(eq("order/save:abc-123"), any(IdempotentResponseDto.class));
+        verify(idempotencyKeyRepository, never()).findIdempotentResponse(any());
+    }
+
+    @Test
+    @DisplayName("Should reply with the stored response when the key was reserved by another instance")
+    void shouldReplayStoredResponseWhenKeyAlreadyReserved() {
+        when(idempotencyKeyRepository.reserveKey(eq("item-orders/save:abc-123"), any(), any())).thenReturn(false);
+        when(idempotencyKeyRepository.findIdempotentResponse("item-orders/save:abc-123"))
+                .thenReturn(new IdempotentResponseDto(hashOf(ORDER_BODY), 202, "{\"status\":202,\"object\":\"item\"}"));
+
+        ResponseEntity<?> response = idempotencyService.execute("abc-123", "item-orders/save", ORDER_BODY, () -> {
+            throw new AssertionError("A ação não deve ser executada numa repetição");
+        });
+
+        assertEquals(202, response.getStatusCode().value());
+        assertEquals("item", ((JsonNode) response.getBody()).get("object").asText());
+    }
+
+    @Test
+    @DisplayName("Should reject a repeated key while the original request is still running")
+    void shouldRejectKeyInProgress() {
+        when(idempotencyKeyRepository.reserveKey(eq("order/save:abc-123"), any(), any())).thenReturn(false);
+        when(idempotencyKeyRepository.findIdempotentResponse("order/save:abc-123"))
+                .thenReturn(new IdempotentResponseDto(hashOf(ORDER_BODY), null, null));
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> idempotencyService.execute("abc-123", "order/save", ORDER_BODY, () -> ResponseEntity.ok().build()));
+
+        assertEquals("Já existe uma requisição em andamento com esta Idempotency-Key.", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should release the key when the action fails so the client can retry")
+    void shouldReleaseKeyWhenActionFails() {
+        when(idempotencyKeyRepository.reserveKey(eq("order/save:abc-123"), any(), any())).thenReturn(true);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> idempotencyService.execute("abc-123", "order/save", ORDER_BODY, () -> {
+                    throw new ClientErrorException("Cliente não encontrado.");
+                }));
+
+        assertEquals("Cliente não encontrado.", exception.getMessage());
+        verify(idempotencyKeyRepository).deleteKey("order/save:abc-123");
+        verify(idempotencyKeyRepository, never()).completeKey(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should run the action directly when no key is sent")
+    void shouldRunActionDirectlyWithoutKey() {
+        ResponseEntity<StandardObjectReturn> original = ResponseEntity.ok().build();
+
+        assertSame(original, idempotencyService.execute(null, "order/save", ORDER_BODY, () -> original));
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a cached key reused with a different request body")
+    void shouldRejectCachedKeyReusedWithDifferentBody() {
+        when(idempotencyKeyRepository.reserveKey(eq("order/save:abc-123"), any(), any())).thenReturn(true);
+        idempotencyService.execute("abc-123", "order/save", ORDER_BODY, () -> ResponseEntity.ok().body(
+                new StandardObjectReturn(Instant.now(), HttpStatus.CREATED.value(), null, "pedido")));
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> idempotencyService.execute("abc-123", "order/save", Map.of("clientId", 2), () -> {
+                    throw new AssertionError("A ação não deve ser executada com a chave repetida");
+                }));
+
+        assertEquals("A Idempotency-Key já foi usada com outro corpo de requisição.", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should reject a stored key reused with a different request body instead of replaying it")
+    void shouldRejectStoredKeyReusedWithDifferentBody() {
+        when(idempotencyKeyRepository.reserveKey(eq("order/save:abc-123"), any(), any())).thenReturn(false);
+        when(idempotencyKeyRepository.findIdempotentResponse("order/save:abc-123"))
+                .thenReturn(new IdempotentResponseDto(hashOf(Map.of("clientId", 2)), 201, "{\"object\":\"outro\"}"));
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> idempotencyService.execute("abc-123", "order/save", ORDER_BODY, () -> ResponseEntity.ok().build()));
+
+        assertEquals("A Idempotency-Key já foi usada com outro corpo de requisição.", exception.getMessage());
+    }
+
+    // Fora do spy: chamado dentro de thenReturn, ele deixaria o stubbing incompleto
+    private String hashOf(Object body) {
+        try {
+            byte[] json = JsonMapper.builder().findAndAddModules().build().writeValueAsBytes(body);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
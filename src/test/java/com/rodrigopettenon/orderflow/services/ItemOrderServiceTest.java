@@ -1,5 +1,6 @@
 package com.rodrigopettenon.orderflow.services;
 
+import com.rodrigopettenon.orderflow.dtos.BatchResultDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalFullDetailsDto;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
 import com.rodrigopettenon.orderflow.dtos.ItemOrderDto;
@@ -21,6 +22,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -70,9 +73,8 @@ class ItemOrderServiceTest {
     void shouldSaveItemOrderWithValidData() {
         // Arrange
         when(orderRepository.existsOrderById(itemOrderDto.getOrderId())).thenReturn(true);
-        when(productRepository.existsProductById(itemOrderDto.getProductId())).thenReturn(true);
+        when(productRepository.findPriceById(itemOrderDto.getProductId())).thenReturn(productModel.getPrice());
         when(orderRepository.findOrderModelById(itemOrderDto.getOrderId())).thenReturn(orderModel);
-        when(productRepository.findProductModelById(itemOrderDto.getProductId())).thenReturn(productModel);
 
         ItemOrderDto savedItemOrder = new ItemOrderDto();
         savedItemOrder.setId(UUID.randomUUID());
@@ -95,9 +97,10 @@ class ItemOrderServiceTest {
         assertNotNull(result.getId());
 
         verify(orderRepository).existsOrderById(itemOrderDto.getOrderId());
-        verify(productRepository).existsProductById(itemOrderDto.getProductId());
+        verify(productRepository).findPriceById(itemOrderDto.getProductId());
         verify(orderRepository).findOrderModelById(itemOrderDto.getOrderId());
-        verify(productRepository).findProductModelById(itemOrderDto.getProductId());
+        // Preço vindo da consulta de validação (snapshot), sem ler o produto inteiro
+        verify(productRepository, never()).findProductModelById(any());
         verify(itemOrderRepository).saveItemOrder(any(ItemOrderModel.class));
     }
 
@@ -119,7 +122,7 @@ class ItemOrderServiceTest {
 
         // Verifica que nenhum método de repository foi chamado
         verify(orderRepository, never()).existsOrderById(any());
-        verify(productRepository, never()).existsProductById(any());
+        verify(productRepository, never()).findPriceById(any());
         verify(orderRepository, never()).findOrderModelById(any());
         verify(productRepository, never()).findProductModelById(any());
         verify(itemOrderRepository, never()).saveItemOrder(any());
@@ -143,7 +146,7 @@ class ItemOrderServiceTest {
         assertEquals("O ID do produto é obrigatório.", exception.getMessage());
 
         // Verifica que nenhum método de repository foi chamado
-        verify(productRepository, never()).existsProductById(any());
+        verify(productRepository, never()).findPriceById(any());
         verify(orderRepository, never()).findOrderModelById(any());
         verify(productRepository, never()).findProductModelById(any());
         verify(itemOrderRepository, never()).saveItemOrder(any());
@@ -160,7 +163,7 @@ class ItemOrderServiceTest {
 
         // Mock para orderId e productId existirem (fluxo passa para validação da quantidade)
         when(orderRepository.existsOrderById(dto.getOrderId())).thenReturn(true);
-        when(productRepository.existsProductById(dto.getProductId())).thenReturn(true);
+        when(productRepository.findPriceById(dto.getProductId())).thenReturn(10.99);
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -171,7 +174,7 @@ class ItemOrderServiceTest {
 
         // Verifica que verificou os IDs mas não prosseguiu com o save
         verify(orderRepository).existsOrderById(dto.getOrderId());
-        verify(productRepository).existsProductById(dto.getProductId());
+        verify(productRepository).findPriceById(dto.getProductId());
         verify(orderRepository, never()).findOrderModelById(any());
         verify(productRepository, never()).findProductModelById(any());
         verify(itemOrderRepository, never()).saveItemOrder(any());
@@ -188,7 +191,7 @@ class ItemOrderServiceTest {
 
         // Mocks para IDs existentes
         when(orderRepository.existsOrderById(dto.getOrderId())).thenReturn(true);
-        when(productRepository.existsProductById(dto.getProductId())).thenReturn(true);
+        when(productRepository.findPriceById(dto.getProductId())).thenReturn(10.99);
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -199,7 +202,7 @@ class ItemOrderServiceTest {
 
         // Verificações
         verify(orderRepository).existsOrderById(dto.getOrderId());
-        verify(productRepository).existsProductById(dto.getProductId());
+        verify(productRepository).findPriceById(dto.getProductId());
         verify(orderRepository, never()).findOrderModelById(any());
         verify(productRepository, never()).findProductModelById(any());
         verify(itemOrderRepository, never()).saveItemOrder(any());
@@ -227,7 +230,7 @@ class ItemOrderServiceTest {
 
         // Verificações
         verify(orderRepository).existsOrderById(nonExistentOrderId);
-        verify(productRepository, never()).existsProductById(any());
+        verify(productRepository, never()).findPriceById(any());
         verify(orderRepository, never()).findOrderModelById(any());
         verify(productRepository, never()).findProductModelById(any());
         verify(itemOrderRepository, never()).saveItemOrder(any());
@@ -245,7 +248,7 @@ class ItemOrderServiceTest {
 
         // Mocks
         when(orderRepository.existsOrderById(dto.getOrderId())).thenReturn(true);
-        when(productRepository.existsProductById(nonExistentProductId)).thenReturn(false);
+        when(productRepository.findPriceById(nonExistentProductId)).thenReturn(null);
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -256,7 +259,7 @@ class ItemOrderServiceTest {
 
         // Verificações
         verify(orderRepository).existsOrderById(dto.getOrderId());
-        verify(productRepository).existsProductById(nonExistentProductId);
+        verify(productRepository).findPriceById(nonExistentProductId);
         verify(orderRepository, never()).findOrderModelById(any());
         verify(productRepository, never()).findProductModelById(any());
         verify(itemOrderRepository, never()).saveItemOrder(any());
@@ -292,13 +295,13 @@ class ItemOrderServiceTest {
 
         when(itemOrderRepository.findFilteredItemOrders(
                 eq(id), eq(orderId), eq(productId), eq(minQuantity), eq(maxQuantity),
-                eq(1), eq(20), eq("desc"), eq("quantity"))
+                eq(1), eq(20), eq("desc"), eq("quantity"), any())
         ).thenReturn(expectedPage);
 
         // Act
         GlobalPageDto<ItemOrderDto> result = itemOrderService.findFilteredItemOrders(
                 id, orderId, productId, minQuantity, maxQuantity,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null);
 
         // Assert
         assertNotNull(result);
@@ -313,7 +316,7 @@ class ItemOrderServiceTest {
         // Verifica a chamada ao repository com os parâmetros corretos
         verify(itemOrderRepository).findFilteredItemOrders(
                 eq(id), eq(orderId), eq(productId), eq(minQuantity), eq(maxQuantity),
-                eq(1), eq(20), eq("desc"), eq("quantity"));
+                eq(1), eq(20), eq("desc"), eq("quantity"), any());
     }
 
     @Test
@@ -331,7 +334,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFilteredItemOrders(
                     nonExistentId, orderId, productId,
-                    1, 10, 0, 10, "asc", "order_id");
+                    1, 10, 0, 10, "asc", "order_id", null);
         });
 
         assertEquals("O ID do item do pedido informado não está cadastrado.", exception.getMessage());
@@ -340,7 +343,7 @@ class ItemOrderServiceTest {
         verify(itemOrderRepository).existsItemOrderById(nonExistentId);
         verify(orderRepository, never()).existsOrderById(any());
         verify(productRepository, never()).existsProductById(any());
-        verify(itemOrderRepository, never()).findFilteredItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any());
+        verify(itemOrderRepository, never()).findFilteredItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -358,7 +361,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFilteredItemOrders(
                     itemOrderId, nonExistentOrderId, null,
-                    null, null, 0, 10, "asc", "order_id");
+                    null, null, 0, 10, "asc", "order_id", null);
         });
 
         assertEquals("O ID do pedido informado não está cadastrado.", exception.getMessage());
@@ -367,7 +370,7 @@ class ItemOrderServiceTest {
         verify(itemOrderRepository).existsItemOrderById(itemOrderId);
         verify(orderRepository).existsOrderById(nonExistentOrderId);
         verify(productRepository, never()).existsProductById(any());
-        verify(itemOrderRepository, never()).findFilteredItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any());
+        verify(itemOrderRepository, never()).findFilteredItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -387,7 +390,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFilteredItemOrders(
                     itemOrderId, orderId, nonExistentProductId,
-                    null, null, 0, 10, "asc", "product_id");
+                    null, null, 0, 10, "asc", "product_id", null);
         });
 
         assertEquals("O ID do produto informado não está cadastrado.", exception.getMessage());
@@ -396,7 +399,7 @@ class ItemOrderServiceTest {
         verify(itemOrderRepository).existsItemOrderById(itemOrderId);
         verify(orderRepository).existsOrderById(orderId);
         verify(productRepository).existsProductById(nonExistentProductId);
-        verify(itemOrderRepository, never()).findFilteredItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any());
+        verify(itemOrderRepository, never()).findFilteredItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -413,14 +416,14 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFilteredItemOrders(
                     itemOrderId, null, null,
-                    invalidMinQuantity, 10, 0, 10, "asc", "quantity");
+                    invalidMinQuantity, 10, 0, 10, "asc", "quantity", null);
         });
 
         assertEquals("A quantidade mínima do item do pedido deve ser maior que 0.", exception.getMessage());
 
         // Verificações
         verify(itemOrderRepository).existsItemOrderById(itemOrderId);
-        verify(itemOrderRepository, never()).findFilteredItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any());
+        verify(itemOrderRepository, never()).findFilteredItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -434,7 +437,7 @@ class ItemOrderServiceTest {
             itemOrderService.findFilteredItemOrders(
                     null, null, null,
                     1, invalidMaxQuantity, // maxQuantity = 0 (inválido)
-                    0, 10, "asc", "quantity");
+                    0, 10, "asc", "quantity", null);
         });
 
         assertEquals("A quantidade máxima do item do pedido deve ser maior que 0.", exception.getMessage());
@@ -457,7 +460,7 @@ class ItemOrderServiceTest {
             itemOrderService.findFilteredItemOrders(
                     null, null, null,
                     minQuantity, maxQuantity,
-                    0, 10, "asc", "quantity");
+                    0, 10, "asc", "quantity", null);
         });
 
         assertEquals("A quantidade máxima não pode ser menor que a quantidade mínima.", exception.getMessage());
@@ -472,14 +475,14 @@ class ItemOrderServiceTest {
         GlobalPageDto<ItemOrderDto> expectedPage = new GlobalPageDto<>();
         when(itemOrderRepository.findFilteredItemOrders(
                 any(), any(), any(), any(), any(),
-                eq(0), eq(10), eq("asc"), eq("order_id"))
+                eq(0), eq(10), eq("asc"), eq("order_id"), any())
         ).thenReturn(expectedPage);
 
         // Act
         GlobalPageDto<ItemOrderDto> result = itemOrderService.findFilteredItemOrders(
                 UUID.randomUUID(), null, null,
                 1, 10,
-                -1, 0, "invalid", "invalid_field");
+                -1, 0, "invalid", "invalid_field", null);
 
         // Assert
         assertNotNull(result);
@@ -487,7 +490,7 @@ class ItemOrderServiceTest {
         // Verifica se chamou com os valores padrão corrigidos
         verify(itemOrderRepository).findFilteredItemOrders(
                 any(), any(), any(), any(), any(),
-                eq(0), eq(10), eq("asc"), eq("order_id"));
+                eq(0), eq(10), eq("asc"), eq("order_id"), any());
     }
 
     @Test
@@ -499,19 +502,19 @@ class ItemOrderServiceTest {
         GlobalPageDto<ItemOrderDto> expectedPage = new GlobalPageDto<>();
         when(itemOrderRepository.findFilteredItemOrders(
                 any(), any(), any(), any(), any(),
-                anyInt(), anyInt(), eq("asc"), anyString())
+                anyInt(), anyInt(), eq("asc"), anyString(), any())
         ).thenReturn(expectedPage);
 
         // Act
         itemOrderService.findFilteredItemOrders(
                 UUID.randomUUID(), null, null,
                 1, 10,
-                0, 10, "invalid_direction", "quantity");
+                0, 10, "invalid_direction", "quantity", null);
 
         // Assert
         verify(itemOrderRepository).findFilteredItemOrders(
                 any(), any(), any(), any(), any(),
-                anyInt(), anyInt(), eq("asc"), anyString());
+                anyInt(), anyInt(), eq("asc"), anyString(), any());
     }
 
     @Test
@@ -523,19 +526,19 @@ class ItemOrderServiceTest {
         GlobalPageDto<ItemOrderDto> expectedPage = new GlobalPageDto<>();
         when(itemOrderRepository.findFilteredItemOrders(
                 any(), any(), any(), any(), any(),
-                anyInt(), anyInt(), anyString(), eq("order_id"))
+                anyInt(), anyInt(), anyString(), eq("order_id"), any())
         ).thenReturn(expectedPage);
 
         // Act
         itemOrderService.findFilteredItemOrders(
                 UUID.randomUUID(), null, null,
                 1, 10,
-                0, 10, "asc", "invalid_field");
+                0, 10, "asc", "invalid_field", null);
 
         // Assert
         verify(itemOrderRepository).findFilteredItemOrders(
                 any(), any(), any(), any(), any(),
-                anyInt(), anyInt(), anyString(), eq("order_id"));
+                anyInt(), anyInt(), anyString(), eq("order_id"), any());
     }
 
     @Test
@@ -545,14 +548,14 @@ class ItemOrderServiceTest {
         GlobalPageDto<ItemOrderDto> expectedPage = new GlobalPageDto<>();
         when(itemOrderRepository.findFilteredItemOrders(
                 isNull(), isNull(), isNull(), eq(1), eq(10),
-                anyInt(), anyInt(), anyString(), anyString())
+                anyInt(), anyInt(), anyString(), anyString(), any())
         ).thenReturn(expectedPage);
 
         // Act
         GlobalPageDto<ItemOrderDto> result = itemOrderService.findFilteredItemOrders(
                 null, null, null,
                 1, 10,
-                0, 10, "asc", "quantity");
+                0, 10, "asc", "quantity", null);
 
         // Assert
         assertNotNull(result);
@@ -571,14 +574,14 @@ class ItemOrderServiceTest {
         GlobalPageDto<ItemOrderDto> expectedPage = new GlobalPageDto<>();
         when(itemOrderRepository.findFilteredItemOrders(
                 isNull(), eq(orderId), isNull(), any(), any(),
-                anyInt(), anyInt(), anyString(), anyString())
+                anyInt(), anyInt(), anyString(), anyString(), any())
         ).thenReturn(expectedPage);
 
         // Act
         itemOrderService.findFilteredItemOrders(
                 null, orderId, null,
                 null, null,
-                0, 10, "asc", "order_id");
+                0, 10, "asc", "order_id", null);
 
         // Assert
         verify(orderRepository).existsOrderById(orderId);
@@ -593,7 +596,7 @@ class ItemOrderServiceTest {
         GlobalPageDto<ItemOrderDto> expectedPage = new GlobalPageDto<>();
         when(itemOrderRepository.findFilteredItemOrders(
                 any(), any(), any(), eq(1), eq(Integer.MAX_VALUE),
-                anyInt(), anyInt(), anyString(), anyString())
+                anyInt(), anyInt(), anyString(), anyString(), any())
         ).thenReturn(expectedPage);
 
         // Act
@@ -601,7 +604,7 @@ class ItemOrderServiceTest {
             itemOrderService.findFilteredItemOrders(
                     null, null, null,
                     1, Integer.MAX_VALUE,
-                    0, 10, "asc", "quantity");
+                    0, 10, "asc", "quantity", null);
         });
     }
 
@@ -612,7 +615,7 @@ class ItemOrderServiceTest {
         GlobalPageDto<ItemOrderDto> expectedPage = new GlobalPageDto<>();
         when(itemOrderRepository.findFilteredItemOrders(
                 any(), any(), any(), eq(5), isNull(),
-                anyInt(), anyInt(), anyString(), anyString())
+                anyInt(), anyInt(), anyString(), anyString(), any())
         ).thenReturn(expectedPage);
 
         // Act
@@ -620,7 +623,7 @@ class ItemOrderServiceTest {
             itemOrderService.findFilteredItemOrders(
                     null, null, null,
                     5, null,
-                    0, 10, "asc", "quantity");
+                    0, 10, "asc", "quantity", null);
         });
     }
 
@@ -658,13 +661,13 @@ class ItemOrderServiceTest {
 
         when(itemOrderRepository.findFullDetailsItemOrders(
                 eq(itemOrderId), eq(productId), eq(orderId), eq(clientId),
-                eq(1), eq(20), eq("desc"), eq("p.name"))
+                eq(1), eq(20), eq("desc"), eq("p.name"), any())
         ).thenReturn(expectedPage);
 
         // Act
         GlobalPageDto<GlobalFullDetailsDto> result = itemOrderService.findFullDetailsItemOrders(
                 itemOrderId, productId, orderId, clientId,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null);
 
         // Assert
         assertNotNull(result);
@@ -684,7 +687,7 @@ class ItemOrderServiceTest {
         // Verifica a chamada ao repository com os parâmetros corretos
         verify(itemOrderRepository).findFullDetailsItemOrders(
                 eq(itemOrderId), eq(productId), eq(orderId), eq(clientId),
-                eq(1), eq(20), eq("desc"), eq("p.name"));
+                eq(1), eq(20), eq("desc"), eq("p.name"), any());
     }
 
     @Test
@@ -699,13 +702,13 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFullDetailsItemOrders(
                     nonExistentItemOrderId, null, null, null,
-                    0, 10, "asc", "i.quantity");
+                    0, 10, "asc", "i.quantity", null);
         });
 
         assertEquals("O ID do item do pedido informado não está cadastrado.", exception.getMessage());
 
         verify(itemOrderRepository).existsItemOrderById(nonExistentItemOrderId);
-        verify(itemOrderRepository, never()).findFullDetailsItemOrders(any(), any(), any(), any(), any(), any(), any(), any());
+        verify(itemOrderRepository, never()).findFullDetailsItemOrders(any(), any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -720,7 +723,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFullDetailsItemOrders(
                     null, productId, null, null,
-                    0, 10, "asc", "p.name");
+                    0, 10, "asc", "p.name", null);
         });
 
         assertEquals("O ID do produto informado não está cadastrado.", exception.getMessage());
@@ -738,7 +741,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFullDetailsItemOrders(
                     null, null, orderId, null,
-                    0, 10, "asc", "o.order_date");
+                    0, 10, "asc", "o.order_date", null);
         });
 
         assertEquals("O ID do pedido informado não está cadastrado.", exception.getMessage());
@@ -759,7 +762,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFullDetailsItemOrders(
                     null, null, orderId, null,
-                    0, 10, "asc", "i.price");
+                    0, 10, "asc", "i.price", null);
         });
 
         assertEquals("Nenhum item de pedido cadastrado com o ID do pedido informado.", exception.getMessage());
@@ -780,7 +783,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFullDetailsItemOrders(
                     null, productId, null, null,
-                    0, 10, "asc", "p.price");
+                    0, 10, "asc", "p.price", null);
         });
 
         assertEquals("Nenhum item de pedido cadastrado com o ID do produto informado.", exception.getMessage());
@@ -800,7 +803,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFullDetailsItemOrders(
                     null, null, null, clientId,
-                    0, 10, "asc", "o.order_date");
+                    0, 10, "asc", "o.order_date", null);
         });
 
         assertEquals("O ID do cliente informado não está cadastrado.", exception.getMessage());
@@ -821,7 +824,7 @@ class ItemOrderServiceTest {
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             itemOrderService.findFullDetailsItemOrders(
                     null, null, null, clientId,
-                    0, 10, "asc", "o.order_date");
+                    0, 10, "asc", "o.order_date", null);
         });
 
         assertEquals("Nenhum pedido cadastrado com o ID do cliente informado.", exception.getMessage());
@@ -837,11 +840,11 @@ class ItemOrderServiceTest {
 
         itemOrderService.findFullDetailsItemOrders(
                 null, null, UUID.randomUUID(), null,
-                null, null, null, null);
+                null, null, null, null, null);
 
         verify(itemOrderRepository).findFullDetailsItemOrders(
                 any(), any(), any(), any(),
-                eq(0), eq(10), eq("asc"), eq("i.quantity"));
+                eq(0), eq(10), eq("asc"), eq("i.quantity"), any());
     }
 
     @Test
@@ -852,11 +855,11 @@ class ItemOrderServiceTest {
 
         itemOrderService.findFullDetailsItemOrders(
                 null, null, UUID.randomUUID(), null,
-                0, 10, "asc", "invalid_column");
+                0, 10, "asc", "invalid_column", null);
 
         verify(itemOrderRepository).findFullDetailsItemOrders(
                 any(), any(), any(), any(),
-                anyInt(), anyInt(), anyString(), eq("i.quantity"));
+                anyInt(), anyInt(), anyString(), eq("i.quantity"), any());
     }
 
     @Test
@@ -869,6 +872,50 @@ class ItemOrderServiceTest {
 
         assertThrows(ClientErrorException.class, () ->
                 itemOrderService.findFullDetailsItemOrders(
-                        null, null, null, clientId, 0, 10, "asc", "i.quantity"));
+                        null, null, null, clientId, 0, 10, "asc", "i.quantity", null));
     }
+
+    // Método saveItemOrdersBatch
+    @Test
+    @DisplayName("Should validate a batch of item orders with one query per table and price items from the lookup")
+    void shouldValidateABatchOfItemOrdersWithOneQueryPerTable() {
+        // Arrange
+        UUID unknownProductId = UUID.randomUUID();
+
+        ItemOrderDto unknownProductItem = new ItemOrderDto();
+        unknownProductItem.setOrderId(itemOrderDto.getOrderId());
+        unknownProductItem.setProductId(unknownProductId);
+        unknownProductItem.setQuantity(1);
+
+        ItemOrderDto invalidQuantityItem = new ItemOrderDto();
+        invalidQuantityItem.setOrderId(itemOrderDto.getOrderId());
+        invalidQuantityItem.setProductId(itemOrderDto.getProductId());
+        invalidQuantityItem.setQuantity(0);
+
+        when(orderRepository.findExistingOrderIds(Set.of(itemOrderDto.getOrderId())))
+                .thenReturn(Set.of(itemOrderDto.getOrderId()));
+        when(productRepository.findPricesByIds(Set.of(itemOrderDto.getProductId(), unknownProductId)))
+                .thenReturn(Map.of(itemOrderDto.getProductId(), 19.9));
+
+        ItemOrderDto savedItemOrder = new ItemOrderDto();
+        savedItemOrder.setId(UUID.randomUUID());
+        when(itemOrderRepository.saveItemOrdersBatch(anyList())).thenReturn(List.of(savedItemOrder));
+
+        // Act
+        BatchResultDto<ItemOrderDto> result = itemOrderService.saveItemOrdersBatch(
+                List.of(unknownProductItem, itemOrderDto, invalidQuantityItem));
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals("O ID do produto informado não está cadastrado.", result.getItems().get(0).getError());
+        assertEquals(savedItemOrder, result.getItems().get(1).getItem());
+        assertEquals("A quantidade do item do pedido deve ser maior que 0.", result.getItems().get(2).getError());
+
+        verify(itemOrderRepository).saveItemOrdersBatch(argThat(items -> items.size() == 1
+                && items.get(0).getPrice().equals(19.9)));
+        verify(orderRepository, never()).existsOrderById(any());
+        verify(productRepository, never()).findProductModelById(any());
+    }
+
 }
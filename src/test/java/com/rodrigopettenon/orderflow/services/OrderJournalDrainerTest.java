@@ -0,0 +1,117 @@
+package com.rodrigopettenon.orderflow.services;
+
+import com.rodrigopettenon.orderflow.dtos.OrderDto;
+import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
+import com.rodrigopettenon.orderflow.repositories.OrderJournal;
+import com.rodrigopettenon.orderflow.repositories.OrderJournal.JournalEntry;
+import com.rodrigopettenon.orderflow.repositories.OrderRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderJournalDrainerTest {
+
+    @InjectMocks
+    private OrderJournalDrainer orderJournalDrainer;
+
+    @Mock
+    private OrderJournal orderJournal;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Should retry a rejected batch row by row and move only the poison order to the dead letter")
+    void shouldDeadLetterOnlyThePoisonOrder() throws Exception {
+        JournalEntry first = newEntry(100);
+        JournalEntry poison = newEntry(200);
+        JournalEntry last = newEntry(300);
+        doAnswer(invocation -> {
+            List<OrderDto> orders = invocation.getArgument(0);
+            if (orders.contains(poison.order())) {
+                throw rejected("Cannot add or update a child row: a foreign key constraint fails");
+            }
+            return null;
+        }).when(orderRepository).saveJournaledOrders(anyList());
+
+        boolean drained = orderJournalDrainer.drainBatch(new TransactionTemplate(transactionManager),
+                List.of(first, poison, last));
+
+        assertTrue(drained);
+        verify(orderRepository).saveDeadLetterOrder(eq(poison.order()), contains("foreign key constraint fails"));
+        verify(orderRepository, never()).saveDeadLetterOrder(eq(first.order()), any());
+        InOrder inOrder = inOrder(orderJournal);
+        inOrder.verify(orderJournal).markDrained(List.of(first));
+        inOrder.verify(orderJournal).markDrained(List.of(poison));
+        inOrder.verify(orderJournal).markDrained(List.of(last));
+    }
+
+    @Test
+    @DisplayName("Should not dead-letter orders when the database is unavailable")
+    void shouldNotDeadLetterWhenDatabaseIsUnavailable() throws Exception {
+        doThrow(unavailable()).when(orderRepository).saveJournaledOrders(anyList());
+
+        boolean drained = orderJournalDrainer.drainBatch(new TransactionTemplate(transactionManager),
+                List.of(newEntry(100), newEntry(200)));
+
+        // Desligando (running = false): a entrada fica no journal para o replay
+        assertFalse(drained);
+        verify(orderRepository, never()).saveDeadLetterOrder(any(), any());
+        verify(orderJournal, never()).markDrained(any());
+    }
+
+    @Test
+    @DisplayName("Should stop draining at the first failed batch during shutdown so later batches do not move the drained position past it")
+    void shouldStopDrainingAfterFailureDuringShutdown() throws Exception {
+        JournalEntry failed = newEntry(100);
+        JournalEntry later = newEntry(200);
+        when(orderJournal.hasUndrainedEntries()).thenReturn(true);
+        when(orderJournal.takeBatch(anyInt(), eq(Duration.ZERO))).thenReturn(List.of(failed), List.of(later));
+        doThrow(unavailable()).when(orderRepository).saveJournaledOrders(List.of(failed.order()));
+
+        ReflectionTestUtils.invokeMethod(orderJournalDrainer, "drainLoop");
+
+        verify(orderJournal, times(1)).takeBatch(anyInt(), any());
+        verify(orderRepository, never()).saveJournaledOrders(List.of(later.order()));
+        verify(orderJournal, never()).markDrained(any());
+    }
+
+    private JournalEntry newEntry(int endPosition) {
+        OrderDto order = new OrderDto();
+        order.setId(UUID.randomUUID());
+        order.setClientId(1L);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus("PENDING");
+        return new JournalEntry(order, endPosition);
+    }
+
+    private ClientErrorException rejected(String reason) {
+        return new ClientErrorException("Erro ao gravar os pedidos do journal.", new SQLException(reason, "23000", 1452));
+    }
+
+    private ClientErrorException unavailable() {
+        return new ClientErrorException("Erro ao gravar os pedidos do journal.",
+                new SQLException("Communications link failure", "08S01"));
+    }
+}
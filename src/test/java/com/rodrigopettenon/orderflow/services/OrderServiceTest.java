@@ -1,11 +1,15 @@
 package com.rodrigopettenon.orderflow.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rodrigopettenon.orderflow.dtos.*;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
 import com.rodrigopettenon.orderflow.models.ClientModel;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import com.rodrigopettenon.orderflow.models.OrderStatus;
 import com.rodrigopettenon.orderflow.repositories.ClientRepository;
 import com.rodrigopettenon.orderflow.repositories.ItemOrderRepository;
+import com.rodrigopettenon.orderflow.repositories.OrderJournal;
 import com.rodrigopettenon.orderflow.repositories.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,14 +17,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.encodeCursor;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +55,15 @@ class OrderServiceTest {
     @Mock
     private ItemOrderService itemOrderService;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OrderJournal orderJournal;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     private OrderDto orderDto;
     private ClientModel clientModel;
 
@@ -242,7 +265,6 @@ class OrderServiceTest {
         OrderDto expectedOrder = new OrderDto();
         expectedOrder.setId(id);
 
-        when(orderRepository.existsOrderById(id)).thenReturn(true);
         when(orderRepository.findOrderById(id)).thenReturn(expectedOrder);
 
         // Act
@@ -252,7 +274,7 @@ class OrderServiceTest {
         assertNotNull(result);
         assertEquals(id, result.getId());
 
-        verify(orderRepository).existsOrderById(id);
+        verify(orderRepository, never()).existsOrderById(any());
         verify(orderRepository).findOrderById(id);
     }
 
@@ -273,7 +295,7 @@ class OrderServiceTest {
     void shouldThrowExceptionWhenOrderIdDoesNotExist() {
         // Arrange
         UUID id = UUID.randomUUID();
-        when(orderRepository.existsOrderById(id)).thenReturn(false);
+        when(orderRepository.findOrderById(id)).thenReturn(null);
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -282,8 +304,7 @@ class OrderServiceTest {
 
         assertEquals("O id do pedido não está cadastrado.", exception.getMessage());
 
-        verify(orderRepository).existsOrderById(id);
-        verify(orderRepository, never()).findOrderById(any());
+        verify(orderRepository, never()).existsOrderById(any());
     }
 
     // Método updateOrderStatusById
@@ -294,18 +315,17 @@ class OrderServiceTest {
         UUID id = UUID.randomUUID();
         String newStatus = "COMPLETED";
 
-        OrderDto existingOrder = new OrderDto();
-        existingOrder.setId(id);
-        existingOrder.setStatus("PENDING"); // status atual
-
-        when(orderRepository.existsOrderById(id)).thenReturn(true);
-        when(orderRepository.findOrderById(id)).thenReturn(existingOrder);
+        // O UPDATE condicional encontrou o pedido em PENDING
+        when(orderRepository.updateStatusById(id, OrderStatus.COMPLETED)).thenReturn(true);
 
         // Act
         assertDoesNotThrow(() -> orderService.updateOrderStatusById(id, newStatus));
 
-        // Assert
+        // Assert: nenhuma leitura antes ou depois da escrita
         verify(orderRepository).updateStatusById(id, OrderStatus.COMPLETED);
+        verify(orderRepository, never()).existsOrderById(any());
+        verify(orderRepository, never()).findOrderById(any());
+        verify(orderRepository, never()).findOrderStatusById(any());
     }
 
     @Test
@@ -325,7 +345,8 @@ class OrderServiceTest {
     void shouldThrowExceptionWhenOrderIdDoesNotExistToUpdate() {
         // Arrange
         UUID id = UUID.randomUUID();
-        when(orderRepository.existsOrderById(id)).thenReturn(false);
+        when(orderRepository.updateStatusById(id, OrderStatus.COMPLETED)).thenReturn(false);
+        when(orderRepository.findOrderStatusById(id)).thenReturn(null);
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -333,7 +354,6 @@ class OrderServiceTest {
         });
 
         assertEquals("O id do pedido não está cadastrado.", exception.getMessage());
-        verify(orderRepository, never()).updateStatusById(any(), any());
     }
 
     @Test
@@ -341,7 +361,6 @@ class OrderServiceTest {
     void shouldThrowExceptionWhenNewStatusIsNull() {
         // Arrange
         UUID id = UUID.randomUUID();
-        when(orderRepository.existsOrderById(id)).thenReturn(true);
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -357,7 +376,6 @@ class OrderServiceTest {
     void shouldThrowExceptionWhenNewStatusIsInvalid() {
         // Arrange
         UUID id = UUID.randomUUID();
-        when(orderRepository.existsOrderById(id)).thenReturn(true);
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -373,7 +391,6 @@ class OrderServiceTest {
     void shouldThrowExceptionWhenNewStatusIsPending() {
         // Arrange
         UUID id = UUID.randomUUID();
-        when(orderRepository.existsOrderById(id)).thenReturn(true);
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -391,12 +408,9 @@ class OrderServiceTest {
         UUID id = UUID.randomUUID();
         String newStatus = "COMPLETED";
 
-        OrderDto existingOrder = new OrderDto();
-        existingOrder.setId(id);
-        existingOrder.setStatus("COMPLETED"); // status atual diferente
-
-        when(orderRepository.existsOrderById(id)).thenReturn(true);
-        when(orderRepository.findOrderById(id)).thenReturn(existingOrder);
+        // O UPDATE condicional não afetou nenhuma linha e a leitura explica o motivo
+        when(orderRepository.updateStatusById(id, OrderStatus.COMPLETED)).thenReturn(false);
+        when(orderRepository.findOrderStatusById(id)).thenReturn("COMPLETED"); // status atual diferente
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -404,7 +418,6 @@ class OrderServiceTest {
         });
 
         assertEquals("Não é possivel atualizar o status do pedido pois ele está: COMPLETED", exception.getMessage());
-        verify(orderRepository, never()).updateStatusById(any(), any());
     }
 
     // Método findFilteredOrders
@@ -429,11 +442,11 @@ class OrderServiceTest {
         expected.setTotal(1L);
         expected.setItems(List.of(new OrderDto()));
 
-        when(orderRepository.findFilteredOrders(orderId, clientId, start, end, status, page, lines, direction, orderBy))
+        when(orderRepository.findFilteredOrders(orderId, clientId, start, end, status, page, lines, direction, orderBy, null, TotalMode.EXACT))
                 .thenReturn(expected);
 
         // Act
-        GlobalPageDto<OrderDto> result = orderService.findFilteredOrders(orderId, clientId, start, end, status, page, lines, direction, orderBy);
+        GlobalPageDto<OrderDto> result = orderService.findFilteredOrders(orderId, clientId, start, end, status, page, lines, direction, orderBy, null, null);
 
         // Assert
         assertEquals(expected, result);
@@ -456,11 +469,11 @@ class OrderServiceTest {
         GlobalPageDto<OrderDto> expected = new GlobalPageDto<>();
         expected.setItems(List.of());
         expected.setTotal(0L);
-        when(orderRepository.findFilteredOrders(null, null, null, null, null, 0, 10, "asc", "order_date"))
+        when(orderRepository.findFilteredOrders(null, null, null, null, null, 0, 10, "asc", "order_date", null, TotalMode.EXACT))
                 .thenReturn(expected);
 
         // Act
-        GlobalPageDto<OrderDto> result = orderService.findFilteredOrders(orderId, clientId, start, end, status, page, lines, direction, orderBy);
+        GlobalPageDto<OrderDto> result = orderService.findFilteredOrders(orderId, clientId, start, end, status, page, lines, direction, orderBy, null, null);
 
         // Assert
         assertEquals(expected, result);
@@ -475,7 +488,7 @@ class OrderServiceTest {
 
         // Act + Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrders(null, clientId, null, null, null, null, null, null, null)
+                orderService.findFilteredOrders(null, clientId, null, null, null, null, null, null, null, null, null)
         );
 
         assertEquals("O id do cliente informado não está cadastrado.", ex.getMessage());
@@ -490,7 +503,7 @@ class OrderServiceTest {
 
         // Act + Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrders(orderId, null, null, null, null, null, null, null, null)
+                orderService.findFilteredOrders(orderId, null, null, null, null, null, null, null, null, null, null)
         );
 
         assertEquals("O id do pedido não está cadastrado.", ex.getMessage());
@@ -505,7 +518,7 @@ class OrderServiceTest {
 
         // Act + Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrders(null, null, start, end, null, null, null, null, null)
+                orderService.findFilteredOrders(null, null, start, end, null, null, null, null, null, null, null)
         );
 
         assertEquals("O filtro data/hora de ínicio não pode ser posterior ao data/hora final.", ex.getMessage());
@@ -519,7 +532,7 @@ class OrderServiceTest {
 
         // Act + Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrders(null, null, start, null, null, null, null, null, null)
+                orderService.findFilteredOrders(null, null, start, null, null, null, null, null, null, null, null)
         );
 
         assertEquals("O filtro data/hora de ínicio não pode ser uma data futura.", ex.getMessage());
@@ -533,7 +546,7 @@ class OrderServiceTest {
 
         // Act + Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrders(null, null, null, end, null, null, null, null, null)
+                orderService.findFilteredOrders(null, null, null, end, null, null, null, null, null, null, null)
         );
 
         assertEquals("O filtro data/hora final não pode ser uma data futura.", ex.getMessage());
@@ -547,12 +560,60 @@ class OrderServiceTest {
 
         // Act + Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrders(null, null, null, null, status, null, null, null, null)
+                orderService.findFilteredOrders(null, null, null, null, status, null, null, null, null, null, null)
         );
 
         assertEquals("O status informado é inválido: FOO", ex.getMessage());
     }
 
+    @Test
+    @DisplayName("Should pass decoded cursor to repository when cursor matches ordering")
+    void shouldPassDecodedCursorToRepositoryWhenCursorMatchesOrdering() {
+        // Arrange
+        String cursor = encodeCursor("order_date", "desc", "2025-01-10T10:00", "a1b2c3");
+
+        GlobalPageDto<OrderDto> expected = new GlobalPageDto<>();
+        expected.setItems(List.of());
+        expected.setTotal(0L);
+        when(orderRepository.findFilteredOrders(isNull(), isNull(), isNull(), isNull(), isNull(), eq(0), eq(10),
+                eq("desc"), eq("order_date"), any(CursorDto.class), any())).thenReturn(expected);
+
+        // Act
+        GlobalPageDto<OrderDto> result = orderService.findFilteredOrders(null, null, null, null, null, 0, 10, "desc", "order_date", cursor, null);
+
+        // Assert
+        assertEquals(expected, result);
+        verify(orderRepository).findFilteredOrders(isNull(), isNull(), isNull(), isNull(), isNull(), eq(0), eq(10),
+                eq("desc"), eq("order_date"), argThat(c -> "a1b2c3".equals(c.getLastKey())
+                        && "2025-01-10T10:00".equals(c.getSortValue())), any());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when cursor is malformed")
+    void shouldThrowExceptionWhenCursorIsMalformed() {
+        // Act + Assert
+        ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
+                orderService.findFilteredOrders(null, null, null, null, null, 0, 10, "asc", "order_date", "@@invalid@@", null)
+        );
+
+        assertEquals("O cursor informado é inválido.", ex.getMessage());
+        verify(orderRepository, never()).findFilteredOrders(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when cursor does not match requested ordering")
+    void shouldThrowExceptionWhenCursorDoesNotMatchOrdering() {
+        // Arrange
+        String cursor = encodeCursor("status", "asc", "PENDING", "a1b2c3");
+
+        // Act + Assert
+        ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
+                orderService.findFilteredOrders(null, null, null, null, null, 0, 10, "asc", "order_date", cursor, null)
+        );
+
+        assertEquals("O cursor informado não corresponde à ordenação solicitada.", ex.getMessage());
+    }
+
     // Método findFilteredOrdersDetails
     @Test
     @DisplayName("Should return filtered order details successfully")
@@ -582,12 +643,12 @@ class OrderServiceTest {
 
         when(orderRepository.findFilteredOrdersDetails(
                 eq(orderId), eq(clientId), eq(start), eq(end), eq(minQuantity), eq(maxQuantity),
-                eq("PENDING"), eq(page), eq(linesPerPage), eq(direction), anyString()))
+                eq("PENDING"), eq(page), eq(linesPerPage), eq(direction), anyString(), isNull(), any()))
                 .thenReturn(expectedPage);
 
         // Act
         GlobalPageDto<GlobalFullDetailsDto> result = orderService.findFilteredOrdersDetails(
-                orderId, clientId, start, end, minQuantity, maxQuantity, status, page, linesPerPage, direction, orderBy);
+                orderId, clientId, start, end, minQuantity, maxQuantity, status, page, linesPerPage, direction, orderBy, null, null);
 
         // Assert
         assertEquals(expectedPage, result);
@@ -599,7 +660,7 @@ class OrderServiceTest {
         verify(itemOrderService).validateFilteredMinQuantityAndMaxQuantity(minQuantity, maxQuantity);
         verify(orderRepository).findFilteredOrdersDetails(
                 eq(orderId), eq(clientId), eq(start), eq(end), eq(minQuantity), eq(maxQuantity),
-                eq("PENDING"), eq(page), eq(linesPerPage), eq(direction), anyString());
+                eq("PENDING"), eq(page), eq(linesPerPage), eq(direction), anyString(), isNull(), any());
     }
 
     @Test
@@ -611,7 +672,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrdersDetails(orderId, null, null, null, null, null, null, 0, 10, "asc", "order_date"));
+                orderService.findFilteredOrdersDetails(orderId, null, null, null, null, null, null, 0, 10, "asc", "order_date", null, null));
 
         assertEquals("O id do pedido não está cadastrado.", ex.getMessage());
     }
@@ -626,7 +687,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrdersDetails(orderId, null, null, null, null, null, null, 0, 10, "asc", "order_date"));
+                orderService.findFilteredOrdersDetails(orderId, null, null, null, null, null, null, 0, 10, "asc", "order_date", null, null));
 
         assertEquals("Nenhum item de pedido vinculado ao id do pedido informado.", ex.getMessage());
     }
@@ -641,7 +702,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrdersDetails(null, clientId, null, null, null, null, null, 0, 10, "asc", "order_date"));
+                orderService.findFilteredOrdersDetails(null, clientId, null, null, null, null, null, 0, 10, "asc", "order_date", null, null));
 
         assertEquals("O id do cliente informado não está cadastrado.", ex.getMessage());
 
@@ -658,7 +719,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrdersDetails(null, clientId, null, null, null, null, null, 0, 10, "asc", "order_date"));
+                orderService.findFilteredOrdersDetails(null, clientId, null, null, null, null, null, 0, 10, "asc", "order_date", null, null));
 
         assertEquals("Nenhum item de pedido vinculado ao id do cliente informado.", ex.getMessage());
     }
@@ -671,7 +732,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrdersDetails(null, null, futureDate, null, null, null, null, 0, 10, "asc", "order_date"));
+                orderService.findFilteredOrdersDetails(null, null, futureDate, null, null, null, null, 0, 10, "asc", "order_date", null, null));
 
         assertEquals("O filtro data/hora de ínicio não pode estar no futuro.", ex.getMessage());
     }
@@ -685,7 +746,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrdersDetails(null, null, start, end, null, null, null, 0, 10, "asc", "order_date"));
+                orderService.findFilteredOrdersDetails(null, null, start, end, null, null, null, 0, 10, "asc", "order_date", null, null));
 
         assertEquals("O filtro data/hora de ínicio não pode ser após a data final.", ex.getMessage());
     }
@@ -698,7 +759,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrdersDetails(null, null, null, end, null, null, null, 0, 10, "asc", "order_date"));
+                orderService.findFilteredOrdersDetails(null, null, null, end, null, null, null, 0, 10, "asc", "order_date", null, null));
 
         assertEquals("O filtro data/hora final não pode estar no futuro.", ex.getMessage());
     }
@@ -708,11 +769,24 @@ class OrderServiceTest {
     void shouldThrowExceptionWhenStatusIsInvalidToFindFilteredOrdersDetails() {
         // Act & Assert
         ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredOrdersDetails(null, null, null, null, null, null, "INVALID", 0, 10, "asc", "order_date"));
+                orderService.findFilteredOrdersDetails(null, null, null, null, null, null, "INVALID", 0, 10, "asc", "order_date", null, null));
 
         assertEquals("O status informado é inválido: INVALID", ex.getMessage());
     }
 
+    @Test
+    @DisplayName("Should throw exception when details cursor does not match requested ordering")
+    void shouldThrowExceptionWhenDetailsCursorDoesNotMatchOrdering() {
+        // Arrange
+        String cursor = encodeCursor("order_date", "desc", "2025-01-10T10:00", "a1b2c3");
+
+        // Act & Assert
+        ClientErrorException ex = assertThrows(ClientErrorException.class, () ->
+                orderService.findFilteredOrdersDetails(null, null, null, null, null, null, null, 0, 10, "asc", "order_date", cursor, null));
+
+        assertEquals("O cursor informado não corresponde à ordenação solicitada.", ex.getMessage());
+    }
+
     // método findFilteredRelevantOrderData
     @Test
     @DisplayName("Should return relevant order data successfully")
@@ -734,18 +808,18 @@ class OrderServiceTest {
         expected.setItems(List.of(new RelevantOrderDataDto()));
 
         when(orderRepository.findFilteredRelevantOrderData(
-                eq(clientId), eq(start), eq(end), eq(status), eq(page), eq(lines), eq(direction), anyString()))
+                eq(clientId), eq(start), eq(end), eq(status), eq(page), eq(lines), eq(direction), anyString(), any()))
                 .thenReturn(expected);
 
         // Act
         GlobalPageDto<RelevantOrderDataDto> result = orderService.findFilteredRelevantOrderData(
-                clientId, start, end, status, page, lines, direction, orderBy);
+                clientId, start, end, status, page, lines, direction, orderBy, null);
 
         // Assert
         assertEquals(expected, result);
         verify(clientRepository).existsClientById(clientId);
         verify(orderRepository).findFilteredRelevantOrderData(
-                eq(clientId), eq(start), eq(end), eq(status), eq(page), eq(lines), eq(direction), anyString());
+                eq(clientId), eq(start), eq(end), eq(status), eq(page), eq(lines), eq(direction), anyString(), any());
     }
 
     @Test
@@ -761,7 +835,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredRelevantOrderData(clientId, start, end, status, 0, 10, "asc", "order_date"));
+                orderService.findFilteredRelevantOrderData(clientId, start, end, status, 0, 10, "asc", "order_date", null));
 
         assertEquals("O id do cliente informado não está cadastrado.", exception.getMessage());
     }
@@ -779,7 +853,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredRelevantOrderData(clientId, start, end, status, 0, 10, "asc", "order_date"));
+                orderService.findFilteredRelevantOrderData(clientId, start, end, status, 0, 10, "asc", "order_date", null));
 
         assertEquals("O filtro data/hora de ínicio não pode estar no futuro.", exception.getMessage());
     }
@@ -797,7 +871,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredRelevantOrderData(clientId, start, end, status, 0, 10, "asc", "order_date"));
+                orderService.findFilteredRelevantOrderData(clientId, start, end, status, 0, 10, "asc", "order_date", null));
 
         assertEquals("O filtro data/hora final não pode estar no futuro.", exception.getMessage());
     }
@@ -815,7 +889,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredRelevantOrderData(clientId, start, end, status, 0, 10, "asc", "order_date"));
+                orderService.findFilteredRelevantOrderData(clientId, start, end, status, 0, 10, "asc", "order_date", null));
 
         assertEquals("O filtro data/hora de ínicio não pode ser após a data final.", exception.getMessage());
     }
@@ -833,7 +907,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredRelevantOrderData(clientId, start, end, invalidStatus, 0, 10, "asc", "order_date"));
+                orderService.findFilteredRelevantOrderData(clientId, start, end, invalidStatus, 0, 10, "asc", "order_date", null));
 
         assertEquals("O status informado é inválido: SHIPPED", exception.getMessage());
     }
@@ -860,18 +934,18 @@ class OrderServiceTest {
         // Como não tem validação de cliente aqui, não mockamos clientRepository
         when(orderRepository.findFilteredClientSalesReport(
                 eq(start), eq(end), eq(minOrder), eq(maxOrder), eq(status.toUpperCase()),
-                eq(page), eq(lines), eq(direction), anyString()))
+                eq(page), eq(lines), eq(direction), anyString(), any()))
                 .thenReturn(expected);
 
         // Act
         GlobalPageDto<ClientSalesReportDto> result = orderService.findFilteredClientSalesReport(
-                start, end, minOrder, maxOrder, status, page, lines, direction, orderBy);
+                start, end, minOrder, maxOrder, status, page, lines, direction, orderBy, null);
 
         // Assert
         assertEquals(expected, result);
         verify(orderRepository).findFilteredClientSalesReport(
                 eq(start), eq(end), eq(minOrder), eq(maxOrder), eq(status.toUpperCase()),
-                eq(page), eq(lines), eq(direction), anyString());
+                eq(page), eq(lines), eq(direction), anyString(), any());
     }
 
     @Test
@@ -894,18 +968,18 @@ class OrderServiceTest {
 
         when(orderRepository.findFilteredClientSalesReport(
                 eq(start), eq(end), eq(minOrder), eq(maxOrder), eq(null),
-                eq(0), eq(10), eq("asc"), eq("COUNT(o.id)")))
+                eq(0), eq(10), eq("asc"), eq("COUNT(o.id)"), any()))
                 .thenReturn(expected);
 
         // Act
         GlobalPageDto<ClientSalesReportDto> result = orderService.findFilteredClientSalesReport(
-                start, end, minOrder, maxOrder, status, page, linesPerPage, direction, orderBy);
+                start, end, minOrder, maxOrder, status, page, linesPerPage, direction, orderBy, null);
 
         // Assert
         assertEquals(expected, result);
         verify(orderRepository).findFilteredClientSalesReport(
                 eq(start), eq(end), eq(minOrder), eq(maxOrder), eq(null),
-                eq(0), eq(10), eq("asc"), eq("COUNT(o.id)"));
+                eq(0), eq(10), eq("asc"), eq("COUNT(o.id)"), any());
     }
 
     @Test
@@ -919,7 +993,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredClientSalesReport(start, null, minOrder, maxOrder, status, 0, 10, "asc", "client_name")
+                orderService.findFilteredClientSalesReport(start, null, minOrder, maxOrder, status, 0, 10, "asc", "client_name", null)
         );
 
         assertEquals("O filtro data/hora de ínicio não pode estar no futuro.", exception.getMessage());
@@ -936,7 +1010,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredClientSalesReport(null, endFuture, minOrder, maxOrder, status, 0, 10, "asc", "client_id")
+                orderService.findFilteredClientSalesReport(null, endFuture, minOrder, maxOrder, status, 0, 10, "asc", "client_id", null)
         );
 
         assertEquals("O filtro data/hora final não pode estar no futuro.", exception.getMessage());
@@ -954,7 +1028,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "total_orders")
+                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "total_orders", null)
         );
 
         assertEquals("O filtro data/hora de ínicio não pode ser após a data final.", exception.getMessage());
@@ -972,7 +1046,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "total_amount")
+                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "total_amount", null)
         );
 
         assertEquals("O filtro mínimo de pedidos deve ser maior que 0.", exception.getMessage());
@@ -990,7 +1064,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "client_id")
+                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "client_id", null)
         );
 
         assertEquals("O filtro máximo de pedidos deve ser maior que 0.", exception.getMessage());
@@ -1008,7 +1082,7 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "client_name")
+                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "client_name", null)
         );
 
         assertEquals("O filtro mínimo de pedidos não pode ser maior que o máximo de pedidos informado.", exception.getMessage());
@@ -1026,10 +1100,276 @@ class OrderServiceTest {
 
         // Act & Assert
         ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
-                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "total_orders")
+                orderService.findFilteredClientSalesReport(start, end, minOrder, maxOrder, status, 0, 10, "asc", "total_orders", null)
         );
 
         assertEquals("O status informado é inválido: SHIPPED", exception.getMessage());
     }
-}
 
+    // Método exportOrdersDetails
+    @Test
+    @DisplayName("Should stream one CSV line per order detail after the header")
+    void shouldStreamOneCsvLinePerOrderDetailAfterTheHeader() throws Exception {
+        // Arrange
+        UUID orderId = UUID.randomUUID();
+        GlobalFullDetailsDto orderDetails = new GlobalFullDetailsDto();
+        OrderDto order = new OrderDto();
+        order.setId(orderId);
+        order.setOrderDate(LocalDateTime.of(2024, 5, 1, 14, 0));
+        order.setStatus("PAID");
+        orderDetails.setOrder(order);
+        ClientDto client = new ClientDto();
+        client.setId(1L);
+        client.setName("Wayne, Bruce");
+        client.setEmail("brucewayne@gmail.com");
+        orderDetails.setClient(client);
+        ItemOrderDto itemOrder = new ItemOrderDto();
+        itemOrder.setQuantity(2);
+        itemOrder.setTotalPrice(39.8);
+        orderDetails.setItemOrder(itemOrder);
+
+        doAnswer(invocation -> {
+            Consumer<GlobalFullDetailsDto> consumer = invocation.getArgument(9);
+            consumer.accept(orderDetails);
+            return null;
+        }).when(orderRepository).streamFilteredOrdersDetails(any(), any(), any(), any(), any(), any(), any(),
+                eq("asc"), eq("o.order_date"), any());
+
+        // Act
+        StreamingResponseBody body = orderService.exportOrdersDetails(null, null, null, null, null, null, null,
+                "asc", "order_date", ExportFormat.CSV);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+
+        // Assert
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("order_id,order_date,order_status"));
+        assertEquals(orderId + ",2024-05-01T14:00,PAID,1,\"Wayne, Bruce\",brucewayne@gmail.com,2,39.8", lines[1]);
+    }
+
+    @Test
+    @DisplayName("Should validate export filters before the response starts streaming")
+    void shouldValidateExportFiltersBeforeTheResponseStartsStreaming() {
+        // Act & Assert
+        assertThrows(ClientErrorException.class, () -> orderService.exportOrdersDetails(null, null, null, null,
+                null, null, "INVALID", "asc", "order_date", ExportFormat.NDJSON));
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    // Método saveOrdersBatch
+    @Test
+    @DisplayName("Should save the valid orders of a batch and report the invalid rows in input order")
+    void shouldSaveValidOrdersOfABatchAndReportInvalidRowsInInputOrder() {
+        // Arrange
+        OrderDto validOrder = new OrderDto();
+        validOrder.setClientId(1L);
+        validOrder.setStatus("COMPLETED");
+
+        OrderDto unknownClientOrder = new OrderDto();
+        unknownClientOrder.setClientId(99L);
+        unknownClientOrder.setStatus("COMPLETED");
+
+        OrderDto invalidStatusOrder = new OrderDto();
+        invalidStatusOrder.setClientId(1L);
+        invalidStatusOrder.setStatus("SHIPPED");
+
+        OrderDto secondValidOrder = new OrderDto();
+        secondValidOrder.setClientId(1L);
+        secondValidOrder.setStatus("pending");
+
+        when(clientRepository.findExistingClientIds(Set.of(1L, 99L))).thenReturn(Set.of(1L));
+
+        OrderDto firstSaved = new OrderDto();
+        firstSaved.setId(UUID.randomUUID());
+        OrderDto secondSaved = new OrderDto();
+        secondSaved.setId(UUID.randomUUID());
+        when(orderRepository.saveOrdersBatch(anyList())).thenReturn(List.of(firstSaved, secondSaved));
+
+        // Act
+        BatchResultDto<OrderDto> result = orderService.saveOrdersBatch(
+                List.of(validOrder, unknownClientOrder, invalidStatusOrder, secondValidOrder));
+
+        // Assert
+        assertEquals(2, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(firstSaved, result.getItems().get(0).getItem());
+        assertEquals("Não existe cliente cadastrado com o id informado: 99", result.getItems().get(1).getError());
+        assertEquals("O status informado é inválido: SHIPPED", result.getItems().get(2).getError());
+        assertEquals(secondSaved, result.getItems().get(3).getItem());
+        assertEquals(3, result.getItems().get(3).getIndex());
+
+        verify(clientRepository, never()).existsClientById(any());
+        verify(orderRepository).saveOrdersBatch(argThat(orders -> orders.size() == 2
+                && orders.get(1).getStatus() == OrderStatus.PENDING));
+    }
+
+    @Test
+    @DisplayName("Should reject an empty order batch")
+    void shouldRejectAnEmptyOrderBatch() {
+        // Act & Assert
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> orderService.saveOrdersBatch(new ArrayList<>()));
+
+        assertEquals("O lote deve conter entre 1 e 1000 pedidos.", exception.getMessage());
+        verifyNoInteractions(orderRepository);
+    }
+
+    // Método saveFullOrder
+    @Test
+    @DisplayName("Should save the order and its items in one call and return the whole aggregate")
+    void shouldSaveTheOrderAndItsItemsInOneCall() {
+        // Arrange
+        ItemOrderDto item = new ItemOrderDto();
+        item.setProductId(UUID.randomUUID());
+        item.setQuantity(3);
+
+        FullOrderDto fullOrderDto = new FullOrderDto();
+        fullOrderDto.setClientId(1L);
+        fullOrderDto.setStatus("pending");
+        fullOrderDto.setItems(List.of(item));
+
+        clientModel.setName("Bruce Wayne");
+        when(clientRepository.findClientModelById(1L)).thenReturn(clientModel);
+
+        OrderDto savedOrder = new OrderDto();
+        savedOrder.setId(UUID.randomUUID());
+        when(orderRepository.saveOrder(any())).thenReturn(savedOrder);
+
+        ItemOrderDto savedItem = new ItemOrderDto();
+        savedItem.setQuantity(3);
+        savedItem.setPrice(3.35);
+        when(itemOrderService.saveItemOrdersOfNewOrder(any(), eq(List.of(item)))).thenReturn(List.of(savedItem));
+
+        // Act
+        FullOrderDto result = orderService.saveFullOrder(fullOrderDto);
+
+        // Assert
+        assertEquals(savedOrder, result.getOrder());
+        assertEquals("Bruce Wayne", result.getClient().getName());
+        assertEquals(10.05, result.getItems().get(0).getTotalPrice());
+
+        verify(clientRepository, never()).existsClientById(any());
+        verify(itemOrderService).saveItemOrdersOfNewOrder(argThat(order -> savedOrder.getId().equals(order.getId())
+                && order.getStatus() == OrderStatus.PENDING), eq(List.of(item)));
+    }
+
+    @Test
+    @DisplayName("Should reject a full order without items before writing anything")
+    void shouldRejectAFullOrderWithoutItems() {
+        // Arrange
+        FullOrderDto fullOrderDto = new FullOrderDto();
+        fullOrderDto.setClientId(1L);
+        fullOrderDto.setStatus("PENDING");
+
+        // Act & Assert
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> orderService.saveFullOrder(fullOrderDto));
+
+        assertEquals("O pedido deve conter entre 1 e 1000 itens.", exception.getMessage());
+        verifyNoInteractions(orderRepository, clientRepository);
+    }
+
+
+    // Método updateOrdersStatusBulk
+    @Test
+    @DisplayName("Should update pending orders in bulk and report the skipped ids in request order")
+    void shouldUpdateOrdersStatusBulkAndReportSkippedIds() {
+        UUID pendingId = UUID.randomUUID();
+        UUID completedId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+
+        OrderStatusBulkDto request = new OrderStatusBulkDto();
+        request.setStatus("completed");
+        request.setIds(List.of(pendingId, completedId, pendingId, missingId));
+
+        when(orderRepository.updatePendingStatusByIds(any(), eq(OrderStatus.COMPLETED))).thenReturn(Set.of(pendingId));
+
+        OrderStatusBulkDto result = orderService.updateOrdersStatusBulk(request);
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(1, result.getUpdated());
+        assertEquals(List.of(completedId, missingId), result.getSkippedIds());
+        verify(orderRepository, never()).findOrderById(any());
+        verify(orderRepository, never()).existsOrderById(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a bulk status update that sends both ids and a filter")
+    void shouldRejectOrdersStatusBulkWithIdsAndFilter() {
+        OrderStatusBulkDto request = new OrderStatusBulkDto();
+        request.setStatus("CANCELLED");
+        request.setIds(List.of(UUID.randomUUID()));
+        request.setClientId(1L);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> orderService.updateOrdersStatusBulk(request));
+
+        assertEquals("Informe a lista de ids ou o filtro de cliente/período, não ambos.", exception.getMessage());
+        verifyNoInteractions(orderRepository);
+    }
+
+    // Método acceptOrder
+    @Test
+    @DisplayName("Should accept an order into the journal without writing to tb_orders and find it by id")
+    void shouldAcceptOrderIntoJournalAndFindItById() {
+        OrderDto request = new OrderDto();
+        request.setClientId(1L);
+        request.setStatus("pending");
+
+        when(clientRepository.existsClientById(1L)).thenReturn(true);
+        when(orderJournal.append(any(OrderDto.class))).thenReturn(true);
+
+        OrderDto accepted = orderService.acceptOrder(request);
+
+        assertNotNull(accepted.getId());
+        assertEquals("PENDING", accepted.getStatus());
+        assertFalse(accepted.getPersisted());
+        verify(orderRepository, never()).saveOrder(any());
+
+        // Enquanto não é gravado, a consulta por id responde pelo journal
+        when(orderJournal.findPendingOrder(accepted.getId())).thenReturn(accepted);
+        assertSame(accepted, orderService.findById(accepted.getId()));
+        verify(orderRepository, never()).existsOrderById(any());
+    }
+
+    @Test
+    @DisplayName("Should save the order synchronously when the journal does not accept it")
+    void shouldSaveOrderSynchronouslyWhenJournalIsFull() {
+        OrderDto request = new OrderDto();
+        request.setClientId(1L);
+        request.setStatus("PENDING");
+
+        OrderDto saved = new OrderDto();
+        saved.setId(UUID.randomUUID());
+
+        when(clientRepository.existsClientById(1L)).thenReturn(true);
+        when(orderJournal.append(any(OrderDto.class))).thenReturn(false);
+        when(orderRepository.saveOrder(any())).thenReturn(saved);
+
+        assertSame(saved, orderService.acceptOrder(request));
+        verify(orderRepository).saveOrder(any());
+    }
+
+    @Test
+    @DisplayName("Should not build an ETag for an order that is still only in the journal")
+    void shouldNotBuildETagForJournaledOrder() {
+        UUID id = UUID.randomUUID();
+        when(orderJournal.findPendingOrder(id)).thenReturn(new OrderDto());
+
+        assertNull(orderService.findETagById(id));
+        verify(orderRepository, never()).findOrderETagById(any());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when the order of the conditional request does not exist")
+    void shouldThrowExceptionWhenOrderOfConditionalRequestDoesNotExist() {
+        UUID id = UUID.randomUUID();
+        when(orderRepository.findOrderETagById(id)).thenReturn(null);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> orderService.findETagById(id));
+
+        assertEquals("O id do pedido não está cadastrado.", exception.getMessage());
+    }
+}
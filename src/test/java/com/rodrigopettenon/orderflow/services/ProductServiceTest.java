@@ -1,5 +1,9 @@
 package com.rodrigopettenon.orderflow.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rodrigopettenon.orderflow.dtos.CursorDto;
+import com.rodrigopettenon.orderflow.models.ExportFormat;
+import com.rodrigopettenon.orderflow.models.TotalMode;
 import com.rodrigopettenon.orderflow.dtos.GlobalPageDto;
 import com.rodrigopettenon.orderflow.dtos.ProductDto;
 import com.rodrigopettenon.orderflow.exceptions.ClientErrorException;
@@ -11,14 +15,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.decodeCursor;
+import static com.rodrigopettenon.orderflow.utils.PaginationUtil.encodeCursor;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +44,12 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -46,14 +66,15 @@ class ProductServiceTest {
         productDto.setExpiration(LocalDate.of(3000, 5, 2)); // Data de vencimento válida
         productDto.setSku("F2I0N2I6"); // SKU válido
 
-        // Simulamos que o produto não existe no banco
-        when(productRepository.existsProductBySku(productDto.getSku())).thenReturn(false);
+        // Simulamos que o INSERT foi aceito (SKU ainda não cadastrado)
+        when(productRepository.saveProduct(productDto)).thenReturn(true);
 
         // Executamos o método que queremos testar
         productService.saveProduct(productDto);
 
         // Verificamos se método save do repository foi usado pois todos dados enviados são válidos
         verify(productRepository).saveProduct(productDto);
+        verify(productRepository, never()).existsProductBySku(any());
 
     }
 
@@ -315,8 +336,8 @@ class ProductServiceTest {
         productDto.setExpiration(LocalDate.of(3000, 3, 6)); // Data de vencimento válida
         productDto.setSku("TIO2U6RB"); // SKU que válido porém já "cadastrado"
 
-        // Simulamos que o SKU já está cadastrado no banco
-        when(productRepository.existsProductBySku(productDto.getSku())).thenReturn(true);
+        // Simulamos que o índice único recusou o INSERT pois o SKU já está cadastrado no banco
+        when(productRepository.saveProduct(productDto)).thenReturn(false);
 
         // Afirma exceção pois o SKU "supostamente" já está cadastrado no banco
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
@@ -326,8 +347,8 @@ class ProductServiceTest {
         // Verificamos se a mensagem de erro é igual a esperada
         assertEquals("O SKU informado já está cadastrado.", exception.getMessage());
 
-        // Verificamos que o método do repository não foi usado (porque falhou antes)
-        verify(productRepository, never()).saveProduct(any());
+        // Nenhuma consulta de existência é feita antes ou depois do INSERT
+        verify(productRepository, never()).existsProductBySku(any());
     }
 
 
@@ -929,11 +950,11 @@ class ProductServiceTest {
 
         // Simulamos que ao buscar pelos filtros informados encontramos o DTO esperado
         when(productRepository.findFilteredProducts(name, sku, minPrice, maxPrice,
-                page, linesPerPage, direction, orderBy)).thenReturn(expectedProductPageDto);
+                page, linesPerPage, direction, orderBy, null, TotalMode.EXACT)).thenReturn(expectedProductPageDto);
 
         // Executamos o método que queremos testar
         GlobalPageDto<ProductDto> returnedProductPageDto = productService.findFilteredProducts(name, sku, minPrice, maxPrice,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos se todos os dados retornados estão de acordo com os dados esperados
         assertEquals(returnedProductPageDto.getItems().get(0).getName(), expectedProductPageDto.getItems().get(0).getName());
@@ -944,7 +965,7 @@ class ProductServiceTest {
 
         // Verificamos que o método do repository foi usado (porque tudo foi informado corretamente)
         verify(productRepository).findFilteredProducts(name, sku, minPrice, maxPrice,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, TotalMode.EXACT);
     }
 
     @Test
@@ -958,16 +979,16 @@ class ProductServiceTest {
 
         // Simulamos que no repository a direction muda para "asc"
         when(productRepository.findFilteredProducts(any(), any(), any(), any(), eq(page),
-                eq(linesPerPage), eq("asc"), eq(orderBy))).thenReturn(new GlobalPageDto<>());
+                eq(linesPerPage), eq("asc"), eq(orderBy), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com a direction inválida
         productService.findFilteredProducts(null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos que no método do repository a direction que foi usada foi "asc" mesmo tendo informado uma direction inválida
         // Isso porque o service converteu para a direction default
         verify(productRepository).findFilteredProducts(any(), any(), any(), any(), eq(page),
-                eq(linesPerPage), eq("asc"), eq(orderBy));
+                eq(linesPerPage), eq("asc"), eq(orderBy), any(), any());
     }
 
     @Test
@@ -981,16 +1002,16 @@ class ProductServiceTest {
 
         // Simulamos que no repository a direction muda para "asc" mesmo tendo sido enviada como null
         when(productRepository.findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy))).thenReturn(new GlobalPageDto<>());
+                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy), any(), any())).thenReturn(new GlobalPageDto<>());
 
         //Executamos o método que queremos testar com a direction null
         productService.findFilteredProducts(null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos que no método do repository a direction usada foi "asc" mesmo tendo sido informada uma null no service
         // Isso porque o service converteu para a direction default
         verify(productRepository).findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy));
+                eq(page), eq(linesPerPage), eq("asc"), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1004,16 +1025,16 @@ class ProductServiceTest {
 
         // Simulamos que o método do repository recebe o orderBy "name" mesmo tendo sido enviado como "tamanho" no service
         when(productRepository.findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq(direction), eq("name"))).thenReturn(new GlobalPageDto<>());
+                eq(page), eq(linesPerPage), eq(direction), eq("name"), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com orderBy inválido
         productService.findFilteredProducts(null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos que no método do repository a orderBy usada foi "name" mesmo tendo sido informada como "tamanho" no service
         // Isso porque o service converteu para a direction default
         verify(productRepository).findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq(direction), eq("name"));
+                eq(page), eq(linesPerPage), eq(direction), eq("name"), any(), any());
     }
 
     @Test
@@ -1027,16 +1048,16 @@ class ProductServiceTest {
 
         // Simulamos que o método do repository recebe o orderBy "name" mesmo tendo sido enviado como null
         when(productRepository.findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq(direction), eq("name"))).thenReturn(new GlobalPageDto<>());
+                eq(page), eq(linesPerPage), eq(direction), eq("name"), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com orderBy null
         productService.findFilteredProducts(null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos que no método do repository a orderBy usada foi "name" mesmo tendo sido informada como null no service
         // Isso porque o service converteu para a direction default
         verify(productRepository).findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(linesPerPage), eq(direction), eq("name"));
+                eq(page), eq(linesPerPage), eq(direction), eq("name"), any(), any());
     }
 
     @Test
@@ -1050,16 +1071,16 @@ class ProductServiceTest {
 
         // Simulamos que o método do repository recebe o page "0" mesmo tendo sido informado como "-1"
         when(productRepository.findFilteredProducts(any(), any(), any(), any(),
-                eq(0), eq(linesPerPage), eq(direction), eq(orderBy))).thenReturn(new GlobalPageDto<>());
+                eq(0), eq(linesPerPage), eq(direction), eq(orderBy), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com page negativa
         productService.findFilteredProducts(null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos que no método do repository a page usada foi "0" mesmo tendo sido informada como "-1" no service
         // Isso porque o service converteu para a direction default
         verify(productRepository).findFilteredProducts(any(), any(), any(), any(),
-                eq(0), eq(linesPerPage), eq(direction), eq(orderBy));
+                eq(0), eq(linesPerPage), eq(direction), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1073,16 +1094,16 @@ class ProductServiceTest {
 
         // Simulamos que o método do repository recebe o page "0" mesmo tendo sido informado como null
         when(productRepository.findFilteredProducts(any(), any(), any(), any(),
-                eq(0), eq(linesPerPage), eq(direction), eq(orderBy))).thenReturn(new GlobalPageDto<>());
+                eq(0), eq(linesPerPage), eq(direction), eq(orderBy), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com page null
         productService.findFilteredProducts(null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos que no método do repository a page usada foi "0" mesmo tendo sido informada como null no service
         // Isso porque o service converteu para a direction default
         verify(productRepository).findFilteredProducts(any(), any(), any(), any(),
-                eq(0), eq(linesPerPage), eq(direction), eq(orderBy));
+                eq(0), eq(linesPerPage), eq(direction), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1096,16 +1117,16 @@ class ProductServiceTest {
 
         // Simulamos que o método do repository recebe o linesPerPage "10" mesmo tendo sido informado como "-1"
         when(productRepository.findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(10), eq(direction), eq(orderBy))).thenReturn(new GlobalPageDto<>());
+                eq(page), eq(10), eq(direction), eq(orderBy), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com linesPerPage negativo
         productService.findFilteredProducts(null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos que no método do repository o linesPerPage usado foi "0" mesmo tendo sido informado como "-1" no service
         // Isso porque o service converteu para a direction default
         verify(productRepository).findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(10), eq(direction), eq(orderBy));
+                eq(page), eq(10), eq(direction), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1119,16 +1140,16 @@ class ProductServiceTest {
 
         // Simulamos que o método do repository recebe o linesPerPage "10" mesmo tendo sido informado como null
         when(productRepository.findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(10), eq(direction), eq(orderBy))).thenReturn(new GlobalPageDto<>());
+                eq(page), eq(10), eq(direction), eq(orderBy), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com linesPerPage null
         productService.findFilteredProducts(null, null, null, null,
-                page, linesPerPage, direction, orderBy);
+                page, linesPerPage, direction, orderBy, null, null);
 
         // Verificamos que no método do repository o linesPerPage usado foi "0" mesmo tendo sido informado como null no service
         // Isso porque o service converteu para a direction default
         verify(productRepository).findFilteredProducts(any(), any(), any(), any(),
-                eq(page), eq(10), eq(direction), eq(orderBy));
+                eq(page), eq(10), eq(direction), eq(orderBy), any(), any());
     }
 
     @Test
@@ -1139,16 +1160,16 @@ class ProductServiceTest {
 
         // Simulamos que no repository mesmo tendo sido enviado um nome com espaços em branco ele converte para null
         when(productRepository.findFilteredProducts(eq(null), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(new GlobalPageDto<>());
+                any(), any(), any(), any(), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com o nome que contém apenas espaços em branco
         productService.findFilteredProducts(name, null, null, null,
-                null, null, null, null);
+                null, null, null, null, null, null);
 
         // Verificamos que no método do repository o nome usado foi null mesmo que tendo sido preenchido com espaços em branco no service
         // Isso porque o service converteu para null.
         verify(productRepository).findFilteredProducts(eq(null), any(), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1159,16 +1180,16 @@ class ProductServiceTest {
 
         // Simulamos que no repository mesmo tendo sido enviado um sku com espaços em branco ele converte para null
         when(productRepository.findFilteredProducts(any(), eq(null), any(), any(),
-                any(), any(), any(), any())).thenReturn(new GlobalPageDto<>());
+                any(), any(), any(), any(), any(), any())).thenReturn(new GlobalPageDto<>());
 
         // Executamos o método que queremos testar com o sku que contém apenas espaços em branco
         productService.findFilteredProducts(null, sku, null, null,
-                null, null, null, null);
+                null, null, null, null, null, null);
 
         // Verificamos que no método do repository o sku usado foi null mesmo que tendo sido preenchido com espaços em branco no service
         // Isso porque o service converteu para null.
         verify(productRepository).findFilteredProducts(any(), eq(null), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1180,7 +1201,7 @@ class ProductServiceTest {
         // Afirmamos uma exceção pois o SKU não contém 8 caracteres
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
            productService.findFilteredProducts(null, sku, null, null,
-                   null, null, null, null);
+                   null, null, null, null, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1188,7 +1209,7 @@ class ProductServiceTest {
 
         // Verificamos se o método do repository não foi usado (porque falhou antes)
         verify(productRepository, never()).findFilteredProducts(any(), any(), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1200,7 +1221,7 @@ class ProductServiceTest {
         // Afirmamos uma exceção pois o SKU não é alfanumérico
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             productService.findFilteredProducts(null, sku, null, null,
-                    null, null, null, null);
+                    null, null, null, null, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1208,7 +1229,7 @@ class ProductServiceTest {
 
         // Verificamos se o método do repository não foi usado (porque falhou antes)
         verify(productRepository, never()).findFilteredProducts(any(), any(), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1220,7 +1241,7 @@ class ProductServiceTest {
         // Afirmamos uma exceção pois o preço minimo é menor ou igual a zero
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             productService.findFilteredProducts(null, null, minPrice, null,
-                    null, null, null, null);
+                    null, null, null, null, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1228,7 +1249,7 @@ class ProductServiceTest {
 
         // Verificamos se o método do repository não foi usado (porque falhou antes)
         verify(productRepository, never()).findFilteredProducts(any(), any(), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1240,7 +1261,7 @@ class ProductServiceTest {
         // Afirmamos uma exceção pois o preço máximo é menor ou igual a zero
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             productService.findFilteredProducts(null, null, null, maxPrice,
-                    null, null, null, null);
+                    null, null, null, null, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1248,7 +1269,7 @@ class ProductServiceTest {
 
         // Verificamos se o método do repository não foi usado (porque falhou antes)
         verify(productRepository, never()).findFilteredProducts(any(), any(), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1261,7 +1282,7 @@ class ProductServiceTest {
         // Afirmamos uma exceção pois o preço minimo é maior que o preço maximo
         ClientErrorException exception = assertThrows(ClientErrorException.class, () -> {
             productService.findFilteredProducts(null, null, minPrice, maxPrice,
-                    null, null, null, null);
+                    null, null, null, null, null, null);
         });
 
         // Verificamos se a mensagem de erro é igual a esperada
@@ -1269,7 +1290,7 @@ class ProductServiceTest {
 
         // Verificamos se o método do repository não foi usado (porque falhou antes)
         verify(productRepository, never()).findFilteredProducts(any(), any(), any(), any(),
-                any(), any(), any(), any());
+                any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1301,13 +1322,13 @@ class ProductServiceTest {
         expectedPageDto.setTotal(total.longValue());
 
         // Simulamos o retorno do repository
-        when(productRepository.findAllProducts(page, linesPerPage, direction, orderBy))
+        when(productRepository.findAllProducts(page, linesPerPage, direction, orderBy, null))
                 .thenReturn(productList);
         when(productRepository.countAllProducts())
                 .thenReturn(total.longValue());
 
         // Act – executamos o método que queremos testar
-        GlobalPageDto<ProductDto> returnedPageDto = productService.findAllProducts(page, linesPerPage, direction, orderBy);
+        GlobalPageDto<ProductDto> returnedPageDto = productService.findAllProducts(page, linesPerPage, direction, orderBy, null);
 
         // Assert – verificamos se os dados retornados batem com os esperados
         assertEquals(productList.get(0).getName(), returnedPageDto.getItems().get(0).getName());
@@ -1317,7 +1338,120 @@ class ProductServiceTest {
         assertEquals(total.longValue(), returnedPageDto.getTotal());
 
         // Verificamos que o método do repository foi chamado corretamente
-        verify(productRepository).findAllProducts(page, linesPerPage, direction, orderBy);
+        verify(productRepository).findAllProducts(page, linesPerPage, direction, orderBy, null);
+    }
+
+    @Test
+    @DisplayName("Should not count all products again when paging by cursor.")
+    void shouldNotCountAllProductsWhenPagingByCursor() {
+        // Arrange
+        String cursor = encodeCursor("name", "asc", "Caneta", "ABC12345");
+
+        // Act
+        GlobalPageDto<ProductDto> returnedPageDto = productService.findAllProducts(0, 10, "asc", "name", cursor);
+
+        // Assert
+        assertNull(returnedPageDto.getTotal());
+        verify(productRepository, never()).countAllProducts();
     }
 
+    @Test
+    @DisplayName("Should return next cursor breaking ties by SKU when the filtered page is full.")
+    void shouldReturnNextCursorBreakingTiesBySkuWhenTheFilteredPageIsFull() {
+        // Arrange - página cheia ordenada por preço
+        ProductDto lastProduct = new ProductDto();
+        lastProduct.setName("Mouse Gamer");
+        lastProduct.setSku("MOU45644");
+        lastProduct.setPrice(150.0);
+
+        GlobalPageDto<ProductDto> repositoryPageDto = new GlobalPageDto<>();
+        repositoryPageDto.setItems(List.of(lastProduct));
+        repositoryPageDto.setTotal(3L);
+
+        when(productRepository.findFilteredProducts(null, null, null, null, 0, 1, "desc", "price", null, TotalMode.EXACT))
+                .thenReturn(repositoryPageDto);
+
+        // Act
+        GlobalPageDto<ProductDto> returnedPageDto = productService.findFilteredProducts(null, null, null, null,
+                0, 1, "desc", "price", null, null);
+
+        // Assert - o cursor carrega o preço e o SKU do último produto
+        CursorDto nextCursor = decodeCursor(returnedPageDto.getNextCursor());
+        assertEquals("price", nextCursor.getOrderBy());
+        assertEquals("desc", nextCursor.getDirection());
+        assertEquals("150.0", nextCursor.getSortValue());
+        assertEquals("MOU45644", nextCursor.getLastKey());
+    }
+
+    //Método exportProducts
+    @Test
+    @DisplayName("Should stream one JSON line per product when exporting as NDJSON.")
+    void shouldStreamOneJsonLinePerProductWhenExportingAsNdjson() throws Exception {
+        // Arrange
+        ProductDto firstProduct = new ProductDto();
+        firstProduct.setName("Bala Fini");
+        firstProduct.setSku("F2I0N2I6");
+        firstProduct.setPrice(4.99);
+        firstProduct.setExpiration(LocalDate.of(3000, 5, 2));
+
+        ProductDto secondProduct = new ProductDto();
+        secondProduct.setName("Chiclete");
+        secondProduct.setSku("C1H2I3C4");
+        secondProduct.setPrice(1.5);
+        secondProduct.setExpiration(LocalDate.of(3000, 1, 10));
+
+        doAnswer(invocation -> {
+            Consumer<ProductDto> consumer = invocation.getArgument(0);
+            consumer.accept(firstProduct);
+            consumer.accept(secondProduct);
+            return null;
+        }).when(productRepository).streamAllProducts(any());
+
+        // Act
+        StreamingResponseBody body = productService.exportProducts(ExportFormat.NDJSON);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+
+        // Assert (uma linha JSON por produto, sem envelope nem lista)
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"name\":\"Bala Fini\",\"sku\":\"F2I0N2I6\",\"price\":4.99,\"expiration\":\"02/05/3000\"}", lines[0]);
+        assertEquals("C1H2I3C4", objectMapper.readTree(lines[1]).get("sku").asText());
+    }
+
+
+    // Método upsertProductsBySku
+    @Test
+    @DisplayName("Should reject the whole list when a SKU is repeated, before touching the database")
+    void shouldRejectBulkUpsertWithRepeatedSku() {
+        ProductDto first = new ProductDto();
+        first.setName("Camiseta Polo");
+        first.setSku("AB12CD34");
+        first.setPrice(79.99);
+        first.setExpiration(LocalDate.now().plusYears(1));
+
+        ProductDto repeated = new ProductDto();
+        repeated.setName("Camiseta Polo Azul");
+        repeated.setSku("AB12CD34");
+        repeated.setPrice(89.99);
+        repeated.setExpiration(LocalDate.now().plusYears(1));
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> productService.upsertProductsBySku(List.of(first, repeated)));
+
+        assertEquals("Produto 1: O SKU informado está repetido na lista.", exception.getMessage());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when the sku of the conditional request is not registered.")
+    void shouldThrowExceptionWhenSkuOfConditionalRequestIsNotRegistered() {
+        String sku = "A2R02ODC";
+        when(productRepository.findProductETagBySku(sku)).thenReturn(null);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> productService.findETagBySku(sku));
+
+        assertEquals("O SKU informado não está cadastrado.", exception.getMessage());
+        verify(productRepository, never()).findProductBySku(any());
+    }
 }
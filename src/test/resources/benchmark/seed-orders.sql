@@ -0,0 +1,29 @@
+-- Massa do OrderRepositoryTotalModeBenchmark (MySQL 8). Espera na sessão:
+--   @clients: clientes de benchmark (inseridos só os que ainda faltam)
+--   @orders:  pedidos a inserir nesta execução, no máximo 1.000.000
+--   @offset:  pedidos já inseridos antes, para as datas e os status seguirem a sequência
+-- O benchmark chama o script em blocos até tb_orders chegar ao tamanho pedido
+
+INSERT IGNORE INTO tb_clients (name, email, cpf, birth_date)
+WITH RECURSIVE seq (n) AS (SELECT 0 UNION ALL SELECT n + 1 FROM seq WHERE n < 999)
+SELECT CONCAT('Cliente Benchmark ', t.n),
+       CONCAT('benchmark', t.n, '@orderflow.test'),
+       LPAD(90000000000 + t.n, 11, '0'),
+       DATE_SUB('2000-01-01', INTERVAL t.n % 10000 DAY)
+FROM (SELECT a.n * 1000 + b.n AS n FROM seq a CROSS JOIN seq b) t
+WHERE t.n < @clients;
+
+-- Os ids de cliente podem ter buracos (auto_increment em INSERT ... SELECT): os pedidos usam a posição do cliente
+INSERT INTO tb_orders (id, client_id, order_date, status, row_version)
+WITH RECURSIVE seq (n) AS (SELECT 0 UNION ALL SELECT n + 1 FROM seq WHERE n < 999)
+SELECT UUID(),
+       c.id,
+       TIMESTAMP('2024-01-01') + INTERVAL ((t.n * 7919) % 63072000) SECOND,
+       ELT(1 + t.n % 3, 'PENDING', 'COMPLETED', 'CANCELLED'),
+       0
+FROM (SELECT @offset + a.n * 1000 + b.n AS n
+      FROM seq a CROSS JOIN seq b
+      WHERE a.n <= (@orders - 1) DIV 1000 AND a.n * 1000 + b.n < @orders) t
+JOIN (SELECT id, ROW_NUMBER() OVER (ORDER BY id) - 1 AS position
+      FROM tb_clients
+      WHERE email LIKE 'benchmark%@orderflow.test') c ON c.position = t.n % @clients;